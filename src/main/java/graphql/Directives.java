@@ -7,6 +7,7 @@ import graphql.language.StringValue;
 import graphql.schema.GraphQLDirective;
 
 import static graphql.Scalars.GraphQLBoolean;
+import static graphql.Scalars.GraphQLInt;
 import static graphql.Scalars.GraphQLString;
 import static graphql.introspection.Introspection.DirectiveLocation.ENUM_VALUE;
 import static graphql.introspection.Introspection.DirectiveLocation.FIELD;
@@ -83,6 +84,55 @@ public class Directives {
             .build();
 
 
+    /**
+     * The "defer" directive asks for a fragment to be delivered after the initial result.  It is not part of the
+     * default set of schema directives and needs to be added to a schema for it to be allowed in queries.
+     *
+     * @see graphql.execution.defer.DeferSupport
+     */
+    public static final GraphQLDirective DeferDirective = GraphQLDirective.newDirective()
+            .name("defer")
+            .description("Directs the executor to deliver this fragment after the initial result when the `if` argument is true")
+            .argument(newArgument()
+                    .name("if")
+                    .type(nonNull(GraphQLBoolean))
+                    .defaultValue(true)
+                    .description("Deferred when true."))
+            .argument(newArgument()
+                    .name("label")
+                    .type(GraphQLString)
+                    .description("A label to identify the deferred result by."))
+            .validLocations(FRAGMENT_SPREAD, INLINE_FRAGMENT)
+            .build();
+
+    /**
+     * The "stream" directive asks for the items of a list field after the first `initialCount` to be delivered after
+     * the initial result.  It is not part of the default set of schema directives and needs to be added to a schema
+     * for it to be allowed in queries.
+     *
+     * @see graphql.execution.defer.DeferSupport
+     */
+    public static final GraphQLDirective StreamDirective = GraphQLDirective.newDirective()
+            .name("stream")
+            .description("Directs the executor to deliver the list items after `initialCount` after the initial result when the `if` argument is true")
+            .argument(newArgument()
+                    .name("if")
+                    .type(nonNull(GraphQLBoolean))
+                    .defaultValue(true)
+                    .description("Streamed when true."))
+            .argument(newArgument()
+                    .name("label")
+                    .type(GraphQLString)
+                    .description("A label to identify the streamed results by."))
+            .argument(newArgument()
+                    .name("initialCount")
+                    .type(GraphQLInt)
+                    .defaultValue(0)
+                    .description("The number of list items to deliver in the initial result."))
+            .validLocations(FIELD)
+            .build();
+
+
     /**
      * The "deprecated" directive is special and is always available in a graphql schema
      * <p>
@@ -1,6 +1,7 @@
 package graphql;
 
 import graphql.cachecontrol.CacheControl;
+import graphql.execution.CancellationToken;
 import graphql.execution.ExecutionId;
 import graphql.execution.instrumentation.dataloader.DataLoaderDispatcherInstrumentationState;
 import org.dataloader.DataLoaderRegistry;
@@ -29,6 +30,7 @@ public class ExecutionInput {
     private final CacheControl cacheControl;
     private final ExecutionId executionId;
     private final Locale locale;
+    private final CancellationToken cancellationToken;
 
 
     @Internal
@@ -44,6 +46,7 @@ public class ExecutionInput {
         this.locale = builder.locale;
         this.localContext = builder.localContext;
         this.extensions = builder.extensions;
+        this.cancellationToken = builder.cancellationToken;
     }
 
     /**
@@ -125,6 +128,13 @@ public class ExecutionInput {
         return extensions;
     }
 
+    /**
+     * @return the token that cancels this execution or null if the execution cannot be cancelled
+     */
+    public CancellationToken getCancellationToken() {
+        return cancellationToken;
+    }
+
     /**
      * This helps you transform the current ExecutionInput object into another one by starting a builder with all
      * the current values and allows you to transform it how you want.
@@ -144,7 +154,8 @@ public class ExecutionInput {
                 .variables(this.variables)
                 .extensions(this.extensions)
                 .executionId(this.executionId)
-                .locale(this.locale);
+                .locale(this.locale)
+                .cancellationToken(this.cancellationToken);
 
         builderConsumer.accept(builder);
 
@@ -199,6 +210,7 @@ public class ExecutionInput {
         private CacheControl cacheControl = CacheControl.newCacheControl();
         private Locale locale;
         private ExecutionId executionId;
+        private CancellationToken cancellationToken;
 
         public Builder query(String query) {
             this.query = assertNotNull(query, () -> "query can't be null");
@@ -299,6 +311,18 @@ public class ExecutionInput {
             return this;
         }
 
+        /**
+         * Sets a token that can cancel the execution, say via a deadline created with
+         * {@link CancellationToken#withTimeout(java.time.Duration)}
+         *
+         * @param cancellationToken the token to cancel the execution with
+         * @return this builder
+         */
+        public Builder cancellationToken(CancellationToken cancellationToken) {
+            this.cancellationToken = cancellationToken;
+            return this;
+        }
+
         public ExecutionInput build() {
             return new ExecutionInput(this);
         }
@@ -0,0 +1,231 @@
+package graphql;
+
+import org.reactivestreams.Publisher;
+
+import java.io.IOException;
+import java.lang.reflect.Array;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import static graphql.Assert.assertNotNull;
+
+/**
+ * This writes an {@link ExecutionResult} as specification compliant JSON directly to an {@link Appendable} such as a
+ * {@link java.io.Writer} or a {@link StringBuilder}.
+ * <p>
+ * It is an allocation light writer that walks the result data in place rather than going via
+ * {@link ExecutionResult#toSpecification()} and a general purpose JSON library, which means that no intermediate copy of
+ * a large response is built up in memory before it is written.  It writes a completed result, so nothing is written
+ * before the whole result has been built.
+ * <p>
+ * The entries are written in the order of {@link ExecutionResult#toSpecification()}, that is "errors", "data" and
+ * then "extensions".  Maps become JSON objects, {@link Iterable}s and arrays become JSON arrays, {@link Number}s and
+ * {@link Boolean}s are written as is and all other values are written as JSON strings via {@link Object#toString()}.
+ * Non finite numbers such as NaN are written as null since JSON cannot represent them.
+ * <p>
+ * Extensions whose value is a {@link Publisher}, such as the deferred results of {@code @defer}, are left out since they
+ * are delivered separately.  Any other {@link Publisher} value, such as the data of a subscription, can not be written
+ * as JSON and is rejected.
+ */
+@PublicApi
+public class ExecutionResultJsonWriter {
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    /**
+     * Writes the execution result as JSON to the output
+     *
+     * @param executionResult the result to write
+     * @param out             the output to write to
+     *
+     * @throws IOException if the output cannot be written to
+     */
+    public void write(ExecutionResult executionResult, Appendable out) throws IOException {
+        assertNotNull(executionResult, () -> "executionResult must not be null");
+        assertNotNull(out, () -> "out must not be null");
+
+        out.append('{');
+        boolean first = true;
+        List<GraphQLError> errors = executionResult.getErrors();
+        if (errors != null && !errors.isEmpty()) {
+            writeKey("errors", out);
+            out.append('[');
+            boolean firstError = true;
+            for (GraphQLError error : errors) {
+                if (!firstError) {
+                    out.append(',');
+                }
+                writeValue(error.toSpecification(), out);
+                firstError = false;
+            }
+            out.append(']');
+            first = false;
+        }
+        if (executionResult.isDataPresent()) {
+            if (!first) {
+                out.append(',');
+            }
+            writeKey("data", out);
+            writeValue(executionResult.getData(), out);
+            first = false;
+        }
+        if (executionResult.getExtensions() != null) {
+            if (!first) {
+                out.append(',');
+            }
+            writeKey("extensions", out);
+            writeExtensions(executionResult.getExtensions(), out);
+        }
+        out.append('}');
+    }
+
+    /**
+     * Writes the execution result as a JSON string
+     *
+     * @param executionResult the result to write
+     *
+     * @return the JSON string of the result
+     */
+    public String writeAsString(ExecutionResult executionResult) {
+        StringBuilder sb = new StringBuilder();
+        try {
+            write(executionResult, sb);
+        } catch (IOException e) {
+            // a StringBuilder never throws IOException
+            return Assert.assertShouldNeverHappen("StringBuilder threw an IOException : %s", e.getMessage());
+        }
+        return sb.toString();
+    }
+
+    private void writeKey(String key, Appendable out) throws IOException {
+        writeString(key, out);
+        out.append(':');
+    }
+
+    private void writeValue(Object value, Appendable out) throws IOException {
+        if (value == null) {
+            out.append("null");
+        } else if (value instanceof CharSequence) {
+            writeString((CharSequence) value, out);
+        } else if (value instanceof Boolean) {
+            out.append(value.toString());
+        } else if (value instanceof Number) {
+            writeNumber((Number) value, out);
+        } else if (value instanceof Map) {
+            writeObject((Map<?, ?>) value, out);
+        } else if (value instanceof Iterable) {
+            writeArray(((Iterable<?>) value).iterator(), out);
+        } else if (value.getClass().isArray()) {
+            writeArray(value, out);
+        } else if (value instanceof Enum) {
+            writeString(((Enum<?>) value).name(), out);
+        } else if (value instanceof Publisher) {
+            throw new AssertException("A Publisher can not be written as JSON, the results of a subscription must be written one by one");
+        } else {
+            writeString(value.toString(), out);
+        }
+    }
+
+    private void writeExtensions(Map<?, ?> extensions, Appendable out) throws IOException {
+        out.append('{');
+        boolean first = true;
+        for (Map.Entry<?, ?> entry : extensions.entrySet()) {
+            if (entry.getValue() instanceof Publisher) {
+                continue;
+            }
+            if (!first) {
+                out.append(',');
+            }
+            writeKey(String.valueOf(entry.getKey()), out);
+            writeValue(entry.getValue(), out);
+            first = false;
+        }
+        out.append('}');
+    }
+
+    private void writeNumber(Number number, Appendable out) throws IOException {
+        if (number instanceof Double || number instanceof Float) {
+            double d = number.doubleValue();
+            if (Double.isNaN(d) || Double.isInfinite(d)) {
+                out.append("null");
+                return;
+            }
+        }
+        out.append(number.toString());
+    }
+
+    private void writeObject(Map<?, ?> map, Appendable out) throws IOException {
+        out.append('{');
+        boolean first = true;
+        for (Map.Entry<?, ?> entry : map.entrySet()) {
+            if (!first) {
+                out.append(',');
+            }
+            writeKey(String.valueOf(entry.getKey()), out);
+            writeValue(entry.getValue(), out);
+            first = false;
+        }
+        out.append('}');
+    }
+
+    private void writeArray(Iterator<?> iterator, Appendable out) throws IOException {
+        out.append('[');
+        boolean first = true;
+        while (iterator.hasNext()) {
+            if (!first) {
+                out.append(',');
+            }
+            writeValue(iterator.next(), out);
+            first = false;
+        }
+        out.append(']');
+    }
+
+    private void writeArray(Object array, Appendable out) throws IOException {
+        out.append('[');
+        int length = Array.getLength(array);
+        for (int i = 0; i < length; i++) {
+            if (i > 0) {
+                out.append(',');
+            }
+            writeValue(Array.get(array, i), out);
+        }
+        out.append(']');
+    }
+
+    private void writeString(CharSequence value, Appendable out) throws IOException {
+        out.append('"');
+        int length = value.length();
+        int start = 0;
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            String escaped = null;
+            if (c == '"') {
+                escaped = "\\\"";
+            } else if (c == '\\') {
+                escaped = "\\\\";
+            } else if (c == '\n') {
+                escaped = "\\n";
+            } else if (c == '\r') {
+                escaped = "\\r";
+            } else if (c == '\t') {
+                escaped = "\\t";
+            } else if (c == '\b') {
+                escaped = "\\b";
+            } else if (c == '\f') {
+                escaped = "\\f";
+            } else if (c < 0x20 || c == 0x2028 || c == 0x2029) {
+                escaped = "\\u" + HEX[(c >> 12) & 0xF] + HEX[(c >> 8) & 0xF] + HEX[(c >> 4) & 0xF] + HEX[c & 0xF];
+            }
+            if (escaped != null) {
+                // write out the run of plain characters in one go
+                out.append(value, start, i);
+                out.append(escaped);
+                start = i + 1;
+            }
+        }
+        out.append(value, start, length);
+        out.append('"');
+    }
+}
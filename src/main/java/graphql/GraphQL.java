@@ -1,5 +1,8 @@
 package graphql;
 
+import graphql.cachecontrol.CacheControl;
+import graphql.cachecontrol.CachePolicy;
+import graphql.cachecontrol.ResponseCache;
 import graphql.execution.AbortExecutionException;
 import graphql.execution.AsyncExecutionStrategy;
 import graphql.execution.AsyncSerialExecutionStrategy;
@@ -7,10 +10,12 @@ import graphql.execution.DataFetcherExceptionHandler;
 import graphql.execution.Execution;
 import graphql.execution.ExecutionId;
 import graphql.execution.ExecutionIdProvider;
+import graphql.execution.ExecutionPlan;
 import graphql.execution.ExecutionStrategy;
 import graphql.execution.SimpleDataFetcherExceptionHandler;
 import graphql.execution.SubscriptionExecutionStrategy;
 import graphql.execution.ValueUnboxer;
+import graphql.execution.ValuesResolver;
 import graphql.execution.instrumentation.ChainedInstrumentation;
 import graphql.execution.instrumentation.DocumentAndVariables;
 import graphql.execution.instrumentation.Instrumentation;
@@ -21,22 +26,38 @@ import graphql.execution.instrumentation.dataloader.DataLoaderDispatcherInstrume
 import graphql.execution.instrumentation.parameters.InstrumentationCreateStateParameters;
 import graphql.execution.instrumentation.parameters.InstrumentationExecutionParameters;
 import graphql.execution.instrumentation.parameters.InstrumentationValidationParameters;
+import graphql.execution.preparsed.LiteralParameterizer;
 import graphql.execution.preparsed.NoOpPreparsedDocumentProvider;
 import graphql.execution.preparsed.PreparsedDocumentEntry;
 import graphql.execution.preparsed.PreparsedDocumentProvider;
+import graphql.execution.preparsed.persisted.PersistedQuerySupport;
+import graphql.introspection.IntrospectionResultCache;
+import graphql.introspection.PrecomputedIntrospectionResult;
 import graphql.language.Document;
+import graphql.language.FragmentDefinition;
+import graphql.language.NodeUtil;
+import graphql.language.OperationDefinition;
+import graphql.parser.ParserOptions;
+import graphql.parser.QueryLiterals;
 import graphql.schema.GraphQLSchema;
 import graphql.util.LogKit;
 import graphql.validation.ValidationError;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
 import java.util.function.Function;
@@ -44,6 +65,7 @@ import java.util.function.UnaryOperator;
 
 import static graphql.Assert.assertNotNull;
 import static graphql.execution.ExecutionIdProvider.DEFAULT_EXECUTION_ID_PROVIDER;
+import static java.util.Collections.emptyMap;
 
 /**
  * This class is where all graphql-java query execution begins.  It combines the objects that are needed
@@ -86,6 +108,13 @@ import static graphql.execution.ExecutionIdProvider.DEFAULT_EXECUTION_ID_PROVIDE
 @PublicApi
 public class GraphQL {
 
+    /**
+     * When a query uses {@code @defer} or {@code @stream} then the initial {@link ExecutionResult} has a
+     * {@link org.reactivestreams.Publisher} of {@link graphql.execution.defer.DeferredExecutionResult}s in its extensions
+     * under this key
+     */
+    public static final String DEFERRED_RESULTS = "deferredResults";
+
     private static final Logger log = LoggerFactory.getLogger(GraphQL.class);
     private static final Logger logNotSafe = LogKit.getNotPrivacySafeLogger(GraphQL.class);
 
@@ -97,6 +126,11 @@ public class GraphQL {
     private final Instrumentation instrumentation;
     private final PreparsedDocumentProvider preparsedDocumentProvider;
     private final ValueUnboxer valueUnboxer;
+    private final ResponseCache responseCache;
+    private final boolean parameterizeLiterals;
+    private final boolean cacheIntrospection;
+    private final boolean serveCachedIntrospection;
+    private final IntrospectionResultCache introspectionResultCache = new IntrospectionResultCache();
 
 
     private GraphQL(Builder builder) {
@@ -108,6 +142,11 @@ public class GraphQL {
         this.instrumentation = assertNotNull(builder.instrumentation, () -> "instrumentation must not be null");
         this.preparsedDocumentProvider = assertNotNull(builder.preparsedDocumentProvider, () -> "preparsedDocumentProvider must be non null");
         this.valueUnboxer = assertNotNull(builder.valueUnboxer, () -> "valueUnboxer must not be null");
+        this.responseCache = builder.responseCache;
+        this.parameterizeLiterals = builder.parameterizeLiterals;
+        this.cacheIntrospection = builder.cacheIntrospection;
+        // a served result is not parsed, validated or executed, so instrumentation that may veto the query must see it run
+        this.serveCachedIntrospection = cacheIntrospection && isDefaultInstrumentation(instrumentation);
     }
 
     /**
@@ -135,7 +174,10 @@ public class GraphQL {
                 .subscriptionExecutionStrategy(this.subscriptionStrategy)
                 .executionIdProvider(Optional.ofNullable(this.idProvider).orElse(builder.idProvider))
                 .instrumentation(Optional.ofNullable(this.instrumentation).orElse(builder.instrumentation))
-                .preparsedDocumentProvider(Optional.ofNullable(this.preparsedDocumentProvider).orElse(builder.preparsedDocumentProvider));
+                .preparsedDocumentProvider(Optional.ofNullable(this.preparsedDocumentProvider).orElse(builder.preparsedDocumentProvider))
+                .responseCache(this.responseCache)
+                .parameterizeLiterals(this.parameterizeLiterals)
+                .cacheIntrospection(this.cacheIntrospection);
 
         builderConsumer.accept(builder);
 
@@ -154,6 +196,9 @@ public class GraphQL {
         private PreparsedDocumentProvider preparsedDocumentProvider = NoOpPreparsedDocumentProvider.INSTANCE;
         private boolean doNotAddDefaultInstrumentations = false;
         private ValueUnboxer valueUnboxer = ValueUnboxer.DEFAULT;
+        private ResponseCache responseCache = null; // deliberate default here
+        private boolean parameterizeLiterals = false;
+        private boolean cacheIntrospection = false;
 
 
         public Builder(GraphQLSchema graphQLSchema) {
@@ -202,6 +247,63 @@ public class GraphQL {
             return this;
         }
 
+        /**
+         * Sets a {@link ResponseCache} that serves repeated queries from previously cached responses.  Responses are
+         * cached according to the {@link graphql.cachecontrol.CacheControl} hints the data fetchers make.
+         *
+         * @param responseCache the response cache to use or null for none
+         * @return this builder
+         */
+        public Builder responseCache(ResponseCache responseCache) {
+            this.responseCache = responseCache;
+            return this;
+        }
+
+        /**
+         * Queries that inline their arguments, such as {@code user(id : 123)}, are a different document for every
+         * value and so defeat the caching of a {@link PreparsedDocumentProvider}.  When turned on, the document is
+         * looked up on the query with its int, float and string literals blanked out, and the literal field arguments
+         * of the cached document are variables, so that queries that only differ in their literals share one parsed
+         * and validated document.
+         * <p>
+         * The query is only lexed to find its literals.  It is not rewritten, so instrumentation and data fetchers see
+         * the query that was sent, and as blanked out literals keep their length the locations of the shared document
+         * are those of every query that shares it.  A query is parsed and validated on its own when it can not share
+         * the cached document, for example when its literals are invalid.
+         * <p>
+         * Literals are left alone when the {@link PreparsedDocumentProvider} is a {@link PersistedQuerySupport}, which
+         * caches documents on their persisted query id rather than on their text.
+         *
+         * @param parameterizeLiterals true to rewrite literal arguments into variables
+         * @return this builder
+         */
+        public Builder parameterizeLiterals(boolean parameterizeLiterals) {
+            this.parameterizeLiterals = parameterizeLiterals;
+            return this;
+        }
+
+        /**
+         * Tools and IDEs send the standard {@link graphql.introspection.IntrospectionQuery#INTROSPECTION_QUERY} over and
+         * over again, and its result only depends on the schema.  When turned on, the standard introspection query is
+         * executed once per schema and its result is then served to every request that sends it as a
+         * {@link PrecomputedIntrospectionResult}, which also holds the result already serialized as JSON.
+         * <p>
+         * The standard query is recognized by its text, give or take whitespace, and results are only cached for schemas
+         * whose {@link graphql.schema.visibility.GraphqlFieldVisibility} is one of the built in ones.
+         * <p>
+         * Served results are not parsed, validated or executed, so none of the instrumentation steps from
+         * {@link Instrumentation#beginParse} onwards would see them.  Since an instrumentation may reject queries in those
+         * steps, for example to check access or cost, the cache is only used when there is no instrumentation other
+         * than the default {@link DataLoaderDispatcherInstrumentation}, and the query is executed as usual otherwise.
+         *
+         * @param cacheIntrospection true to serve the standard introspection query from a precomputed result
+         * @return this builder
+         */
+        public Builder cacheIntrospection(boolean cacheIntrospection) {
+            this.cacheIntrospection = cacheIntrospection;
+            return this;
+        }
+
         public Builder executionIdProvider(ExecutionIdProvider executionIdProvider) {
             this.idProvider = assertNotNull(executionIdProvider, () -> "ExecutionIdProvider must be non null");
             return this;
@@ -456,6 +558,45 @@ public class GraphQL {
         }
     }
 
+    /**
+     * Executes the graphql query using the provided input object and writes the result as specification compliant JSON
+     * to the provided output via a {@link ExecutionResultJsonWriter}.
+     * <p>
+     * This is an allocation light way to serialise a result.  The JSON is written directly from the result data, so
+     * neither the {@link ExecutionResult#toSpecification()} copy of the response nor the tree of a general purpose JSON
+     * library is built up in memory.  The result is written once the execution has completed, since a null value in a
+     * non null field can null out parent fields right up until then.
+     * <p>
+     * This will return a promise (aka {@link CompletableFuture}) to the {@link ExecutionResult} that has been written.  If the output
+     * cannot be written to then the promise is completed exceptionally with the {@link java.io.IOException}.
+     *
+     * @param executionInput {@link ExecutionInput}
+     * @param out            the output to write the JSON result to
+     * @return a promise to an {@link ExecutionResult} which can include errors
+     */
+    public CompletableFuture<ExecutionResult> executeAsync(ExecutionInput executionInput, Appendable out) {
+        assertNotNull(out, () -> "out must not be null");
+        ExecutionResultJsonWriter jsonWriter = new ExecutionResultJsonWriter();
+        CompletableFuture<ExecutionResult> written = new CompletableFuture<>();
+        executeAsync(executionInput).whenComplete((result, throwable) -> {
+            if (throwable != null) {
+                written.completeExceptionally(throwable);
+                return;
+            }
+            try {
+                if (result instanceof PrecomputedIntrospectionResult) {
+                    out.append(((PrecomputedIntrospectionResult) result).getJson());
+                } else {
+                    jsonWriter.write(result, out);
+                }
+                written.complete(result);
+            } catch (IOException | RuntimeException e) {
+                written.completeExceptionally(e);
+            }
+        });
+        return written;
+    }
+
     private ExecutionInput ensureInputHasId(ExecutionInput executionInput) {
         if (executionInput.getExecutionId() != null) {
             return executionInput;
@@ -468,18 +609,194 @@ public class GraphQL {
 
 
     private CompletableFuture<ExecutionResult> parseValidateAndExecute(ExecutionInput executionInput, GraphQLSchema graphQLSchema, InstrumentationState instrumentationState) {
+        boolean standardIntrospection = serveCachedIntrospection && IntrospectionResultCache.isStandardIntrospectionQuery(executionInput);
+        if (standardIntrospection) {
+            PrecomputedIntrospectionResult introspectionResult = introspectionResultCache.get(graphQLSchema);
+            if (introspectionResult != null) {
+                return CompletableFuture.completedFuture(introspectionResult);
+            }
+        }
+        if (responseCache != null) {
+            ExecutionResult cachedResult = responseCache.get(executionInput, graphQLSchema);
+            if (cachedResult != null) {
+                return CompletableFuture.completedFuture(cachedResult);
+            }
+        }
         AtomicReference<ExecutionInput> executionInputRef = new AtomicReference<>(executionInput);
+        AtomicReference<Map<String, Object>> literalVariablesRef = new AtomicReference<>(emptyMap());
+        PreparsedDocumentEntry preparsedDoc = getPreparsedDocument(executionInputRef, literalVariablesRef, graphQLSchema, instrumentationState);
+        if (preparsedDoc.hasErrors()) {
+            return CompletableFuture.completedFuture(new ExecutionResultImpl(preparsedDoc.getErrors()));
+        }
+
+        CompletableFuture<ExecutionResult> result = execute(executionInputRef.get(), preparsedDoc, literalVariablesRef.get(), graphQLSchema, instrumentationState);
+        if (standardIntrospection) {
+            result = result.thenApply(executionResult -> {
+                introspectionResultCache.put(graphQLSchema, executionResult);
+                return executionResult;
+            });
+        }
+        if (responseCache != null && isQuery(preparsedDoc.getDocument(), executionInput.getOperationName())) {
+            CacheControl cacheControl = executionInputRef.get().getCacheControl();
+            result = result.thenApply(executionResult -> {
+                cacheResponse(executionInput, graphQLSchema, executionResult, cacheControl);
+                return executionResult;
+            });
+        }
+        return result;
+    }
+
+    private PreparsedDocumentEntry getPreparsedDocument(AtomicReference<ExecutionInput> executionInputRef, AtomicReference<Map<String, Object>> literalVariablesRef,
+                                                        GraphQLSchema graphQLSchema, InstrumentationState instrumentationState) {
+        // persisted queries are cached on their id rather than on their query text
+        if (parameterizeLiterals && !(preparsedDocumentProvider instanceof PersistedQuerySupport)) {
+            QueryLiterals literals = QueryLiterals.lex(executionInputRef.get().getQuery(), ParserOptions.getDefaultOperationParserOptions());
+            if (literals != null && literals.size() > 0) {
+                return getParameterizedDocument(executionInputRef, literalVariablesRef, literals, graphQLSchema, instrumentationState);
+            }
+        }
         Function<ExecutionInput, PreparsedDocumentEntry> computeFunction = transformedInput -> {
             // if they change the original query in the pre-parser, then we want to see it downstream from then on
             executionInputRef.set(transformedInput);
             return parseAndValidate(executionInputRef, graphQLSchema, instrumentationState);
         };
-        PreparsedDocumentEntry preparsedDoc = preparsedDocumentProvider.getDocument(executionInput, computeFunction);
-        if (preparsedDoc.hasErrors()) {
-            return CompletableFuture.completedFuture(new ExecutionResultImpl(preparsedDoc.getErrors()));
+        return preparsedDocumentProvider.getDocument(executionInputRef.get(), computeFunction);
+    }
+
+    private PreparsedDocumentEntry getParameterizedDocument(AtomicReference<ExecutionInput> executionInputRef, AtomicReference<Map<String, Object>> literalVariablesRef,
+                                                            QueryLiterals literals, GraphQLSchema graphQLSchema, InstrumentationState instrumentationState) {
+        // the document is cached on the query with its literals blanked out, while the query itself is left as it was sent
+        ExecutionInput keyInput = executionInputRef.get().transform(builder -> builder.query(literals.getKey()));
+        PreparsedDocumentEntry preparsedDoc = preparsedDocumentProvider.getDocument(keyInput, transformedInput ->
+                LiteralParameterizer.parameterize(parseAndValidate(executionInputRef, graphQLSchema, instrumentationState), literals, graphQLSchema));
+        Map<String, Object> literalVariables = LiteralParameterizer.literalVariables(preparsedDoc, literals);
+        if (literalVariables == null) {
+            // the entry keeps literals that differ from this query, or has the errors of another query, so this query
+            // is parsed and validated on its own to report its own errors
+            return parseAndValidate(executionInputRef, graphQLSchema, instrumentationState);
         }
+        literalVariablesRef.set(literalVariables);
+        return preparsedDoc;
+    }
 
-        return execute(executionInputRef.get(), preparsedDoc.getDocument(), graphQLSchema, instrumentationState);
+    /**
+     * Prepares the given operations ahead of their first execution, for example at startup before a service takes
+     * traffic.  Each operation is handed to the {@link PreparsedDocumentProvider} in the same way as an execution would,
+     * so the parsed and validated documents end up in its cache, and the code paths of parsing and validation are
+     * warmed up.
+     * <p>
+     * Operations can be given as query text, or as persisted query ids in whatever form the
+     * {@link graphql.execution.preparsed.persisted.PersistedQuerySupport} in use expects them, for example
+     * <pre>
+     * {@code
+     * ExecutionInput.newExecutionInput(PersistedQuerySupport.PERSISTED_QUERY_MARKER)
+     *         .extensions(singletonMap("persistedQuery", singletonMap("sha256Hash", id)))
+     *         .build();
+     * }
+     * </pre>
+     * <p>
+     * The operations go through the same instrumentation of the execution input and the schema as an execution, and
+     * are prepared in parallel on the given executor, but they are not executed.  Operations that
+     * fail are counted in the result rather than failing the warm up.
+     *
+     * @param executionInputs the operations to prepare
+     * @param normalize       true to also build the {@link graphql.normalized.NormalizedQueryTree} of every operation of
+     *                        the documents for the variables of the execution input, operations whose variables are
+     *                        not valid are left out
+     * @param executor        the executor to prepare the operations on
+     * @return a promise to the result of the warm up, which is completed once all operations have been prepared
+     */
+    public CompletableFuture<WarmUpResult> warmUp(Collection<ExecutionInput> executionInputs, boolean normalize, Executor executor) {
+        assertNotNull(executionInputs, () -> "executionInputs must not be null");
+        assertNotNull(executor, () -> "executor must not be null");
+        long startTime = System.nanoTime();
+        AtomicInteger failureCount = new AtomicInteger();
+        AtomicLong totalOperationTime = new AtomicLong();
+        AtomicLong maxOperationTime = new AtomicLong();
+        List<GraphQLError> errors = Collections.synchronizedList(new ArrayList<>());
+
+        CompletableFuture<?>[] operations = new CompletableFuture<?>[executionInputs.size()];
+        int i = 0;
+        for (ExecutionInput executionInput : executionInputs) {
+            operations[i++] = CompletableFuture.runAsync(() -> {
+                long operationStartTime = System.nanoTime();
+                try {
+                    PreparsedDocumentEntry preparsedDoc = warmUp(executionInput, normalize);
+                    if (preparsedDoc.hasErrors()) {
+                        failureCount.incrementAndGet();
+                        errors.addAll(preparsedDoc.getErrors());
+                    }
+                } catch (RuntimeException e) {
+                    logNotSafe.warn("Query failed to warm up : '{}'", executionInput.getQuery(), e);
+                    failureCount.incrementAndGet();
+                } finally {
+                    long operationTime = System.nanoTime() - operationStartTime;
+                    totalOperationTime.addAndGet(operationTime);
+                    maxOperationTime.accumulateAndGet(operationTime, Math::max);
+                }
+            }, executor);
+        }
+        return CompletableFuture.allOf(operations).thenApply(done -> new WarmUpResult(operations.length, failureCount.get(),
+                new ArrayList<>(errors), System.nanoTime() - startTime, totalOperationTime.get(), maxOperationTime.get()));
+    }
+
+    private PreparsedDocumentEntry warmUp(ExecutionInput executionInput, boolean normalize) {
+        // the same instrumentation steps as an execution, so that the documents are prepared for the same input and schema
+        executionInput = ensureInputHasId(executionInput);
+        InstrumentationState instrumentationState = instrumentation.createState(new InstrumentationCreateStateParameters(this.graphQLSchema, executionInput));
+        InstrumentationExecutionParameters inputInstrumentationParameters = new InstrumentationExecutionParameters(executionInput, this.graphQLSchema, instrumentationState);
+        executionInput = instrumentation.instrumentExecutionInput(executionInput, inputInstrumentationParameters);
+        InstrumentationExecutionParameters instrumentationParameters = new InstrumentationExecutionParameters(executionInput, this.graphQLSchema, instrumentationState);
+        GraphQLSchema graphQLSchema = instrumentation.instrumentSchema(this.graphQLSchema, instrumentationParameters);
+
+        AtomicReference<ExecutionInput> executionInputRef = new AtomicReference<>(executionInput);
+        AtomicReference<Map<String, Object>> literalVariablesRef = new AtomicReference<>(emptyMap());
+        PreparsedDocumentEntry preparsedDoc = getPreparsedDocument(executionInputRef, literalVariablesRef, graphQLSchema, instrumentationState);
+        if (normalize && !preparsedDoc.hasErrors()) {
+            // the trees are built via the execution plan of the document so that executions find them in its cache
+            Document document = preparsedDoc.getDocument();
+            ExecutionPlan executionPlan = preparsedDoc.getExecutionPlan();
+            Map<String, FragmentDefinition> fragmentsByName = NodeUtil.getFragmentsByName(document);
+            Map<String, Object> variables = new LinkedHashMap<>(executionInputRef.get().getVariables());
+            variables.putAll(literalVariablesRef.get());
+            ValuesResolver valuesResolver = new ValuesResolver();
+            for (OperationDefinition operationDefinition : document.getDefinitionsOfType(OperationDefinition.class)) {
+                Map<String, Object> coercedVariables;
+                try {
+                    coercedVariables = valuesResolver.coerceVariableValues(graphQLSchema, operationDefinition.getVariableDefinitions(), variables);
+                } catch (RuntimeException rte) {
+                    if (rte instanceof GraphQLError) {
+                        // without valid variables there is no tree that an execution would use
+                        continue;
+                    }
+                    throw rte;
+                }
+                executionPlan.getNormalizedQueryTree(graphQLSchema, operationDefinition, fragmentsByName, coercedVariables);
+            }
+        }
+        return preparsedDoc;
+    }
+
+    private boolean isQuery(Document document, String operationName) {
+        try {
+            return NodeUtil.getOperation(document, operationName).operationDefinition.getOperation() == OperationDefinition.Operation.QUERY;
+        } catch (GraphQLException e) {
+            // the execution reports unknown operations
+            return false;
+        }
+    }
+
+    private void cacheResponse(ExecutionInput executionInput, GraphQLSchema graphQLSchema, ExecutionResult executionResult, CacheControl cacheControl) {
+        if (!executionResult.getErrors().isEmpty() || cacheControl == null) {
+            return;
+        }
+        if (executionResult.getExtensions() != null && executionResult.getExtensions().containsKey(DEFERRED_RESULTS)) {
+            return;
+        }
+        CachePolicy cachePolicy = cacheControl.getOverallPolicy(executionResult);
+        if (cachePolicy.isCacheable()) {
+            responseCache.put(executionInput, graphQLSchema, executionResult, cachePolicy);
+        }
     }
 
     private PreparsedDocumentEntry parseAndValidate(AtomicReference<ExecutionInput> executionInputRef, GraphQLSchema graphQLSchema, InstrumentationState instrumentationState) {
@@ -546,7 +863,8 @@ public class GraphQL {
         return validationErrors;
     }
 
-    private CompletableFuture<ExecutionResult> execute(ExecutionInput executionInput, Document document, GraphQLSchema graphQLSchema, InstrumentationState instrumentationState) {
+    private CompletableFuture<ExecutionResult> execute(ExecutionInput executionInput, PreparsedDocumentEntry preparsedDoc, Map<String, Object> literalVariables,
+                                                       GraphQLSchema graphQLSchema, InstrumentationState instrumentationState) {
 
         Execution execution = new Execution(queryStrategy, mutationStrategy, subscriptionStrategy, instrumentation, valueUnboxer);
         ExecutionId executionId = executionInput.getExecutionId();
@@ -554,7 +872,7 @@ public class GraphQL {
         if (logNotSafe.isDebugEnabled()) {
             logNotSafe.debug("Executing '{}'. operation name: '{}'. query: '{}'. variables '{}'", executionId, executionInput.getOperationName(), executionInput.getQuery(), executionInput.getVariables());
         }
-        CompletableFuture<ExecutionResult> future = execution.execute(document, graphQLSchema, executionId, executionInput, instrumentationState);
+        CompletableFuture<ExecutionResult> future = execution.execute(preparsedDoc.getDocument(), preparsedDoc.getExecutionPlan(), graphQLSchema, executionId, executionInput, literalVariables, instrumentationState);
         future = future.whenComplete((result, throwable) -> {
             if (throwable != null) {
                 logNotSafe.error(String.format("Execution '%s' threw exception when executing : query : '%s'. variables '%s'", executionId, executionInput.getQuery(), executionInput.getVariables()), throwable);
@@ -572,6 +890,14 @@ public class GraphQL {
         return future;
     }
 
+    private static boolean isDefaultInstrumentation(Instrumentation instrumentation) {
+        if (instrumentation.getClass() == ChainedInstrumentation.class) {
+            return ((ChainedInstrumentation) instrumentation).getInstrumentations().stream().allMatch(GraphQL::isDefaultInstrumentation);
+        }
+        // the exact classes, since a sub class may reject queries
+        return instrumentation.getClass() == SimpleInstrumentation.class || instrumentation.getClass() == DataLoaderDispatcherInstrumentation.class;
+    }
+
     private static Instrumentation checkInstrumentationDefaultState(Instrumentation instrumentation, boolean doNotAddDefaultInstrumentations) {
         if (doNotAddDefaultInstrumentations) {
             return instrumentation == null ? SimpleInstrumentation.INSTANCE : instrumentation;
@@ -3,6 +3,7 @@ package graphql;
 import graphql.language.Document;
 import graphql.parser.InvalidSyntaxException;
 import graphql.parser.Parser;
+import graphql.parser.ParserOptions;
 import graphql.schema.GraphQLSchema;
 import graphql.validation.ValidationError;
 import graphql.validation.Validator;
@@ -42,7 +43,7 @@ public class ParseAndValidate {
      */
     public static ParseAndValidateResult parse(ExecutionInput executionInput) {
         try {
-            Parser parser = new Parser();
+            Parser parser = new Parser(ParserOptions.getDefaultOperationParserOptions());
             Document document = parser.parseDocument(executionInput.getQuery());
             return ParseAndValidateResult.newResult().document(document).variables(executionInput.getVariables()).build();
         } catch (InvalidSyntaxException e) {
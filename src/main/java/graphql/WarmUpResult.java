@@ -0,0 +1,81 @@
+package graphql;
+
+import java.util.List;
+
+/**
+ * The outcome of {@link GraphQL#warmUp(java.util.Collection, boolean, java.util.concurrent.Executor)}, which tells how
+ * many operations were prepared and how long that took.
+ */
+@PublicApi
+public class WarmUpResult {
+
+    private final int operationCount;
+    private final int failureCount;
+    private final List<GraphQLError> errors;
+    private final long elapsedTime;
+    private final long totalOperationTime;
+    private final long maxOperationTime;
+
+    WarmUpResult(int operationCount, int failureCount, List<GraphQLError> errors, long elapsedTime, long totalOperationTime, long maxOperationTime) {
+        this.operationCount = operationCount;
+        this.failureCount = failureCount;
+        this.errors = errors;
+        this.elapsedTime = elapsedTime;
+        this.totalOperationTime = totalOperationTime;
+        this.maxOperationTime = maxOperationTime;
+    }
+
+    /**
+     * @return the number of operations that were warmed up
+     */
+    public int getOperationCount() {
+        return operationCount;
+    }
+
+    /**
+     * @return the number of operations that failed to parse or validate, or that threw an exception
+     */
+    public int getFailureCount() {
+        return failureCount;
+    }
+
+    /**
+     * @return the parse and validation errors of the operations that failed
+     */
+    public List<GraphQLError> getErrors() {
+        return errors;
+    }
+
+    /**
+     * @return the number of nanoseconds from the start of the warm up until the last operation was prepared
+     */
+    public long getElapsedTime() {
+        return elapsedTime;
+    }
+
+    /**
+     * @return the number of nanoseconds spent preparing all the operations, which is more than the elapsed time when
+     * they are prepared in parallel
+     */
+    public long getTotalOperationTime() {
+        return totalOperationTime;
+    }
+
+    /**
+     * @return the number of nanoseconds taken by the slowest operation
+     */
+    public long getMaxOperationTime() {
+        return maxOperationTime;
+    }
+
+    @Override
+    public String toString() {
+        return "WarmUpResult{" +
+                "operationCount=" + operationCount +
+                ", failureCount=" + failureCount +
+                ", elapsedTime=" + elapsedTime +
+                ", totalOperationTime=" + totalOperationTime +
+                ", maxOperationTime=" + maxOperationTime +
+                '}';
+    }
+}
@@ -0,0 +1,338 @@
+package graphql.analysis;
+
+import graphql.ExecutionInput;
+import graphql.ExecutionResult;
+import graphql.PublicApi;
+import graphql.execution.AbortExecutionException;
+import graphql.execution.Async;
+import graphql.execution.ExecutionContext;
+import graphql.execution.ExecutionPlan;
+import graphql.execution.defer.DeferSupport;
+import graphql.execution.instrumentation.InstrumentationContext;
+import graphql.execution.instrumentation.InstrumentationState;
+import graphql.execution.instrumentation.SimpleInstrumentation;
+import graphql.execution.instrumentation.parameters.InstrumentationCreateStateParameters;
+import graphql.execution.instrumentation.parameters.InstrumentationExecuteOperationParameters;
+import graphql.execution.instrumentation.parameters.InstrumentationExecutionParameters;
+import graphql.execution.instrumentation.parameters.InstrumentationFieldFetchParameters;
+import graphql.schema.DataFetcher;
+import graphql.schema.DataFetchingEnvironment;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+import static graphql.Assert.assertNotNull;
+import static graphql.Assert.assertTrue;
+import static graphql.execution.instrumentation.SimpleInstrumentationContext.whenCompleted;
+
+/**
+ * Admits operations for execution based on their estimated cost, as calculated by a {@link FieldComplexityCalculator},
+ * rather than on a fixed maximum complexity per operation.
+ * <p>
+ * With a {@link CostBudget} the cost of an operation is taken from the budget before it is executed and given back
+ * when it has completed, so that the total cost of the operations executing at the same time stays within the budget.
+ * An operation that does not fit is rejected, or waits up to the max queue time for other operations to complete.
+ * Waiting does not block a thread, the root fields of a waiting operation are fetched on the queue executor once its
+ * cost has been taken from the budget.  The cost of an operation with deferred fields is given back once those have
+ * been fetched too.
+ * <p>
+ * With a {@link CostRateLimiter} every client, as identified by a key taken from the {@link ExecutionInput}, can only
+ * spend so much cost per second, so that the expensive operations of one client can not starve the others.  An
+ * operation that is rejected by the budget does not count against the rate of its client.
+ * <p>
+ * The estimated cost of an operation is kept in the {@link ExecutionPlan} of its document, so the calculator must
+ * only depend on the field and its arguments.  Since the cost is given back when the operation has completed this
+ * should be the last of a chain of instrumentations, otherwise an instrumentation after it that aborts the execution
+ * keeps the cost from being given back.
+ */
+@PublicApi
+public class CostAdmissionInstrumentation extends SimpleInstrumentation {
+
+    private static final Logger log = LoggerFactory.getLogger(CostAdmissionInstrumentation.class);
+
+    private final FieldComplexityCalculator fieldComplexityCalculator;
+    private final CostBudget costBudget;
+    private final Duration maxQueueTime;
+    private final Executor queueExecutor;
+    private final CostRateLimiter costRateLimiter;
+    private final Function<ExecutionInput, Object> clientKeyFunction;
+    private final ExecutionPlan.AnalysisKey<Integer> analysisKey = new ExecutionPlan.AnalysisKey<>();
+
+    private CostAdmissionInstrumentation(Builder builder) {
+        this.fieldComplexityCalculator = builder.fieldComplexityCalculator;
+        this.costBudget = builder.costBudget;
+        this.maxQueueTime = builder.maxQueueTime;
+        this.queueExecutor = builder.queueExecutor;
+        this.costRateLimiter = builder.costRateLimiter;
+        this.clientKeyFunction = builder.clientKeyFunction;
+    }
+
+    @Override
+    public InstrumentationState createState(InstrumentationCreateStateParameters parameters) {
+        return new Admission();
+    }
+
+    @Override
+    public InstrumentationContext<ExecutionResult> beginExecuteOperation(InstrumentationExecuteOperationParameters parameters) {
+        ExecutionContext executionContext = parameters.getExecutionContext();
+        int cost = Math.max(0, estimateCost(executionContext));
+
+        Object clientKey = costRateLimiter != null ? clientKeyFunction.apply(executionContext.getExecutionInput()) : null;
+        if (clientKey != null && !costRateLimiter.tryAcquire(clientKey, cost)) {
+            throw mkRateLimitedException(clientKey, cost);
+        }
+        if (costBudget == null) {
+            return super.beginExecuteOperation(parameters);
+        }
+        CompletableFuture<Boolean> granted = costBudget.acquire(cost, maxQueueTime);
+        if (granted.isDone() && !granted.join()) {
+            // the client is not charged for an operation that is not executed
+            refund(clientKey, cost);
+            throw mkBudgetExceededException(cost, costBudget);
+        }
+        Admission admission = parameters.getInstrumentationState();
+        admission.cost = cost;
+        admission.deferSupport = executionContext.getDeferSupport();
+        admission.granted = granted.isDone() ? granted : granted.thenApply(wasGranted -> {
+            if (!wasGranted) {
+                refund(clientKey, cost);
+                admission.rejection = mkBudgetExceededException(cost, costBudget);
+            }
+            return wasGranted;
+        });
+        return whenCompleted((result, throwable) -> admission.operationCompleted(throwable));
+    }
+
+    @Override
+    public DataFetcher<?> instrumentDataFetcher(DataFetcher<?> dataFetcher, InstrumentationFieldFetchParameters parameters) {
+        Admission admission = parameters.getInstrumentationState();
+        CompletableFuture<Boolean> granted = admission == null ? null : admission.granted;
+        if (granted == null || Async.isCompletedNormally(granted) && granted.join()) {
+            return dataFetcher;
+        }
+        // only the root fields are fetched before the operation is granted its cost, and they wait for it without
+        // blocking the thread that executes the operation
+        return environment -> granted.thenComposeAsync(wasGranted -> {
+            if (!wasGranted) {
+                throw admission.rejection;
+            }
+            return Async.toCompletableFuture(fetch(dataFetcher, environment));
+        }, queueExecutor);
+    }
+
+    @Override
+    public CompletableFuture<ExecutionResult> instrumentExecutionResult(ExecutionResult executionResult, InstrumentationExecutionParameters parameters) {
+        Admission admission = parameters.getInstrumentationState();
+        if (admission != null) {
+            if (admission.rejection != null) {
+                return CompletableFuture.completedFuture(admission.rejection.toExecutionResult());
+            }
+            // in case the execution was not able to tell that the operation is over
+            admission.operationCompleted(null);
+        }
+        return CompletableFuture.completedFuture(executionResult);
+    }
+
+    private static Object fetch(DataFetcher<?> dataFetcher, DataFetchingEnvironment environment) {
+        try {
+            return dataFetcher.get(environment);
+        } catch (Exception e) {
+            return Async.exceptionallyCompletedFuture(e);
+        }
+    }
+
+    private void refund(Object clientKey, int cost) {
+        if (clientKey != null) {
+            costRateLimiter.refund(clientKey, cost);
+        }
+    }
+
+    /**
+     * Called to generate your own error message or custom exception class when an operation does not fit into the
+     * cost budget
+     *
+     * @param cost       the estimated cost of the operation
+     * @param costBudget the cost budget
+     *
+     * @return a instance of AbortExecutionException
+     */
+    protected AbortExecutionException mkBudgetExceededException(int cost, CostBudget costBudget) {
+        return new AbortExecutionException("query cost budget exceeded, the query costs " + cost + " of a budget of " + costBudget.getCapacity());
+    }
+
+    /**
+     * Called to generate your own error message or custom exception class when a client has spent too much cost
+     *
+     * @param clientKey the key of the client
+     * @param cost      the estimated cost of the operation
+     *
+     * @return a instance of AbortExecutionException
+     */
+    protected AbortExecutionException mkRateLimitedException(Object clientKey, int cost) {
+        return new AbortExecutionException("query cost rate limit exceeded, the query costs " + cost);
+    }
+
+    private int estimateCost(ExecutionContext executionContext) {
+        ExecutionPlan executionPlan = executionContext.getExecutionPlan();
+        if (executionPlan == null || executionPlan.getDocument() != executionContext.getDocument()) {
+            return calculateCost(executionContext);
+        }
+        return executionPlan.getAnalysis(analysisKey, executionContext.getGraphQLSchema(), executionContext.getOperationDefinition(),
+                executionContext.getVariables(), () -> calculateCost(executionContext));
+    }
+
+    private int calculateCost(ExecutionContext executionContext) {
+        QueryTraverser queryTraverser = QueryTraverser.newQueryTraverser()
+                .schema(executionContext.getGraphQLSchema())
+                .document(executionContext.getDocument())
+                .operationName(executionContext.getOperationDefinition().getName())
+                .variables(executionContext.getVariables())
+                .build();
+
+        Map<QueryVisitorFieldEnvironment, Integer> valuesByParent = new LinkedHashMap<>();
+        queryTraverser.visitPostOrder(MaxQueryComplexityInstrumentation.newComplexityCollector(fieldComplexityCalculator, valuesByParent));
+        int cost = valuesByParent.getOrDefault(null, 0);
+        if (log.isDebugEnabled()) {
+            log.debug("Query cost: {}", cost);
+        }
+        return cost;
+    }
+
+    // the cost an execution has been granted, or is waiting for, and is given back exactly once
+    private class Admission implements InstrumentationState {
+        private volatile CompletableFuture<Boolean> granted;
+        private volatile int cost;
+        private volatile DeferSupport deferSupport;
+        private volatile AbortExecutionException rejection;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private void operationCompleted(Throwable throwable) {
+            DeferSupport deferSupport = this.deferSupport;
+            if (throwable == null && deferSupport != null && deferSupport.isDeferDetected()) {
+                // the deferred fields are still being fetched
+                deferSupport.getCompleted().whenComplete((ignored, deferredThrowable) -> release());
+            } else {
+                release();
+            }
+        }
+
+        private void release() {
+            CompletableFuture<Boolean> granted = this.granted;
+            if (granted != null && released.compareAndSet(false, true)) {
+                // an operation that ends while it waits for the budget gives the cost back once it is granted
+                granted.thenAccept(wasGranted -> {
+                    if (wasGranted) {
+                        costBudget.release(cost);
+                    }
+                });
+            }
+        }
+    }
+
+    /**
+     * @return a new {@link CostAdmissionInstrumentation} builder
+     */
+    public static Builder newCostAdmissionInstrumentation() {
+        return new Builder();
+    }
+
+    @PublicApi
+    public static class Builder {
+
+        private FieldComplexityCalculator fieldComplexityCalculator = (env, childComplexity) -> 1 + childComplexity;
+        private CostBudget costBudget;
+        private Duration maxQueueTime = Duration.ZERO;
+        private Executor queueExecutor = ForkJoinPool.commonPool();
+        private CostRateLimiter costRateLimiter;
+        private Function<ExecutionInput, Object> clientKeyFunction;
+
+        private Builder() {
+        }
+
+        /**
+         * The calculator of the cost of an operation, which defaults to `1 + childComplexity` for every field
+         *
+         * @param fieldComplexityCalculator the complexity calculator
+         *
+         * @return this builder
+         */
+        public Builder fieldComplexityCalculator(FieldComplexityCalculator fieldComplexityCalculator) {
+            this.fieldComplexityCalculator = assertNotNull(fieldComplexityCalculator, () -> "calculator can't be null");
+            return this;
+        }
+
+        /**
+         * Limits the total cost of the operations executing at the same time, operations that do not fit are rejected
+         *
+         * @param costBudget the budget, which can be shared with other instrumentations
+         *
+         * @return this builder
+         */
+        public Builder costBudget(CostBudget costBudget) {
+            return costBudget(costBudget, Duration.ZERO);
+        }
+
+        /**
+         * Limits the total cost of the operations executing at the same time, operations that do not fit wait up to the
+         * given time and are rejected if they still do not fit.  Operations that have waited continue on the
+         * {@link ForkJoinPool#commonPool()}.
+         *
+         * @param costBudget   the budget, which can be shared with other instrumentations
+         * @param maxQueueTime the maximum time an operation waits for the budget
+         *
+         * @return this builder
+         */
+        public Builder costBudget(CostBudget costBudget, Duration maxQueueTime) {
+            return costBudget(costBudget, maxQueueTime, ForkJoinPool.commonPool());
+        }
+
+        /**
+         * Limits the total cost of the operations executing at the same time, operations that do not fit wait up to the
+         * given time and are rejected if they still do not fit
+         *
+         * @param costBudget    the budget, which can be shared with other instrumentations
+         * @param maxQueueTime  the maximum time an operation waits for the budget
+         * @param queueExecutor the executor that operations continue on once they have waited for the budget
+         *
+         * @return this builder
+         */
+        public Builder costBudget(CostBudget costBudget, Duration maxQueueTime, Executor queueExecutor) {
+            this.costBudget = assertNotNull(costBudget, () -> "costBudget can't be null");
+            this.maxQueueTime = assertNotNull(maxQueueTime, () -> "maxQueueTime can't be null");
+            this.queueExecutor = assertNotNull(queueExecutor, () -> "queueExecutor can't be null");
+            assertTrue(!maxQueueTime.isNegative(), () -> "maxQueueTime can't be negative");
+            return this;
+        }
+
+        /**
+         * Limits the rate at which every client can spend cost, operations of clients that have spent too much are
+         * rejected
+         *
+         * @param clientKeyFunction the function that returns the key of the client of a request, operations with a null
+         *                          key are not limited
+         * @param costRateLimiter   the rate limiter
+         *
+         * @return this builder
+         */
+        public Builder clientRateLimit(Function<ExecutionInput, Object> clientKeyFunction, CostRateLimiter costRateLimiter) {
+            this.clientKeyFunction = assertNotNull(clientKeyFunction, () -> "clientKeyFunction can't be null");
+            this.costRateLimiter = assertNotNull(costRateLimiter, () -> "costRateLimiter can't be null");
+            return this;
+        }
+
+        /**
+         * @return a built {@link CostAdmissionInstrumentation}
+         */
+        public CostAdmissionInstrumentation build() {
+            return new CostAdmissionInstrumentation(this);
+        }
+    }
+}
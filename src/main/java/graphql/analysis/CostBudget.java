@@ -0,0 +1,171 @@
+package graphql.analysis;
+
+import graphql.PublicApi;
+import graphql.execution.ExecutionTimer;
+
+import java.time.Duration;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static graphql.Assert.assertNotNull;
+import static graphql.Assert.assertTrue;
+
+/**
+ * A budget for the estimated cost of the operations that are executing at the same time, typically one per node that
+ * is shared by all the {@link graphql.GraphQL} instances of the node.
+ * <p>
+ * The cost in flight is a lock free counter.  An operation whose cost does not fit into what is left of the budget can
+ * wait in a first in first out queue until enough cost has been released by other operations, without blocking a
+ * thread while it waits.  Operations that arrive while others are waiting queue up behind them, so that expensive
+ * operations are not starved by cheap ones.
+ *
+ * @see CostAdmissionInstrumentation
+ */
+@PublicApi
+public class CostBudget {
+
+    private final long capacity;
+    private final AtomicLong inFlightCost = new AtomicLong();
+    private final Queue<Waiter> waiters = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Creates a budget
+     *
+     * @param capacity the maximum total cost of the operations executing at the same time
+     */
+    public CostBudget(long capacity) {
+        assertTrue(capacity > 0, () -> "capacity must be greater than 0");
+        this.capacity = capacity;
+    }
+
+    /**
+     * @return the maximum total cost of the operations executing at the same time
+     */
+    public long getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * @return the total cost of the operations executing right now
+     */
+    public long getInFlightCost() {
+        return inFlightCost.get();
+    }
+
+    /**
+     * @return the number of operations waiting for the budget, which takes time proportional to that number
+     */
+    public int getQueueLength() {
+        return waiters.size();
+    }
+
+    /**
+     * Takes the cost from the budget if it fits into what is left of it and no other operation is waiting
+     *
+     * @param cost the estimated cost of an operation
+     *
+     * @return true if the cost was taken, in which case it must be {@link #release(long) released} later
+     */
+    public boolean tryAcquire(long cost) {
+        return waiters.isEmpty() && acquireNow(cost);
+    }
+
+    /**
+     * Takes the cost from the budget, waiting up to the given time for it to fit into what is left of the budget.  The
+     * calling thread is not blocked while waiting.
+     * <p>
+     * The returned promise is completed on the thread that releases the cost it was waiting for, or on the timer thread
+     * that is shared by all budgets once the wait is over, so the work that follows it should be handed over to an
+     * executor.
+     *
+     * @param cost    the estimated cost of an operation
+     * @param maxWait the maximum time to wait
+     *
+     * @return a promise that is true if the cost was taken, in which case it must be {@link #release(long) released} later
+     */
+    public CompletableFuture<Boolean> acquire(long cost, Duration maxWait) {
+        assertNotNull(maxWait, () -> "maxWait can't be null");
+        if (tryAcquire(cost)) {
+            return CompletableFuture.completedFuture(true);
+        }
+        if (cost > capacity || maxWait.isZero() || maxWait.isNegative()) {
+            return CompletableFuture.completedFuture(false);
+        }
+        Waiter waiter = new Waiter(cost);
+        waiters.add(waiter);
+        // giving up only completes the promise, so it runs on the timer thread rather than being handed over
+        ScheduledFuture<?> timeout = ExecutionTimer.schedule(() -> giveUp(waiter), maxWait.toNanos(), Runnable::run);
+        waiter.granted.whenComplete((granted, throwable) -> timeout.cancel(false));
+        // the cost may have been released before the waiter was queued
+        grantWaiters();
+        // the callers must not be able to complete the promise of the waiter themselves
+        return waiter.granted.thenApply(granted -> granted);
+    }
+
+    /**
+     * Gives back the cost of an operation that has completed
+     *
+     * @param cost the cost that was taken for the operation
+     */
+    public void release(long cost) {
+        inFlightCost.addAndGet(-cost);
+        grantWaiters();
+    }
+
+    private void giveUp(Waiter waiter) {
+        // whoever removes the waiter completes it, so the cost may have been granted in the meantime, and the waiter
+        // has to be gone from the queue before the code that waits on it runs
+        if (waiters.remove(waiter)) {
+            waiter.granted.complete(false);
+            // the waiter may have been holding up the ones behind it
+            grantWaiters();
+        }
+    }
+
+    private boolean acquireNow(long cost) {
+        while (true) {
+            long current = inFlightCost.get();
+            if (current + cost > capacity) {
+                return false;
+            }
+            if (inFlightCost.compareAndSet(current, current + cost)) {
+                return true;
+            }
+        }
+    }
+
+    private void grantWaiters() {
+        Waiter waiter;
+        while ((waiter = waiters.peek()) != null) {
+            if (!acquireNow(waiter.cost)) {
+                return;
+            }
+            // another thread may have granted or the waiter may have given up in the meantime
+            if (waiters.remove(waiter)) {
+                waiter.granted.complete(true);
+            } else {
+                inFlightCost.addAndGet(-waiter.cost);
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "CostBudget{" +
+                "capacity=" + capacity +
+                ", inFlightCost=" + inFlightCost.get() +
+                '}';
+    }
+
+    private static class Waiter {
+        private final long cost;
+        private final CompletableFuture<Boolean> granted = new CompletableFuture<>();
+
+        private Waiter(long cost) {
+            this.cost = cost;
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package graphql.analysis;
+
+import graphql.PublicApi;
+import graphql.VisibleForTesting;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import static graphql.Assert.assertNotNull;
+import static graphql.Assert.assertTrue;
+
+/**
+ * A token bucket per client that limits the rate at which a client can spend the estimated cost of operations.
+ * <p>
+ * Every client can spend up to the burst cost at once, and the bucket of a client refills at the given cost per
+ * second.  The bucket of a client is a single lock free counter that holds the time at which the bucket will be full
+ * again, which is bumped by the time it takes to refill the cost of every admitted operation.
+ * <p>
+ * The buckets of clients that are full again are dropped once there are many clients.  This takes time proportional to
+ * the number of clients, so it is only done again once the number of clients has doubled.
+ *
+ * @see CostAdmissionInstrumentation
+ */
+@PublicApi
+public class CostRateLimiter {
+
+    // buckets that are full again are dropped once there are more clients than this
+    private static final int MAX_IDLE_CLIENTS = 10_000;
+    // the time of a bucket that has been dropped, so that an operation that still holds on to it takes a new one
+    private static final long REMOVED = Long.MIN_VALUE;
+
+    private final long nanosPerCost;
+    private final long burstNanos;
+    private final LongSupplier nanoTime;
+    private final Map<Object, AtomicLong> fullAtByClient = new ConcurrentHashMap<>();
+    private final AtomicBoolean removingFullBuckets = new AtomicBoolean();
+    private volatile int removeFullBucketsAbove = MAX_IDLE_CLIENTS;
+
+    /**
+     * Creates a rate limiter
+     *
+     * @param costPerSecond the cost that every client can spend per second
+     * @param burstCost     the cost that every client can spend at once, operations that cost more are never admitted
+     */
+    public CostRateLimiter(double costPerSecond, long burstCost) {
+        this(costPerSecond, burstCost, System::nanoTime);
+    }
+
+    @VisibleForTesting
+    CostRateLimiter(double costPerSecond, long burstCost, LongSupplier nanoTime) {
+        assertTrue(costPerSecond > 0, () -> "costPerSecond must be greater than 0");
+        assertTrue(burstCost > 0, () -> "burstCost must be greater than 0");
+        this.nanosPerCost = Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / costPerSecond));
+        assertTrue(burstCost <= Long.MAX_VALUE / 2 / nanosPerCost, () -> "burstCost is too large for the rate");
+        this.burstNanos = burstCost * nanosPerCost;
+        this.nanoTime = assertNotNull(nanoTime);
+    }
+
+    /**
+     * Takes the cost out of the bucket of a client if there is enough left in it
+     *
+     * @param clientKey the key of the client
+     * @param cost      the estimated cost of an operation of the client
+     *
+     * @return true if the client can execute the operation
+     */
+    public boolean tryAcquire(Object clientKey, long cost) {
+        assertNotNull(clientKey, () -> "clientKey can't be null");
+        if (cost > burstNanos / nanosPerCost) {
+            return false;
+        }
+        long now = nanoTime.getAsLong();
+        while (true) {
+            AtomicLong fullAt = fullAtByClient.get(clientKey);
+            if (fullAt == null) {
+                removeFullBuckets(now);
+                fullAt = fullAtByClient.computeIfAbsent(clientKey, key -> new AtomicLong(now));
+            }
+            long current = fullAt.get();
+            if (current == REMOVED) {
+                // the bucket was dropped while this operation held on to it
+                fullAtByClient.remove(clientKey, fullAt);
+                continue;
+            }
+            long start = current - now > 0 ? current : now;
+            long next = start + cost * nanosPerCost;
+            if (next - now > burstNanos) {
+                return false;
+            }
+            if (fullAt.compareAndSet(current, next)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Puts the cost back into the bucket of a client, for an operation that was admitted by {@link #tryAcquire(Object, long)}
+     * but was not executed after all
+     *
+     * @param clientKey the key of the client
+     * @param cost      the cost that was taken for the operation
+     */
+    public void refund(Object clientKey, long cost) {
+        assertNotNull(clientKey, () -> "clientKey can't be null");
+        AtomicLong fullAt = fullAtByClient.get(clientKey);
+        if (fullAt == null) {
+            return;
+        }
+        while (true) {
+            long current = fullAt.get();
+            // a bucket that is full at a time in the past is simply full, so this can not give more than the burst cost,
+            // and a dropped bucket was full anyway
+            if (current == REMOVED || fullAt.compareAndSet(current, current - cost * nanosPerCost)) {
+                return;
+            }
+        }
+    }
+
+    private void removeFullBuckets(long now) {
+        if (fullAtByClient.size() <= removeFullBucketsAbove || !removingFullBuckets.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            // a bucket is only dropped if no operation has taken cost out of it in the meantime, and an operation that
+            // still holds on to a dropped bucket sees that it was dropped
+            fullAtByClient.values().removeIf(fullAt -> {
+                long current = fullAt.get();
+                return current == REMOVED || current - now <= 0 && fullAt.compareAndSet(current, REMOVED);
+            });
+            removeFullBucketsAbove = Math.max(MAX_IDLE_CLIENTS, 2 * fullAtByClient.size());
+        } finally {
+            removingFullBuckets.set(false);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "CostRateLimiter{" +
+                "nanosPerCost=" + nanosPerCost +
+                ", burstNanos=" + burstNanos +
+                '}';
+    }
+}
@@ -85,17 +85,7 @@ public class MaxQueryComplexityInstrumentation extends SimpleInstrumentation {
             QueryTraverser queryTraverser = newQueryTraverser(parameters);
 
             Map<QueryVisitorFieldEnvironment, Integer> valuesByParent = new LinkedHashMap<>();
-            queryTraverser.visitPostOrder(new QueryVisitorStub() {
-                @Override
-                public void visitField(QueryVisitorFieldEnvironment env) {
-                    int childsComplexity = valuesByParent.getOrDefault(env, 0);
-                    int value = calculateComplexity(env, childsComplexity);
-
-                    valuesByParent.compute(env.getParentEnvironment(), (key, oldValue) ->
-                            ofNullable(oldValue).orElse(0) + value
-                    );
-                }
-            });
+            queryTraverser.visitPostOrder(newComplexityCollector(fieldComplexityCalculator, valuesByParent));
             int totalComplexity = valuesByParent.getOrDefault(null, 0);
             if (log.isDebugEnabled()) {
                 log.debug("Query complexity: {}", totalComplexity);
@@ -133,7 +123,25 @@ public class MaxQueryComplexityInstrumentation extends SimpleInstrumentation {
                 .build();
     }
 
-    private int calculateComplexity(QueryVisitorFieldEnvironment queryVisitorFieldEnvironment, int childsComplexity) {
+    /*
+     * A post-order visitor that sums up the complexity of the fields below each field, the total complexity of the query
+     * ends up under the null key
+     */
+    static QueryVisitor newComplexityCollector(FieldComplexityCalculator fieldComplexityCalculator, Map<QueryVisitorFieldEnvironment, Integer> valuesByParent) {
+        return new QueryVisitorStub() {
+            @Override
+            public void visitField(QueryVisitorFieldEnvironment env) {
+                int childsComplexity = valuesByParent.getOrDefault(env, 0);
+                int value = calculateComplexity(fieldComplexityCalculator, env, childsComplexity);
+
+                valuesByParent.compute(env.getParentEnvironment(), (key, oldValue) ->
+                        ofNullable(oldValue).orElse(0) + value
+                );
+            }
+        };
+    }
+
+    private static int calculateComplexity(FieldComplexityCalculator fieldComplexityCalculator, QueryVisitorFieldEnvironment queryVisitorFieldEnvironment, int childsComplexity) {
         if (queryVisitorFieldEnvironment.isTypeNameIntrospectionField()) {
             return 0;
         }
@@ -141,7 +149,7 @@ public class MaxQueryComplexityInstrumentation extends SimpleInstrumentation {
         return fieldComplexityCalculator.calculate(fieldComplexityEnvironment, childsComplexity);
     }
 
-    private FieldComplexityEnvironment convertEnv(QueryVisitorFieldEnvironment queryVisitorFieldEnvironment) {
+    private static FieldComplexityEnvironment convertEnv(QueryVisitorFieldEnvironment queryVisitorFieldEnvironment) {
         FieldComplexityEnvironment parentEnv = null;
         if (queryVisitorFieldEnvironment.getParentEnvironment() != null) {
             parentEnv = convertEnv(queryVisitorFieldEnvironment.getParentEnvironment());
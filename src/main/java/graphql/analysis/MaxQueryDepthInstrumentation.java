@@ -92,7 +92,7 @@ public class MaxQueryDepthInstrumentation extends SimpleInstrumentation {
                 .build();
     }
 
-    private int getPathLength(QueryVisitorFieldEnvironment path) {
+    static int getPathLength(QueryVisitorFieldEnvironment path) {
         int length = 1;
         while (path != null) {
             path = path.getParentEnvironment();
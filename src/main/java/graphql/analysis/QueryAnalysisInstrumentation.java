@@ -0,0 +1,393 @@
+package graphql.analysis;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import graphql.ExecutionResult;
+import graphql.GraphQLError;
+import graphql.PublicApi;
+import graphql.execution.AbortExecutionException;
+import graphql.execution.ExecutionContext;
+import graphql.execution.ExecutionPlan;
+import graphql.execution.ResultPath;
+import graphql.execution.instrumentation.InstrumentationContext;
+import graphql.execution.instrumentation.SimpleInstrumentation;
+import graphql.execution.instrumentation.fieldvalidation.FieldAndArguments;
+import graphql.execution.instrumentation.fieldvalidation.FieldValidation;
+import graphql.execution.instrumentation.fieldvalidation.FieldValidationSupport;
+import graphql.execution.instrumentation.parameters.InstrumentationExecuteOperationParameters;
+import graphql.util.TraversalControl;
+import graphql.util.TraverserContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import static graphql.Assert.assertNotNull;
+import static graphql.util.TraverserContext.Phase.LEAVE;
+
+/**
+ * Combines the checks of the {@link MaxQueryDepthInstrumentation}, the {@link MaxQueryComplexityInstrumentation} and the
+ * {@link graphql.execution.instrumentation.fieldvalidation.FieldValidationInstrumentation} into a single traversal of
+ * the query, rather than one traversal for each of them.
+ * <p>
+ * The query visitors of the configured checks, and any other query visitors that are added via
+ * {@link Builder#visitor(QueryVisitor)}, are run together in one {@link QueryTraverser} pass.  The result of the
+ * pass only depends on the schema, the operation and its variables, so it is kept in the
+ * {@link ExecutionPlan} of a document and reused by requests that execute the same document with the same variable
+ * values.  This pays off together with a caching {@link graphql.execution.preparsed.PreparsedDocumentProvider}.  Hence
+ * a custom {@link FieldComplexityCalculator} must only depend on the field and its arguments.  The {@link FieldValidation}
+ * is called for every request since it may depend on the request, only the collection of the fields it validates is
+ * reused.  Added query visitors may depend on the request too, so once a visitor is added the pass is run for every
+ * request rather than reused.
+ * <p>
+ * The checks are made before the operation is executed, if one of them fails a {@link AbortExecutionException} is thrown.
+ */
+@PublicApi
+public class QueryAnalysisInstrumentation extends SimpleInstrumentation {
+
+    private static final Logger log = LoggerFactory.getLogger(QueryAnalysisInstrumentation.class);
+
+    private final int maxDepth;
+    private final Function<QueryDepthInfo, Boolean> maxQueryDepthExceededFunction;
+    private final int maxComplexity;
+    private final FieldComplexityCalculator fieldComplexityCalculator;
+    private final Function<QueryComplexityInfo, Boolean> maxQueryComplexityExceededFunction;
+    private final FieldValidation fieldValidation;
+    private final List<QueryVisitor> preOrderVisitors;
+    private final List<QueryVisitor> postOrderVisitors;
+    private final ExecutionPlan.AnalysisKey<QueryAnalysis> analysisKey = new ExecutionPlan.AnalysisKey<>();
+
+    private QueryAnalysisInstrumentation(Builder builder) {
+        this.maxDepth = builder.maxDepth;
+        this.maxQueryDepthExceededFunction = builder.maxQueryDepthExceededFunction;
+        this.maxComplexity = builder.maxComplexity;
+        this.fieldComplexityCalculator = builder.fieldComplexityCalculator;
+        this.maxQueryComplexityExceededFunction = builder.maxQueryComplexityExceededFunction;
+        this.fieldValidation = builder.fieldValidation;
+        this.preOrderVisitors = ImmutableList.copyOf(builder.preOrderVisitors);
+        this.postOrderVisitors = ImmutableList.copyOf(builder.postOrderVisitors);
+    }
+
+    @Override
+    public InstrumentationContext<ExecutionResult> beginExecuteOperation(InstrumentationExecuteOperationParameters parameters) {
+        ExecutionContext executionContext = parameters.getExecutionContext();
+        QueryAnalysis queryAnalysis = analyse(executionContext);
+
+        if (maxQueryDepthExceededFunction != null && queryAnalysis.depth > maxDepth) {
+            QueryDepthInfo queryDepthInfo = QueryDepthInfo.newQueryDepthInfo()
+                    .depth(queryAnalysis.depth)
+                    .build();
+            if (maxQueryDepthExceededFunction.apply(queryDepthInfo)) {
+                throw mkDepthAbortException(queryAnalysis.depth, maxDepth);
+            }
+        }
+        if (fieldComplexityCalculator != null && queryAnalysis.complexity > maxComplexity) {
+            QueryComplexityInfo queryComplexityInfo = QueryComplexityInfo.newQueryComplexityInfo()
+                    .complexity(queryAnalysis.complexity)
+                    .build();
+            if (maxQueryComplexityExceededFunction.apply(queryComplexityInfo)) {
+                throw mkComplexityAbortException(queryAnalysis.complexity, maxComplexity);
+            }
+        }
+        if (fieldValidation != null) {
+            List<GraphQLError> errors = FieldValidationSupport.validateFieldsAndArguments(fieldValidation, executionContext, queryAnalysis.fieldArguments);
+            if (errors != null && !errors.isEmpty()) {
+                throw new AbortExecutionException(errors);
+            }
+        }
+        return super.beginExecuteOperation(parameters);
+    }
+
+    /**
+     * Called to generate your own error message or custom exception class when the query is too deep
+     *
+     * @param depth    the depth of the query
+     * @param maxDepth the maximum depth allowed
+     *
+     * @return a instance of AbortExecutionException
+     */
+    protected AbortExecutionException mkDepthAbortException(int depth, int maxDepth) {
+        return new AbortExecutionException("maximum query depth exceeded " + depth + " > " + maxDepth);
+    }
+
+    /**
+     * Called to generate your own error message or custom exception class when the query is too complex
+     *
+     * @param totalComplexity the complexity of the query
+     * @param maxComplexity   the maximum complexity allowed
+     *
+     * @return a instance of AbortExecutionException
+     */
+    protected AbortExecutionException mkComplexityAbortException(int totalComplexity, int maxComplexity) {
+        return new AbortExecutionException("maximum query complexity exceeded " + totalComplexity + " > " + maxComplexity);
+    }
+
+    private QueryAnalysis analyse(ExecutionContext executionContext) {
+        ExecutionPlan executionPlan = executionContext.getExecutionPlan();
+        boolean visitorsAdded = !preOrderVisitors.isEmpty() || !postOrderVisitors.isEmpty();
+        if (executionPlan == null || executionPlan.getDocument() != executionContext.getDocument() || visitorsAdded) {
+            return traverse(executionContext);
+        }
+        return executionPlan.getAnalysis(analysisKey, executionContext.getGraphQLSchema(), executionContext.getOperationDefinition(),
+                executionContext.getVariables(), () -> traverse(executionContext));
+    }
+
+    private QueryAnalysis traverse(ExecutionContext executionContext) {
+        List<QueryVisitor> preOrderVisitors = new ArrayList<>(this.preOrderVisitors);
+        List<QueryVisitor> postOrderVisitors = new ArrayList<>(this.postOrderVisitors);
+
+        int[] depth = {0};
+        if (maxQueryDepthExceededFunction != null) {
+            preOrderVisitors.add(new QueryVisitorStub() {
+                @Override
+                public void visitField(QueryVisitorFieldEnvironment env) {
+                    depth[0] = Math.max(MaxQueryDepthInstrumentation.getPathLength(env.getParentEnvironment()), depth[0]);
+                }
+            });
+        }
+        Map<QueryVisitorFieldEnvironment, Integer> valuesByParent = new LinkedHashMap<>();
+        if (fieldComplexityCalculator != null) {
+            postOrderVisitors.add(MaxQueryComplexityInstrumentation.newComplexityCollector(fieldComplexityCalculator, valuesByParent));
+        }
+        Map<ResultPath, List<FieldAndArguments>> fieldArgumentsMap = new LinkedHashMap<>();
+        if (fieldValidation != null) {
+            preOrderVisitors.add(FieldValidationSupport.newFieldAndArgumentsCollector(fieldArgumentsMap));
+        }
+
+        QueryTraverser queryTraverser = QueryTraverser.newQueryTraverser()
+                .schema(executionContext.getGraphQLSchema())
+                .document(executionContext.getDocument())
+                .operationName(executionContext.getOperationDefinition().getName())
+                .variables(executionContext.getVariables())
+                .build();
+        queryTraverser.visitDepthFirst(new CombinedVisitor(preOrderVisitors, postOrderVisitors));
+
+        int complexity = valuesByParent.getOrDefault(null, 0);
+        if (log.isDebugEnabled()) {
+            log.debug("Query depth: {}, query complexity: {}", depth[0], complexity);
+        }
+        ImmutableMap.Builder<ResultPath, List<FieldAndArguments>> fieldArguments = ImmutableMap.builder();
+        fieldArgumentsMap.forEach((path, list) -> fieldArguments.put(path, ImmutableList.copyOf(list)));
+        return new QueryAnalysis(depth[0], complexity, fieldArguments.build());
+    }
+
+    /*
+     * Calls the pre order visitors when a node is entered and the post order visitors when it is left.  The traversal is
+     * never cut short, since all of the visitors need to see the whole query.
+     */
+    private static class CombinedVisitor implements QueryVisitor {
+        private final List<QueryVisitor> preOrderVisitors;
+        private final List<QueryVisitor> postOrderVisitors;
+
+        private CombinedVisitor(List<QueryVisitor> preOrderVisitors, List<QueryVisitor> postOrderVisitors) {
+            this.preOrderVisitors = preOrderVisitors;
+            this.postOrderVisitors = postOrderVisitors;
+        }
+
+        private List<QueryVisitor> visitors(TraverserContext<?> context) {
+            return context.getPhase() == LEAVE ? postOrderVisitors : preOrderVisitors;
+        }
+
+        @Override
+        public void visitField(QueryVisitorFieldEnvironment env) {
+            for (QueryVisitor visitor : visitors(env.getTraverserContext())) {
+                visitor.visitFieldWithControl(env);
+            }
+        }
+
+        @Override
+        public void visitInlineFragment(QueryVisitorInlineFragmentEnvironment env) {
+            for (QueryVisitor visitor : visitors(env.getTraverserContext())) {
+                visitor.visitInlineFragment(env);
+            }
+        }
+
+        @Override
+        public void visitFragmentSpread(QueryVisitorFragmentSpreadEnvironment env) {
+            for (QueryVisitor visitor : visitors(env.getTraverserContext())) {
+                visitor.visitFragmentSpread(env);
+            }
+        }
+
+        @Override
+        public void visitFragmentDefinition(QueryVisitorFragmentDefinitionEnvironment env) {
+            for (QueryVisitor visitor : visitors(env.getTraverserContext())) {
+                visitor.visitFragmentDefinition(env);
+            }
+        }
+
+        @Override
+        public TraversalControl visitArgument(QueryVisitorFieldArgumentEnvironment env) {
+            for (QueryVisitor visitor : visitors(env.getTraverserContext())) {
+                visitor.visitArgument(env);
+            }
+            return TraversalControl.CONTINUE;
+        }
+
+        @Override
+        public TraversalControl visitArgumentValue(QueryVisitorFieldArgumentValueEnvironment env) {
+            for (QueryVisitor visitor : visitors(env.getTraverserContext())) {
+                visitor.visitArgumentValue(env);
+            }
+            return TraversalControl.CONTINUE;
+        }
+    }
+
+    /*
+     * The result of a traversal, which is shared by the requests that execute the same document
+     */
+    private static class QueryAnalysis {
+        private final int depth;
+        private final int complexity;
+        private final Map<ResultPath, List<FieldAndArguments>> fieldArguments;
+
+        private QueryAnalysis(int depth, int complexity, Map<ResultPath, List<FieldAndArguments>> fieldArguments) {
+            this.depth = depth;
+            this.complexity = complexity;
+            this.fieldArguments = fieldArguments;
+        }
+    }
+
+    /**
+     * @return a new {@link QueryAnalysisInstrumentation} builder
+     */
+    public static Builder newQueryAnalysisInstrumentation() {
+        return new Builder();
+    }
+
+    @PublicApi
+    public static class Builder {
+
+        private int maxDepth;
+        private Function<QueryDepthInfo, Boolean> maxQueryDepthExceededFunction;
+        private int maxComplexity;
+        private FieldComplexityCalculator fieldComplexityCalculator;
+        private Function<QueryComplexityInfo, Boolean> maxQueryComplexityExceededFunction;
+        private FieldValidation fieldValidation;
+        private final List<QueryVisitor> preOrderVisitors = new ArrayList<>();
+        private final List<QueryVisitor> postOrderVisitors = new ArrayList<>();
+
+        private Builder() {
+        }
+
+        /**
+         * Aborts execution if the query depth is greater than the specified max depth
+         *
+         * @param maxDepth max allowed depth, otherwise execution will be aborted
+         *
+         * @return this builder
+         */
+        public Builder maxDepth(int maxDepth) {
+            return maxDepth(maxDepth, (queryDepthInfo) -> true);
+        }
+
+        /**
+         * Checks that the query depth is not greater than the specified max depth
+         *
+         * @param maxDepth                      max allowed depth
+         * @param maxQueryDepthExceededFunction the function to perform when the max depth is exceeded, if it returns
+         *                                      {@code true} execution is aborted
+         *
+         * @return this builder
+         */
+        public Builder maxDepth(int maxDepth, Function<QueryDepthInfo, Boolean> maxQueryDepthExceededFunction) {
+            this.maxDepth = maxDepth;
+            this.maxQueryDepthExceededFunction = assertNotNull(maxQueryDepthExceededFunction, () -> "maxQueryDepthExceededFunction can't be null");
+            return this;
+        }
+
+        /**
+         * Aborts execution if the query complexity is greater than the specified max complexity, with the default
+         * complexity calculator which is `1 + childComplexity`
+         *
+         * @param maxComplexity max allowed complexity, otherwise execution will be aborted
+         *
+         * @return this builder
+         */
+        public Builder maxComplexity(int maxComplexity) {
+            return maxComplexity(maxComplexity, (env, childComplexity) -> 1 + childComplexity);
+        }
+
+        /**
+         * Aborts execution if the query complexity is greater than the specified max complexity
+         *
+         * @param maxComplexity             max allowed complexity, otherwise execution will be aborted
+         * @param fieldComplexityCalculator custom complexity calculator
+         *
+         * @return this builder
+         */
+        public Builder maxComplexity(int maxComplexity, FieldComplexityCalculator fieldComplexityCalculator) {
+            return maxComplexity(maxComplexity, fieldComplexityCalculator, (queryComplexityInfo) -> true);
+        }
+
+        /**
+         * Checks that the query complexity is not greater than the specified max complexity
+         *
+         * @param maxComplexity                      max allowed complexity
+         * @param fieldComplexityCalculator          custom complexity calculator
+         * @param maxQueryComplexityExceededFunction the function to perform when the max complexity is exceeded, if it
+         *                                           returns {@code true} execution is aborted
+         *
+         * @return this builder
+         */
+        public Builder maxComplexity(int maxComplexity, FieldComplexityCalculator fieldComplexityCalculator,
+                                     Function<QueryComplexityInfo, Boolean> maxQueryComplexityExceededFunction) {
+            this.maxComplexity = maxComplexity;
+            this.fieldComplexityCalculator = assertNotNull(fieldComplexityCalculator, () -> "calculator can't be null");
+            this.maxQueryComplexityExceededFunction = assertNotNull(maxQueryComplexityExceededFunction, () -> "maxQueryComplexityExceededFunction can't be null");
+            return this;
+        }
+
+        /**
+         * Validates the fields and arguments of the query before it is executed, if the validation returns errors then
+         * execution is aborted
+         *
+         * @param fieldValidation the field validation to call
+         *
+         * @return this builder
+         */
+        public Builder fieldValidation(FieldValidation fieldValidation) {
+            this.fieldValidation = assertNotNull(fieldValidation, () -> "fieldValidation can't be null");
+            return this;
+        }
+
+        /**
+         * Adds a query visitor that is run in the same traversal of the query as the checks and that is called in
+         * pre-order, see {@link QueryTraverser#visitPreOrder(QueryVisitor)}.  The visitor is called for every request,
+         * possibly by several threads at the same time, and it can not cut the traversal short.
+         *
+         * @param visitor the query visitor to add
+         *
+         * @return this builder
+         */
+        public Builder visitor(QueryVisitor visitor) {
+            this.preOrderVisitors.add(assertNotNull(visitor, () -> "visitor can't be null"));
+            return this;
+        }
+
+        /**
+         * Adds a query visitor that is run in the same traversal of the query as the checks and that is called in
+         * post-order, see {@link QueryTraverser#visitPostOrder(QueryVisitor)}.  The visitor is called for every request,
+         * possibly by several threads at the same time, and it can not cut the traversal short.
+         *
+         * @param visitor the query visitor to add
+         *
+         * @return this builder
+         */
+        public Builder postOrderVisitor(QueryVisitor visitor) {
+            this.postOrderVisitors.add(assertNotNull(visitor, () -> "visitor can't be null"));
+            return this;
+        }
+
+        /**
+         * @return a built {@link QueryAnalysisInstrumentation}
+         */
+        public QueryAnalysisInstrumentation build() {
+            return new QueryAnalysisInstrumentation(this);
+        }
+    }
+}
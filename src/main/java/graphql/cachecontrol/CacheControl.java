@@ -6,9 +6,12 @@ import graphql.PublicApi;
 import graphql.execution.ResultPath;
 import graphql.schema.DataFetchingEnvironment;
 
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.CopyOnWriteArrayList;
 
 import static graphql.Assert.assertNotEmpty;
@@ -171,6 +174,130 @@ public class CacheControl {
                 .build();
     }
 
+    /**
+     * Works out the cache policy of a whole response from the hints that have been recorded.
+     * <p>
+     * The max age of the response is the smallest max age of all the hints.  Every top level field of the response and
+     * every field whose value holds objects must have a max age hint, otherwise the response cannot be cached.  Fields
+     * of scalar values, and fields that are null, take on the max age of the object they belong to, as in the apollo
+     * cache control specification.  The scope is PRIVATE if any of the hints are PRIVATE.
+     *
+     * @param executionResult the result that the hints were recorded for
+     * @return the overall cache policy of the response
+     */
+    public CachePolicy getOverallPolicy(ExecutionResult executionResult) {
+        assertNotNull(executionResult);
+        Object data = executionResult.getData();
+        if (!(data instanceof Map) || ((Map<?, ?>) data).isEmpty()) {
+            return CachePolicy.NOT_CACHEABLE;
+        }
+        Set<List<Object>> hintedPaths = new HashSet<>();
+        int maxAge = Integer.MAX_VALUE;
+        Scope scope = Scope.PUBLIC;
+        for (Hint hint : hints) {
+            if (hint.maxAge != null) {
+                maxAge = Math.min(maxAge, hint.maxAge);
+                hintedPaths.add(hint.path);
+            }
+            if (hint.scope == Scope.PRIVATE) {
+                scope = Scope.PRIVATE;
+            }
+        }
+        if (maxAge <= 0 || !fieldsAreHinted((Map<?, ?>) data, new ArrayList<>(), hintedPaths)) {
+            return CachePolicy.NOT_CACHEABLE;
+        }
+        return new CachePolicy(maxAge, scope);
+    }
+
+    private static boolean fieldsAreHinted(Map<?, ?> object, List<Object> path, Set<List<Object>> hintedPaths) {
+        for (Map.Entry<?, ?> field : object.entrySet()) {
+            path.add(field.getKey());
+            boolean mustBeHinted = path.size() == 1 || holdsObjects(field.getValue());
+            boolean hinted = (!mustBeHinted || hintedPaths.contains(path)) && valueIsHinted(field.getValue(), path, hintedPaths);
+            path.remove(path.size() - 1);
+            if (!hinted) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean valueIsHinted(Object value, List<Object> path, Set<List<Object>> hintedPaths) {
+        if (value instanceof Map) {
+            return fieldsAreHinted((Map<?, ?>) value, path, hintedPaths);
+        }
+        if (value instanceof List) {
+            List<?> items = (List<?>) value;
+            for (int i = 0; i < items.size(); i++) {
+                path.add(i);
+                boolean hinted = valueIsHinted(items.get(i), path, hintedPaths);
+                path.remove(path.size() - 1);
+                if (!hinted) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private static boolean holdsObjects(Object value) {
+        if (value instanceof Map) {
+            return true;
+        }
+        if (value instanceof List) {
+            for (Object item : (List<?>) value) {
+                if (holdsObjects(item)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Works out the cache policy of a single field from the hints that have been recorded for exactly that path.
+     * <p>
+     * The max age is the smallest max age hinted for the path and the scope is PRIVATE if any of those hints are PRIVATE.
+     *
+     * @param path the path of the field
+     * @return the cache policy of the field, which is {@link CachePolicy#NOT_CACHEABLE} if no max age has been hinted
+     */
+    public CachePolicy getPolicy(ResultPath path) {
+        assertNotNull(path);
+        List<Object> pathList = path.toList();
+        Integer maxAge = null;
+        Scope scope = Scope.PUBLIC;
+        for (Hint hint : hints) {
+            if (!hint.path.equals(pathList)) {
+                continue;
+            }
+            if (hint.maxAge != null) {
+                maxAge = maxAge == null ? hint.maxAge : Math.min(maxAge, hint.maxAge);
+            }
+            if (hint.scope == Scope.PRIVATE) {
+                scope = Scope.PRIVATE;
+            }
+        }
+        if (maxAge == null || maxAge <= 0) {
+            return CachePolicy.NOT_CACHEABLE;
+        }
+        return new CachePolicy(maxAge, scope);
+    }
+
+    /**
+     * @param path the path of the field
+     * @return true if any of the hints recorded for exactly that path are PRIVATE, whether or not they have a max age
+     */
+    boolean isPrivate(ResultPath path) {
+        List<Object> pathList = assertNotNull(path).toList();
+        for (Hint hint : hints) {
+            if (hint.scope == Scope.PRIVATE && hint.path.equals(pathList)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     private Map<String, Object> hintsToCacheControlProperties() {
         List<Map<String, Object>> recordedHints = map(hints, Hint::toMap);
 
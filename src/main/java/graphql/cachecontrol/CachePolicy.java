@@ -0,0 +1,74 @@
+package graphql.cachecontrol;
+
+import graphql.PublicApi;
+
+import java.util.Objects;
+
+import static graphql.Assert.assertNotNull;
+
+/**
+ * The cache policy of a whole response or of a single field as worked out from the {@link CacheControl} hints via
+ * {@link CacheControl#getOverallPolicy(graphql.ExecutionResult)} or {@link CacheControl#getPolicy(graphql.execution.ResultPath)}
+ */
+@PublicApi
+public class CachePolicy {
+
+    /**
+     * The policy of responses that must not be cached
+     */
+    public static final CachePolicy NOT_CACHEABLE = new CachePolicy(0, CacheControl.Scope.PUBLIC);
+
+    private final int maxAge;
+    private final CacheControl.Scope scope;
+
+    public CachePolicy(int maxAge, CacheControl.Scope scope) {
+        this.maxAge = Math.max(0, maxAge);
+        this.scope = assertNotNull(scope);
+    }
+
+    /**
+     * @return the number of seconds that the response can be cached for
+     */
+    public int getMaxAge() {
+        return maxAge;
+    }
+
+    /**
+     * @return the scope of the response, PRIVATE responses can only be cached per user
+     */
+    public CacheControl.Scope getScope() {
+        return scope;
+    }
+
+    /**
+     * @return true if the response can be cached at all
+     */
+    public boolean isCacheable() {
+        return maxAge > 0;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        CachePolicy that = (CachePolicy) o;
+        return maxAge == that.maxAge && scope == that.scope;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(maxAge, scope);
+    }
+
+    @Override
+    public String toString() {
+        return "CachePolicy{" +
+                "maxAge=" + maxAge +
+                ", scope=" + scope +
+                '}';
+    }
+}
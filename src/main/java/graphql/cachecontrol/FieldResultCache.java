@@ -0,0 +1,482 @@
+package graphql.cachecontrol;
+
+import graphql.PublicApi;
+import graphql.VisibleForTesting;
+import graphql.collect.ImmutableKit;
+import graphql.execution.DataFetcherResult;
+import graphql.schema.FieldCoordinates;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+
+import static graphql.Assert.assertNotNull;
+import static graphql.Assert.assertTrue;
+
+/**
+ * A bounded in memory cache of field values that lives across requests.  It is filled and read by a
+ * {@link FieldResultCacheInstrumentation}, which decides which fields are cached and for how long.
+ * <p>
+ * Values are keyed on the {@link FieldCoordinates} of the field, the field arguments and a key for the parent object
+ * the field was fetched on.  Once full the cache evicts either the least recently used or the least frequently used
+ * value, depending on the {@link EvictionPolicy}.  Values that have outlived their max age are dropped when next read.
+ * <p>
+ * Large caches are split into segments by the hash of the key, each with its own lock and an equal share of the
+ * maximum number of entries, so that requests on many threads do not all wait on a single lock.  Eviction then happens
+ * per segment.
+ * <p>
+ * Cached values can be invalidated per field, per field and parent key or all at once, for example after a mutation
+ * has changed the underlying data.
+ */
+@PublicApi
+public class FieldResultCache {
+
+    /**
+     * Which value is dropped once the cache is full
+     */
+    public enum EvictionPolicy {
+        /**
+         * The least recently read or written value is dropped
+         */
+        LRU,
+        /**
+         * The least frequently read value is dropped, the least recently used of those if there are several.  New values
+         * start out with the use count of the last dropped value plus one, so that they are not always the first to go
+         * and values that were used a lot a long time ago eventually age out.
+         */
+        LFU
+    }
+
+    private static final int MAX_SEGMENTS = 16;
+    private static final int MIN_SEGMENT_SIZE = 64;
+
+    private final Store[] stores;
+    private final LongSupplier nanoTime;
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+
+    private FieldResultCache(Builder builder) {
+        int segments = Integer.highestOneBit(Math.max(1, Math.min(MAX_SEGMENTS, builder.maxEntries / MIN_SEGMENT_SIZE)));
+        int maxSegmentEntries = (builder.maxEntries + segments - 1) / segments;
+        this.stores = new Store[segments];
+        for (int i = 0; i < segments; i++) {
+            stores[i] = builder.evictionPolicy == EvictionPolicy.LFU ? new LfuStore(maxSegmentEntries) : new LruStore(maxSegmentEntries);
+        }
+        this.nanoTime = builder.nanoTime;
+    }
+
+    private Store storeOf(Key key) {
+        int hash = key.hashCode;
+        return stores[(hash ^ (hash >>> 16)) & (stores.length - 1)];
+    }
+
+    /**
+     * Looks up a cached field value
+     *
+     * @param key the key of the field value
+     * @return the cached entry or null if there is none or it has expired
+     */
+    Entry get(Key key) {
+        Entry entry;
+        Store store = storeOf(key);
+        synchronized (store) {
+            entry = store.get(key);
+            if (entry != null && nanoTime.getAsLong() - entry.expiresAt >= 0) {
+                store.remove(key);
+                entry = null;
+            }
+        }
+        if (entry == null) {
+            missCount.incrementAndGet();
+        } else {
+            hitCount.incrementAndGet();
+        }
+        return entry;
+    }
+
+    /**
+     * Caches a field value.  Maps and lists, including the data of a {@link DataFetcherResult}, are cached as immutable
+     * copies so that the requests that are served the value can not change it for each other.
+     *
+     * @param key    the key of the field value
+     * @param value  the fetched value, which may be null
+     * @param maxAge the number of seconds the value may be cached for
+     */
+    void put(Key key, Object value, int maxAge) {
+        if (maxAge <= 0) {
+            return;
+        }
+        Entry entry = new Entry(immutableValue(value), nanoTime.getAsLong() + TimeUnit.SECONDS.toNanos(maxAge));
+        Store store = storeOf(key);
+        synchronized (store) {
+            store.put(key, entry);
+        }
+    }
+
+    private static Object immutableValue(Object value) {
+        if (value instanceof DataFetcherResult) {
+            DataFetcherResult<?> result = (DataFetcherResult<?>) value;
+            return DataFetcherResult.newResult()
+                    .data(ImmutableKit.immutableDeepCopyOf(result.getData()))
+                    .localContext(result.getLocalContext())
+                    .build();
+        }
+        return ImmutableKit.immutableDeepCopyOf(value);
+    }
+
+    /**
+     * @param entry a cached entry
+     * @return the number of whole seconds the entry has left before it expires
+     */
+    int getRemainingMaxAge(Entry entry) {
+        return (int) Math.max(0, Math.min(Integer.MAX_VALUE, TimeUnit.NANOSECONDS.toSeconds(entry.expiresAt - nanoTime.getAsLong())));
+    }
+
+    /**
+     * Removes all cached values of a field
+     *
+     * @param coordinates the field to invalidate
+     */
+    public void invalidate(FieldCoordinates coordinates) {
+        assertNotNull(coordinates);
+        removeIf(key -> key.coordinates.equals(coordinates));
+    }
+
+    /**
+     * Removes the cached values of a field on a given parent object, whatever the field arguments were
+     *
+     * @param coordinates the field to invalidate
+     * @param parentKey   the key of the parent object as given by the parent key function of the instrumentation
+     */
+    public void invalidate(FieldCoordinates coordinates, Object parentKey) {
+        assertNotNull(coordinates);
+        removeIf(key -> key.coordinates.equals(coordinates) && Objects.equals(key.parentKey, parentKey));
+    }
+
+    /**
+     * Removes all cached values
+     */
+    public void invalidateAll() {
+        for (Store store : stores) {
+            synchronized (store) {
+                store.clear();
+            }
+        }
+    }
+
+    private void removeIf(Predicate<Key> predicate) {
+        for (Store store : stores) {
+            synchronized (store) {
+                store.removeIf(predicate);
+            }
+        }
+    }
+
+    /**
+     * @return the number of field values that were served from this cache
+     */
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    /**
+     * @return the number of lookups that did not find a value in this cache
+     */
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    /**
+     * @return the number of field values currently held, some of which may have expired
+     */
+    public int size() {
+        int size = 0;
+        for (Store store : stores) {
+            synchronized (store) {
+                size += store.size();
+            }
+        }
+        return size;
+    }
+
+    public static Builder newCache() {
+        return new Builder();
+    }
+
+    static class Entry {
+        private final Object value;
+        private final long expiresAt;
+
+        private Entry(Object value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+
+        Object getValue() {
+            return value;
+        }
+    }
+
+    static class Key {
+        private final FieldCoordinates coordinates;
+        private final Map<String, Object> arguments;
+        private final Object parentKey;
+        private final int hashCode;
+
+        @SuppressWarnings("unchecked")
+        Key(FieldCoordinates coordinates, Map<String, Object> arguments, Object parentKey) {
+            this.coordinates = coordinates;
+            // the arguments of a fetch can be changed later on, but the key lives on in the cache
+            this.arguments = (Map<String, Object>) ImmutableKit.immutableDeepCopyOf(arguments);
+            this.parentKey = parentKey;
+            this.hashCode = Objects.hash(coordinates, arguments, parentKey);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            Key key = (Key) o;
+            return hashCode == key.hashCode
+                    && coordinates.equals(key.coordinates)
+                    && Objects.equals(arguments, key.arguments)
+                    && Objects.equals(parentKey, key.parentKey);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+
+    /**
+     * The stores are not thread safe, all access is synchronized on the store of the segment
+     */
+    private interface Store {
+        Entry get(Key key);
+
+        void put(Key key, Entry entry);
+
+        void remove(Key key);
+
+        void removeIf(Predicate<Key> predicate);
+
+        int size();
+
+        void clear();
+    }
+
+    private static class LruStore implements Store {
+        private final Map<Key, FieldResultCache.Entry> entries;
+
+        private LruStore(int maxEntries) {
+            this.entries = new LinkedHashMap<Key, FieldResultCache.Entry>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Key, FieldResultCache.Entry> eldest) {
+                    return size() > maxEntries;
+                }
+            };
+        }
+
+        @Override
+        public Entry get(Key key) {
+            return entries.get(key);
+        }
+
+        @Override
+        public void put(Key key, Entry entry) {
+            entries.put(key, entry);
+        }
+
+        @Override
+        public void remove(Key key) {
+            entries.remove(key);
+        }
+
+        @Override
+        public void removeIf(Predicate<Key> predicate) {
+            entries.keySet().removeIf(predicate);
+        }
+
+        @Override
+        public int size() {
+            return entries.size();
+        }
+
+        @Override
+        public void clear() {
+            entries.clear();
+        }
+    }
+
+    /**
+     * A constant time LFU store that keeps the keys in buckets of equal use counts, each of which is in
+     * insertion order so that ties are broken by recency.
+     * <p>
+     * New keys start with the count of the last evicted key plus one, the dynamic aging of LFU-DA.  Starting them at
+     * one would make every new key the next one to be evicted, before it could ever be read again.
+     */
+    private static class LfuStore implements Store {
+        private final int maxEntries;
+        private final Map<Key, Node> nodes = new HashMap<>();
+        private final Map<Integer, LinkedHashSet<Key>> buckets = new HashMap<>();
+        private int minCount;
+        private int age;
+
+        private LfuStore(int maxEntries) {
+            this.maxEntries = maxEntries;
+        }
+
+        @Override
+        public Entry get(Key key) {
+            Node node = nodes.get(key);
+            if (node == null) {
+                return null;
+            }
+            touch(key, node);
+            return node.entry;
+        }
+
+        @Override
+        public void put(Key key, Entry entry) {
+            Node node = nodes.get(key);
+            if (node != null) {
+                node.entry = entry;
+                touch(key, node);
+                return;
+            }
+            if (nodes.size() >= maxEntries) {
+                evict();
+            }
+            Node newNode = new Node(entry, age + 1);
+            nodes.put(key, newNode);
+            buckets.computeIfAbsent(newNode.count, count -> new LinkedHashSet<>()).add(key);
+            minCount = nodes.size() == 1 ? newNode.count : Math.min(minCount, newNode.count);
+        }
+
+        @Override
+        public void remove(Key key) {
+            Node node = nodes.remove(key);
+            if (node != null) {
+                removeFromBucket(key, node.count);
+            }
+        }
+
+        @Override
+        public void removeIf(Predicate<Key> predicate) {
+            Iterator<Map.Entry<Key, Node>> iterator = nodes.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<Key, Node> entry = iterator.next();
+                if (predicate.test(entry.getKey())) {
+                    iterator.remove();
+                    removeFromBucket(entry.getKey(), entry.getValue().count);
+                }
+            }
+        }
+
+        @Override
+        public int size() {
+            return nodes.size();
+        }
+
+        @Override
+        public void clear() {
+            nodes.clear();
+            buckets.clear();
+            minCount = 0;
+            age = 0;
+        }
+
+        private void touch(Key key, Node node) {
+            removeFromBucket(key, node.count);
+            if (node.count == minCount && !buckets.containsKey(node.count)) {
+                minCount++;
+            }
+            node.count++;
+            buckets.computeIfAbsent(node.count, count -> new LinkedHashSet<>()).add(key);
+        }
+
+        private void evict() {
+            LinkedHashSet<Key> bucket = buckets.get(minCount);
+            if (bucket == null) {
+                // removals can leave the minimum count stale, which is rare enough to warrant a scan
+                minCount = Integer.MAX_VALUE;
+                for (Integer count : buckets.keySet()) {
+                    minCount = Math.min(minCount, count);
+                }
+                bucket = buckets.get(minCount);
+                if (bucket == null) {
+                    return;
+                }
+            }
+            Key eldest = bucket.iterator().next();
+            nodes.remove(eldest);
+            removeFromBucket(eldest, minCount);
+            age = minCount;
+        }
+
+        private void removeFromBucket(Key key, int count) {
+            LinkedHashSet<Key> bucket = buckets.get(count);
+            bucket.remove(key);
+            if (bucket.isEmpty()) {
+                buckets.remove(count);
+            }
+        }
+
+        private static class Node {
+            private Entry entry;
+            private int count;
+
+            private Node(Entry entry, int count) {
+                this.entry = entry;
+                this.count = count;
+            }
+        }
+    }
+
+    public static class Builder {
+        private int maxEntries = 10_000;
+        private EvictionPolicy evictionPolicy = EvictionPolicy.LRU;
+        private LongSupplier nanoTime = System::nanoTime;
+
+        /**
+         * @param maxEntries the maximum number of field values to hold
+         * @return this builder
+         */
+        public Builder maxEntries(int maxEntries) {
+            assertTrue(maxEntries > 0, () -> "maxEntries must be greater than zero");
+            this.maxEntries = maxEntries;
+            return this;
+        }
+
+        /**
+         * @param evictionPolicy which value to drop once the cache is full, the default is {@link EvictionPolicy#LRU}
+         * @return this builder
+         */
+        public Builder evictionPolicy(EvictionPolicy evictionPolicy) {
+            this.evictionPolicy = assertNotNull(evictionPolicy);
+            return this;
+        }
+
+        @VisibleForTesting
+        Builder nanoTime(LongSupplier nanoTime) {
+            this.nanoTime = assertNotNull(nanoTime);
+            return this;
+        }
+
+        public FieldResultCache build() {
+            return new FieldResultCache(this);
+        }
+    }
+}
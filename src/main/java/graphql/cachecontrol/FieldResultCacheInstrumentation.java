@@ -0,0 +1,230 @@
+package graphql.cachecontrol;
+
+import graphql.PublicApi;
+import graphql.execution.DataFetcherResult;
+import graphql.execution.instrumentation.SimpleInstrumentation;
+import graphql.execution.instrumentation.parameters.InstrumentationFieldFetchParameters;
+import graphql.schema.DataFetcher;
+import graphql.schema.DataFetchingEnvironment;
+import graphql.schema.FieldCoordinates;
+import graphql.schema.GraphQLArgument;
+import graphql.schema.GraphQLDirective;
+import graphql.schema.GraphQLFieldDefinition;
+import graphql.schema.GraphQLNamedType;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletionStage;
+import java.util.function.Function;
+
+import static graphql.Assert.assertNotNull;
+import static graphql.Assert.assertTrue;
+
+/**
+ * This {@link graphql.execution.instrumentation.Instrumentation} serves the values of selected fields from a
+ * {@link FieldResultCache} that is shared across requests, so that the data fetchers of those fields are only called
+ * when there is no cached value for the same field, arguments and parent object.
+ * <p>
+ * Caching is opt in per {@link FieldCoordinates}.  The max age of a fetched value is taken from, in order of preference
+ * <ul>
+ * <li>the max age given when the field was registered</li>
+ * <li>a {@link CacheControl} hint the data fetcher made for the field</li>
+ * <li>a {@code @cacheControl(maxAge : Int, scope : CacheControlScope)} directive on the field definition in the schema</li>
+ * </ul>
+ * Values without a max age, values with a PRIVATE scope, be it hinted or given by the directive, and
+ * {@link DataFetcherResult}s with errors are not cached, even for fields registered with a max age.
+ * <p>
+ * The parent object is identified via the parent key function, which must be given.  A typical parent key function
+ * returns the id of the parent object.  The key is kept in the cache, so it should not be the parent object itself.
+ * <p>
+ * A cached value is served to every later request for the same field, arguments and parent.  Maps and lists, including
+ * the data of a {@link DataFetcherResult}, are therefore cached as immutable copies, and any other value must not be
+ * changed once it has been fetched, immutable value objects being the best fit.  When a value is served from the cache
+ * the field is hinted with the {@link CacheControl} of the request for the time the value has left, so that the cache
+ * policy of the response still accounts for it.
+ */
+@PublicApi
+public class FieldResultCacheInstrumentation extends SimpleInstrumentation {
+
+    /**
+     * The name of the schema directive that can give the max age of a cached field
+     */
+    public static final String CACHE_CONTROL_DIRECTIVE = "cacheControl";
+
+    private final FieldResultCache cache;
+    // keyed on the field name and then the parent type name, so that most fetches are ruled out by a single lookup
+    private final Map<String, Map<String, CachedField>> fieldsByName;
+    private final Function<Object, Object> parentKeyFunction;
+
+    private FieldResultCacheInstrumentation(Builder builder) {
+        this.cache = builder.cache;
+        this.fieldsByName = new HashMap<>();
+        builder.fields.forEach((coordinates, maxAge) -> fieldsByName
+                .computeIfAbsent(coordinates.getFieldName(), fieldName -> new HashMap<>())
+                .put(coordinates.getTypeName(), new CachedField(coordinates, maxAge)));
+        this.parentKeyFunction = builder.parentKeyFunction;
+    }
+
+    /**
+     * @return the cache that the field values are kept in
+     */
+    public FieldResultCache getCache() {
+        return cache;
+    }
+
+    @Override
+    public DataFetcher<?> instrumentDataFetcher(DataFetcher<?> dataFetcher, InstrumentationFieldFetchParameters parameters) {
+        DataFetchingEnvironment environment = parameters.getEnvironment();
+        GraphQLFieldDefinition fieldDefinition = environment.getFieldDefinition();
+        Map<String, CachedField> fieldsByParentType = fieldsByName.get(fieldDefinition.getName());
+        if (fieldsByParentType == null) {
+            return dataFetcher;
+        }
+        CachedField cachedField = fieldsByParentType.get(((GraphQLNamedType) environment.getParentType()).getName());
+        if (cachedField == null) {
+            return dataFetcher;
+        }
+        FieldCoordinates coordinates = cachedField.coordinates;
+        Duration maxAge = cachedField.maxAge;
+        return env -> {
+            Object source = env.getSource();
+            Object parentKey = source == null ? null : parentKeyFunction.apply(source);
+            if (source != null && parentKey == null) {
+                // the parent can not be identified so the value can not be shared
+                return dataFetcher.get(env);
+            }
+            FieldResultCache.Key key = new FieldResultCache.Key(coordinates, env.getArguments(), parentKey);
+            FieldResultCache.Entry entry = cache.get(key);
+            if (entry != null) {
+                CacheControl cacheControl = env.getCacheControl();
+                if (cacheControl != null) {
+                    // only public values are cached, and the response can not be cached for longer than the value has left
+                    cacheControl.hint(env, cache.getRemainingMaxAge(entry));
+                }
+                return entry.getValue();
+            }
+            Object value = dataFetcher.get(env);
+            if (value instanceof CompletionStage) {
+                ((CompletionStage<?>) value).whenComplete((result, exception) -> {
+                    if (exception == null) {
+                        putValue(key, result, maxAge, env);
+                    }
+                });
+            } else {
+                putValue(key, value, maxAge, env);
+            }
+            return value;
+        };
+    }
+
+    private void putValue(FieldResultCache.Key key, Object value, Duration maxAge, DataFetchingEnvironment environment) {
+        if (value instanceof DataFetcherResult && ((DataFetcherResult<?>) value).hasErrors()) {
+            return;
+        }
+        if (isPrivate(environment)) {
+            // private values must never be served to other users
+            return;
+        }
+        int maxAgeSeconds = maxAge != null ? (int) Math.min(Integer.MAX_VALUE, maxAge.getSeconds()) : hintedMaxAge(environment);
+        cache.put(key, value, maxAgeSeconds);
+    }
+
+    private boolean isPrivate(DataFetchingEnvironment environment) {
+        CacheControl cacheControl = environment.getCacheControl();
+        if (cacheControl != null && cacheControl.isPrivate(environment.getExecutionStepInfo().getPath())) {
+            return true;
+        }
+        GraphQLDirective directive = environment.getFieldDefinition().getDirective(CACHE_CONTROL_DIRECTIVE);
+        GraphQLArgument scope = directive == null ? null : directive.getArgument("scope");
+        return scope != null && scope.getValue() != null && CacheControl.Scope.PRIVATE.name().equals(scope.getValue().toString());
+    }
+
+    private int hintedMaxAge(DataFetchingEnvironment environment) {
+        CacheControl cacheControl = environment.getCacheControl();
+        if (cacheControl != null) {
+            CachePolicy policy = cacheControl.getPolicy(environment.getExecutionStepInfo().getPath());
+            if (policy.isCacheable()) {
+                return policy.getMaxAge();
+            }
+        }
+        GraphQLDirective directive = environment.getFieldDefinition().getDirective(CACHE_CONTROL_DIRECTIVE);
+        if (directive == null) {
+            return 0;
+        }
+        GraphQLArgument maxAge = directive.getArgument("maxAge");
+        if (maxAge == null || !(maxAge.getValue() instanceof Number)) {
+            return 0;
+        }
+        return ((Number) maxAge.getValue()).intValue();
+    }
+
+    private static class CachedField {
+        private final FieldCoordinates coordinates;
+        private final Duration maxAge;
+
+        private CachedField(FieldCoordinates coordinates, Duration maxAge) {
+            this.coordinates = coordinates;
+            this.maxAge = maxAge;
+        }
+    }
+
+    public static Builder newFieldResultCacheInstrumentation(FieldResultCache cache) {
+        return new Builder(cache);
+    }
+
+    public static class Builder {
+        private final FieldResultCache cache;
+        private final Map<FieldCoordinates, Duration> fields = new LinkedHashMap<>();
+        private Function<Object, Object> parentKeyFunction;
+
+        private Builder(FieldResultCache cache) {
+            this.cache = assertNotNull(cache, () -> "cache must not be null");
+        }
+
+        /**
+         * Caches the values of the field for the max age that is hinted via {@link CacheControl} or given by the
+         * {@code @cacheControl} directive of the field
+         *
+         * @param coordinates the field to cache
+         * @return this builder
+         */
+        public Builder field(FieldCoordinates coordinates) {
+            fields.put(assertNotNull(coordinates), null);
+            return this;
+        }
+
+        /**
+         * Caches the values of the field for the given max age
+         *
+         * @param coordinates the field to cache
+         * @param maxAge      how long the values can be cached for, at least a second
+         * @return this builder
+         */
+        public Builder field(FieldCoordinates coordinates, Duration maxAge) {
+            assertNotNull(maxAge);
+            assertTrue(maxAge.getSeconds() > 0, () -> "maxAge must be at least a second");
+            fields.put(assertNotNull(coordinates), maxAge);
+            return this;
+        }
+
+        /**
+         * Sets the function that identifies parent objects, which must be given.  The keys are kept in the cache, so
+         * they should be small values such as ids rather than the parent objects themselves.
+         *
+         * @param parentKeyFunction the function that gives the key of a parent object or null if it can not be identified,
+         *                          in which case the field value is not cached
+         * @return this builder
+         */
+        public Builder parentKey(Function<Object, Object> parentKeyFunction) {
+            this.parentKeyFunction = assertNotNull(parentKeyFunction);
+            return this;
+        }
+
+        public FieldResultCacheInstrumentation build() {
+            assertNotNull(parentKeyFunction, () -> "a parentKey function must be given to identify parent objects");
+            return new FieldResultCacheInstrumentation(this);
+        }
+    }
+}
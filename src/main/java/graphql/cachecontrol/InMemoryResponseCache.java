@@ -0,0 +1,230 @@
+package graphql.cachecontrol;
+
+import graphql.ExecutionInput;
+import graphql.ExecutionResult;
+import graphql.ExecutionResultImpl;
+import graphql.PublicApi;
+import graphql.VisibleForTesting;
+import graphql.collect.ImmutableKit;
+import graphql.schema.GraphQLSchema;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+import static graphql.Assert.assertNotNull;
+import static graphql.Assert.assertTrue;
+
+/**
+ * A {@link ResponseCache} that keeps a bounded number of responses in memory, evicting the least recently used response
+ * once full and dropping responses once their max age has passed.
+ * <p>
+ * Responses are keyed on the schema, the query text, the operation name and the variables.  Responses with a PRIVATE
+ * scope are only cached when a principal function has been given, in which case they are also keyed on the principal
+ * of the request, for example the user id taken from the context.
+ * <p>
+ * The extensions of a response, such as tracing data, belong to the request that produced it and so responses are
+ * cached and served without them.  The data of a cached response is an immutable copy, since every hit is served the
+ * same response.
+ */
+@PublicApi
+public class InMemoryResponseCache implements ResponseCache {
+
+    private final int maxEntries;
+    private final Function<ExecutionInput, Object> principalFunction;
+    private final LongSupplier nanoTime;
+    private final Map<Key, InMemoryResponseCache.Entry> entries;
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+
+    private InMemoryResponseCache(Builder builder) {
+        this.maxEntries = builder.maxEntries;
+        this.principalFunction = builder.principalFunction;
+        this.nanoTime = builder.nanoTime;
+        this.entries = new LinkedHashMap<Key, InMemoryResponseCache.Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, InMemoryResponseCache.Entry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    @Override
+    public ExecutionResult get(ExecutionInput executionInput, GraphQLSchema graphQLSchema) {
+        ExecutionResult executionResult = getEntry(new Key(executionInput, graphQLSchema, null));
+        if (executionResult == null && principalFunction != null) {
+            Object principal = principalFunction.apply(executionInput);
+            if (principal != null) {
+                executionResult = getEntry(new Key(executionInput, graphQLSchema, principal));
+            }
+        }
+        if (executionResult == null) {
+            missCount.incrementAndGet();
+        } else {
+            hitCount.incrementAndGet();
+        }
+        return executionResult;
+    }
+
+    @Override
+    public void put(ExecutionInput executionInput, GraphQLSchema graphQLSchema, ExecutionResult executionResult, CachePolicy cachePolicy) {
+        if (!cachePolicy.isCacheable()) {
+            return;
+        }
+        Object principal = null;
+        if (cachePolicy.getScope() == CacheControl.Scope.PRIVATE) {
+            principal = principalFunction == null ? null : principalFunction.apply(executionInput);
+            if (principal == null) {
+                // a private response without a principal can not be told apart from other users' responses
+                return;
+            }
+        }
+        long expiresAt = nanoTime.getAsLong() + TimeUnit.SECONDS.toNanos(cachePolicy.getMaxAge());
+        // every hit serves the same result, so none of the requests can be allowed to change its data
+        ExecutionResult cachedResult = new ExecutionResultImpl(ImmutableKit.immutableDeepCopyOf(executionResult.getData()), ImmutableKit.emptyList());
+        synchronized (entries) {
+            entries.put(new Key(executionInput, graphQLSchema, principal), new Entry(cachedResult, expiresAt));
+        }
+    }
+
+    private ExecutionResult getEntry(Key key) {
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            if (entry == null) {
+                return null;
+            }
+            if (nanoTime.getAsLong() - entry.expiresAt >= 0) {
+                entries.remove(key);
+                return null;
+            }
+            return entry.executionResult;
+        }
+    }
+
+    /**
+     * @return the number of responses that were served from this cache
+     */
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    /**
+     * @return the number of lookups that did not find a response in this cache
+     */
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    /**
+     * @return the number of responses currently held, some of which may have expired
+     */
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    /**
+     * Removes all responses from this cache
+     */
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    public static Builder newCache() {
+        return new Builder();
+    }
+
+    private static class Entry {
+        private final ExecutionResult executionResult;
+        private final long expiresAt;
+
+        private Entry(ExecutionResult executionResult, long expiresAt) {
+            this.executionResult = executionResult;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private static class Key {
+        private final GraphQLSchema graphQLSchema;
+        private final String query;
+        private final String operationName;
+        private final Map<String, Object> variables;
+        private final Object principal;
+        private final int hashCode;
+
+        private Key(ExecutionInput executionInput, GraphQLSchema graphQLSchema, Object principal) {
+            this.graphQLSchema = assertNotNull(graphQLSchema);
+            this.query = executionInput.getQuery();
+            this.operationName = executionInput.getOperationName();
+            this.variables = executionInput.getVariables();
+            this.principal = principal;
+            this.hashCode = Objects.hash(System.identityHashCode(graphQLSchema), query, operationName, variables, principal);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            Key key = (Key) o;
+            return hashCode == key.hashCode
+                    && graphQLSchema == key.graphQLSchema
+                    && query.equals(key.query)
+                    && Objects.equals(operationName, key.operationName)
+                    && Objects.equals(variables, key.variables)
+                    && Objects.equals(principal, key.principal);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+
+    public static class Builder {
+        private int maxEntries = 1000;
+        private Function<ExecutionInput, Object> principalFunction;
+        private LongSupplier nanoTime = System::nanoTime;
+
+        /**
+         * @param maxEntries the maximum number of responses to hold
+         * @return this builder
+         */
+        public Builder maxEntries(int maxEntries) {
+            assertTrue(maxEntries > 0, () -> "maxEntries must be greater than zero");
+            this.maxEntries = maxEntries;
+            return this;
+        }
+
+        /**
+         * Responses with a PRIVATE scope are only cached if a principal can be found for the request
+         *
+         * @param principalFunction the function that gives the principal of a request or null if there is none
+         * @return this builder
+         */
+        public Builder principal(Function<ExecutionInput, Object> principalFunction) {
+            this.principalFunction = assertNotNull(principalFunction);
+            return this;
+        }
+
+        @VisibleForTesting
+        Builder nanoTime(LongSupplier nanoTime) {
+            this.nanoTime = assertNotNull(nanoTime);
+            return this;
+        }
+
+        public InMemoryResponseCache build() {
+            return new InMemoryResponseCache(this);
+        }
+    }
+}
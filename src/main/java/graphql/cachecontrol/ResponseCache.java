@@ -0,0 +1,42 @@
+package graphql.cachecontrol;
+
+import graphql.ExecutionInput;
+import graphql.ExecutionResult;
+import graphql.PublicSpi;
+import graphql.schema.GraphQLSchema;
+
+/**
+ * A response cache can be set on {@link graphql.GraphQL} to serve repeated queries without executing them again.
+ * <p>
+ * After a query has executed without errors its response is offered to the cache together with the overall
+ * {@link CachePolicy} worked out from the {@link CacheControl} hints that the data fetchers made.  Responses to
+ * mutations and subscriptions and responses without a cacheable policy are never offered.
+ * <p>
+ * The schema passed in is the one the query executes against, after any
+ * {@link graphql.execution.instrumentation.Instrumentation#instrumentSchema instrumentation}, so that responses of
+ * different schemas are not mixed up.
+ *
+ * @see InMemoryResponseCache
+ */
+@PublicSpi
+public interface ResponseCache {
+
+    /**
+     * Called before a query is parsed to find a previously cached response
+     *
+     * @param executionInput the execution input of the query
+     * @param graphQLSchema  the schema the query executes against
+     * @return the cached response or null if there is none
+     */
+    ExecutionResult get(ExecutionInput executionInput, GraphQLSchema graphQLSchema);
+
+    /**
+     * Called after a query has executed to offer up its response for caching
+     *
+     * @param executionInput  the execution input of the query
+     * @param graphQLSchema   the schema the query executed against
+     * @param executionResult the response of the query
+     * @param cachePolicy     the overall cache policy of the response, which is always cacheable
+     */
+    void put(ExecutionInput executionInput, GraphQLSchema graphQLSchema, ExecutionResult executionResult, CachePolicy cachePolicy);
+}
@@ -5,7 +5,10 @@ import com.google.common.collect.ImmutableMap;
 import graphql.Assert;
 import graphql.Internal;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.function.Function;
@@ -84,4 +87,28 @@ public final class ImmutableKit {
         }
         return builder.build();
     }
+
+    /**
+     * Copies result data, made of maps, lists and leaf values, into maps and lists that can not be changed, so that
+     * the data can be shared safely by many readers.  The maps keep their order and can hold null values.
+     *
+     * @param value the result data to copy
+     *
+     * @return an immutable copy of the data, or the value itself if it is a leaf value
+     */
+    public static Object immutableDeepCopyOf(Object value) {
+        if (value instanceof Map) {
+            Map<Object, Object> copy = new LinkedHashMap<>();
+            ((Map<?, ?>) value).forEach((key, entryValue) -> copy.put(key, immutableDeepCopyOf(entryValue)));
+            return ImmutableMapWithNullValues.copyOf(copy);
+        }
+        if (value instanceof List) {
+            List<Object> copy = new ArrayList<>();
+            for (Object item : (List<?>) value) {
+                copy.add(immutableDeepCopyOf(item));
+            }
+            return Collections.unmodifiableList(copy);
+        }
+        return value;
+    }
 }
@@ -8,6 +8,7 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionException;
 import java.util.concurrent.CompletionStage;
@@ -25,6 +26,9 @@ public class Async {
     }
 
     public static <U> CompletableFuture<List<U>> each(List<CompletableFuture<U>> futures) {
+        if (allDone(futures)) {
+            return eachDone(futures);
+        }
         CompletableFuture<List<U>> overallResult = new CompletableFuture<>();
 
         @SuppressWarnings("unchecked")
@@ -45,6 +49,34 @@ public class Async {
         return overallResult;
     }
 
+    private static <U> boolean allDone(List<CompletableFuture<U>> futures) {
+        for (CompletableFuture<U> future : futures) {
+            if (!future.isDone()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /*
+     * When every value is already present (which is the common case for trivial data fetchers) there is no need
+     * to build up the allOf() tree of futures and callbacks.  The outcome is the same as the allOf() path, namely
+     * the first failed future in list order wins and its exception is wrapped in a CompletionException.
+     */
+    private static <U> CompletableFuture<List<U>> eachDone(List<CompletableFuture<U>> futures) {
+        List<U> results = new ArrayList<>(futures.size());
+        for (CompletableFuture<U> future : futures) {
+            try {
+                results.add(future.join());
+            } catch (CompletionException e) {
+                return exceptionallyCompletedFuture(e);
+            } catch (CancellationException e) {
+                return exceptionallyCompletedFuture(new CompletionException(e));
+            }
+        }
+        return CompletableFuture.completedFuture(results);
+    }
+
     public static <T, U> CompletableFuture<List<U>> each(Collection<T> list, BiFunction<T, Integer, CompletableFuture<U>> cfFactory) {
         List<CompletableFuture<U>> futures = new ArrayList<>(list.size());
         int index = 0;
@@ -110,6 +142,15 @@ public class Async {
         }
     }
 
+    /**
+     * @param future the future to check
+     *
+     * @return true if the future has completed with a value, that is without an exception or being cancelled
+     */
+    public static boolean isCompletedNormally(CompletableFuture<?> future) {
+        return future.isDone() && !future.isCompletedExceptionally();
+    }
+
     public static <T> CompletableFuture<T> tryCatch(Supplier<CompletableFuture<T>> supplier) {
         try {
             return supplier.get();
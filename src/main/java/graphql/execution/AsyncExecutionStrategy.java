@@ -2,17 +2,24 @@ package graphql.execution;
 
 import graphql.ExecutionResult;
 import graphql.PublicApi;
+import graphql.execution.defer.DeferSupport;
+import graphql.execution.defer.DeferredCall;
+import graphql.execution.defer.DeferredFragment;
+import graphql.execution.defer.IncrementalDirectives;
 import graphql.execution.instrumentation.ExecutionStrategyInstrumentationContext;
 import graphql.execution.instrumentation.Instrumentation;
 import graphql.execution.instrumentation.parameters.InstrumentationExecutionStrategyParameters;
 
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import java.util.function.BiConsumer;
 
 import static graphql.collect.ImmutableKit.map;
+import static graphql.execution.MergedSelectionSet.newMergedSelectionSet;
 
 /**
  * The standard graphql execution strategy that runs fields asynchronously non-blocking.
@@ -20,6 +27,8 @@ import static graphql.collect.ImmutableKit.map;
 @PublicApi
 public class AsyncExecutionStrategy extends AbstractAsyncExecutionStrategy {
 
+    private final IncrementalDirectives incrementalDirectives = new IncrementalDirectives();
+
     /**
      * The standard graphql execution strategy that runs fields asynchronously
      */
@@ -38,7 +47,9 @@ public class AsyncExecutionStrategy extends AbstractAsyncExecutionStrategy {
 
     @Override
     @SuppressWarnings("FutureReturnValueIgnored")
-    public CompletableFuture<ExecutionResult> execute(ExecutionContext executionContext, ExecutionStrategyParameters parameters) throws NonNullableFieldWasNullException {
+    public CompletableFuture<ExecutionResult> execute(ExecutionContext executionContext, ExecutionStrategyParameters executionStrategyParameters) throws NonNullableFieldWasNullException {
+
+        ExecutionStrategyParameters parameters = deferFragments(executionContext, executionStrategyParameters);
 
         Instrumentation instrumentation = executionContext.getInstrumentation();
         InstrumentationExecutionStrategyParameters instrumentationParameters = new InstrumentationExecutionStrategyParameters(executionContext, parameters);
@@ -83,4 +94,64 @@ public class AsyncExecutionStrategy extends AbstractAsyncExecutionStrategy {
         overallResult.whenComplete(executionStrategyCtx::onCompleted);
         return overallResult;
     }
+
+    /**
+     * Takes the fields of {@code @defer} fragments out of the parameters and enqueues their execution as deferred calls
+     *
+     * @param executionContext contains the top level execution parameters
+     * @param parameters       contains the parameters holding the fields to be executed and source object
+     * @return the parameters holding only the fields to execute now
+     */
+    private ExecutionStrategyParameters deferFragments(ExecutionContext executionContext, ExecutionStrategyParameters parameters) {
+        DeferSupport deferSupport = executionContext.getDeferSupport();
+        MergedSelectionSet fields = parameters.getFields();
+        if (deferSupport == null || fields.getDeferredFragments().isEmpty()) {
+            return parameters;
+        }
+        Map<String, MergedField> immediateFields = new LinkedHashMap<>(fields.getSubFields());
+        for (DeferredFragment deferredFragment : fields.getDeferredFragments()) {
+            Map<String, MergedField> deferredFields = new LinkedHashMap<>();
+            for (String key : deferredFragment.getKeys()) {
+                deferredFields.put(key, immediateFields.remove(key));
+            }
+            ExecutionStrategyParameters deferredParameters = parameters.transform(builder -> builder.fields(newMergedSelectionSet().subFields(deferredFields).build()));
+            deferSupport.enqueue(new DeferredCall(deferredFragment.getLabel(executionContext.getVariables()), parameters.getPath(), executionContext,
+                    deferredContext -> execute(deferredContext, deferredParameters)));
+        }
+        return parameters.transform(builder -> builder.fields(newMergedSelectionSet().subFields(immediateFields).build()));
+    }
+
+    /**
+     * Completes the first {@code initialCount} items of a {@code @stream} list field now and enqueues the completion of
+     * the other items as deferred calls
+     */
+    @Override
+    protected FieldValueInfo completeValueForList(ExecutionContext executionContext, ExecutionStrategyParameters parameters, Iterable<Object> iterableValues) {
+        DeferSupport deferSupport = executionContext.getDeferSupport();
+        // only the outer most list of a field is streamed
+        if (deferSupport == null || parameters.getPath().isListSegment()) {
+            return super.completeValueForList(executionContext, parameters, iterableValues);
+        }
+        Map<String, Object> streamArguments = incrementalDirectives.getStreamArguments(executionContext.getVariables(), parameters.getField().getSingleField().getDirectives());
+        if (streamArguments == null) {
+            return super.completeValueForList(executionContext, parameters, iterableValues);
+        }
+        String label = (String) streamArguments.get("label");
+        Integer initialCount = (Integer) streamArguments.get("initialCount");
+        int streamFrom = initialCount == null ? 0 : Math.max(initialCount, 0);
+
+        List<Object> initialValues = new ArrayList<>();
+        int index = 0;
+        for (Object item : iterableValues) {
+            if (index < streamFrom) {
+                initialValues.add(item);
+            } else {
+                int itemIndex = index;
+                deferSupport.enqueue(new DeferredCall(label, parameters.getPath().segment(itemIndex), executionContext,
+                        deferredContext -> completeValue(deferredContext, newParametersForListItem(deferredContext, parameters, item, itemIndex, -1)).getFieldValue()));
+            }
+            index++;
+        }
+        return super.completeValueForList(executionContext, parameters, initialValues);
+    }
 }
@@ -0,0 +1,195 @@
+package graphql.execution;
+
+import graphql.PublicApi;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static graphql.Assert.assertNotNull;
+import static graphql.Assert.assertTrue;
+
+/**
+ * A cancellation token can be put on an {@link graphql.ExecutionInput} to stop an execution once a deadline has passed
+ * or once {@link #cancel()} has been called, say because the client has gone away.
+ * <p>
+ * Once cancelled the execution strategies stop fetching fields, fields that are still being fetched resolve to null and
+ * the execution returns the data it has so far together with an {@link ExecutionCancelledError}.
+ * <p>
+ * Data fetchers can get at the token via {@link graphql.schema.DataFetchingEnvironment#getCancellationToken()} to pass
+ * the remaining time on to downstream calls or to stop long running work themselves.
+ * <p>
+ * A token is meant for a single execution, once that execution has completed the deadline timer of the token is
+ * stopped and its callbacks are dropped.
+ * <p>
+ * The callbacks of a token run on the thread that calls {@link #cancel()}.  When the deadline passes they run on the
+ * executor the token was created with, since cancelling completes the pending fetches of the execution and so runs
+ * the rest of the execution.  The timer that watches the deadlines of all tokens only hands the cancellation over.
+ */
+@PublicApi
+public class CancellationToken {
+
+    private final long deadlineNanos;
+    private final boolean hasDeadline;
+    private final AtomicBoolean cancelled = new AtomicBoolean();
+    private final Set<Runnable> onCancelCallbacks = ConcurrentHashMap.newKeySet();
+    private volatile boolean deadlineExceeded;
+    private volatile ScheduledFuture<?> deadlineTimer;
+
+    private CancellationToken(long deadlineNanos, boolean hasDeadline) {
+        this.deadlineNanos = deadlineNanos;
+        this.hasDeadline = hasDeadline;
+    }
+
+    /**
+     * @return a token that is only cancelled by calling {@link #cancel()}
+     */
+    public static CancellationToken newCancellationToken() {
+        return new CancellationToken(0, false);
+    }
+
+    /**
+     * Creates a token that cancels itself once the timeout has passed, running its callbacks on the
+     * {@link ForkJoinPool#commonPool()}
+     *
+     * @param timeout the time from now that the execution may take
+     *
+     * @return a token with a deadline
+     */
+    public static CancellationToken withTimeout(Duration timeout) {
+        return withTimeout(timeout, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Creates a token that cancels itself once the timeout has passed
+     *
+     * @param timeout          the time from now that the execution may take
+     * @param deadlineExecutor the executor that the callbacks run on once the deadline has passed, and so the rest of
+     *                         the execution
+     *
+     * @return a token with a deadline
+     */
+    public static CancellationToken withTimeout(Duration timeout, Executor deadlineExecutor) {
+        assertNotNull(timeout, () -> "timeout must not be null");
+        assertNotNull(deadlineExecutor, () -> "deadlineExecutor must not be null");
+        assertTrue(!timeout.isNegative(), () -> "timeout must not be negative");
+        long timeoutNanos = timeout.toNanos();
+        CancellationToken token = new CancellationToken(System.nanoTime() + timeoutNanos, true);
+        token.deadlineTimer = ExecutionTimer.schedule(token::deadlineReached, timeoutNanos, deadlineExecutor);
+        return token;
+    }
+
+    /**
+     * Cancels the execution.  This can be called any number of times and from any thread.
+     */
+    public void cancel() {
+        if (cancelled.compareAndSet(false, true)) {
+            ScheduledFuture<?> timer = deadlineTimer;
+            if (timer != null) {
+                timer.cancel(false);
+            }
+            runCallbacks();
+        }
+    }
+
+    /**
+     * @return true if the token has been cancelled or its deadline has passed
+     */
+    public boolean isCancelled() {
+        if (cancelled.get()) {
+            return true;
+        }
+        if (hasDeadline && System.nanoTime() - deadlineNanos >= 0) {
+            // the timer may not have run yet
+            deadlineReached();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return true if the token was cancelled because its deadline passed rather than by calling {@link #cancel()}
+     */
+    public boolean isDeadlineExceeded() {
+        return isCancelled() && deadlineExceeded;
+    }
+
+    /**
+     * @return the time left until the deadline, which is zero once cancelled, or empty if the token has no deadline
+     */
+    public Optional<Duration> getTimeRemaining() {
+        if (!hasDeadline) {
+            return Optional.empty();
+        }
+        if (isCancelled()) {
+            return Optional.of(Duration.ZERO);
+        }
+        return Optional.of(Duration.ofNanos(Math.max(0, deadlineNanos - System.nanoTime())));
+    }
+
+    /**
+     * Registers a callback that is run once when the token is cancelled.  If the token is already cancelled then the
+     * callback is run straight away.
+     *
+     * @param callback the callback to run
+     */
+    public void onCancel(Runnable callback) {
+        onCancelCallbacks.add(assertNotNull(callback));
+        if (cancelled.get()) {
+            runCallbacks();
+        }
+    }
+
+    /**
+     * Removes a callback that is no longer needed, say because the work it would stop has completed
+     *
+     * @param callback the callback that was registered via {@link #onCancel(Runnable)}
+     */
+    public void removeOnCancel(Runnable callback) {
+        onCancelCallbacks.remove(callback);
+    }
+
+    /**
+     * Called once the execution that uses the token has completed, so that the timer and the callbacks do not keep
+     * the state of the execution around until the deadline
+     */
+    void executionCompleted() {
+        ScheduledFuture<?> timer = deadlineTimer;
+        if (timer != null) {
+            timer.cancel(false);
+        }
+        onCancelCallbacks.clear();
+    }
+
+    private void deadlineReached() {
+        if (!cancelled.get()) {
+            deadlineExceeded = true;
+            cancel();
+        }
+    }
+
+    private void runCallbacks() {
+        // removing makes sure that each callback is only run once when cancel and onCancel race
+        Iterator<Runnable> callbacks = onCancelCallbacks.iterator();
+        while (callbacks.hasNext()) {
+            Runnable callback = callbacks.next();
+            if (onCancelCallbacks.remove(callback)) {
+                callback.run();
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "CancellationToken{" +
+                "cancelled=" + cancelled.get() +
+                ", deadlineExceeded=" + deadlineExceeded +
+                '}';
+    }
+}
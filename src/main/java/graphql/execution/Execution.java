@@ -4,8 +4,11 @@ package graphql.execution;
 import graphql.ExecutionInput;
 import graphql.ExecutionResult;
 import graphql.ExecutionResultImpl;
+import graphql.GraphQL;
 import graphql.GraphQLError;
 import graphql.Internal;
+import graphql.execution.defer.DeferSupport;
+import graphql.execution.defer.DeferredExecutionResult;
 import graphql.execution.instrumentation.Instrumentation;
 import graphql.execution.instrumentation.InstrumentationContext;
 import graphql.execution.instrumentation.InstrumentationState;
@@ -19,9 +22,11 @@ import graphql.language.VariableDefinition;
 import graphql.schema.GraphQLObjectType;
 import graphql.schema.GraphQLSchema;
 import graphql.util.LogKit;
+import org.reactivestreams.Publisher;
 import org.slf4j.Logger;
 
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
@@ -33,6 +38,7 @@ import static graphql.execution.ExecutionStrategyParameters.newParameters;
 import static graphql.language.OperationDefinition.Operation.MUTATION;
 import static graphql.language.OperationDefinition.Operation.QUERY;
 import static graphql.language.OperationDefinition.Operation.SUBSCRIPTION;
+import static java.util.Collections.emptyMap;
 import static java.util.concurrent.CompletableFuture.completedFuture;
 
 @Internal
@@ -56,12 +62,26 @@ public class Execution {
     }
 
     public CompletableFuture<ExecutionResult> execute(Document document, GraphQLSchema graphQLSchema, ExecutionId executionId, ExecutionInput executionInput, InstrumentationState instrumentationState) {
+        return execute(document, new ExecutionPlan(document), graphQLSchema, executionId, executionInput, instrumentationState);
+    }
+
+    public CompletableFuture<ExecutionResult> execute(Document document, ExecutionPlan executionPlan, GraphQLSchema graphQLSchema, ExecutionId executionId, ExecutionInput executionInput, InstrumentationState instrumentationState) {
+        return execute(document, executionPlan, graphQLSchema, executionId, executionInput, emptyMap(), instrumentationState);
+    }
+
+    public CompletableFuture<ExecutionResult> execute(Document document, ExecutionPlan executionPlan, GraphQLSchema graphQLSchema, ExecutionId executionId, ExecutionInput executionInput,
+                                                      Map<String, Object> literalVariables, InstrumentationState instrumentationState) {
 
         NodeUtil.GetOperationResult getOperationResult = NodeUtil.getOperation(document, executionInput.getOperationName());
         Map<String, FragmentDefinition> fragmentsByName = getOperationResult.fragmentsByName;
         OperationDefinition operationDefinition = getOperationResult.operationDefinition;
 
         Map<String, Object> inputVariables = executionInput.getVariables();
+        if (!literalVariables.isEmpty()) {
+            // the values of the variables that the literals of a shared document were replaced by
+            inputVariables = new LinkedHashMap<>(inputVariables);
+            inputVariables.putAll(literalVariables);
+        }
         List<VariableDefinition> variableDefinitions = operationDefinition.getVariableDefinitions();
 
         Map<String, Object> coercedVariables;
@@ -94,6 +114,9 @@ public class Execution {
                 .locale(executionInput.getLocale())
                 .valueUnboxer(valueUnboxer)
                 .executionInput(executionInput)
+                .cancellationToken(executionInput.getCancellationToken())
+                .executionPlan(executionPlan)
+                .deferSupport(mkDeferSupport(executionPlan, operationDefinition))
                 .build();
 
 
@@ -105,11 +128,30 @@ public class Execution {
     }
 
 
+    private DeferSupport mkDeferSupport(ExecutionPlan executionPlan, OperationDefinition operationDefinition) {
+        // subscriptions publish their results already and so do not defer
+        if (executionPlan.isIncrementalDelivery() && operationDefinition.getOperation() != SUBSCRIPTION) {
+            return new DeferSupport();
+        }
+        return null;
+    }
+
     private CompletableFuture<ExecutionResult> executeOperation(ExecutionContext executionContext, Object root, OperationDefinition operationDefinition) {
 
         InstrumentationExecuteOperationParameters instrumentationParams = new InstrumentationExecuteOperationParameters(executionContext);
         InstrumentationContext<ExecutionResult> executeOperationCtx = instrumentation.beginExecuteOperation(instrumentationParams);
 
+        try {
+            return executeOperation(executionContext, root, operationDefinition, executeOperationCtx);
+        } catch (RuntimeException rte) {
+            // the instrumentation is still told that the operation is over, say to give back what it took for it
+            executeOperationCtx.onCompleted(null, rte);
+            throw rte;
+        }
+    }
+
+    private CompletableFuture<ExecutionResult> executeOperation(ExecutionContext executionContext, Object root, OperationDefinition operationDefinition, InstrumentationContext<ExecutionResult> executeOperationCtx) {
+
         OperationDefinition.Operation operation = operationDefinition.getOperation();
         GraphQLObjectType operationRootType;
 
@@ -174,6 +216,21 @@ public class Execution {
             result = completedFuture(new ExecutionResultImpl(null, executionContext.getErrors()));
         }
 
+        DeferSupport deferSupport = executionContext.getDeferSupport();
+        if (deferSupport != null) {
+            result = result.thenApply(executionResult -> deliverDeferredResults(executionResult, deferSupport));
+        }
+        CancellationToken cancellationToken = executionContext.getCancellationToken();
+        if (cancellationToken != null) {
+            result = result.whenComplete((executionResult, throwable) -> {
+                if (throwable == null && deferSupport != null && deferSupport.isDeferDetected()) {
+                    deferSupport.getCompleted().whenComplete((ignored, deferredThrowable) -> cancellationToken.executionCompleted());
+                } else {
+                    cancellationToken.executionCompleted();
+                }
+            });
+        }
+
         // note this happens NOW - not when the result completes
         executeOperationCtx.onDispatched(result);
 
@@ -183,6 +240,19 @@ public class Execution {
     }
 
 
+    private ExecutionResult deliverDeferredResults(ExecutionResult executionResult, DeferSupport deferSupport) {
+        if (!deferSupport.isDeferDetected()) {
+            return executionResult;
+        }
+        Publisher<DeferredExecutionResult> deferredResults = deferSupport.startDeferredCalls();
+        Map<Object, Object> extensions = new LinkedHashMap<>();
+        if (executionResult.getExtensions() != null) {
+            extensions.putAll(executionResult.getExtensions());
+        }
+        extensions.put(GraphQL.DEFERRED_RESULTS, deferredResults);
+        return ExecutionResultImpl.newExecutionResult().from(executionResult).extensions(extensions).build();
+    }
+
     private GraphQLObjectType getOperationRootType(GraphQLSchema graphQLSchema, OperationDefinition operationDefinition) {
         OperationDefinition.Operation operation = operationDefinition.getOperation();
         if (operation == MUTATION) {
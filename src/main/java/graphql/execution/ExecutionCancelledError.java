@@ -0,0 +1,66 @@
+package graphql.execution;
+
+import graphql.ErrorType;
+import graphql.GraphQLError;
+import graphql.GraphqlErrorHelper;
+import graphql.PublicApi;
+import graphql.language.SourceLocation;
+
+import java.util.List;
+
+import static java.util.Collections.emptyList;
+
+/**
+ * This error is added to the result of an execution whose {@link CancellationToken} was cancelled before it completed.
+ * The path is that of the first field that was not fetched because of it.
+ */
+@PublicApi
+public class ExecutionCancelledError implements GraphQLError {
+
+    private final String message;
+    private final List<Object> path;
+
+    public ExecutionCancelledError(CancellationToken cancellationToken, ResultPath path) {
+        this.message = cancellationToken.isDeadlineExceeded() ? "Execution deadline exceeded" : "Execution was cancelled";
+        this.path = path.toList();
+    }
+
+    @Override
+    public String getMessage() {
+        return message;
+    }
+
+    @Override
+    public List<Object> getPath() {
+        return path;
+    }
+
+    @Override
+    public List<SourceLocation> getLocations() {
+        return emptyList();
+    }
+
+    @Override
+    public ErrorType getErrorType() {
+        return ErrorType.ExecutionAborted;
+    }
+
+    @Override
+    public String toString() {
+        return "ExecutionCancelledError{" +
+                "message='" + message + '\'' +
+                ", path=" + path +
+                '}';
+    }
+
+    @SuppressWarnings("EqualsWhichDoesntCheckParameterClass")
+    @Override
+    public boolean equals(Object o) {
+        return GraphqlErrorHelper.equals(this, o);
+    }
+
+    @Override
+    public int hashCode() {
+        return GraphqlErrorHelper.hashCode(this);
+    }
+}
@@ -5,9 +5,12 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import graphql.ExecutionInput;
 import graphql.GraphQLError;
+import graphql.Internal;
 import graphql.PublicApi;
 import graphql.cachecontrol.CacheControl;
 import graphql.collect.ImmutableMapWithNullValues;
+import graphql.execution.defer.DeferSupport;
+import graphql.execution.defer.DeferredCall;
 import graphql.execution.instrumentation.Instrumentation;
 import graphql.execution.instrumentation.InstrumentationState;
 import graphql.language.Document;
@@ -26,6 +29,7 @@ import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Consumer;
 import java.util.function.Supplier;
 
@@ -54,6 +58,13 @@ public class ExecutionContext {
     private final Locale locale;
     private final ValueUnboxer valueUnboxer;
     private final ExecutionInput executionInput;
+    private final ExecutionPlan executionPlan;
+    private final DeferSupport deferSupport;
+    private final DeferredCall deferredCall;
+    private final CancellationToken cancellationToken;
+    private final AtomicBoolean cancellationErrorAdded = new AtomicBoolean();
+    private final ExecutionPlan.SelectionSets plannedSelectionSets;
+    private final Supplier<NormalizedQueryTree> normalizedQueryTree;
 
     ExecutionContext(ExecutionContextBuilder builder) {
         this.graphQLSchema = builder.graphQLSchema;
@@ -76,6 +87,27 @@ public class ExecutionContext {
         this.errors.addAll(builder.errors);
         this.localContext = builder.localContext;
         this.executionInput = builder.executionInput;
+        this.executionPlan = builder.executionPlan;
+        this.deferSupport = builder.deferSupport;
+        this.deferredCall = builder.deferredCall;
+        this.cancellationToken = builder.cancellationToken;
+        this.plannedSelectionSets = mkPlannedSelectionSets();
+        this.normalizedQueryTree = FpKit.interThreadMemoize(this::mkNormalizedQueryTree);
+    }
+
+    private ExecutionPlan.SelectionSets mkPlannedSelectionSets() {
+        // an instrumented execution context may have swapped out the document so the plan no longer applies
+        if (executionPlan == null || executionPlan.getDocument() != document) {
+            return null;
+        }
+        return executionPlan.getSelectionSets(graphQLSchema, variables);
+    }
+
+    private NormalizedQueryTree mkNormalizedQueryTree() {
+        if (executionPlan == null || executionPlan.getDocument() != document) {
+            return NormalizedQueryTreeFactory.createNormalizedQuery(graphQLSchema, operationDefinition, fragmentsByName, variables);
+        }
+        return executionPlan.getNormalizedQueryTree(graphQLSchema, operationDefinition, fragmentsByName, variables);
     }
 
 
@@ -150,6 +182,59 @@ public class ExecutionContext {
         return valueUnboxer;
     }
 
+    /**
+     * @return the {@link ExecutionPlan} of the document being executed or null if there is none
+     */
+    public ExecutionPlan getExecutionPlan() {
+        return executionPlan;
+    }
+
+    /**
+     * @return the token that cancels this execution or null if the execution cannot be cancelled
+     */
+    public CancellationToken getCancellationToken() {
+        return cancellationToken;
+    }
+
+    /**
+     * @return true if the execution has a cancellation token that has been cancelled
+     */
+    public boolean isCancelled() {
+        return cancellationToken != null && cancellationToken.isCancelled();
+    }
+
+    /**
+     * Adds an {@link ExecutionCancelledError} for the given field path unless one has been added already, so that
+     * a cancelled execution reports the cancellation once rather than for every field that was cut short
+     *
+     * @param fieldPath the path of the field that was not fetched because of the cancellation
+     */
+    public void addCancellationError(ResultPath fieldPath) {
+        if (cancellationErrorAdded.compareAndSet(false, true)) {
+            addError(new ExecutionCancelledError(cancellationToken, fieldPath), fieldPath);
+        }
+    }
+
+    /**
+     * @return the support for {@code @defer} and {@code @stream} or null if the execution does not deliver results incrementally
+     */
+    @Internal
+    public DeferSupport getDeferSupport() {
+        return deferSupport;
+    }
+
+    /**
+     * @return the deferred call that is being executed or null while the initial result is executed
+     */
+    @Internal
+    public DeferredCall getDeferredCall() {
+        return deferredCall;
+    }
+
+    ExecutionPlan.SelectionSets getPlannedSelectionSets() {
+        return plannedSelectionSets;
+    }
+
     /**
      * This method will only put one error per field path.
      *
@@ -203,8 +288,14 @@ public class ExecutionContext {
         return subscriptionStrategy;
     }
 
+    /**
+     * The normalized query tree is built at most once per execution, when it is first asked for, and is shared with
+     * other executions of the same document via its {@link ExecutionPlan}
+     *
+     * @return a supplier of the normalized query tree of the operation being executed
+     */
     public Supplier<NormalizedQueryTree> getNormalizedQueryTree() {
-        return FpKit.interThreadMemoize(() -> NormalizedQueryTreeFactory.createNormalizedQuery(graphQLSchema, operationDefinition, fragmentsByName, variables));
+        return normalizedQueryTree;
     }
 
     /**
@@ -9,6 +9,8 @@ import graphql.PublicApi;
 import graphql.cachecontrol.CacheControl;
 import graphql.collect.ImmutableKit;
 import graphql.collect.ImmutableMapWithNullValues;
+import graphql.execution.defer.DeferSupport;
+import graphql.execution.defer.DeferredCall;
 import graphql.execution.instrumentation.Instrumentation;
 import graphql.execution.instrumentation.InstrumentationState;
 import graphql.language.Document;
@@ -46,6 +48,10 @@ public class ExecutionContextBuilder {
     ValueUnboxer valueUnboxer;
     Object localContext;
     ExecutionInput executionInput;
+    ExecutionPlan executionPlan;
+    DeferSupport deferSupport;
+    DeferredCall deferredCall;
+    CancellationToken cancellationToken;
 
     /**
      * @return a new builder of {@link graphql.execution.ExecutionContext}s
@@ -91,6 +97,10 @@ public class ExecutionContextBuilder {
         errors = ImmutableList.copyOf(other.getErrors());
         valueUnboxer = other.getValueUnboxer();
         executionInput = other.getExecutionInput();
+        executionPlan = other.getExecutionPlan();
+        deferSupport = other.getDeferSupport();
+        deferredCall = other.getDeferredCall();
+        cancellationToken = other.getCancellationToken();
     }
 
     public ExecutionContextBuilder instrumentation(Instrumentation instrumentation) {
@@ -188,6 +198,28 @@ public class ExecutionContextBuilder {
         return this;
     }
 
+    public ExecutionContextBuilder executionPlan(ExecutionPlan executionPlan) {
+        this.executionPlan = executionPlan;
+        return this;
+    }
+
+    public ExecutionContextBuilder cancellationToken(CancellationToken cancellationToken) {
+        this.cancellationToken = cancellationToken;
+        return this;
+    }
+
+    @Internal
+    public ExecutionContextBuilder deferSupport(DeferSupport deferSupport) {
+        this.deferSupport = deferSupport;
+        return this;
+    }
+
+    @Internal
+    public ExecutionContextBuilder deferredCall(DeferredCall deferredCall) {
+        this.deferredCall = deferredCall;
+        return this;
+    }
+
     public ExecutionContextBuilder resetErrors() {
         this.errors = emptyList();
         return this;
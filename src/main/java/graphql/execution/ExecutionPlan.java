@@ -0,0 +1,302 @@
+package graphql.execution;
+
+import com.google.common.collect.ImmutableList;
+import graphql.Internal;
+import graphql.language.Argument;
+import graphql.language.Directive;
+import graphql.language.Document;
+import graphql.language.FragmentDefinition;
+import graphql.language.Node;
+import graphql.language.NodeTraverser;
+import graphql.language.NodeVisitorStub;
+import graphql.language.OperationDefinition;
+import graphql.language.VariableReference;
+import graphql.normalized.NormalizedQueryTree;
+import graphql.normalized.NormalizedQueryTreeFactory;
+import graphql.schema.GraphQLObjectType;
+import graphql.schema.GraphQLSchema;
+import graphql.util.TraversalControl;
+import graphql.util.TraverserContext;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import static graphql.Assert.assertNotNull;
+import static graphql.Directives.DeferDirective;
+import static graphql.Directives.IncludeDirective;
+import static graphql.Directives.SkipDirective;
+import static graphql.Directives.StreamDirective;
+
+/**
+ * An execution plan holds the results of {@link FieldCollector} work for a given {@link Document} so that the
+ * sub selections of a field do not have to be collected again for every object value, every list element and
+ * every request that executes the same document.
+ * <p>
+ * The sub selection of a field on a given object type only depends on the schema, the document and the values of the
+ * variables used in the conditions of {@code @skip}, {@code @include} and {@code @defer} directives, so those values
+ * make up the cache key.  The labels of {@code @defer} directives are resolved per execution and are not part of the
+ * key, and only the selection sets of the most recently used conditions are kept.
+ * <p>
+ * The plan also holds the {@link NormalizedQueryTree}s of the document.  The shape of a tree only depends on the same
+ * conditions as the selection sets, so trees are keyed on those too and are built without the variables used in field
+ * arguments.  Arguments given by variables are resolved per execution via {@link graphql.normalized.NormalizedField#getArguments(Map)}.
+ * A document therefore has at most one tree per schema and combination of conditions, however many argument values
+ * it is executed with, and {@link #getNormalizedQueryTreeHitCount()} and {@link #getNormalizedQueryTreeMissCount()}
+ * show how often trees are shared.
+ * <p>
+ * The results of query analyses, such as the depth and the complexity of an operation, that are kept per document via
+ * {@link #getAnalysis(AnalysisKey, GraphQLSchema, OperationDefinition, Map, Supplier)} can depend on argument values,
+ * so they are keyed by the values of all the variables that the document uses.  Since argument values can differ for
+ * every request, only the most recently used analysis results are kept, and likewise only the most recently used trees.  Variables that the document does
+ * not use are never held on to.
+ * <p>
+ * An execution plan is stored alongside the {@link graphql.execution.preparsed.PreparsedDocumentEntry} and hence
+ * lives as long as a cached document lives.
+ */
+@Internal
+public class ExecutionPlan {
+
+    // the number of selection sets, normalized query trees and analysis results kept per document
+    private static final int MAX_SELECTION_SETS = 64;
+    private static final int MAX_NORMALIZED_QUERY_TREES = 64;
+    private static final int MAX_ANALYSES = 64;
+
+    private final Document document;
+    private ImmutableList<String> conditionalVariableNames;
+    private ImmutableList<String> referencedVariableNames;
+    private boolean incrementalDelivery;
+    private final Map<List<Object>, SelectionSets> selectionSetsByConditions = mkLruMap(MAX_SELECTION_SETS);
+    private final Map<List<Object>, NormalizedQueryTree> normalizedQueryTrees = mkLruMap(MAX_NORMALIZED_QUERY_TREES);
+    private final Map<List<Object>, Object> analyses = mkLruMap(MAX_ANALYSES);
+    private final AtomicLong normalizedQueryTreeHitCount = new AtomicLong();
+    private final AtomicLong normalizedQueryTreeMissCount = new AtomicLong();
+
+    public ExecutionPlan(Document document) {
+        this.document = assertNotNull(document);
+        scanDirectives();
+    }
+
+    public Document getDocument() {
+        return document;
+    }
+
+    /**
+     * @return the names of the variables that are used in the {@code if} conditions of {@code @skip}, {@code @include}
+     * and {@code @defer} directives
+     */
+    public List<String> getConditionalVariableNames() {
+        return conditionalVariableNames;
+    }
+
+    /**
+     * @return true if the document uses {@code @defer} or {@code @stream} directives
+     */
+    public boolean isIncrementalDelivery() {
+        return incrementalDelivery;
+    }
+
+    /**
+     * Returns the selection sets for the given schema and the given variable values.  Executions that share the same
+     * schema and the same values for the conditions of {@code @skip}, {@code @include} and {@code @defer} directives
+     * share the same selection sets.
+     *
+     * @param schema    the schema in play
+     * @param variables the coerced variables of the execution
+     *
+     * @return the selection sets for those conditions
+     */
+    public SelectionSets getSelectionSets(GraphQLSchema schema, Map<String, Object> variables) {
+        List<Object> conditions = new ArrayList<>(conditionalVariableNames.size() + 1);
+        conditions.add(schema);
+        for (String variableName : conditionalVariableNames) {
+            conditions.add(variables.get(variableName));
+        }
+        return selectionSetsByConditions.computeIfAbsent(conditions, key -> new SelectionSets());
+    }
+
+    /**
+     * Returns the normalized query tree of an operation of the document for the given schema and the given variable
+     * values.  Executions that share the same schema and the same values for the conditions of {@code @skip},
+     * {@code @include} and {@code @defer} directives share the same tree, which must not be changed.  The tree only
+     * holds the argument values that do not depend on variables.
+     *
+     * @param schema              the schema in play
+     * @param operationDefinition the operation of the document being executed
+     * @param fragments           the fragments of the document
+     * @param variables           the coerced variables of the execution
+     *
+     * @return the normalized query tree of the operation
+     */
+    public NormalizedQueryTree getNormalizedQueryTree(GraphQLSchema schema, OperationDefinition operationDefinition, Map<String, FragmentDefinition> fragments, Map<String, Object> variables) {
+        List<Object> key = mkOperationKey(null, schema, operationDefinition, conditionalVariableNames, variables);
+        NormalizedQueryTree normalizedQueryTree = normalizedQueryTrees.get(key);
+        if (normalizedQueryTree != null) {
+            normalizedQueryTreeHitCount.incrementAndGet();
+        } else {
+            normalizedQueryTreeMissCount.incrementAndGet();
+            // the tree is shared by executions with other argument values, so it is only built with the conditions
+            Map<String, Object> conditions = new LinkedHashMap<>();
+            for (String variableName : conditionalVariableNames) {
+                if (variables.containsKey(variableName)) {
+                    conditions.put(variableName, variables.get(variableName));
+                }
+            }
+            normalizedQueryTree = NormalizedQueryTreeFactory.createNormalizedQuery(schema, operationDefinition, fragments, conditions);
+            NormalizedQueryTree existing = normalizedQueryTrees.putIfAbsent(key, normalizedQueryTree);
+            normalizedQueryTree = existing != null ? existing : normalizedQueryTree;
+        }
+        return normalizedQueryTree;
+    }
+
+    /**
+     * @return the number of times a normalized query tree was served from this plan
+     */
+    public long getNormalizedQueryTreeHitCount() {
+        return normalizedQueryTreeHitCount.get();
+    }
+
+    /**
+     * @return the number of times a normalized query tree had to be built for this plan
+     */
+    public long getNormalizedQueryTreeMissCount() {
+        return normalizedQueryTreeMissCount.get();
+    }
+
+    /**
+     * Returns the result of an analysis of an operation of the document for the given schema and the given variable
+     * values, which is only computed if it has not been computed for the same schema and the same values of the variables
+     * that the document uses before.  The result is shared between executions and so it must not be changed and it must
+     * not depend on anything but the schema, the operation and its variables.
+     *
+     * @param analysisKey         the key of the analysis, results are kept per key
+     * @param schema              the schema in play
+     * @param operationDefinition the operation of the document being executed
+     * @param variables           the coerced variables of the execution
+     * @param analysis            computes the result of the analysis
+     * @param <T>                 the type of the result
+     *
+     * @return the result of the analysis
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T getAnalysis(AnalysisKey<T> analysisKey, GraphQLSchema schema, OperationDefinition operationDefinition, Map<String, Object> variables, Supplier<T> analysis) {
+        List<Object> key = mkOperationKey(assertNotNull(analysisKey), schema, operationDefinition, referencedVariableNames, variables);
+        T result = (T) analyses.get(key);
+        if (result == null) {
+            result = assertNotNull(analysis.get());
+            T existing = (T) analyses.putIfAbsent(key, result);
+            result = existing != null ? existing : result;
+        }
+        return result;
+    }
+
+    private List<Object> mkOperationKey(AnalysisKey<?> analysisKey, GraphQLSchema schema, OperationDefinition operationDefinition, List<String> variableNames, Map<String, Object> variables) {
+        List<Object> key = new ArrayList<>(variableNames.size() + 3);
+        if (analysisKey != null) {
+            key.add(analysisKey);
+        }
+        key.add(schema);
+        key.add(operationDefinition);
+        for (String variableName : variableNames) {
+            key.add(variables.get(variableName));
+        }
+        return key;
+    }
+
+    private static <V> Map<List<Object>, V> mkLruMap(int maxEntries) {
+        return Collections.synchronizedMap(new LinkedHashMap<List<Object>, V>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<List<Object>, V> eldest) {
+                return size() > maxEntries;
+            }
+        });
+    }
+
+    private void scanDirectives() {
+        Set<String> variableNames = new LinkedHashSet<>();
+        Set<String> allVariableNames = new LinkedHashSet<>();
+        NodeVisitorStub visitor = new NodeVisitorStub() {
+            @Override
+            public TraversalControl visitVariableReference(VariableReference node, TraverserContext<Node> context) {
+                allVariableNames.add(node.getName());
+                return TraversalControl.CONTINUE;
+            }
+
+            @Override
+            public TraversalControl visitDirective(Directive node, TraverserContext<Node> context) {
+                String name = node.getName();
+                if (name.equals(DeferDirective.getName()) || name.equals(StreamDirective.getName())) {
+                    incrementalDelivery = true;
+                }
+                if (name.equals(SkipDirective.getName()) || name.equals(IncludeDirective.getName()) || name.equals(DeferDirective.getName())) {
+                    // the label of @defer is resolved per execution so only the condition decides the selection sets
+                    Argument condition = node.getArgument("if");
+                    if (condition != null && condition.getValue() instanceof VariableReference) {
+                        variableNames.add(((VariableReference) condition.getValue()).getName());
+                    }
+                }
+                return TraversalControl.CONTINUE;
+            }
+        };
+        new NodeTraverser().depthFirst(visitor, document);
+        conditionalVariableNames = ImmutableList.copyOf(variableNames);
+        referencedVariableNames = ImmutableList.copyOf(allVariableNames);
+    }
+
+    /**
+     * Identifies an analysis whose results are kept in execution plans.  An analyser creates its key once and uses it for
+     * all the operations it analyses.  Keys are compared by identity and do not refer to their analyser, so the results
+     * kept in a plan do not keep an analyser alive.
+     *
+     * @param <T> the type of the results of the analysis
+     */
+    @Internal
+    public static final class AnalysisKey<T> {
+    }
+
+    /**
+     * The collected sub selections of fields per resolved object type, for one set of execution conditions.
+     */
+    @Internal
+    public static class SelectionSets {
+
+        private final Map<MergedField, Map<GraphQLObjectType, MergedSelectionSet>> subFieldsByField = new ConcurrentHashMap<>();
+
+        private SelectionSets() {
+        }
+
+        /**
+         * @param mergedField the field to get the sub selection of
+         * @param objectType  the resolved object type of the field
+         *
+         * @return the previously collected sub selection or null if it has not been collected yet
+         */
+        public MergedSelectionSet get(MergedField mergedField, GraphQLObjectType objectType) {
+            Map<GraphQLObjectType, MergedSelectionSet> byType = subFieldsByField.get(mergedField);
+            return byType == null ? null : byType.get(objectType);
+        }
+
+        /**
+         * Records the collected sub selection of a field.  If another thread has recorded one in the mean time then that
+         * one is returned so that all executions share the same instance.
+         *
+         * @param mergedField the field that was collected
+         * @param objectType  the resolved object type of the field
+         * @param subFields   the collected sub selection
+         *
+         * @return the recorded sub selection
+         */
+        public MergedSelectionSet put(MergedField mergedField, GraphQLObjectType objectType, MergedSelectionSet subFields) {
+            Map<GraphQLObjectType, MergedSelectionSet> byType = subFieldsByField.computeIfAbsent(mergedField, key -> new ConcurrentHashMap<>());
+            MergedSelectionSet existing = byType.putIfAbsent(objectType, subFields);
+            return existing != null ? existing : subFields;
+        }
+    }
+}
@@ -22,11 +22,13 @@ import graphql.language.Argument;
 import graphql.language.Field;
 import graphql.normalized.NormalizedField;
 import graphql.normalized.NormalizedQueryTree;
+import graphql.schema.Coercing;
 import graphql.schema.CoercingSerializeException;
 import graphql.schema.DataFetcher;
 import graphql.schema.DataFetchingEnvironment;
 import graphql.schema.DataFetchingFieldSelectionSet;
 import graphql.schema.DataFetchingFieldSelectionSetImpl;
+import graphql.schema.FieldExecutionDescriptor;
 import graphql.schema.GraphQLArgument;
 import graphql.schema.GraphQLCodeRegistry;
 import graphql.schema.GraphQLEnumType;
@@ -191,8 +193,11 @@ public abstract class ExecutionStrategy {
      * @return a promise to a {@link FieldValueInfo}
      * @throws NonNullableFieldWasNullException in the {@link FieldValueInfo#getFieldValue()} future if a non null field resolves to a null value
      */
-    protected CompletableFuture<FieldValueInfo> resolveFieldWithInfo(ExecutionContext executionContext, ExecutionStrategyParameters parameters) {
-        GraphQLFieldDefinition fieldDef = getFieldDef(executionContext, parameters, parameters.getField().getSingleField());
+    protected CompletableFuture<FieldValueInfo> resolveFieldWithInfo(ExecutionContext executionContext, ExecutionStrategyParameters fieldParameters) {
+        // the descriptor is looked up once and then read from the parameters when the field is fetched and completed
+        FieldExecutionDescriptor fieldExecutionDescriptor = getFieldExecutionDescriptor(executionContext, fieldParameters);
+        ExecutionStrategyParameters parameters = fieldParameters.transform(builder -> builder.fieldExecutionDescriptor(fieldExecutionDescriptor));
+        GraphQLFieldDefinition fieldDef = fieldExecutionDescriptor.getFieldDefinition();
         Supplier<ExecutionStepInfo> executionStepInfo = FpKit.intraThreadMemoize(() -> createExecutionStepInfo(executionContext, parameters, fieldDef, null));
 
         Instrumentation instrumentation = executionContext.getInstrumentation();
@@ -201,16 +206,46 @@ public abstract class ExecutionStrategy {
         );
 
         CompletableFuture<FetchedValue> fetchFieldFuture = fetchField(executionContext, parameters);
-        CompletableFuture<FieldValueInfo> result = fetchFieldFuture.thenApply((fetchedValue) ->
-                completeField(executionContext, parameters, fetchedValue));
-
-        CompletableFuture<ExecutionResult> executionResultFuture = result.thenCompose(FieldValueInfo::getFieldValue);
+        CompletableFuture<FieldValueInfo> result;
+        CompletableFuture<ExecutionResult> executionResultFuture;
+        if (Async.isCompletedNormally(fetchFieldFuture)) {
+            // the value is already present so we can complete it straight away rather than chaining callbacks
+            result = completeFieldNow(executionContext, parameters, fetchFieldFuture.join());
+        } else {
+            result = fetchFieldFuture.thenApply((fetchedValue) ->
+                    completeField(executionContext, parameters, fetchedValue));
+        }
+        if (Async.isCompletedNormally(result) && result.join().getFieldValue().isDone()) {
+            executionResultFuture = result.join().getFieldValue();
+        } else {
+            executionResultFuture = result.thenCompose(FieldValueInfo::getFieldValue);
+        }
 
         fieldCtx.onDispatched(executionResultFuture);
         executionResultFuture.whenComplete(fieldCtx::onCompleted);
         return result;
     }
 
+    private FieldExecutionDescriptor getFieldExecutionDescriptor(ExecutionContext executionContext, ExecutionStrategyParameters parameters) {
+        FieldExecutionDescriptor fieldExecutionDescriptor = parameters.getFieldExecutionDescriptor();
+        if (fieldExecutionDescriptor != null) {
+            return fieldExecutionDescriptor;
+        }
+        // the data fetcher and the type of a field are worked out once per schema rather than on every fetch
+        GraphQLObjectType parentType = (GraphQLObjectType) parameters.getExecutionStepInfo().getUnwrappedNonNullType();
+        GraphQLFieldDefinition fieldDef = getFieldDef(executionContext.getGraphQLSchema(), parentType, parameters.getField().getSingleField());
+        return executionContext.getGraphQLSchema().getCodeRegistry().getFieldExecutionDescriptor(parentType, fieldDef);
+    }
+
+    private CompletableFuture<FieldValueInfo> completeFieldNow(ExecutionContext executionContext, ExecutionStrategyParameters parameters, FetchedValue fetchedValue) {
+        try {
+            return completedFuture(completeField(executionContext, parameters, fetchedValue));
+        } catch (Exception e) {
+            // this is how the exception would have been presented via CompletableFuture#thenApply
+            return exceptionallyCompletedFuture(new CompletionException(e));
+        }
+    }
+
     /**
      * Called to fetch a value for a field from the {@link DataFetcher} associated with the field
      * {@link GraphQLFieldDefinition}.
@@ -226,10 +261,9 @@ public abstract class ExecutionStrategy {
     protected CompletableFuture<FetchedValue> fetchField(ExecutionContext executionContext, ExecutionStrategyParameters parameters) {
         MergedField field = parameters.getField();
         GraphQLObjectType parentType = (GraphQLObjectType) parameters.getExecutionStepInfo().getUnwrappedNonNullType();
-        GraphQLFieldDefinition fieldDef = getFieldDef(executionContext.getGraphQLSchema(), parentType, field.getSingleField());
-
-        GraphQLCodeRegistry codeRegistry = executionContext.getGraphQLSchema().getCodeRegistry();
-        GraphQLOutputType fieldType = fieldDef.getType();
+        FieldExecutionDescriptor fieldExecutionDescriptor = getFieldExecutionDescriptor(executionContext, parameters);
+        GraphQLFieldDefinition fieldDef = fieldExecutionDescriptor.getFieldDefinition();
+        GraphQLOutputType fieldType = fieldExecutionDescriptor.getFieldType();
 
         // if the DF (like PropertyDataFetcher) does not use the arguments of execution step info then dont build any
         Supplier<ExecutionStepInfo> executionStepInfo = FpKit.intraThreadMemoize(
@@ -239,7 +273,8 @@ public abstract class ExecutionStrategy {
         Supplier<NormalizedField> normalizedFieldSupplier = getNormalizedField(executionContext, parameters, executionStepInfo);
 
         // DataFetchingFieldSelectionSet and QueryDirectives is a supplier of sorts - eg a lazy pattern
-        DataFetchingFieldSelectionSet fieldCollector = DataFetchingFieldSelectionSetImpl.newCollector(fieldType, normalizedFieldSupplier);
+        // only the named type decides whether the field has a selection set, and it is known up front
+        DataFetchingFieldSelectionSet fieldCollector = DataFetchingFieldSelectionSetImpl.newCollector(fieldExecutionDescriptor.getUnwrappedType(), normalizedFieldSupplier, executionContext.getVariables());
         QueryDirectives queryDirectives = new QueryDirectivesImpl(field, executionContext.getGraphQLSchema(), executionContext.getVariables());
 
 
@@ -256,7 +291,7 @@ public abstract class ExecutionStrategy {
                 .queryDirectives(queryDirectives)
                 .build();
 
-        DataFetcher<?> dataFetcher = codeRegistry.getDataFetcher(parentType, fieldDef);
+        DataFetcher<?> dataFetcher = fieldExecutionDescriptor.getDataFetcher();
 
         Instrumentation instrumentation = executionContext.getInstrumentation();
 
@@ -266,18 +301,37 @@ public abstract class ExecutionStrategy {
         CompletableFuture<Object> fetchedValue;
         dataFetcher = instrumentation.instrumentDataFetcher(dataFetcher, instrumentationFieldFetchParams);
         ExecutionId executionId = executionContext.getExecutionId();
-        try {
-            Object fetchedValueRaw = dataFetcher.get(environment);
-            fetchedValue = Async.toCompletableFuture(fetchedValueRaw);
-        } catch (Exception e) {
-            if (logNotSafe.isDebugEnabled()) {
-                logNotSafe.debug(String.format("'%s', field '%s' fetch threw exception", executionId, executionStepInfo.get().getPath()), e);
+        if (executionContext.isCancelled()) {
+            // no new fetches are started once the execution has been cancelled, the field resolves to null instead
+            executionContext.addCancellationError(parameters.getPath());
+            fetchedValue = completedFuture(null);
+        } else {
+            try {
+                Object fetchedValueRaw = dataFetcher.get(environment);
+                fetchedValue = Async.toCompletableFuture(fetchedValueRaw);
+            } catch (Exception e) {
+                if (logNotSafe.isDebugEnabled()) {
+                    logNotSafe.debug(String.format("'%s', field '%s' fetch threw exception", executionId, executionStepInfo.get().getPath()), e);
+                }
+
+                fetchedValue = new CompletableFuture<>();
+                fetchedValue.completeExceptionally(e);
             }
-
-            fetchedValue = new CompletableFuture<>();
-            fetchedValue.completeExceptionally(e);
         }
         fetchCtx.onDispatched(fetchedValue);
+        if (Async.isCompletedNormally(fetchedValue)) {
+            // most data fetchers return plain values so avoid the extra futures and callbacks of the async path below
+            Object result = fetchedValue.join();
+            fetchCtx.onCompleted(result, null);
+            try {
+                return completedFuture(unboxPossibleDataFetcherResult(executionContext, parameters, result));
+            } catch (Exception e) {
+                return exceptionallyCompletedFuture(new CompletionException(e));
+            }
+        }
+        if (executionContext.getCancellationToken() != null) {
+            fetchedValue = cancelOnCancellation(executionContext, parameters, fetchedValue);
+        }
         return fetchedValue
                 .handle((result, exception) -> {
                     fetchCtx.onCompleted(result, exception);
@@ -291,6 +345,32 @@ public abstract class ExecutionStrategy {
                 .thenApply(result -> unboxPossibleDataFetcherResult(executionContext, parameters, result));
     }
 
+    private CompletableFuture<Object> cancelOnCancellation(ExecutionContext executionContext, ExecutionStrategyParameters parameters, CompletableFuture<Object> fetchedValue) {
+        if (fetchedValue.isDone()) {
+            return fetchedValue;
+        }
+        CancellationToken cancellationToken = executionContext.getCancellationToken();
+        CompletableFuture<Object> result = new CompletableFuture<>();
+        Runnable onCancel = () -> {
+            // a pending fetch resolves to null straight away and the fetching code is told to stop
+            if (result.complete(null)) {
+                executionContext.addCancellationError(parameters.getPath());
+                fetchedValue.cancel(true);
+            }
+        };
+        cancellationToken.onCancel(onCancel);
+        fetchedValue.whenComplete((value, exception) -> {
+            // the callback is registered first so that it is always removed once the fetch has completed
+            cancellationToken.removeOnCancel(onCancel);
+            if (exception != null) {
+                result.completeExceptionally(exception);
+            } else {
+                result.complete(value);
+            }
+        });
+        return result;
+    }
+
     protected Supplier<NormalizedField> getNormalizedField(ExecutionContext executionContext, ExecutionStrategyParameters parameters, Supplier<ExecutionStepInfo> executionStepInfo) {
         Supplier<NormalizedQueryTree> normalizedQuery = executionContext.getNormalizedQueryTree();
         return () -> normalizedQuery.get().getNormalizedField(parameters.getField(), executionStepInfo.get().getObjectType(), executionStepInfo.get().getPath());
@@ -363,9 +443,9 @@ public abstract class ExecutionStrategy {
      * @throws NonNullableFieldWasNullException in the {@link FieldValueInfo#getFieldValue()} future if a non null field resolves to a null value
      */
     protected FieldValueInfo completeField(ExecutionContext executionContext, ExecutionStrategyParameters parameters, FetchedValue fetchedValue) {
-        Field field = parameters.getField().getSingleField();
         GraphQLObjectType parentType = (GraphQLObjectType) parameters.getExecutionStepInfo().getUnwrappedNonNullType();
-        GraphQLFieldDefinition fieldDef = getFieldDef(executionContext.getGraphQLSchema(), parentType, field);
+        FieldExecutionDescriptor fieldExecutionDescriptor = getFieldExecutionDescriptor(executionContext, parameters);
+        GraphQLFieldDefinition fieldDef = fieldExecutionDescriptor.getFieldDefinition();
         ExecutionStepInfo executionStepInfo = createExecutionStepInfo(executionContext, parameters, fieldDef, parentType);
 
         Instrumentation instrumentation = executionContext.getInstrumentation();
@@ -374,13 +454,14 @@ public abstract class ExecutionStrategy {
                 instrumentationParams
         );
 
-        NonNullableFieldValidator nonNullableFieldValidator = new NonNullableFieldValidator(executionContext, executionStepInfo);
+        NonNullableFieldValidator nonNullableFieldValidator = new NonNullableFieldValidator(executionContext, executionStepInfo, fieldExecutionDescriptor.isNonNull());
 
         ExecutionStrategyParameters newParameters = parameters.transform(builder ->
                 builder.executionStepInfo(executionStepInfo)
                         .source(fetchedValue.getFetchedValue())
                         .localContext(fetchedValue.getLocalContext())
                         .nonNullFieldValidator(nonNullableFieldValidator)
+                        .fieldExecutionDescriptor(fieldExecutionDescriptor)
         );
 
         if (log.isDebugEnabled()) {
@@ -413,13 +494,15 @@ public abstract class ExecutionStrategy {
     protected FieldValueInfo completeValue(ExecutionContext executionContext, ExecutionStrategyParameters parameters) throws NonNullableFieldWasNullException {
         ExecutionStepInfo executionStepInfo = parameters.getExecutionStepInfo();
         Object result = executionContext.getValueUnboxer().unbox(parameters.getSource());
-        GraphQLType fieldType = executionStepInfo.getUnwrappedNonNullType();
+        // the type of the value of a field is known up front, only list items need their type looked at
+        FieldExecutionDescriptor fieldExecutionDescriptor = parameters.getFieldExecutionDescriptor();
+        GraphQLType fieldType = fieldExecutionDescriptor != null ? fieldExecutionDescriptor.getUnwrappedNonNullType() : executionStepInfo.getUnwrappedNonNullType();
         CompletableFuture<ExecutionResult> fieldValue;
 
         if (result == null) {
             fieldValue = completeValueForNull(parameters);
             return FieldValueInfo.newFieldValueInfo(NULL).fieldValue(fieldValue).build();
-        } else if (isList(fieldType)) {
+        } else if (fieldExecutionDescriptor != null ? fieldExecutionDescriptor.isList() : isList(fieldType)) {
             return completeValueForList(executionContext, parameters, result);
         } else if (isScalar(fieldType)) {
             fieldValue = completeValueForScalar(executionContext, parameters, (GraphQLScalarType) fieldType, result);
@@ -507,24 +590,8 @@ public abstract class ExecutionStrategy {
         List<FieldValueInfo> fieldValueInfos = new ArrayList<>(size.orElse(1));
         int index = 0;
         for (Object item : iterableValues) {
-            ResultPath indexedPath = parameters.getPath().segment(index);
-
-            ExecutionStepInfo stepInfoForListElement = executionStepInfoFactory.newExecutionStepInfoForListElement(executionStepInfo, index);
-
-            NonNullableFieldValidator nonNullableFieldValidator = new NonNullableFieldValidator(executionContext, stepInfoForListElement);
-
-            int finalIndex = index;
-            FetchedValue value = unboxPossibleDataFetcherResult(executionContext, parameters, item);
-
-            ExecutionStrategyParameters newParameters = parameters.transform(builder ->
-                    builder.executionStepInfo(stepInfoForListElement)
-                            .nonNullFieldValidator(nonNullableFieldValidator)
-                            .listSize(size.orElse(-1)) // -1 signals that we don't know the size
-                            .localContext(value.getLocalContext())
-                            .currentListIndex(finalIndex)
-                            .path(indexedPath)
-                            .source(value.getFetchedValue())
-            );
+            // -1 signals that we don't know the size
+            ExecutionStrategyParameters newParameters = newParametersForListItem(executionContext, parameters, item, index, size.orElse(-1));
             fieldValueInfos.add(completeValue(executionContext, newParameters));
             index++;
         }
@@ -555,6 +622,36 @@ public abstract class ExecutionStrategy {
                 .build();
     }
 
+    /**
+     * Builds the parameters to complete one item of a list value
+     *
+     * @param executionContext contains the top level execution parameters
+     * @param parameters       contains the parameters of the list field
+     * @param item             the list item
+     * @param index            the index of the item in the list
+     * @param listSize         the size of the list or -1 if it is not known
+     * @return the parameters to complete the list item with
+     */
+    protected ExecutionStrategyParameters newParametersForListItem(ExecutionContext executionContext, ExecutionStrategyParameters parameters, Object item, int index, int listSize) {
+        ResultPath indexedPath = parameters.getPath().segment(index);
+
+        ExecutionStepInfo stepInfoForListElement = executionStepInfoFactory.newExecutionStepInfoForListElement(parameters.getExecutionStepInfo(), index);
+
+        NonNullableFieldValidator nonNullableFieldValidator = new NonNullableFieldValidator(executionContext, stepInfoForListElement);
+
+        FetchedValue value = unboxPossibleDataFetcherResult(executionContext, parameters, item);
+
+        return parameters.transform(builder ->
+                builder.executionStepInfo(stepInfoForListElement)
+                        .nonNullFieldValidator(nonNullableFieldValidator)
+                        .listSize(listSize)
+                        .localContext(value.getLocalContext())
+                        .currentListIndex(index)
+                        .path(indexedPath)
+                        .source(value.getFetchedValue())
+        );
+    }
+
     /**
      * Called to turn an object into a scalar value according to the {@link GraphQLScalarType} by asking that scalar type to coerce the object
      * into a valid value
@@ -566,9 +663,11 @@ public abstract class ExecutionStrategy {
      * @return a promise to an {@link ExecutionResult}
      */
     protected CompletableFuture<ExecutionResult> completeValueForScalar(ExecutionContext executionContext, ExecutionStrategyParameters parameters, GraphQLScalarType scalarType, Object result) {
+        FieldExecutionDescriptor fieldExecutionDescriptor = parameters.getFieldExecutionDescriptor();
+        Coercing<?, ?> coercing = fieldExecutionDescriptor != null && fieldExecutionDescriptor.getCoercing() != null ? fieldExecutionDescriptor.getCoercing() : scalarType.getCoercing();
         Object serialized;
         try {
-            serialized = scalarType.getCoercing().serialize(result);
+            serialized = coercing.serialize(result);
         } catch (CoercingSerializeException e) {
             serialized = handleCoercionProblem(executionContext, parameters, e);
         }
@@ -629,7 +728,7 @@ public abstract class ExecutionStrategy {
                 .variables(executionContext.getVariables())
                 .build();
 
-        MergedSelectionSet subFields = fieldCollector.collectFields(collectorParameters, parameters.getField());
+        MergedSelectionSet subFields = collectFields(executionContext, collectorParameters, parameters.getField());
 
         ExecutionStepInfo newExecutionStepInfo = executionStepInfo.changeTypeWithPreservedNonNull(resolvedObjectType);
         NonNullableFieldValidator nonNullableFieldValidator = new NonNullableFieldValidator(executionContext, newExecutionStepInfo);
@@ -646,6 +745,28 @@ public abstract class ExecutionStrategy {
         return executionContext.getQueryStrategy().execute(executionContext, newParameters);
     }
 
+    /**
+     * Called to collect the sub fields of a field for the resolved object type.  If the execution has an {@link ExecutionPlan}
+     * then previously collected sub fields are re-used, otherwise the {@link FieldCollector} is called.
+     *
+     * @param executionContext    contains the top level execution parameters
+     * @param collectorParameters the field collector parameters including the resolved object type
+     * @param mergedField         the field to collect the sub fields of
+     * @return the sub fields of the field
+     */
+    protected MergedSelectionSet collectFields(ExecutionContext executionContext, FieldCollectorParameters collectorParameters, MergedField mergedField) {
+        ExecutionPlan.SelectionSets plannedSelectionSets = executionContext.getPlannedSelectionSets();
+        if (plannedSelectionSets == null) {
+            return fieldCollector.collectFields(collectorParameters, mergedField);
+        }
+        GraphQLObjectType objectType = collectorParameters.getObjectType();
+        MergedSelectionSet subFields = plannedSelectionSets.get(mergedField, objectType);
+        if (subFields == null) {
+            subFields = plannedSelectionSets.put(mergedField, objectType, fieldCollector.collectFields(collectorParameters, mergedField));
+        }
+        return subFields;
+    }
+
     @SuppressWarnings("SameReturnValue")
     private Object handleCoercionProblem(ExecutionContext context, ExecutionStrategyParameters parameters, CoercingSerializeException e) {
         SerializationError error = new SerializationError(parameters.getPath(), e);
@@ -1,7 +1,9 @@
 package graphql.execution;
 
 import graphql.Assert;
+import graphql.Internal;
 import graphql.PublicApi;
+import graphql.schema.FieldExecutionDescriptor;
 
 import java.util.function.Consumer;
 
@@ -22,6 +24,7 @@ public class ExecutionStrategyParameters {
     private final int listSize;
     private final int currentListIndex;
     private final ExecutionStrategyParameters parent;
+    private final FieldExecutionDescriptor fieldExecutionDescriptor;
 
     private ExecutionStrategyParameters(ExecutionStepInfo executionStepInfo,
                                         Object source,
@@ -32,7 +35,8 @@ public class ExecutionStrategyParameters {
                                         MergedField currentField,
                                         int listSize,
                                         int currentListIndex,
-                                        ExecutionStrategyParameters parent) {
+                                        ExecutionStrategyParameters parent,
+                                        FieldExecutionDescriptor fieldExecutionDescriptor) {
 
         this.executionStepInfo = assertNotNull(executionStepInfo, () -> "executionStepInfo is null");
         this.localContext = localContext;
@@ -44,6 +48,7 @@ public class ExecutionStrategyParameters {
         this.listSize = listSize;
         this.currentListIndex = currentListIndex;
         this.parent = parent;
+        this.fieldExecutionDescriptor = fieldExecutionDescriptor;
     }
 
     public ExecutionStepInfo getExecutionStepInfo() {
@@ -82,6 +87,15 @@ public class ExecutionStrategyParameters {
         return parent;
     }
 
+    /**
+     * @return the execution descriptor of the field whose value is being completed, or null if these parameters are
+     * for anything else, such as the items of a list
+     */
+    @Internal
+    public FieldExecutionDescriptor getFieldExecutionDescriptor() {
+        return fieldExecutionDescriptor;
+    }
+
     /**
      * This returns the current field in its query representations.
      *
@@ -122,6 +136,7 @@ public class ExecutionStrategyParameters {
         int listSize;
         int currentListIndex;
         ExecutionStrategyParameters parent;
+        FieldExecutionDescriptor fieldExecutionDescriptor;
 
         /**
          * @see ExecutionStrategyParameters#newParameters()
@@ -143,6 +158,8 @@ public class ExecutionStrategyParameters {
             this.parent = oldParameters.parent;
             this.listSize = oldParameters.listSize;
             this.currentListIndex = oldParameters.currentListIndex;
+            // the descriptor only describes the value of the field itself and not the list items or sub fields
+            // that transformed parameters are made for
         }
 
         public Builder executionStepInfo(ExecutionStepInfo executionStepInfo) {
@@ -201,8 +218,14 @@ public class ExecutionStrategyParameters {
         }
 
 
+        @Internal
+        public Builder fieldExecutionDescriptor(FieldExecutionDescriptor fieldExecutionDescriptor) {
+            this.fieldExecutionDescriptor = fieldExecutionDescriptor;
+            return this;
+        }
+
         public ExecutionStrategyParameters build() {
-            return new ExecutionStrategyParameters(executionStepInfo, source, localContext, fields, nonNullableFieldValidator, path, currentField, listSize, currentListIndex, parent);
+            return new ExecutionStrategyParameters(executionStepInfo, source, localContext, fields, nonNullableFieldValidator, path, currentField, listSize, currentListIndex, parent, fieldExecutionDescriptor);
         }
     }
 }
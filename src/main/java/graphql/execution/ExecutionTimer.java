@@ -0,0 +1,53 @@
+package graphql.execution;
+
+import graphql.Internal;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The timer that the deadlines of {@link CancellationToken}s, the batch windows of data loader dispatching and the
+ * waits for a {@link graphql.analysis.CostBudget} are watched by.  Its single thread is shared by all executions, so it
+ * only hands a task over to the executor the task is scheduled with, which then runs the task and so the rest of the
+ * execution.
+ */
+@Internal
+public class ExecutionTimer {
+
+    private static final ScheduledThreadPoolExecutor TIMER = mkTimer();
+
+    private static ScheduledThreadPoolExecutor mkTimer() {
+        ScheduledThreadPoolExecutor timer = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "graphql-java-timer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // executions mostly finish before their deadline and waiters mostly get their cost before giving up, so do not
+        // keep the cancelled timers around
+        timer.setRemoveOnCancelPolicy(true);
+        return timer;
+    }
+
+    /**
+     * Runs the task on the executor once the delay has passed
+     *
+     * @param task       the task to run
+     * @param delayNanos the delay in nanoseconds
+     * @param executor   the executor to run the task on
+     *
+     * @return the scheduled hand over, which can be cancelled if the task is no longer needed
+     */
+    public static ScheduledFuture<?> schedule(Runnable task, long delayNanos, Executor executor) {
+        return TIMER.schedule(() -> {
+            try {
+                executor.execute(task);
+            } catch (RejectedExecutionException e) {
+                // the task still has to run, even if only the timer is left to do it
+                task.run();
+            }
+        }, delayNanos, TimeUnit.NANOSECONDS);
+    }
+}
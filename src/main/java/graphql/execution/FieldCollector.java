@@ -1,7 +1,13 @@
 package graphql.execution;
 
 
+import com.google.common.collect.ImmutableList;
 import graphql.Internal;
+import graphql.collect.ImmutableKit;
+import graphql.execution.defer.DeferredFragment;
+import graphql.execution.defer.IncrementalDirectives;
+import graphql.language.Directive;
+import graphql.language.DirectivesContainer;
 import graphql.language.Field;
 import graphql.language.FragmentDefinition;
 import graphql.language.FragmentSpread;
@@ -13,14 +19,17 @@ import graphql.schema.GraphQLObjectType;
 import graphql.schema.GraphQLType;
 import graphql.schema.GraphQLUnionType;
 
+import java.util.ArrayList;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
+import static graphql.Directives.DeferDirective;
 import static graphql.execution.MergedSelectionSet.newMergedSelectionSet;
 import static graphql.execution.TypeFromAST.getTypeFromAST;
+import static graphql.language.NodeUtil.directiveByName;
 
 /**
  * A field collector can iterate over field selection sets and build out the sub fields that have been selected,
@@ -30,17 +39,19 @@ import static graphql.execution.TypeFromAST.getTypeFromAST;
 public class FieldCollector {
 
     private final ConditionalNodes conditionalNodes = new ConditionalNodes();
+    private final IncrementalDirectives incrementalDirectives = new IncrementalDirectives();
 
     public MergedSelectionSet collectFields(FieldCollectorParameters parameters, MergedField mergedField) {
         Map<String, MergedField> subFields = new LinkedHashMap<>();
         Set<String> visitedFragments = new LinkedHashSet<>();
+        DeferredFields deferredFields = new DeferredFields();
         for (Field field : mergedField.getFields()) {
             if (field.getSelectionSet() == null) {
                 continue;
             }
-            this.collectFields(parameters, field.getSelectionSet(), visitedFragments, subFields);
+            this.collectFields(parameters, field.getSelectionSet(), visitedFragments, subFields, null, deferredFields);
         }
-        return newMergedSelectionSet().subFields(subFields).build();
+        return newMergedSelectionSet().subFields(subFields).deferredFragments(deferredFields.toDeferredFragments()).build();
     }
 
     /**
@@ -54,25 +65,26 @@ public class FieldCollector {
     public MergedSelectionSet collectFields(FieldCollectorParameters parameters, SelectionSet selectionSet) {
         Map<String, MergedField> subFields = new LinkedHashMap<>();
         Set<String> visitedFragments = new LinkedHashSet<>();
-        this.collectFields(parameters, selectionSet, visitedFragments, subFields);
-        return newMergedSelectionSet().subFields(subFields).build();
+        DeferredFields deferredFields = new DeferredFields();
+        this.collectFields(parameters, selectionSet, visitedFragments, subFields, null, deferredFields);
+        return newMergedSelectionSet().subFields(subFields).deferredFragments(deferredFields.toDeferredFragments()).build();
     }
 
 
-    private void collectFields(FieldCollectorParameters parameters, SelectionSet selectionSet, Set<String> visitedFragments, Map<String, MergedField> fields) {
+    private void collectFields(FieldCollectorParameters parameters, SelectionSet selectionSet, Set<String> visitedFragments, Map<String, MergedField> fields, Selection deferredBy, DeferredFields deferredFields) {
 
         for (Selection selection : selectionSet.getSelections()) {
             if (selection instanceof Field) {
-                collectField(parameters, fields, (Field) selection);
+                collectField(parameters, fields, (Field) selection, deferredBy, deferredFields);
             } else if (selection instanceof InlineFragment) {
-                collectInlineFragment(parameters, visitedFragments, fields, (InlineFragment) selection);
+                collectInlineFragment(parameters, visitedFragments, fields, (InlineFragment) selection, deferredBy, deferredFields);
             } else if (selection instanceof FragmentSpread) {
-                collectFragmentSpread(parameters, visitedFragments, fields, (FragmentSpread) selection);
+                collectFragmentSpread(parameters, visitedFragments, fields, (FragmentSpread) selection, deferredBy, deferredFields);
             }
         }
     }
 
-    private void collectFragmentSpread(FieldCollectorParameters parameters, Set<String> visitedFragments, Map<String, MergedField> fields, FragmentSpread fragmentSpread) {
+    private void collectFragmentSpread(FieldCollectorParameters parameters, Set<String> visitedFragments, Map<String, MergedField> fields, FragmentSpread fragmentSpread, Selection deferredBy, DeferredFields deferredFields) {
         if (visitedFragments.contains(fragmentSpread.getName())) {
             return;
         }
@@ -88,18 +100,20 @@ public class FieldCollector {
         if (!doesFragmentConditionMatch(parameters, fragmentDefinition)) {
             return;
         }
-        collectFields(parameters, fragmentDefinition.getSelectionSet(), visitedFragments, fields);
+        deferredBy = deferredFields.deferredBy(parameters, fragmentSpread, deferredBy);
+        collectFields(parameters, fragmentDefinition.getSelectionSet(), visitedFragments, fields, deferredBy, deferredFields);
     }
 
-    private void collectInlineFragment(FieldCollectorParameters parameters, Set<String> visitedFragments, Map<String, MergedField> fields, InlineFragment inlineFragment) {
+    private void collectInlineFragment(FieldCollectorParameters parameters, Set<String> visitedFragments, Map<String, MergedField> fields, InlineFragment inlineFragment, Selection deferredBy, DeferredFields deferredFields) {
         if (!conditionalNodes.shouldInclude(parameters.getVariables(), inlineFragment.getDirectives()) ||
                 !doesFragmentConditionMatch(parameters, inlineFragment)) {
             return;
         }
-        collectFields(parameters, inlineFragment.getSelectionSet(), visitedFragments, fields);
+        deferredBy = deferredFields.deferredBy(parameters, inlineFragment, deferredBy);
+        collectFields(parameters, inlineFragment.getSelectionSet(), visitedFragments, fields, deferredBy, deferredFields);
     }
 
-    private void collectField(FieldCollectorParameters parameters, Map<String, MergedField> fields, Field field) {
+    private void collectField(FieldCollectorParameters parameters, Map<String, MergedField> fields, Field field, Selection deferredBy, DeferredFields deferredFields) {
         if (!conditionalNodes.shouldInclude(parameters.getVariables(), field.getDirectives())) {
             return;
         }
@@ -107,8 +121,15 @@ public class FieldCollector {
         if (fields.containsKey(name)) {
             MergedField curFields = fields.get(name);
             fields.put(name, curFields.transform(builder -> builder.addField(field)));
+            if (deferredBy == null) {
+                // a field that is also selected outside of a deferred fragment is never deferred
+                deferredFields.undefer(name);
+            }
         } else {
             fields.put(name, MergedField.newMergedField(field).build());
+            if (deferredBy != null) {
+                deferredFields.defer(name, deferredBy);
+            }
         }
     }
 
@@ -152,4 +173,51 @@ public class FieldCollector {
     }
 
 
+    /**
+     * Tracks which collected fields were only selected via {@code @defer} fragments.  A field belongs to the outermost
+     * deferred fragment it was first selected in.
+     */
+    private class DeferredFields {
+        private Map<String, Selection> fragmentByKey;
+        private Map<Selection, Directive> deferDirectiveByFragment;
+
+        Selection deferredBy(FieldCollectorParameters parameters, Selection fragment, Selection enclosingDeferredBy) {
+            if (enclosingDeferredBy != null) {
+                return enclosingDeferredBy;
+            }
+            Map<String, Object> deferArguments = incrementalDirectives.getDeferArguments(parameters.getVariables(), ((DirectivesContainer<?>) fragment).getDirectives());
+            if (deferArguments == null) {
+                return null;
+            }
+            if (deferDirectiveByFragment == null) {
+                deferDirectiveByFragment = new LinkedHashMap<>();
+                fragmentByKey = new LinkedHashMap<>();
+            }
+            // the label is resolved per execution, since the collected fields are shared by executions with other labels
+            deferDirectiveByFragment.put(fragment, directiveByName(((DirectivesContainer<?>) fragment).getDirectives(), DeferDirective.getName()).get());
+            return fragment;
+        }
+
+        void defer(String key, Selection fragment) {
+            fragmentByKey.put(key, fragment);
+        }
+
+        void undefer(String key) {
+            if (fragmentByKey != null) {
+                fragmentByKey.remove(key);
+            }
+        }
+
+        List<DeferredFragment> toDeferredFragments() {
+            if (fragmentByKey == null || fragmentByKey.isEmpty()) {
+                return ImmutableKit.emptyList();
+            }
+            Map<Selection, List<String>> keysByFragment = new LinkedHashMap<>();
+            fragmentByKey.forEach((key, fragment) -> keysByFragment.computeIfAbsent(fragment, f -> new ArrayList<>()).add(key));
+            ImmutableList.Builder<DeferredFragment> deferredFragments = ImmutableList.builder();
+            keysByFragment.forEach((fragment, keys) -> deferredFragments.add(new DeferredFragment(deferDirectiveByFragment.get(fragment), keys)));
+            return deferredFragments.build();
+        }
+    }
+
 }
@@ -3,6 +3,7 @@ package graphql.execution;
 import com.google.common.collect.ImmutableList;
 import graphql.Assert;
 import graphql.PublicApi;
+import graphql.execution.defer.DeferredFragment;
 
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -14,9 +15,11 @@ import java.util.Set;
 public class MergedSelectionSet {
 
     private final Map<String, MergedField> subFields;
+    private final List<DeferredFragment> deferredFragments;
 
-    private MergedSelectionSet(Map<String, MergedField> subFields) {
+    private MergedSelectionSet(Map<String, MergedField> subFields, List<DeferredFragment> deferredFragments) {
         this.subFields = Assert.assertNotNull(subFields);
+        this.deferredFragments = Assert.assertNotNull(deferredFragments);
     }
 
     public Map<String, MergedField> getSubFields() {
@@ -47,12 +50,23 @@ public class MergedSelectionSet {
         return subFields.isEmpty();
     }
 
+    /**
+     * The sub fields that were only selected via {@code @defer} fragments are still part of {@link #getSubFields()}
+     * so that execution strategies that do not support deferring fields execute them straight away.
+     *
+     * @return the fragments of sub fields that can be delivered after the initial result
+     */
+    public List<DeferredFragment> getDeferredFragments() {
+        return deferredFragments;
+    }
+
     public static Builder newMergedSelectionSet() {
         return new Builder();
     }
 
     public static class Builder {
         private Map<String, MergedField> subFields = new LinkedHashMap<>();
+        private List<DeferredFragment> deferredFragments = ImmutableList.of();
 
         private Builder() {
 
@@ -63,8 +77,13 @@ public class MergedSelectionSet {
             return this;
         }
 
+        public Builder deferredFragments(List<DeferredFragment> deferredFragments) {
+            this.deferredFragments = deferredFragments;
+            return this;
+        }
+
         public MergedSelectionSet build() {
-            return new MergedSelectionSet(subFields);
+            return new MergedSelectionSet(subFields, deferredFragments);
         }
 
     }
@@ -14,10 +14,21 @@ public class NonNullableFieldValidator {
 
     private final ExecutionContext executionContext;
     private final ExecutionStepInfo executionStepInfo;
+    private final boolean nonNull;
 
     public NonNullableFieldValidator(ExecutionContext executionContext, ExecutionStepInfo executionStepInfo) {
+        this(executionContext, executionStepInfo, executionStepInfo.isNonNullType());
+    }
+
+    /**
+     * @param executionContext  the execution context in play
+     * @param executionStepInfo the step info of the value to check
+     * @param nonNull           whether the type of the value is non null, when it is already known
+     */
+    public NonNullableFieldValidator(ExecutionContext executionContext, ExecutionStepInfo executionStepInfo, boolean nonNull) {
         this.executionContext = executionContext;
         this.executionStepInfo = executionStepInfo;
+        this.nonNull = nonNull;
     }
 
     /**
@@ -33,7 +44,7 @@ public class NonNullableFieldValidator {
      */
     public <T> T validate(ResultPath path, T result) throws NonNullableFieldWasNullException {
         if (result == null) {
-            if (executionStepInfo.isNonNullType()) {
+            if (nonNull) {
                 // see http://facebook.github.io/graphql/#sec-Errors-and-Non-Nullability
                 //
                 //    > If the field returns null because of an error which has already been added to the "errors" list in the response,
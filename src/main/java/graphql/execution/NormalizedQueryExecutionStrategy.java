@@ -0,0 +1,86 @@
+package graphql.execution;
+
+import graphql.ExecutionResult;
+import graphql.PublicApi;
+import graphql.language.OperationDefinition;
+import graphql.normalized.NormalizedField;
+import graphql.normalized.NormalizedQueryTree;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * An asynchronous execution strategy for queries that takes the sub fields of every field from the
+ * {@link NormalizedQueryTree} of the operation rather than collecting them at runtime with the {@link FieldCollector}.
+ * <p>
+ * The normalized query tree has already resolved the fragments and type conditions of the query into the fields of
+ * every possible object type, so completing an object value is a lookup of the sub fields of the field for the resolved
+ * object type.  This pays off for queries with many fragments and type conditions, and since the tree is cached in the
+ * {@link ExecutionPlan} of a document it works best together with a caching
+ * {@link graphql.execution.preparsed.PreparsedDocumentProvider}, otherwise the whole tree is built for every request.
+ * <p>
+ * The tree is only used for query operations without {@code @defer}, for anything else this strategy behaves just like
+ * the {@link AsyncExecutionStrategy}.
+ */
+@PublicApi
+public class NormalizedQueryExecutionStrategy extends AsyncExecutionStrategy {
+
+    /**
+     * Creates an execution strategy that takes the sub fields of queries from their normalized query tree
+     */
+    public NormalizedQueryExecutionStrategy() {
+        super();
+    }
+
+    /**
+     * Creates a execution strategy that uses the provided exception handler
+     *
+     * @param exceptionHandler the exception handler to use
+     */
+    public NormalizedQueryExecutionStrategy(DataFetcherExceptionHandler exceptionHandler) {
+        super(exceptionHandler);
+    }
+
+    @Override
+    public CompletableFuture<ExecutionResult> execute(ExecutionContext executionContext, ExecutionStrategyParameters parameters) throws NonNullableFieldWasNullException {
+        if (parameters.getPath().isRootPath() && isNormalized(executionContext)) {
+            // the top level fields are taken from the tree so that their sub fields can be found in the tree as well
+            MergedSelectionSet topLevelSelectionSet = executionContext.getNormalizedQueryTree().get().getTopLevelSelectionSet();
+            if (topLevelSelectionSet != null) {
+                return super.execute(executionContext, parameters.transform(builder -> builder.fields(topLevelSelectionSet)));
+            }
+        }
+        return super.execute(executionContext, parameters);
+    }
+
+    @Override
+    protected MergedSelectionSet collectFields(ExecutionContext executionContext, FieldCollectorParameters collectorParameters, MergedField mergedField) {
+        if (isNormalized(executionContext)) {
+            NormalizedQueryTree normalizedQueryTree = executionContext.getNormalizedQueryTree().get();
+            NormalizedField normalizedField = normalizedQueryTree.getNormalizedField(mergedField);
+            if (normalizedField != null) {
+                return normalizedQueryTree.getSubSelection(normalizedField, collectorParameters.getObjectType());
+            }
+        }
+        return super.collectFields(executionContext, collectorParameters, mergedField);
+    }
+
+    @Override
+    protected Supplier<NormalizedField> getNormalizedField(ExecutionContext executionContext, ExecutionStrategyParameters parameters, Supplier<ExecutionStepInfo> executionStepInfo) {
+        Supplier<NormalizedField> byPath = super.getNormalizedField(executionContext, parameters, executionStepInfo);
+        if (!isNormalized(executionContext)) {
+            return byPath;
+        }
+        Supplier<NormalizedQueryTree> normalizedQueryTree = executionContext.getNormalizedQueryTree();
+        return () -> {
+            NormalizedField normalizedField = normalizedQueryTree.get().getNormalizedField(parameters.getField());
+            return normalizedField != null ? normalizedField : byPath.get();
+        };
+    }
+
+    private boolean isNormalized(ExecutionContext executionContext) {
+        // the tree is built from the query root type and does not know about deferred fragments
+        return executionContext.getOperationDefinition().getOperation() == OperationDefinition.Operation.QUERY
+                && executionContext.getDeferSupport() == null;
+    }
+}
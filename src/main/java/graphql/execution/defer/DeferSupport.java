@@ -0,0 +1,112 @@
+package graphql.execution.defer;
+
+import graphql.Internal;
+import graphql.execution.reactive.SingleSubscriberPublisher;
+import org.reactivestreams.Publisher;
+
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * This provides support for {@code @defer} fragments and {@code @stream} list fields.
+ * <p>
+ * While the initial result is executed the execution strategy enqueues a {@link DeferredCall} for each deferred
+ * fragment and streamed list item it meets.  Once the initial result has completed the deferred calls are invoked and
+ * their results are published via the {@link Publisher} placed in the extensions of the initial result under
+ * {@link graphql.GraphQL#DEFERRED_RESULTS}.
+ * <p>
+ * Deferred calls that are met while executing another deferred call are queued under that call and only invoked once
+ * its result has been published, so a deferred result is always published after the result that its path points into.
+ */
+@Internal
+public class DeferSupport {
+
+    // the deferred calls met while executing the initial result
+    private final Queue<DeferredCall> deferredCalls = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger outstandingCalls = new AtomicInteger();
+    private final SingleSubscriberPublisher<DeferredExecutionResult> publisher = new SingleSubscriberPublisher<>();
+    private final CompletableFuture<Void> completed = new CompletableFuture<>();
+    private volatile boolean deferDetected = false;
+    private volatile boolean deferredPhase = false;
+
+    /**
+     * @return true if any deferred calls have been enqueued
+     */
+    public boolean isDeferDetected() {
+        return deferDetected;
+    }
+
+    /**
+     * @return true once the initial result has completed and the deferred calls are being invoked
+     */
+    public boolean isDeferredPhase() {
+        return deferredPhase;
+    }
+
+    public void enqueue(DeferredCall deferredCall) {
+        deferDetected = true;
+        outstandingCalls.incrementAndGet();
+        DeferredCall parent = deferredCall.getParent();
+        if (parent == null) {
+            deferredCalls.offer(deferredCall);
+            if (deferredPhase) {
+                drainDeferredCalls(deferredCalls);
+            }
+        } else {
+            parent.children.offer(deferredCall);
+            // the parent may have completed while the call was enqueued
+            if (parent.completed) {
+                drainDeferredCalls(parent.children);
+            }
+        }
+    }
+
+    /**
+     * @return a future that completes once all the deferred calls have completed
+     */
+    public CompletableFuture<Void> getCompleted() {
+        return completed;
+    }
+
+    /**
+     * Called once the initial result has completed to start invoking the deferred calls
+     *
+     * @return the publisher of the deferred results
+     */
+    public Publisher<DeferredExecutionResult> startDeferredCalls() {
+        deferredPhase = true;
+        if (outstandingCalls.get() == 0) {
+            noMoreData();
+        } else {
+            drainDeferredCalls(deferredCalls);
+        }
+        return publisher;
+    }
+
+    private void drainDeferredCalls(Queue<DeferredCall> calls) {
+        DeferredCall deferredCall;
+        while ((deferredCall = calls.poll()) != null) {
+            DeferredCall call = deferredCall;
+            call.invoke().whenComplete((deferredResult, throwable) -> {
+                if (throwable != null) {
+                    publisher.offerError(throwable);
+                } else {
+                    publisher.offer(deferredResult);
+                }
+                // the calls this call enqueued are started now that its result has been published
+                call.completed = true;
+                drainDeferredCalls(call.children);
+                if (outstandingCalls.decrementAndGet() == 0) {
+                    noMoreData();
+                }
+            });
+        }
+    }
+
+    private void noMoreData() {
+        publisher.noMoreData();
+        completed.complete(null);
+    }
+}
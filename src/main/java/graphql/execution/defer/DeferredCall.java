@@ -0,0 +1,85 @@
+package graphql.execution.defer;
+
+import graphql.ExecutionResult;
+import graphql.Internal;
+import graphql.execution.ExecutionContext;
+import graphql.execution.NonNullableFieldWasNullException;
+import graphql.execution.ResultPath;
+
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Function;
+
+import static graphql.Assert.assertNotNull;
+import static graphql.execution.Async.exceptionallyCompletedFuture;
+
+/**
+ * A deferred call is the work needed to produce one {@link DeferredExecutionResult}.  It is captured while
+ * the initial result, or the result of its parent deferred call, is executed and invoked once that result has been
+ * completed.
+ */
+@Internal
+public class DeferredCall {
+
+    private final String label;
+    private final ResultPath path;
+    private final ExecutionContext executionContext;
+    private final Function<ExecutionContext, CompletableFuture<ExecutionResult>> call;
+    private final DeferredCall parent;
+    // the deferred calls that were met while executing this call, they are invoked once this call has completed
+    final Queue<DeferredCall> children = new ConcurrentLinkedQueue<>();
+    volatile boolean completed;
+
+    /**
+     * @param label            the label of the {@code @defer} or {@code @stream} directive, which can be null
+     * @param path             the path that the data of the call belongs under
+     * @param executionContext the execution context in which the call was met
+     * @param call             the call that produces the data, given the execution context of the call
+     */
+    public DeferredCall(String label, ResultPath path, ExecutionContext executionContext, Function<ExecutionContext, CompletableFuture<ExecutionResult>> call) {
+        this.label = label;
+        this.path = assertNotNull(path);
+        this.executionContext = assertNotNull(executionContext);
+        this.call = assertNotNull(call);
+        this.parent = executionContext.getDeferredCall();
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    public ResultPath getPath() {
+        return path;
+    }
+
+    /**
+     * @return the deferred call during which this call was met or null if it was met while executing the initial result
+     */
+    public DeferredCall getParent() {
+        return parent;
+    }
+
+    CompletableFuture<DeferredExecutionResult> invoke() {
+        // the call collects its own errors and is the parent of the deferred calls met while executing it
+        ExecutionContext deferredContext = executionContext.transform(builder -> builder.resetErrors().deferredCall(this));
+        CompletableFuture<ExecutionResult> future;
+        try {
+            future = call.apply(deferredContext);
+        } catch (RuntimeException e) {
+            future = exceptionallyCompletedFuture(e);
+        }
+        return future.handle((executionResult, throwable) -> {
+            Throwable cause = throwable instanceof CompletionException ? throwable.getCause() : throwable;
+            if (cause == null) {
+                return new DeferredExecutionResultImpl(executionResult.getData(), deferredContext.getErrors(), path, label);
+            }
+            if (cause instanceof NonNullableFieldWasNullException) {
+                // the null bubbled up to the boundary of the deferred call and hence its data is null
+                return new DeferredExecutionResultImpl(null, deferredContext.getErrors(), path, label);
+            }
+            throw new CompletionException(cause);
+        });
+    }
+}
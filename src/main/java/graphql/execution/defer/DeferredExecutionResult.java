@@ -0,0 +1,24 @@
+package graphql.execution.defer;
+
+import graphql.ExecutionResult;
+import graphql.PublicApi;
+
+import java.util.List;
+
+/**
+ * Results that come back from {@code @defer} fragments and {@code @stream} list items have an extra path and
+ * label property so that clients know where to patch them into the initial result.
+ */
+@PublicApi
+public interface DeferredExecutionResult extends ExecutionResult {
+
+    /**
+     * @return the result path that the data of this result belongs under
+     */
+    List<Object> getPath();
+
+    /**
+     * @return the label given to the {@code @defer} or {@code @stream} directive or null if there was none
+     */
+    String getLabel();
+}
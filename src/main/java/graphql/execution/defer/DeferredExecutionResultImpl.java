@@ -0,0 +1,44 @@
+package graphql.execution.defer;
+
+import graphql.ExecutionResultImpl;
+import graphql.GraphQLError;
+import graphql.Internal;
+import graphql.execution.ResultPath;
+
+import java.util.List;
+import java.util.Map;
+
+import static graphql.Assert.assertNotNull;
+
+@Internal
+public class DeferredExecutionResultImpl extends ExecutionResultImpl implements DeferredExecutionResult {
+
+    private final List<Object> path;
+    private final String label;
+
+    public DeferredExecutionResultImpl(Object data, List<? extends GraphQLError> errors, ResultPath path, String label) {
+        super(data, errors);
+        this.path = assertNotNull(path).toList();
+        this.label = label;
+    }
+
+    @Override
+    public List<Object> getPath() {
+        return path;
+    }
+
+    @Override
+    public String getLabel() {
+        return label;
+    }
+
+    @Override
+    public Map<String, Object> toSpecification() {
+        Map<String, Object> map = super.toSpecification();
+        map.put("path", path);
+        if (label != null) {
+            map.put("label", label);
+        }
+        return map;
+    }
+}
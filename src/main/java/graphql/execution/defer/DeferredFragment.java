@@ -0,0 +1,67 @@
+package graphql.execution.defer;
+
+import com.google.common.collect.ImmutableList;
+import graphql.PublicApi;
+import graphql.language.Argument;
+import graphql.language.Directive;
+import graphql.language.StringValue;
+import graphql.language.VariableReference;
+
+import java.util.List;
+import java.util.Map;
+
+import static graphql.Assert.assertNotNull;
+
+/**
+ * A deferred fragment names the keys of a {@link graphql.execution.MergedSelectionSet} that were only selected
+ * via a fragment marked with {@code @defer} and which can hence be delivered after the initial result.
+ * <p>
+ * Deferred fragments are shared by the executions of a cached document, so the label of a fragment whose
+ * {@code @defer} directive takes its label from a variable is only resolved per execution.
+ */
+@PublicApi
+public class DeferredFragment {
+
+    private final String label;
+    private final String labelVariableName;
+    private final ImmutableList<String> keys;
+
+    /**
+     * @param deferDirective the {@code @defer} directive of the fragment
+     * @param keys           the result keys of the fields that are deferred
+     */
+    public DeferredFragment(Directive deferDirective, List<String> keys) {
+        Argument labelArgument = assertNotNull(deferDirective).getArgument("label");
+        Object labelValue = labelArgument == null ? null : labelArgument.getValue();
+        this.label = labelValue instanceof StringValue ? ((StringValue) labelValue).getValue() : null;
+        this.labelVariableName = labelValue instanceof VariableReference ? ((VariableReference) labelValue).getName() : null;
+        this.keys = ImmutableList.copyOf(assertNotNull(keys));
+    }
+
+    /**
+     * @param variables the coerced variables of the execution
+     *
+     * @return the label given to the {@code @defer} directive or null if there was none
+     */
+    public String getLabel(Map<String, Object> variables) {
+        if (labelVariableName != null) {
+            return (String) variables.get(labelVariableName);
+        }
+        return label;
+    }
+
+    /**
+     * @return the result keys of the fields that are deferred
+     */
+    public List<String> getKeys() {
+        return keys;
+    }
+
+    @Override
+    public String toString() {
+        return "DeferredFragment{" +
+                "label='" + (labelVariableName != null ? "$" + labelVariableName : label) + '\'' +
+                ", keys=" + keys +
+                '}';
+    }
+}
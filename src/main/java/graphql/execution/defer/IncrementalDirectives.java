@@ -0,0 +1,58 @@
+package graphql.execution.defer;
+
+import graphql.Internal;
+import graphql.execution.ValuesResolver;
+import graphql.language.Directive;
+import graphql.schema.GraphQLDirective;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static graphql.Directives.DeferDirective;
+import static graphql.Directives.StreamDirective;
+import static graphql.language.NodeUtil.directiveByName;
+
+/**
+ * Evaluates the {@code @defer} and {@code @stream} directives of a query for a given set of variables
+ */
+@Internal
+public class IncrementalDirectives {
+
+    private final ValuesResolver valuesResolver = new ValuesResolver();
+
+    /**
+     * @param variables  the variables of the execution
+     * @param directives the directives of a fragment
+     *
+     * @return the arguments of an enabled {@code @defer} directive or null if the fragment is not deferred
+     */
+    public Map<String, Object> getDeferArguments(Map<String, Object> variables, List<Directive> directives) {
+        return getEnabledArguments(variables, directives, DeferDirective);
+    }
+
+    /**
+     * @param variables  the variables of the execution
+     * @param directives the directives of a field
+     *
+     * @return the arguments of an enabled {@code @stream} directive or null if the field is not streamed
+     */
+    public Map<String, Object> getStreamArguments(Map<String, Object> variables, List<Directive> directives) {
+        return getEnabledArguments(variables, directives, StreamDirective);
+    }
+
+    private Map<String, Object> getEnabledArguments(Map<String, Object> variables, List<Directive> directives, GraphQLDirective directiveType) {
+        if (directives.isEmpty()) {
+            return null;
+        }
+        Directive directive = directiveByName(directives, directiveType.getName()).orElse(null);
+        if (directive == null) {
+            return null;
+        }
+        Map<String, Object> argumentValues = valuesResolver.getArgumentValues(directiveType.getArguments(), directive.getArguments(), variables);
+        if (Boolean.FALSE.equals(argumentValues.get("if"))) {
+            return null;
+        }
+        return argumentValues.isEmpty() ? Collections.emptyMap() : argumentValues;
+    }
+}
@@ -6,6 +6,7 @@ import graphql.PublicApi;
 import graphql.execution.AsyncExecutionStrategy;
 import graphql.execution.ExecutionContext;
 import graphql.execution.ExecutionStrategy;
+import graphql.execution.defer.DeferSupport;
 import graphql.execution.instrumentation.ExecutionStrategyInstrumentationContext;
 import graphql.execution.instrumentation.InstrumentationContext;
 import graphql.execution.instrumentation.InstrumentationState;
@@ -15,6 +16,7 @@ import graphql.execution.instrumentation.parameters.InstrumentationCreateStatePa
 import graphql.execution.instrumentation.parameters.InstrumentationExecuteOperationParameters;
 import graphql.execution.instrumentation.parameters.InstrumentationExecutionParameters;
 import graphql.execution.instrumentation.parameters.InstrumentationExecutionStrategyParameters;
+import graphql.execution.instrumentation.parameters.InstrumentationFieldCompleteParameters;
 import graphql.execution.instrumentation.parameters.InstrumentationFieldFetchParameters;
 import graphql.language.OperationDefinition;
 import graphql.schema.DataFetcher;
@@ -39,6 +41,10 @@ import java.util.concurrent.CompletableFuture;
  * <p>
  * A DataLoaderDispatcherInstrumentation will be automatically added to the {@link graphql.GraphQL}
  * instrumentation list if one is not present.
+ * <p>
+ * If your data fetchers call the data loaders asynchronously then the levels of the query can not be tracked, in
+ * which case you can use {@link DataLoaderDispatcherInstrumentationOptions#windowedDispatch(java.time.Duration, int)}
+ * to dispatch the data loaders in windows instead.
  *
  * @see org.dataloader.DataLoader
  * @see org.dataloader.DataLoaderRegistry
@@ -69,19 +75,24 @@ public class DataLoaderDispatcherInstrumentation extends SimpleInstrumentation {
 
     @Override
     public InstrumentationState createState(InstrumentationCreateStateParameters parameters) {
-        return new DataLoaderDispatcherInstrumentationState(log, parameters.getExecutionInput().getDataLoaderRegistry());
+        return new DataLoaderDispatcherInstrumentationState(log, parameters.getExecutionInput().getDataLoaderRegistry(), options);
     }
 
     @Override
     public DataFetcher<?> instrumentDataFetcher(DataFetcher<?> dataFetcher, InstrumentationFieldFetchParameters parameters) {
         DataLoaderDispatcherInstrumentationState state = parameters.getInstrumentationState();
-        if (state.isAggressivelyBatching()) {
+        if (state.isWindowedDispatch()) {
+            // windowed dispatching does not depend on the execution strategy in use
+            return dataFetcher;
+        }
+        if (state.isAggressivelyBatching() && !isDeferredPhase(parameters.getExecutionContext())) {
             return dataFetcher;
         }
         //
         // currently only AsyncExecutionStrategy with DataLoader and hence this allows us to "dispatch"
         // on every object if its not using aggressive batching for other execution strategies
-        // which allows them to work if used.
+        // which allows them to work if used.  The same goes for the deferred calls that run after the
+        // initial result since the levels of the query have all been dispatched by then.
         return (DataFetcher<Object>) environment -> {
             Object obj = dataFetcher.get(environment);
             immediatelyDispatch(state);
@@ -93,6 +104,11 @@ public class DataLoaderDispatcherInstrumentation extends SimpleInstrumentation {
         state.getApproach().dispatch();
     }
 
+    private boolean isDeferredPhase(ExecutionContext executionContext) {
+        DeferSupport deferSupport = executionContext.getDeferSupport();
+        return deferSupport != null && deferSupport.isDeferredPhase();
+    }
+
     @Override
     public InstrumentationContext<ExecutionResult> beginExecuteOperation(InstrumentationExecuteOperationParameters parameters) {
         DataLoaderDispatcherInstrumentationState state = parameters.getInstrumentationState();
@@ -105,6 +121,9 @@ public class DataLoaderDispatcherInstrumentation extends SimpleInstrumentation {
         if (!isDataLoaderCompatibleExecution(parameters.getExecutionContext())) {
             state.setAggressivelyBatching(false);
         }
+        if (state.isWindowedDispatch() && !state.hasNoDataLoaders()) {
+            return state.getWindowedApproach().beginWork(state.getWindowState());
+        }
         return new SimpleInstrumentationContext<>();
     }
 
@@ -125,10 +144,13 @@ public class DataLoaderDispatcherInstrumentation extends SimpleInstrumentation {
     @Override
     public ExecutionStrategyInstrumentationContext beginExecutionStrategy(InstrumentationExecutionStrategyParameters parameters) {
         DataLoaderDispatcherInstrumentationState state = parameters.getInstrumentationState();
+        if (!state.hasNoDataLoaders() && state.isWindowedDispatch()) {
+            return state.getWindowedApproach().beginExecutionStrategy(state.getWindowState());
+        }
         //
-        // if there are no data loaders, there is nothing to do
+        // if there are no data loaders or the deferred calls are running, there is nothing to track
         //
-        if (state.hasNoDataLoaders()) {
+        if (state.hasNoDataLoaders() || isDeferredPhase(parameters.getExecutionContext())) {
             return new ExecutionStrategyInstrumentationContext() {
                 @Override
                 public void onDispatched(CompletableFuture<ExecutionResult> result) {
@@ -147,13 +169,33 @@ public class DataLoaderDispatcherInstrumentation extends SimpleInstrumentation {
     @Override
     public InstrumentationContext<Object> beginFieldFetch(InstrumentationFieldFetchParameters parameters) {
         DataLoaderDispatcherInstrumentationState state = parameters.getInstrumentationState();
+        if (!state.hasNoDataLoaders() && state.isWindowedDispatch()) {
+            return state.getWindowedApproach().beginFieldFetch(state.getWindowState());
+        }
+        if (state.hasNoDataLoaders() || isDeferredPhase(parameters.getExecutionContext())) {
+            return new SimpleInstrumentationContext<>();
+        }
+        return state.getApproach().beginFieldFetch(parameters.withNewState(state.getState()));
+    }
+
+    @Override
+    public InstrumentationContext<ExecutionResult> beginFieldComplete(InstrumentationFieldCompleteParameters parameters) {
+        return beginWindowedWork(parameters.getInstrumentationState());
+    }
+
+    @Override
+    public InstrumentationContext<ExecutionResult> beginFieldListComplete(InstrumentationFieldCompleteParameters parameters) {
+        return beginWindowedWork(parameters.getInstrumentationState());
+    }
+
+    private InstrumentationContext<ExecutionResult> beginWindowedWork(DataLoaderDispatcherInstrumentationState state) {
         //
-        // if there are no data loaders, there is nothing to do
+        // field completion can start new fetches and hence counts as work for windowed dispatching
         //
-        if (state.hasNoDataLoaders()) {
+        if (state.hasNoDataLoaders() || !state.isWindowedDispatch()) {
             return new SimpleInstrumentationContext<>();
         }
-        return state.getApproach().beginFieldFetch(parameters.withNewState(state.getState()));
+        return state.getWindowedApproach().beginWork(state.getWindowState());
     }
 
     @Override
@@ -2,6 +2,13 @@ package graphql.execution.instrumentation.dataloader;
 
 import graphql.PublicApi;
 
+import java.time.Duration;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+import static graphql.Assert.assertNotNull;
+import static graphql.Assert.assertTrue;
+
 /**
  * The options that control the operation of {@link graphql.execution.instrumentation.dataloader.DataLoaderDispatcherInstrumentation}
  */
@@ -9,13 +16,19 @@ import graphql.PublicApi;
 public class DataLoaderDispatcherInstrumentationOptions {
 
     private final boolean includeStatistics;
+    private final Duration batchWindow;
+    private final int maxBatchSize;
+    private final Executor dispatchExecutor;
 
-    private DataLoaderDispatcherInstrumentationOptions(boolean includeStatistics) {
+    private DataLoaderDispatcherInstrumentationOptions(boolean includeStatistics, Duration batchWindow, int maxBatchSize, Executor dispatchExecutor) {
         this.includeStatistics = includeStatistics;
+        this.batchWindow = batchWindow;
+        this.maxBatchSize = maxBatchSize;
+        this.dispatchExecutor = dispatchExecutor;
     }
 
     public static DataLoaderDispatcherInstrumentationOptions newOptions() {
-        return new DataLoaderDispatcherInstrumentationOptions(false);
+        return new DataLoaderDispatcherInstrumentationOptions(false, null, Integer.MAX_VALUE, null);
     }
 
     /**
@@ -27,12 +40,81 @@ public class DataLoaderDispatcherInstrumentationOptions {
      * @return a new options object
      */
     public DataLoaderDispatcherInstrumentationOptions includeStatistics(boolean flag) {
-        return new DataLoaderDispatcherInstrumentationOptions(flag);
+        return new DataLoaderDispatcherInstrumentationOptions(flag, batchWindow, maxBatchSize, dispatchExecutor);
+    }
+
+    /**
+     * By default the data loaders are dispatched when each level of the query has been fetched, which relies on the
+     * data fetchers calling the data loaders straight away.  This switches to windowed dispatching instead, which copes
+     * with data fetchers that call the data loaders asynchronously.
+     * <p>
+     * With windowed dispatching the data loaders are dispatched when
+     * <ul>
+     * <li>the execution has no more work to do until data loader values arrive</li>
+     * <li>a data loader has {@code maxBatchSize} keys queued, in which case only that data loader is dispatched</li>
+     * <li>the batch window has passed since a data fetcher returned a value that was not yet complete</li>
+     * </ul>
+     * The data loaders that are dispatched once the batch window has passed are dispatched on the
+     * {@link ForkJoinPool#commonPool()}.
+     *
+     * @param batchWindow  the longest time that keys are held before being dispatched
+     * @param maxBatchSize the number of queued keys of a data loader that causes it to be dispatched straight away
+     *
+     * @return a new options object
+     */
+    public DataLoaderDispatcherInstrumentationOptions windowedDispatch(Duration batchWindow, int maxBatchSize) {
+        return windowedDispatch(batchWindow, maxBatchSize, ForkJoinPool.commonPool());
     }
 
+    /**
+     * Switches to windowed dispatching as described in {@link #windowedDispatch(Duration, int)}
+     *
+     * @param batchWindow      the longest time that keys are held before being dispatched
+     * @param maxBatchSize     the number of queued keys of a data loader that causes it to be dispatched straight away
+     * @param dispatchExecutor the executor that the data loaders are dispatched on once the batch window has passed,
+     *                         which runs their batch loaders and the parts of the execution that depend on them
+     *
+     * @return a new options object
+     */
+    public DataLoaderDispatcherInstrumentationOptions windowedDispatch(Duration batchWindow, int maxBatchSize, Executor dispatchExecutor) {
+        assertNotNull(batchWindow, () -> "batchWindow must not be null");
+        assertNotNull(dispatchExecutor, () -> "dispatchExecutor must not be null");
+        assertTrue(!batchWindow.isNegative() && !batchWindow.isZero(), () -> "batchWindow must be greater than zero");
+        assertTrue(maxBatchSize > 0, () -> "maxBatchSize must be greater than zero");
+        return new DataLoaderDispatcherInstrumentationOptions(includeStatistics, batchWindow, maxBatchSize, dispatchExecutor);
+    }
 
     public boolean isIncludeStatistics() {
         return includeStatistics;
     }
 
+    /**
+     * @return true if the data loaders are dispatched in windows rather than per query level
+     */
+    public boolean isWindowedDispatch() {
+        return batchWindow != null;
+    }
+
+    /**
+     * @return the batch window of windowed dispatching or null if windowed dispatching is not used
+     */
+    public Duration getBatchWindow() {
+        return batchWindow;
+    }
+
+    /**
+     * @return the number of queued keys that causes a data loader to be dispatched when using windowed dispatching
+     */
+    public int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    /**
+     * @return the executor that data loaders are dispatched on once the batch window has passed, or null if windowed
+     * dispatching is not used
+     */
+    public Executor getDispatchExecutor() {
+        return dispatchExecutor;
+    }
+
 }
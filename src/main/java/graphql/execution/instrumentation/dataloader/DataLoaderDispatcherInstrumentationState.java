@@ -25,15 +25,28 @@ public class DataLoaderDispatcherInstrumentationState implements Instrumentation
     };
 
     private final FieldLevelTrackingApproach approach;
+    private final WindowedDispatchApproach windowedApproach;
     private final AtomicReference<DataLoaderRegistry> dataLoaderRegistry;
     private final InstrumentationState state;
+    private final InstrumentationState windowState;
     private volatile boolean aggressivelyBatching = true;
     private volatile boolean hasNoDataLoaders;
 
     public DataLoaderDispatcherInstrumentationState(Logger log, DataLoaderRegistry dataLoaderRegistry) {
+        this(log, dataLoaderRegistry, DataLoaderDispatcherInstrumentationOptions.newOptions());
+    }
+
+    public DataLoaderDispatcherInstrumentationState(Logger log, DataLoaderRegistry dataLoaderRegistry, DataLoaderDispatcherInstrumentationOptions options) {
         this.dataLoaderRegistry = new AtomicReference<>(dataLoaderRegistry);
         this.approach = new FieldLevelTrackingApproach(log, this::getDataLoaderRegistry);
         this.state = approach.createState();
+        if (options.isWindowedDispatch()) {
+            this.windowedApproach = new WindowedDispatchApproach(log, this::getDataLoaderRegistry, options);
+            this.windowState = windowedApproach.createState();
+        } else {
+            this.windowedApproach = null;
+            this.windowState = null;
+        }
         hasNoDataLoaders = checkForNoDataLoader(dataLoaderRegistry);
     }
 
@@ -73,4 +86,16 @@ public class DataLoaderDispatcherInstrumentationState implements Instrumentation
     InstrumentationState getState() {
         return state;
     }
+
+    boolean isWindowedDispatch() {
+        return windowedApproach != null;
+    }
+
+    WindowedDispatchApproach getWindowedApproach() {
+        return windowedApproach;
+    }
+
+    InstrumentationState getWindowState() {
+        return windowState;
+    }
 }
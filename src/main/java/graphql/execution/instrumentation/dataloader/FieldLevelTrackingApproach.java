@@ -1,6 +1,5 @@
 package graphql.execution.instrumentation.dataloader;
 
-import graphql.Assert;
 import graphql.ExecutionResult;
 import graphql.Internal;
 import graphql.execution.FieldValueInfo;
@@ -13,13 +12,10 @@ import graphql.execution.instrumentation.parameters.InstrumentationFieldFetchPar
 import org.dataloader.DataLoaderRegistry;
 import org.slf4j.Logger;
 
-import java.util.LinkedHashMap;
-import java.util.LinkedHashSet;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
-import java.util.Objects;
-import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicIntegerArray;
 import java.util.function.Supplier;
 
 /**
@@ -30,53 +26,62 @@ public class FieldLevelTrackingApproach {
     private final Supplier<DataLoaderRegistry> dataLoaderRegistrySupplier;
     private final Logger log;
 
+    /**
+     * The call stack is updated from whichever threads complete the fetches and field values of the execution, so all
+     * counts are kept in atomic per level counters rather than behind a lock.
+     * <p>
+     * A level only becomes ready once the counts it depends on are final, that is once the levels below it are ready and
+     * all their field values have been seen.  Each update increments its counter before reading the others, so the
+     * update that completes a level always sees it as ready.  Several updates may see this at the same time and hence
+     * the dispatch of a level is claimed atomically.
+     * <p>
+     * There is no counter that all updates share, so updates to different levels do not contend with each other.
+     */
     private static class CallStack implements InstrumentationState {
 
-        private final Map<Integer, Integer> expectedFetchCountPerLevel = new LinkedHashMap<>();
-        private final Map<Integer, Integer> fetchCountPerLevel = new LinkedHashMap<>();
-        private final Map<Integer, Integer> expectedStrategyCallsPerLevel = new LinkedHashMap<>();
-        private final Map<Integer, Integer> happenedStrategyCallsPerLevel = new LinkedHashMap<>();
-        private final Map<Integer, Integer> happenedOnFieldValueCallsPerLevel = new LinkedHashMap<>();
+        private final LevelCounts expectedFetchCountPerLevel = new LevelCounts();
+        private final LevelCounts fetchCountPerLevel = new LevelCounts();
+        private final LevelCounts expectedStrategyCallsPerLevel = new LevelCounts();
+        private final LevelCounts happenedStrategyCallsPerLevel = new LevelCounts();
+        private final LevelCounts happenedOnFieldValueCallsPerLevel = new LevelCounts();
 
-
-        private final Set<Integer> dispatchedLevels = new LinkedHashSet<>();
+        private final LevelCounts dispatchedLevels = new LevelCounts();
 
         CallStack() {
-            expectedStrategyCallsPerLevel.put(1, 1);
+            expectedStrategyCallsPerLevel.add(1, 1);
         }
 
 
-        int increaseExpectedFetchCount(int level, int count) {
-            expectedFetchCountPerLevel.put(level, expectedFetchCountPerLevel.getOrDefault(level, 0) + count);
-            return expectedFetchCountPerLevel.get(level);
+        void increaseExpectedFetchCount(int level, int count) {
+            expectedFetchCountPerLevel.add(level, count);
         }
 
         void increaseFetchCount(int level) {
-            fetchCountPerLevel.put(level, fetchCountPerLevel.getOrDefault(level, 0) + 1);
+            fetchCountPerLevel.add(level, 1);
         }
 
         void increaseExpectedStrategyCalls(int level, int count) {
-            expectedStrategyCallsPerLevel.put(level, expectedStrategyCallsPerLevel.getOrDefault(level, 0) + count);
+            expectedStrategyCallsPerLevel.add(level, count);
         }
 
         void increaseHappenedStrategyCalls(int level) {
-            happenedStrategyCallsPerLevel.put(level, happenedStrategyCallsPerLevel.getOrDefault(level, 0) + 1);
+            happenedStrategyCallsPerLevel.add(level, 1);
         }
 
         void increaseHappenedOnFieldValueCalls(int level) {
-            happenedOnFieldValueCallsPerLevel.put(level, happenedOnFieldValueCallsPerLevel.getOrDefault(level, 0) + 1);
+            happenedOnFieldValueCallsPerLevel.add(level, 1);
         }
 
         boolean allStrategyCallsHappened(int level) {
-            return Objects.equals(happenedStrategyCallsPerLevel.get(level), expectedStrategyCallsPerLevel.get(level));
+            return happenedStrategyCallsPerLevel.get(level) == expectedStrategyCallsPerLevel.get(level);
         }
 
         boolean allOnFieldCallsHappened(int level) {
-            return Objects.equals(happenedOnFieldValueCallsPerLevel.get(level), expectedStrategyCallsPerLevel.get(level));
+            return happenedOnFieldValueCallsPerLevel.get(level) == expectedStrategyCallsPerLevel.get(level);
         }
 
         boolean allFetchesHappened(int level) {
-            return Objects.equals(fetchCountPerLevel.get(level), expectedFetchCountPerLevel.get(level));
+            return fetchCountPerLevel.get(level) == expectedFetchCountPerLevel.get(level);
         }
 
         @Override
@@ -87,31 +92,98 @@ public class FieldLevelTrackingApproach {
                     ", expectedStrategyCallsPerLevel=" + expectedStrategyCallsPerLevel +
                     ", happenedStrategyCallsPerLevel=" + happenedStrategyCallsPerLevel +
                     ", happenedOnFieldValueCallsPerLevel=" + happenedOnFieldValueCallsPerLevel +
-                    ", dispatchedLevels" + dispatchedLevels +
+                    ", dispatchedLevels=" + dispatchedLevels +
                     '}';
         }
 
         public boolean dispatchIfNotDispatchedBefore(int level) {
-            if (dispatchedLevels.contains(level)) {
-                Assert.assertShouldNeverHappen("level " + level + " already dispatched");
-                return false;
+            // false if an update that raced with this one has dispatched the level
+            return dispatchedLevels.countOnce(level);
+        }
+    }
+
+    /**
+     * Primitive counts per level that can be updated from many threads without locking.  A level that has never been
+     * counted is distinct from a level that has been counted as zero, just like a missing map entry is distinct from
+     * a zero entry, and so the counts are stored off by one with zero meaning "not counted".
+     * <p>
+     * The counts live in fixed size chunks that are never copied, so growing the chunk table for deeply nested
+     * queries can not lose updates to existing levels.
+     */
+    private static class LevelCounts {
+        private static final int CHUNK_SHIFT = 4;
+        private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+
+        private volatile AtomicIntegerArray[] chunks = new AtomicIntegerArray[1];
+
+        int get(int level) {
+            AtomicIntegerArray[] chunks = this.chunks;
+            int chunkIndex = level >>> CHUNK_SHIFT;
+            if (chunkIndex >= chunks.length || chunks[chunkIndex] == null) {
+                return 0;
             }
-            dispatchedLevels.add(level);
-            return true;
+            return chunks[chunkIndex].get(level & (CHUNK_SIZE - 1));
+        }
+
+        /**
+         * Counts the level as one if it has not been counted before
+         *
+         * @param level the level to count
+         *
+         * @return true if this call counted the level
+         */
+        boolean countOnce(int level) {
+            return chunk(level).compareAndSet(level & (CHUNK_SIZE - 1), 0, 2);
         }
 
-        public void clearAndMarkCurrentLevelAsReady(int level) {
-            expectedFetchCountPerLevel.clear();
-            fetchCountPerLevel.clear();
-            expectedStrategyCallsPerLevel.clear();
-            happenedStrategyCallsPerLevel.clear();
-            happenedOnFieldValueCallsPerLevel.clear();
-            dispatchedLevels.clear();
+        void add(int level, int count) {
+            AtomicIntegerArray chunk = chunk(level);
+            int index = level & (CHUNK_SIZE - 1);
+            while (true) {
+                int current = chunk.get(index);
+                int updated = (current == 0 ? 1 : current) + count;
+                if (chunk.compareAndSet(index, current, updated)) {
+                    return;
+                }
+            }
+        }
+
+        private AtomicIntegerArray chunk(int level) {
+            int chunkIndex = level >>> CHUNK_SHIFT;
+            AtomicIntegerArray[] chunks = this.chunks;
+            if (chunkIndex < chunks.length && chunks[chunkIndex] != null) {
+                return chunks[chunkIndex];
+            }
+            return newChunk(chunkIndex);
+        }
+
+        // rarely called, only once per chunk of levels
+        private synchronized AtomicIntegerArray newChunk(int chunkIndex) {
+            AtomicIntegerArray[] chunks = this.chunks;
+            if (chunkIndex >= chunks.length) {
+                chunks = Arrays.copyOf(chunks, Math.max(chunkIndex + 1, chunks.length * 2));
+            }
+            if (chunks[chunkIndex] == null) {
+                chunks[chunkIndex] = new AtomicIntegerArray(CHUNK_SIZE);
+            }
+            this.chunks = chunks;
+            return chunks[chunkIndex];
+        }
 
-            // make sure the level is ready
-            expectedFetchCountPerLevel.put(level, 1);
-            expectedStrategyCallsPerLevel.put(level, 1);
-            happenedStrategyCallsPerLevel.put(level, 1);
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder("{");
+            AtomicIntegerArray[] chunks = this.chunks;
+            for (int level = 0; level < chunks.length * CHUNK_SIZE; level++) {
+                int count = get(level);
+                if (count != 0) {
+                    if (sb.length() > 1) {
+                        sb.append(", ");
+                    }
+                    sb.append(level).append('=').append(count - 1);
+                }
+            }
+            return sb.append('}').toString();
         }
     }
 
@@ -130,10 +202,9 @@ public class FieldLevelTrackingApproach {
         int parentLevel = path.getLevel();
         int curLevel = parentLevel + 1;
         int fieldCount = parameters.getExecutionStrategyParameters().getFields().size();
-        synchronized (callStack) {
-            callStack.increaseExpectedFetchCount(curLevel, fieldCount);
-            callStack.increaseHappenedStrategyCalls(curLevel);
-        }
+        // the expected fetches must be counted before the strategy call so that they are final once the call is seen
+        callStack.increaseExpectedFetchCount(curLevel, fieldCount);
+        callStack.increaseHappenedStrategyCalls(curLevel);
 
         return new ExecutionStrategyInstrumentationContext() {
             @Override
@@ -148,10 +219,7 @@ public class FieldLevelTrackingApproach {
 
             @Override
             public void onFieldValuesInfo(List<FieldValueInfo> fieldValueInfoList) {
-                boolean dispatchNeeded;
-                synchronized (callStack) {
-                    dispatchNeeded = handleOnFieldValuesInfo(fieldValueInfoList, callStack, curLevel);
-                }
+                boolean dispatchNeeded = handleOnFieldValuesInfo(fieldValueInfoList, callStack, curLevel);
                 if (dispatchNeeded) {
                     dispatch();
                 }
@@ -159,11 +227,7 @@ public class FieldLevelTrackingApproach {
         };
     }
 
-    //
-    // thread safety : called with synchronised(callStack)
-    //
     private boolean handleOnFieldValuesInfo(List<FieldValueInfo> fieldValueInfoList, CallStack callStack, int curLevel) {
-        callStack.increaseHappenedOnFieldValueCalls(curLevel);
         int expectedStrategyCalls = 0;
         for (FieldValueInfo fieldValueInfo : fieldValueInfoList) {
             if (fieldValueInfo.getCompleteValueType() == FieldValueInfo.CompleteValueType.OBJECT) {
@@ -172,7 +236,10 @@ public class FieldLevelTrackingApproach {
                 expectedStrategyCalls += getCountForList(fieldValueInfo);
             }
         }
+        // the expected strategy calls of the next level must be counted before the field values call
+        // so that they are final once all the field values calls of this level are seen
         callStack.increaseExpectedStrategyCalls(curLevel + 1, expectedStrategyCalls);
+        callStack.increaseHappenedOnFieldValueCalls(curLevel);
         return dispatchIfNeeded(callStack, curLevel + 1);
     }
 
@@ -197,11 +264,8 @@ public class FieldLevelTrackingApproach {
 
             @Override
             public void onDispatched(CompletableFuture result) {
-                boolean dispatchNeeded;
-                synchronized (callStack) {
-                    callStack.increaseFetchCount(level);
-                    dispatchNeeded = dispatchIfNeeded(callStack, level);
-                }
+                callStack.increaseFetchCount(level);
+                boolean dispatchNeeded = dispatchIfNeeded(callStack, level);
                 if (dispatchNeeded) {
                     dispatch();
                 }
@@ -215,9 +279,6 @@ public class FieldLevelTrackingApproach {
     }
 
 
-    //
-    // thread safety : called with synchronised(callStack)
-    //
     private boolean dispatchIfNeeded(CallStack callStack, int level) {
         if (levelReady(callStack, level)) {
             return callStack.dispatchIfNotDispatchedBefore(level);
@@ -226,7 +287,7 @@ public class FieldLevelTrackingApproach {
     }
 
     //
-    // thread safety : called with synchronised(callStack)
+    // the lower levels are checked first since the counts of a level are only final once the levels below it are ready
     //
     private boolean levelReady(CallStack callStack, int level) {
         if (level == 1) {
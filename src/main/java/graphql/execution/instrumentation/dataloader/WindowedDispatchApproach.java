@@ -0,0 +1,185 @@
+package graphql.execution.instrumentation.dataloader;
+
+import graphql.ExecutionResult;
+import graphql.Internal;
+import graphql.execution.ExecutionTimer;
+import graphql.execution.instrumentation.ExecutionStrategyInstrumentationContext;
+import graphql.execution.instrumentation.InstrumentationContext;
+import graphql.execution.instrumentation.InstrumentationState;
+import org.dataloader.DataLoader;
+import org.dataloader.DataLoaderRegistry;
+import org.slf4j.Logger;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * This approach dispatches the data loaders in windows rather than per query level, which means it does not need to
+ * know when a level has been fetched and hence copes with data fetchers that call data loaders asynchronously.
+ * <p>
+ * It counts the synchronous work of the execution that is in progress, that is the operation, execution strategy, field
+ * fetch and field completion calls that have begun but not yet been dispatched, as well as the data loader batches
+ * that have been dispatched but not yet completed.  When that count drops to zero the execution can not make progress
+ * until the queued keys are loaded, so they are dispatched.  Since the dependents of the data loader values run as part
+ * of a batch completing, all the keys queued by the values of a batch end up in the next batch.
+ * <p>
+ * A data loader that reaches the max batch size is dispatched straight away, and queued keys are dispatched once the
+ * batch window has passed since a data fetcher returned a value that was not yet complete.  The latter makes sure keys
+ * that are queued outside of the counted work, for example by a data fetcher running on another thread, are loaded.
+ * <p>
+ * The timer that watches the batch windows is shared by all executions, so it only hands the dispatch over to the
+ * dispatch executor of the options, which then runs the batch loaders and their dependents.  While fetches are still
+ * incomplete but no keys were queued in a window, say because the fetches do not use data loaders at all, the timer
+ * backs off by doubling its delay up to 16 batch windows.
+ */
+@Internal
+public class WindowedDispatchApproach {
+    private static final int MAX_IDLE_WINDOWS = 16;
+
+    private final Supplier<DataLoaderRegistry> dataLoaderRegistrySupplier;
+    private final Logger log;
+    private final long batchWindowNanos;
+    private final int maxBatchSize;
+    private final Executor dispatchExecutor;
+
+    private static class Window implements InstrumentationState {
+        private final AtomicInteger pendingWork = new AtomicInteger();
+        private final AtomicInteger incompleteFetches = new AtomicInteger();
+        private final AtomicBoolean timerArmed = new AtomicBoolean();
+
+        @Override
+        public String toString() {
+            return "Window{" +
+                    "pendingWork=" + pendingWork +
+                    ", incompleteFetches=" + incompleteFetches +
+                    ", timerArmed=" + timerArmed +
+                    '}';
+        }
+    }
+
+    public WindowedDispatchApproach(Logger log, Supplier<DataLoaderRegistry> dataLoaderRegistrySupplier, DataLoaderDispatcherInstrumentationOptions options) {
+        this.dataLoaderRegistrySupplier = dataLoaderRegistrySupplier;
+        this.log = log;
+        this.batchWindowNanos = options.getBatchWindow().toNanos();
+        this.maxBatchSize = options.getMaxBatchSize();
+        this.dispatchExecutor = options.getDispatchExecutor();
+    }
+
+    public InstrumentationState createState() {
+        return new Window();
+    }
+
+    <T> InstrumentationContext<T> beginWork(InstrumentationState state) {
+        Window window = (Window) state;
+        window.pendingWork.incrementAndGet();
+        return new InstrumentationContext<T>() {
+            @Override
+            public void onDispatched(CompletableFuture<T> result) {
+                endWork(window);
+            }
+
+            @Override
+            public void onCompleted(T result, Throwable t) {
+            }
+        };
+    }
+
+    ExecutionStrategyInstrumentationContext beginExecutionStrategy(InstrumentationState state) {
+        Window window = (Window) state;
+        window.pendingWork.incrementAndGet();
+        return new ExecutionStrategyInstrumentationContext() {
+            @Override
+            public void onDispatched(CompletableFuture<ExecutionResult> result) {
+                endWork(window);
+            }
+
+            @Override
+            public void onCompleted(ExecutionResult result, Throwable t) {
+            }
+        };
+    }
+
+    InstrumentationContext<Object> beginFieldFetch(InstrumentationState state) {
+        Window window = (Window) state;
+        window.pendingWork.incrementAndGet();
+        return new InstrumentationContext<Object>() {
+            private boolean incomplete;
+
+            @Override
+            public void onDispatched(CompletableFuture<Object> result) {
+                if (!result.isDone()) {
+                    incomplete = true;
+                    window.incompleteFetches.incrementAndGet();
+                    armTimer(window, batchWindowNanos);
+                }
+                dispatchFullDataLoaders(window);
+                endWork(window);
+            }
+
+            @Override
+            public void onCompleted(Object result, Throwable t) {
+                if (incomplete) {
+                    window.incompleteFetches.decrementAndGet();
+                }
+            }
+        };
+    }
+
+    private void endWork(Window window) {
+        if (window.pendingWork.decrementAndGet() == 0) {
+            dispatch(window);
+        }
+    }
+
+    private void dispatchFullDataLoaders(Window window) {
+        for (DataLoader<?, ?> dataLoader : getDataLoaderRegistry().getDataLoaders()) {
+            if (dataLoader.dispatchDepth() >= maxBatchSize) {
+                dispatch(window, dataLoader);
+            }
+        }
+    }
+
+    private boolean dispatch(Window window) {
+        boolean dispatched = false;
+        DataLoaderRegistry dataLoaderRegistry = getDataLoaderRegistry();
+        for (DataLoader<?, ?> dataLoader : dataLoaderRegistry.getDataLoaders()) {
+            if (dataLoader.dispatchDepth() > 0) {
+                if (log.isDebugEnabled()) {
+                    log.debug("Dispatching data loader with {} queued keys ({})", dataLoader.dispatchDepth(), window);
+                }
+                dispatch(window, dataLoader);
+                dispatched = true;
+            }
+        }
+        return dispatched;
+    }
+
+    private void dispatch(Window window, DataLoader<?, ?> dataLoader) {
+        // the batch counts as pending work until its values and hence their dependents have completed
+        window.pendingWork.incrementAndGet();
+        dataLoader.dispatch().whenComplete((values, throwable) -> endWork(window));
+    }
+
+    private void armTimer(Window window, long delayNanos) {
+        if (!window.timerArmed.compareAndSet(false, true)) {
+            return;
+        }
+        ExecutionTimer.schedule(() -> windowPassed(window, delayNanos), delayNanos, dispatchExecutor);
+    }
+
+    private void windowPassed(Window window, long delayNanos) {
+        window.timerArmed.set(false);
+        boolean dispatched = dispatch(window);
+        if (window.incompleteFetches.get() > 0) {
+            long nextDelayNanos = dispatched ? batchWindowNanos : Math.min(delayNanos * 2, batchWindowNanos * MAX_IDLE_WINDOWS);
+            armTimer(window, nextDelayNanos);
+        }
+    }
+
+    private DataLoaderRegistry getDataLoaderRegistry() {
+        return dataLoaderRegistrySupplier.get();
+    }
+}
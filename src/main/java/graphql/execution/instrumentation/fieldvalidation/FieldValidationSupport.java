@@ -5,6 +5,7 @@ import graphql.ErrorType;
 import graphql.GraphQLError;
 import graphql.Internal;
 import graphql.analysis.QueryTraverser;
+import graphql.analysis.QueryVisitor;
 import graphql.analysis.QueryVisitorFieldEnvironment;
 import graphql.analysis.QueryVisitorStub;
 import graphql.execution.ExecutionContext;
@@ -23,7 +24,7 @@ import java.util.List;
 import java.util.Map;
 
 @Internal
-class FieldValidationSupport {
+public class FieldValidationSupport {
 
     static List<GraphQLError> validateFieldsAndArguments(FieldValidation fieldValidation, ExecutionContext executionContext) {
 
@@ -36,7 +37,36 @@ class FieldValidationSupport {
                 .variables(executionContext.getVariables())
                 .build();
 
-        queryTraverser.visitPreOrder(new QueryVisitorStub() {
+        queryTraverser.visitPreOrder(newFieldAndArgumentsCollector(fieldArgumentsMap));
+
+        return validateFieldsAndArguments(fieldValidation, executionContext, fieldArgumentsMap);
+    }
+
+    /**
+     * Calls the field validation with fields and arguments that have been collected before
+     *
+     * @param fieldValidation   the field validation to call
+     * @param executionContext  the execution context of the request
+     * @param fieldArgumentsMap the fields with arguments by their path, as collected by {@link #newFieldAndArgumentsCollector(Map)}
+     *
+     * @return the errors of the field validation
+     */
+    public static List<GraphQLError> validateFieldsAndArguments(FieldValidation fieldValidation, ExecutionContext executionContext, Map<ResultPath, List<FieldAndArguments>> fieldArgumentsMap) {
+        FieldValidationEnvironment environment = new FieldValidationEnvironmentImpl(executionContext, fieldArgumentsMap);
+        //
+        // this will allow a consumer to plugin their own validation of fields and arguments
+        return fieldValidation.validateFields(environment);
+    }
+
+    /**
+     * Creates a query visitor that collects the fields with arguments of a query by their path when visited in pre-order
+     *
+     * @param fieldArgumentsMap the map to put the fields into
+     *
+     * @return the query visitor
+     */
+    public static QueryVisitor newFieldAndArgumentsCollector(Map<ResultPath, List<FieldAndArguments>> fieldArgumentsMap) {
+        return new QueryVisitorStub() {
             @Override
             public void visitField(QueryVisitorFieldEnvironment env) {
                 Field field = env.getField();
@@ -51,12 +81,7 @@ class FieldValidationSupport {
                     fieldArgumentsMap.put(path, list);
                 }
             }
-        });
-
-        FieldValidationEnvironment environment = new FieldValidationEnvironmentImpl(executionContext, fieldArgumentsMap);
-        //
-        // this will allow a consumer to plugin their own validation of fields and arguments
-        return fieldValidation.validateFields(environment);
+        };
     }
 
     private static class FieldAndArgumentsImpl implements FieldAndArguments {
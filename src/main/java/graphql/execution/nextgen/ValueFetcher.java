@@ -108,7 +108,7 @@ public class ValueFetcher {
     private boolean isDataFetcherBatched(ExecutionContext executionContext, ExecutionStepInfo executionStepInfo) {
         GraphQLFieldsContainer parentType = getFieldsContainer(executionStepInfo);
         GraphQLFieldDefinition fieldDef = executionStepInfo.getFieldDefinition();
-        DataFetcher dataFetcher = executionContext.getGraphQLSchema().getCodeRegistry().getDataFetcher(parentType, fieldDef);
+        DataFetcher dataFetcher = executionContext.getGraphQLSchema().getCodeRegistry().getFieldExecutionDescriptor(parentType, fieldDef).getDataFetcher();
         return dataFetcher instanceof BatchedDataFetcher;
     }
 
@@ -127,7 +127,7 @@ public class ValueFetcher {
 
         Supplier<NormalizedQueryTree> normalizedQuery = executionContext.getNormalizedQueryTree();
         Supplier<NormalizedField> normalisedField = () -> normalizedQuery.get().getNormalizedField(sameFields, executionInfo.getObjectType(), executionInfo.getPath());
-        DataFetchingFieldSelectionSet selectionSet = DataFetchingFieldSelectionSetImpl.newCollector(fieldType, normalisedField);
+        DataFetchingFieldSelectionSet selectionSet = DataFetchingFieldSelectionSetImpl.newCollector(fieldType, normalisedField, executionContext.getVariables());
 
         DataFetchingEnvironment environment = newDataFetchingEnvironment(executionContext)
                 .source(source)
@@ -168,7 +168,7 @@ public class ValueFetcher {
     private CompletableFuture<Object> callDataFetcher(GraphQLCodeRegistry codeRegistry, GraphQLFieldsContainer parentType, GraphQLFieldDefinition fieldDef, DataFetchingEnvironment environment, ExecutionId executionId, ResultPath path) {
         CompletableFuture<Object> result = new CompletableFuture<>();
         try {
-            DataFetcher dataFetcher = codeRegistry.getDataFetcher(parentType, fieldDef);
+            DataFetcher dataFetcher = codeRegistry.getFieldExecutionDescriptor(parentType, fieldDef).getDataFetcher();
             if (log.isDebugEnabled()) {
                 log.debug("'{}' fetching field '{}' using data fetcher '{}'...", executionId, path, dataFetcher.getClass().getName());
             }
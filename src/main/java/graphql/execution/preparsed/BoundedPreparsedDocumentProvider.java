@@ -0,0 +1,428 @@
+package graphql.execution.preparsed;
+
+import graphql.ExecutionInput;
+import graphql.PublicApi;
+import graphql.VisibleForTesting;
+import graphql.language.Document;
+import graphql.language.Node;
+
+import java.security.SecureRandom;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.function.ToIntFunction;
+
+import static graphql.Assert.assertNotNull;
+import static graphql.Assert.assertTrue;
+
+/**
+ * A {@link PreparsedDocumentProvider} that keeps the parsed and validated documents in memory, bounded by their total
+ * weight rather than their number.  By default the weight of a document is the number of nodes in its AST, so a few
+ * huge documents can not take up the memory meant for many small ones.
+ * <p>
+ * Once full, the least recently used document is evicted, but only if a new document has been asked for more often
+ * than it.  How often documents are asked for is estimated with a small frequency sketch that also counts documents
+ * that are not cached, and that is halved from time to time so old popularity fades.  This means a flood of unique
+ * queries, as an attacker would send, can not push out the documents of the queries that are used all the time.  The
+ * sketch hashes the query text with a random seed per provider, so queries can not be crafted to share counters.
+ * <p>
+ * Documents are keyed on the query text.  When several requests ask for the same missing document at the same time
+ * only one of them parses and validates it, the others wait for it and use the same entry.
+ * <p>
+ * Cached documents are read without taking a lock.  The reads are buffered and applied to the recency order in
+ * batches by whichever thread gets the lock first, and always before documents are evicted.  When the buffer is full,
+ * because the lock is busy, further reads are not recorded and so the recency order is only approximate.
+ */
+@PublicApi
+public class BoundedPreparsedDocumentProvider implements PreparsedDocumentProvider {
+
+    private static final int READ_BUFFER_DRAIN_THRESHOLD = 64;
+    private static final int READ_BUFFER_MAX_SIZE = 16 * READ_BUFFER_DRAIN_THRESHOLD;
+
+    private final long maximumWeight;
+    private final ToIntFunction<PreparsedDocumentEntry> weigher;
+    private final LongSupplier nanoTime;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    // the entries from least to most recently used, guarded by the eviction lock
+    private final Map<String, Entry> recencyOrder = new LinkedHashMap<>(16, 0.75f, true);
+    private final ReentrantLock evictionLock = new ReentrantLock();
+    private final Queue<Entry> readBuffer = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger readBufferSize = new AtomicInteger();
+    private final Map<String, CompletableFuture<PreparsedDocumentEntry>> loads = new ConcurrentHashMap<>();
+    private final FrequencySketch sketch;
+    // written under the eviction lock
+    private volatile long weightedSize;
+
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong evictionCount = new AtomicLong();
+    private final AtomicLong totalLoadTime = new AtomicLong();
+
+    private BoundedPreparsedDocumentProvider(Builder builder) {
+        this.maximumWeight = builder.maximumWeight;
+        this.weigher = builder.weigher;
+        this.nanoTime = builder.nanoTime;
+        this.sketch = new FrequencySketch(maximumWeight);
+    }
+
+    @Override
+    public PreparsedDocumentEntry getDocument(ExecutionInput executionInput, Function<ExecutionInput, PreparsedDocumentEntry> parseAndValidateFunction) {
+        String query = executionInput.getQuery();
+        long queryHash = sketch.hash(query);
+        sketch.increment(queryHash);
+        while (true) {
+            PreparsedDocumentEntry cached = getEntry(query);
+            if (cached != null) {
+                hitCount.incrementAndGet();
+                return cached;
+            }
+            CompletableFuture<PreparsedDocumentEntry> load = new CompletableFuture<>();
+            CompletableFuture<PreparsedDocumentEntry> otherLoad = loads.putIfAbsent(query, load);
+            if (otherLoad != null) {
+                try {
+                    PreparsedDocumentEntry loaded = otherLoad.join();
+                    hitCount.incrementAndGet();
+                    return loaded;
+                } catch (CompletionException e) {
+                    // the other load failed, so this request tries for itself
+                    continue;
+                }
+            }
+            // another request may have finished loading the document since we looked
+            cached = getEntry(query);
+            if (cached != null) {
+                loads.remove(query, load);
+                load.complete(cached);
+                hitCount.incrementAndGet();
+                return cached;
+            }
+            missCount.incrementAndGet();
+            return load(query, queryHash, executionInput, parseAndValidateFunction, load);
+        }
+    }
+
+    private PreparsedDocumentEntry load(String query, long queryHash, ExecutionInput executionInput, Function<ExecutionInput, PreparsedDocumentEntry> parseAndValidateFunction, CompletableFuture<PreparsedDocumentEntry> load) {
+        PreparsedDocumentEntry documentEntry;
+        long startTime = nanoTime.getAsLong();
+        try {
+            documentEntry = parseAndValidateFunction.apply(executionInput);
+        } catch (RuntimeException | Error e) {
+            loads.remove(query, load);
+            load.completeExceptionally(e);
+            throw e;
+        } finally {
+            totalLoadTime.addAndGet(nanoTime.getAsLong() - startTime);
+        }
+        put(query, queryHash, documentEntry);
+        loads.remove(query, load);
+        load.complete(documentEntry);
+        return documentEntry;
+    }
+
+    private PreparsedDocumentEntry getEntry(String query) {
+        Entry entry = entries.get(query);
+        if (entry == null) {
+            return null;
+        }
+        recordRead(entry);
+        return entry.documentEntry;
+    }
+
+    private void recordRead(Entry entry) {
+        if (readBufferSize.get() >= READ_BUFFER_MAX_SIZE) {
+            // the lock is busy and the buffer is full, so this read is dropped rather than waited on
+            return;
+        }
+        readBuffer.add(entry);
+        if (readBufferSize.incrementAndGet() >= READ_BUFFER_DRAIN_THRESHOLD && evictionLock.tryLock()) {
+            try {
+                drainReadBuffer();
+            } finally {
+                evictionLock.unlock();
+            }
+        }
+    }
+
+    private void drainReadBuffer() {
+        Entry entry;
+        while ((entry = readBuffer.poll()) != null) {
+            readBufferSize.decrementAndGet();
+            // getting an entry moves it to the most recently used end, and does nothing if it has since been evicted
+            recencyOrder.get(entry.query);
+        }
+    }
+
+    private void put(String query, long queryHash, PreparsedDocumentEntry documentEntry) {
+        int weight = weigher.applyAsInt(documentEntry);
+        if (weight > maximumWeight) {
+            evictionCount.incrementAndGet();
+            return;
+        }
+        evictionLock.lock();
+        try {
+            // the victims have to be chosen on the order of all the reads so far
+            drainReadBuffer();
+            Entry previous = recencyOrder.get(query);
+            long excess = weightedSize - (previous == null ? 0 : previous.weight) + weight - maximumWeight;
+            // the victims are chosen before anything is evicted, so that a document that is not admitted leaves the
+            // documents it would have pushed out in place
+            List<String> victims = new ArrayList<>();
+            if (excess > 0) {
+                int frequency = sketch.frequency(queryHash);
+                Iterator<Map.Entry<String, Entry>> eldestFirst = recencyOrder.entrySet().iterator();
+                while (excess > 0 && eldestFirst.hasNext()) {
+                    Map.Entry<String, Entry> candidate = eldestFirst.next();
+                    if (candidate.getKey().equals(query)) {
+                        continue;
+                    }
+                    if (frequency <= sketch.frequency(candidate.getValue().queryHash)) {
+                        // the new document is not asked for more often than the documents it would push out
+                        evictionCount.incrementAndGet();
+                        return;
+                    }
+                    victims.add(candidate.getKey());
+                    excess -= candidate.getValue().weight;
+                }
+            }
+            for (String victim : victims) {
+                weightedSize -= recencyOrder.remove(victim).weight;
+                entries.remove(victim);
+                evictionCount.incrementAndGet();
+            }
+            Entry entry = new Entry(query, documentEntry, weight, queryHash);
+            recencyOrder.put(query, entry);
+            entries.put(query, entry);
+            weightedSize += weight - (previous == null ? 0 : previous.weight);
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    /**
+     * @return the number of documents that were served from this provider without being parsed and validated
+     */
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    /**
+     * @return the number of documents that had to be parsed and validated
+     */
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    /**
+     * @return the number of documents that were dropped to stay within the maximum weight, including new documents
+     * that were not asked for often enough to be kept
+     */
+    public long getEvictionCount() {
+        return evictionCount.get();
+    }
+
+    /**
+     * @return the total number of nanoseconds spent parsing and validating the documents that were missing
+     */
+    public long getTotalLoadTime() {
+        return totalLoadTime.get();
+    }
+
+    /**
+     * @return the total weight of the documents currently held
+     */
+    public long getWeightedSize() {
+        return weightedSize;
+    }
+
+    /**
+     * @return the number of documents currently held
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Removes all documents from this provider, for example after the schema has changed
+     */
+    public void clear() {
+        evictionLock.lock();
+        try {
+            drainReadBuffer();
+            recencyOrder.clear();
+            entries.clear();
+            weightedSize = 0;
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    /**
+     * The default weight of a document, which is the number of nodes in its AST, or the number of errors if it failed
+     * to parse or validate.
+     *
+     * @param documentEntry the parsed and validated document
+     * @return the weight of the document
+     */
+    public static int nodeCount(PreparsedDocumentEntry documentEntry) {
+        Document document = documentEntry.getDocument();
+        if (document == null) {
+            return Math.max(1, documentEntry.getErrors().size());
+        }
+        int count = 0;
+        Deque<Node<?>> stack = new ArrayDeque<>();
+        stack.push(document);
+        while (!stack.isEmpty()) {
+            Node<?> node = stack.pop();
+            count++;
+            for (Node<?> child : node.getChildren()) {
+                stack.push(child);
+            }
+        }
+        return count;
+    }
+
+    public static Builder newBoundedPreparsedDocumentProvider() {
+        return new Builder();
+    }
+
+    private static class Entry {
+        private final String query;
+        private final PreparsedDocumentEntry documentEntry;
+        private final int weight;
+        // kept so that eviction does not hash the query text of every candidate again
+        private final long queryHash;
+
+        private Entry(String query, PreparsedDocumentEntry documentEntry, int weight, long queryHash) {
+            this.query = query;
+            this.documentEntry = documentEntry;
+            this.weight = weight;
+            this.queryHash = queryHash;
+        }
+    }
+
+    /**
+     * A count-min sketch of how often queries are asked for.  The counters stop at 15 and are all halved once the
+     * number of increments reaches ten times the width of the sketch.  The counters are updated atomically rather
+     * than under the eviction lock, and increments that race with the halving only make the estimate a little
+     * less exact.
+     */
+    private static class FrequencySketch {
+        private static final long[] SEEDS = {0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L};
+        private static final int MAX_COUNT = 15;
+
+        private final AtomicIntegerArray table;
+        private final int mask;
+        private final int sampleSize;
+        private final AtomicInteger size = new AtomicInteger();
+        private final long hashSeed = new SecureRandom().nextLong();
+
+        private FrequencySketch(long maximumWeight) {
+            // most documents weigh tens to hundreds of nodes, so this leaves a counter or more per document held
+            int width = Integer.highestOneBit((int) Math.max(4096, Math.min(maximumWeight / 32, 1 << 20)));
+            this.table = new AtomicIntegerArray(width);
+            this.mask = width - 1;
+            this.sampleSize = 10 * width;
+        }
+
+        /*
+         * String.hashCode is easy to collide on purpose, "Aa" and "BB" being the well known example, which would let
+         * a flood of crafted queries add up on the counters of one popular looking query.  Each character is mixed in
+         * with a multiply and shift, starting from a random seed, so colliding queries can not be worked out up front.
+         */
+        private long hash(String query) {
+            long hash = hashSeed ^ query.length();
+            for (int i = 0; i < query.length(); i++) {
+                hash = (hash ^ query.charAt(i)) * 0x9e3779b97f4a7c15L;
+                hash ^= hash >>> 32;
+            }
+            return hash;
+        }
+
+        private void increment(long hash) {
+            boolean added = false;
+            for (long seed : SEEDS) {
+                int index = indexOf(hash, seed);
+                int count = table.get(index);
+                while (count < MAX_COUNT && !table.compareAndSet(index, count, count + 1)) {
+                    count = table.get(index);
+                }
+                added |= count < MAX_COUNT;
+            }
+            if (added && size.incrementAndGet() == sampleSize) {
+                reset();
+            }
+        }
+
+        private int frequency(long hash) {
+            int frequency = MAX_COUNT;
+            for (long seed : SEEDS) {
+                frequency = Math.min(frequency, table.get(indexOf(hash, seed)));
+            }
+            return frequency;
+        }
+
+        private void reset() {
+            for (int i = 0; i < table.length(); i++) {
+                table.updateAndGet(i, count -> count >>> 1);
+            }
+            size.updateAndGet(count -> count / 2);
+        }
+
+        private int indexOf(long hash, long seed) {
+            long index = (hash + seed) * seed;
+            index += index >>> 32;
+            return (int) index & mask;
+        }
+    }
+
+    public static class Builder {
+        private long maximumWeight = 1_000_000;
+        private ToIntFunction<PreparsedDocumentEntry> weigher = BoundedPreparsedDocumentProvider::nodeCount;
+        private LongSupplier nanoTime = System::nanoTime;
+
+        /**
+         * @param maximumWeight the maximum total weight of the documents held, which by default is their total number
+         *                      of AST nodes
+         * @return this builder
+         */
+        public Builder maximumWeight(long maximumWeight) {
+            assertTrue(maximumWeight > 0, () -> "maximumWeight must be greater than zero");
+            this.maximumWeight = maximumWeight;
+            return this;
+        }
+
+        /**
+         * @param weigher the function that gives the weight of a document, which must not be negative
+         * @return this builder
+         */
+        public Builder weigher(ToIntFunction<PreparsedDocumentEntry> weigher) {
+            this.weigher = assertNotNull(weigher);
+            return this;
+        }
+
+        @VisibleForTesting
+        Builder nanoTime(LongSupplier nanoTime) {
+            this.nanoTime = assertNotNull(nanoTime);
+            return this;
+        }
+
+        public BoundedPreparsedDocumentProvider build() {
+            return new BoundedPreparsedDocumentProvider(this);
+        }
+    }
+}
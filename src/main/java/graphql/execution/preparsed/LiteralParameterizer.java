@@ -0,0 +1,376 @@
+package graphql.execution.preparsed;
+
+import graphql.GraphQLError;
+import graphql.Internal;
+import graphql.language.Argument;
+import graphql.language.ArrayValue;
+import graphql.language.Definition;
+import graphql.language.Document;
+import graphql.language.Field;
+import graphql.language.FloatValue;
+import graphql.language.FragmentDefinition;
+import graphql.language.InlineFragment;
+import graphql.language.IntValue;
+import graphql.language.ListType;
+import graphql.language.NonNullType;
+import graphql.language.ObjectField;
+import graphql.language.ObjectValue;
+import graphql.language.OperationDefinition;
+import graphql.language.Selection;
+import graphql.language.SelectionSet;
+import graphql.language.SourceLocation;
+import graphql.language.StringValue;
+import graphql.language.Type;
+import graphql.language.TypeName;
+import graphql.language.Value;
+import graphql.language.VariableDefinition;
+import graphql.language.VariableReference;
+import graphql.parser.QueryLiterals;
+import graphql.scalar.GraphqlFloatCoercing;
+import graphql.scalar.GraphqlIDCoercing;
+import graphql.scalar.GraphqlIntCoercing;
+import graphql.scalar.GraphqlStringCoercing;
+import graphql.schema.Coercing;
+import graphql.schema.GraphQLArgument;
+import graphql.schema.GraphQLFieldDefinition;
+import graphql.schema.GraphQLFieldsContainer;
+import graphql.schema.GraphQLInputObjectField;
+import graphql.schema.GraphQLInputObjectType;
+import graphql.schema.GraphQLInputType;
+import graphql.schema.GraphQLList;
+import graphql.schema.GraphQLNonNull;
+import graphql.schema.GraphQLScalarType;
+import graphql.schema.GraphQLSchema;
+import graphql.schema.GraphQLType;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static graphql.schema.GraphQLTypeUtil.simplePrint;
+import static graphql.schema.GraphQLTypeUtil.unwrapAll;
+import static graphql.schema.GraphQLTypeUtil.unwrapNonNull;
+
+/**
+ * Rewrites the int, float and string literals of the field arguments of a document into variables, so that queries
+ * that only differ in their literals, such as {@code user(id : 123)} and {@code user(id : 456)}, share a single entry of
+ * a {@link PreparsedDocumentProvider}.
+ * <p>
+ * The entry is looked up on the {@link QueryLiterals#getKey() key} of the query, which is found by lexing the query
+ * rather than parsing it.  The document of the entry is parsed from the first query with that key and its literals are
+ * replaced by variables, and {@link #literalVariables(PreparsedDocumentEntry, QueryLiterals)} gives the values of the
+ * variables for the literals of any other query with the same key.  The query itself is never rewritten.
+ * <p>
+ * Only literals of the built in scalars are rewritten, since for those the variable value coerces to exactly the same
+ * value as the literal.  Literals of custom scalars, directive arguments, variable defaults and documents with more
+ * than one operation are kept in the document, and the document is then only shared by queries with the same values
+ * for them.
+ */
+@Internal
+public class LiteralParameterizer {
+
+    private static final String VARIABLE_PREFIX = "_p";
+
+    private final GraphQLSchema schema;
+    private final QueryLiterals literals;
+    private final Set<String> variableNames;
+    private final String[] literalVariableNames;
+    private final boolean[] intLiterals;
+    private final List<VariableDefinition> variableDefinitions = new ArrayList<>();
+    private final Map<String, String> variableNamesByLiteral = new HashMap<>();
+    private int variableCount;
+
+    private LiteralParameterizer(GraphQLSchema schema, QueryLiterals literals, Set<String> variableNames) {
+        this.schema = schema;
+        this.literals = literals;
+        this.variableNames = variableNames;
+        this.literalVariableNames = new String[literals.size()];
+        this.intLiterals = new boolean[literals.size()];
+    }
+
+    /**
+     * @param entry    the entry of the parsed and validated query
+     * @param literals the literals of the query
+     * @param schema   the schema the query is executed against
+     *
+     * @return an entry to cache on the key of the literals, with the literals of the document replaced by variables
+     * where possible
+     */
+    public static PreparsedDocumentEntry parameterize(PreparsedDocumentEntry entry, QueryLiterals literals, GraphQLSchema schema) {
+        if (entry.hasErrors()) {
+            // the errors may be about the literals and so are only shared by the very same query
+            return new ParameterizedEntry(entry.getErrors(), texts(literals));
+        }
+        Document document = entry.getDocument();
+        List<OperationDefinition> operationDefinitions = document.getDefinitionsOfType(OperationDefinition.class);
+        if (operationDefinitions.size() != 1) {
+            // the variables would have to be split up between the operations that use them
+            return new ParameterizedEntry(document, texts(literals), new String[literals.size()], new boolean[literals.size()]);
+        }
+        OperationDefinition operationDefinition = operationDefinitions.get(0);
+        Set<String> variableNames = operationDefinition.getVariableDefinitions().stream()
+                .map(VariableDefinition::getName)
+                .collect(Collectors.toSet());
+
+        LiteralParameterizer parameterizer = new LiteralParameterizer(schema, literals, variableNames);
+        Document parameterized = parameterizer.parameterize(document, operationDefinition);
+        if (parameterizer.variableDefinitions.isEmpty()) {
+            parameterized = document;
+        }
+        return new ParameterizedEntry(parameterized, texts(literals), parameterizer.literalVariableNames, parameterizer.intLiterals);
+    }
+
+    /**
+     * @param entry    the entry that was found on the key of the literals
+     * @param literals the literals of the query
+     *
+     * @return the values of the variables of the entry for the literals of the query, or null if the entry can not be
+     * used for the query, for example because it keeps other values for some literals or a value does not fit its
+     * variable
+     */
+    public static Map<String, Object> literalVariables(PreparsedDocumentEntry entry, QueryLiterals literals) {
+        if (!(entry instanceof ParameterizedEntry)) {
+            return null;
+        }
+        ParameterizedEntry parameterizedEntry = (ParameterizedEntry) entry;
+        if (parameterizedEntry.literals.length != literals.size()) {
+            return null;
+        }
+        Map<String, Object> variables = new LinkedHashMap<>();
+        Map<String, String> literalsByVariableName = new HashMap<>();
+        for (int i = 0; i < literals.size(); i++) {
+            String literal = literals.getText(i);
+            String variableName = parameterizedEntry.variableNames[i];
+            if (variableName == null) {
+                if (!literal.equals(parameterizedEntry.literals[i])) {
+                    return null;
+                }
+                continue;
+            }
+            String previous = literalsByVariableName.putIfAbsent(variableName, literal);
+            if (previous != null) {
+                // fields were merged on the equal literals of the first query and so must have equal ones here too
+                if (!previous.equals(literal)) {
+                    return null;
+                }
+                continue;
+            }
+            Object value = toVariableValue(literals.getValue(i));
+            if (parameterizedEntry.intLiterals[i] && !(value instanceof Integer)) {
+                // the literal is not a valid Int, which validating the query reports against the literal
+                return null;
+            }
+            variables.put(variableName, value);
+        }
+        return variables;
+    }
+
+    private static Object toVariableValue(Object value) {
+        if (value instanceof BigInteger) {
+            BigInteger intValue = (BigInteger) value;
+            if (intValue.bitLength() < 32) {
+                return intValue.intValue();
+            }
+            return intValue.bitLength() < 64 ? (Object) intValue.longValue() : intValue;
+        }
+        // floats are kept as big decimals, which the Float scalar coerces the same as the literal
+        return value;
+    }
+
+    private static String[] texts(QueryLiterals literals) {
+        String[] texts = new String[literals.size()];
+        for (int i = 0; i < texts.length; i++) {
+            texts[i] = literals.getText(i);
+        }
+        return texts;
+    }
+
+    private Document parameterize(Document document, OperationDefinition operationDefinition) {
+        List<Definition> definitions = new ArrayList<>();
+        for (Definition definition : document.getDefinitions()) {
+            if (definition instanceof FragmentDefinition) {
+                FragmentDefinition fragmentDefinition = (FragmentDefinition) definition;
+                GraphQLType typeCondition = schema.getType(fragmentDefinition.getTypeCondition().getName());
+                SelectionSet selectionSet = parameterize(fragmentDefinition.getSelectionSet(), typeCondition);
+                definitions.add(fragmentDefinition.transform(builder -> builder.selectionSet(selectionSet)));
+            } else {
+                definitions.add(definition);
+            }
+        }
+        GraphQLType rootType = rootType(operationDefinition.getOperation());
+        SelectionSet selectionSet = parameterize(operationDefinition.getSelectionSet(), rootType);
+        // the fragments are done first so all the new variables can be defined on the operation
+        List<VariableDefinition> allVariableDefinitions = new ArrayList<>(operationDefinition.getVariableDefinitions());
+        allVariableDefinitions.addAll(variableDefinitions);
+        OperationDefinition parameterized = operationDefinition.transform(builder -> builder
+                .selectionSet(selectionSet)
+                .variableDefinitions(allVariableDefinitions));
+        definitions.set(document.getDefinitions().indexOf(operationDefinition), parameterized);
+        return document.transform(builder -> builder.definitions(definitions));
+    }
+
+    private GraphQLType rootType(OperationDefinition.Operation operation) {
+        switch (operation) {
+            case MUTATION:
+                return schema.getMutationType();
+            case SUBSCRIPTION:
+                return schema.getSubscriptionType();
+            default:
+                return schema.getQueryType();
+        }
+    }
+
+    private SelectionSet parameterize(SelectionSet selectionSet, GraphQLType parentType) {
+        if (selectionSet == null) {
+            return null;
+        }
+        List<Selection> selections = new ArrayList<>(selectionSet.getSelections().size());
+        for (Selection selection : selectionSet.getSelections()) {
+            if (selection instanceof Field) {
+                selections.add(parameterize((Field) selection, parentType));
+            } else if (selection instanceof InlineFragment) {
+                InlineFragment inlineFragment = (InlineFragment) selection;
+                GraphQLType type = inlineFragment.getTypeCondition() == null ? parentType : schema.getType(inlineFragment.getTypeCondition().getName());
+                SelectionSet fragmentSelectionSet = parameterize(inlineFragment.getSelectionSet(), type);
+                selections.add(inlineFragment.transform(builder -> builder.selectionSet(fragmentSelectionSet)));
+            } else {
+                selections.add(selection);
+            }
+        }
+        return selectionSet.transform(builder -> builder.selections(selections));
+    }
+
+    private Field parameterize(Field field, GraphQLType parentType) {
+        GraphQLFieldDefinition fieldDefinition = parentType instanceof GraphQLFieldsContainer
+                ? ((GraphQLFieldsContainer) parentType).getFieldDefinition(field.getName()) : null;
+        if (fieldDefinition == null) {
+            // unions only have __typename and unknown fields are left for validation to report
+            return field;
+        }
+        List<Argument> arguments = new ArrayList<>(field.getArguments().size());
+        for (Argument argument : field.getArguments()) {
+            GraphQLArgument argumentDefinition = fieldDefinition.getArgument(argument.getName());
+            arguments.add(argumentDefinition == null ? argument : parameterize(argument, argumentDefinition.getType()));
+        }
+        SelectionSet selectionSet = parameterize(field.getSelectionSet(), unwrapAll(fieldDefinition.getType()));
+        return field.transform(builder -> builder.arguments(arguments).selectionSet(selectionSet));
+    }
+
+    private Argument parameterize(Argument argument, GraphQLInputType type) {
+        Value<?> value = parameterize(argument.getValue(), type, type);
+        return value == argument.getValue() ? argument : argument.transform(builder -> builder.value(value));
+    }
+
+    private Value<?> parameterize(Value<?> value, GraphQLType type, GraphQLType variableType) {
+        GraphQLType unwrapped = unwrapNonNull(type);
+        if (unwrapped instanceof GraphQLList) {
+            GraphQLType elementType = ((GraphQLList) unwrapped).getWrappedType();
+            if (!(value instanceof ArrayValue)) {
+                // a single value is coerced to a list in the same way for literals and variables
+                return parameterize(value, elementType, variableType);
+            }
+            List<Value> values = new ArrayList<>();
+            boolean changed = false;
+            for (Value<?> element : ((ArrayValue) value).getValues()) {
+                Value<?> elementValue = parameterize(element, elementType, elementType);
+                changed |= elementValue != element;
+                values.add(elementValue);
+            }
+            return changed ? ((ArrayValue) value).transform(builder -> builder.values(values)) : value;
+        }
+        if (unwrapped instanceof GraphQLInputObjectType && value instanceof ObjectValue) {
+            List<ObjectField> objectFields = new ArrayList<>();
+            boolean changed = false;
+            for (ObjectField objectField : ((ObjectValue) value).getObjectFields()) {
+                GraphQLInputObjectField fieldDefinition = ((GraphQLInputObjectType) unwrapped).getField(objectField.getName());
+                Value<?> fieldValue = fieldDefinition == null ? objectField.getValue()
+                        : parameterize(objectField.getValue(), fieldDefinition.getType(), fieldDefinition.getType());
+                changed |= fieldValue != objectField.getValue();
+                objectFields.add(fieldValue == objectField.getValue() ? objectField : objectField.transform(builder -> builder.value(fieldValue)));
+            }
+            return changed ? ((ObjectValue) value).transform(builder -> builder.objectFields(objectFields)) : value;
+        }
+        if (unwrapped instanceof GraphQLScalarType && isBuiltInScalar((GraphQLScalarType) unwrapped)
+                && (value instanceof IntValue || value instanceof FloatValue || value instanceof StringValue)) {
+            return parameterize(value, (GraphQLScalarType) unwrapped, variableType);
+        }
+        return value;
+    }
+
+    private Value<?> parameterize(Value<?> value, GraphQLScalarType scalarType, GraphQLType variableType) {
+        SourceLocation sourceLocation = value.getSourceLocation();
+        int index = sourceLocation == null ? -1 : literals.indexOf(sourceLocation.getLine(), sourceLocation.getColumn());
+        if (index < 0) {
+            // without a location the literal can not be told apart from the others and is kept
+            return value;
+        }
+        // equal literals share a variable, since fields with the same response name only merge if their arguments do
+        String literal = literals.getText(index) + " " + simplePrint(variableType);
+        String name = variableNamesByLiteral.get(literal);
+        if (name == null) {
+            name = newVariableName();
+            variableNamesByLiteral.put(literal, name);
+            variableDefinitions.add(VariableDefinition.newVariableDefinition(name, toAstType(variableType)).build());
+        }
+        literalVariableNames[index] = name;
+        intLiterals[index] = scalarType.getCoercing() instanceof GraphqlIntCoercing;
+        return VariableReference.newVariableReference().name(name).sourceLocation(sourceLocation).build();
+    }
+
+    private String newVariableName() {
+        String name;
+        do {
+            name = VARIABLE_PREFIX + variableCount++;
+        } while (variableNames.contains(name));
+        return name;
+    }
+
+    private static boolean isBuiltInScalar(GraphQLScalarType type) {
+        // custom scalars may parse literals and variable values differently
+        Coercing<?, ?> coercing = type.getCoercing();
+        return coercing instanceof GraphqlIntCoercing
+                || coercing instanceof GraphqlFloatCoercing
+                || coercing instanceof GraphqlStringCoercing
+                || coercing instanceof GraphqlIDCoercing;
+    }
+
+    private static Type<?> toAstType(GraphQLType type) {
+        if (type instanceof GraphQLNonNull) {
+            return NonNullType.newNonNullType(toAstType(((GraphQLNonNull) type).getWrappedType())).build();
+        }
+        if (type instanceof GraphQLList) {
+            return ListType.newListType(toAstType(((GraphQLList) type).getWrappedType())).build();
+        }
+        return TypeName.newTypeName(unwrapAll(type).getName()).build();
+    }
+
+    /**
+     * The entry of a parameterized document, which remembers for every literal of the query the variable it was
+     * replaced by or the text it was kept with.
+     */
+    private static class ParameterizedEntry extends PreparsedDocumentEntry {
+        private final String[] literals;
+        // null for the literals that were kept in the document
+        private final String[] variableNames;
+        private final boolean[] intLiterals;
+
+        ParameterizedEntry(Document document, String[] literals, String[] variableNames, boolean[] intLiterals) {
+            super(document);
+            this.literals = literals;
+            this.variableNames = variableNames;
+            this.intLiterals = intLiterals;
+        }
+
+        ParameterizedEntry(List<? extends GraphQLError> errors, String[] literals) {
+            super(errors);
+            this.literals = literals;
+            this.variableNames = new String[literals.length];
+            this.intLiterals = new boolean[literals.length];
+        }
+    }
+}
@@ -1,7 +1,9 @@
 package graphql.execution.preparsed;
 
 import graphql.GraphQLError;
+import graphql.Internal;
 import graphql.PublicApi;
+import graphql.execution.ExecutionPlan;
 import graphql.language.Document;
 
 import java.io.Serializable;
@@ -23,6 +25,8 @@ import static java.util.Collections.singletonList;
 public class PreparsedDocumentEntry implements Serializable {
     private final Document document;
     private final List<? extends GraphQLError> errors;
+    // the plan is derived from the document and hence is rebuilt rather than serialised
+    private transient volatile ExecutionPlan executionPlan;
 
     public PreparsedDocumentEntry(Document document) {
         assertNotNull(document);
@@ -51,4 +55,24 @@ public class PreparsedDocumentEntry implements Serializable {
     public boolean hasErrors() {
         return errors != null && !errors.isEmpty();
     }
+
+    /**
+     * The execution plan caches the work of collecting fields for this document and is re-used by every execution
+     * of this entry.
+     *
+     * @return the execution plan of the document or null if there is no document
+     */
+    @Internal
+    public ExecutionPlan getExecutionPlan() {
+        if (document == null) {
+            return null;
+        }
+        ExecutionPlan plan = executionPlan;
+        if (plan == null) {
+            // a racing thread may build a second plan which is harmless since they are equivalent
+            plan = new ExecutionPlan(document);
+            executionPlan = plan;
+        }
+        return plan;
+    }
 }
@@ -0,0 +1,305 @@
+package graphql.execution.preparsed.persisted;
+
+import graphql.ExecutionInput;
+import graphql.PublicApi;
+import graphql.execution.preparsed.PreparsedDocumentEntry;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static graphql.Assert.assertNotNull;
+import static graphql.Assert.assertTrue;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * A PersistedQueryCache for very large registries of known queries, which reads the query text from a memory mapped
+ * file instead of holding it on the heap.
+ * <p>
+ * The file is written ahead of time with {@link #write(Path, Map)} and holds the query texts followed by an open
+ * addressing hash index of their ids.  Opening it only maps the file, so it takes the same time whatever the number of
+ * queries, and the operating system pages in the parts of the file that are actually used.  Query ids are looked up by
+ * their {@link Object#toString()} value.
+ * <p>
+ * Only a bounded number of recently used {@link PreparsedDocumentEntry}s are kept on the heap.  Documents that are not
+ * among them are parsed and validated again from the query text in the file.
+ * <p>
+ * The cache should be closed once it is no longer used.  Since Java can not safely unmap a file that other threads may
+ * still read, closing drops the mappings and the operating system releases the file once they are garbage collected.
+ */
+@PublicApi
+public class MappedPersistedQueryCache implements PersistedQueryCache, Closeable {
+
+    // "GQPQ"
+    private static final int MAGIC = 0x47515051;
+    private static final int VERSION = 1;
+    // magic, version, entry count, slot count and index offset
+    private static final int HEADER_SIZE = 24;
+    // the offset of a record followed by the hash of its id, an offset of zero marks an empty slot
+    private static final int SLOT_SIZE = 12;
+    // files are mapped in chunks since a single mapping can not be larger than 2GB
+    private static final int CHUNK_SHIFT = 30;
+    private static final long CHUNK_MASK = (1L << CHUNK_SHIFT) - 1;
+
+    private volatile MappedByteBuffer[] chunks;
+    private final int entryCount;
+    private final int slotMask;
+    private final long indexOffset;
+    private final Map<Object, PreparsedDocumentEntry> documents;
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+
+    private MappedPersistedQueryCache(Builder builder) {
+        long size;
+        MappedByteBuffer[] chunks;
+        try (FileChannel channel = FileChannel.open(builder.file, StandardOpenOption.READ)) {
+            size = channel.size();
+            int chunkCount = (int) ((size + CHUNK_MASK) >>> CHUNK_SHIFT);
+            chunks = new MappedByteBuffer[chunkCount];
+            for (int i = 0; i < chunkCount; i++) {
+                long position = (long) i << CHUNK_SHIFT;
+                chunks[i] = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(CHUNK_MASK + 1, size - position));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        assertTrue(size >= HEADER_SIZE && readInt(chunks, 0) == MAGIC, () -> String.format("The file %s is not a persisted query file", builder.file));
+        assertTrue(readInt(chunks, 4) == VERSION, () -> String.format("The file %s has an unsupported version", builder.file));
+        int entryCount = readInt(chunks, 8);
+        int slotCount = readInt(chunks, 12);
+        long indexOffset = readLong(chunks, 16);
+        // a corrupt or truncated header would make lookups read outside of the file or probe a full index forever
+        assertTrue(slotCount > 0 && (slotCount & (slotCount - 1)) == 0 && entryCount >= 0 && entryCount < slotCount,
+                () -> String.format("The file %s has an invalid index size", builder.file));
+        assertTrue(indexOffset >= HEADER_SIZE && indexOffset <= size - (long) slotCount * SLOT_SIZE,
+                () -> String.format("The file %s is truncated", builder.file));
+        this.chunks = chunks;
+        this.entryCount = entryCount;
+        this.slotMask = slotCount - 1;
+        this.indexOffset = indexOffset;
+
+        int maxCachedDocuments = builder.maxCachedDocuments;
+        this.documents = new LinkedHashMap<Object, PreparsedDocumentEntry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Object, PreparsedDocumentEntry> eldest) {
+                return size() > maxCachedDocuments;
+            }
+        };
+    }
+
+    @Override
+    public PreparsedDocumentEntry getPersistedQueryDocument(Object persistedQueryId, ExecutionInput executionInput, PersistedQueryCacheMiss onCacheMiss) throws PersistedQueryNotFound {
+        PreparsedDocumentEntry documentEntry;
+        synchronized (documents) {
+            documentEntry = documents.get(persistedQueryId);
+        }
+        if (documentEntry != null) {
+            hitCount.incrementAndGet();
+            return documentEntry;
+        }
+        String queryText = getQuery(persistedQueryId);
+        if (queryText == null) {
+            throw new PersistedQueryNotFound(persistedQueryId);
+        }
+        missCount.incrementAndGet();
+        // the lock is not held while parsing, so concurrent misses of the same query may both parse it
+        documentEntry = onCacheMiss.apply(queryText);
+        synchronized (documents) {
+            documents.put(persistedQueryId, documentEntry);
+        }
+        return documentEntry;
+    }
+
+    /**
+     * Looks up the text of a query in the file
+     *
+     * @param persistedQueryId the id of the query
+     * @return the query text or null if the id is not known
+     */
+    public String getQuery(Object persistedQueryId) {
+        MappedByteBuffer[] chunks = assertNotNull(this.chunks, () -> "The persisted query cache has been closed");
+        byte[] id = persistedQueryId.toString().getBytes(UTF_8);
+        int hash = hash(id);
+        int slot = hash & slotMask;
+        while (true) {
+            long slotOffset = indexOffset + (long) slot * SLOT_SIZE;
+            long recordOffset = readLong(chunks, slotOffset);
+            if (recordOffset == 0) {
+                return null;
+            }
+            if (readInt(chunks, slotOffset + 8) == hash && Arrays.equals(id, readBytes(chunks, recordOffset))) {
+                return new String(readBytes(chunks, recordOffset + 4 + id.length), UTF_8);
+            }
+            slot = (slot + 1) & slotMask;
+        }
+    }
+
+    /**
+     * @return the number of queries in the file
+     */
+    public int getQueryCount() {
+        return entryCount;
+    }
+
+    /**
+     * @return the number of documents that were served from the heap without being parsed and validated
+     */
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    /**
+     * @return the number of known queries that had to be parsed and validated
+     */
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    /**
+     * Drops the mapped file and the documents kept on the heap.  Looking up queries afterwards fails.
+     */
+    @Override
+    public void close() {
+        chunks = null;
+        synchronized (documents) {
+            documents.clear();
+        }
+    }
+
+    // the chunks are passed along so that a lookup reads the volatile field only once
+    private static byte[] readBytes(MappedByteBuffer[] chunks, long position) {
+        byte[] bytes = new byte[readInt(chunks, position)];
+        long start = position + 4;
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = readByte(chunks, start + i);
+        }
+        return bytes;
+    }
+
+    private static int readInt(MappedByteBuffer[] chunks, long position) {
+        return (readByte(chunks, position) & 0xff) << 24
+                | (readByte(chunks, position + 1) & 0xff) << 16
+                | (readByte(chunks, position + 2) & 0xff) << 8
+                | (readByte(chunks, position + 3) & 0xff);
+    }
+
+    private static long readLong(MappedByteBuffer[] chunks, long position) {
+        return ((long) readInt(chunks, position) << 32) | (readInt(chunks, position + 4) & 0xffffffffL);
+    }
+
+    private static byte readByte(MappedByteBuffer[] chunks, long position) {
+        // absolute gets do not touch the position of the buffers so they can be shared by all threads
+        return chunks[(int) (position >>> CHUNK_SHIFT)].get((int) (position & CHUNK_MASK));
+    }
+
+    private static int hash(byte[] id) {
+        // FNV-1a, which unlike the hash code of the id is the same in every JVM that reads the file
+        int hash = 0x811c9dc5;
+        for (byte b : id) {
+            hash ^= b & 0xff;
+            hash *= 0x01000193;
+        }
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * Writes the known queries to a file that can be opened with {@link #newMappedPersistedQueryCache(Path)}
+     *
+     * @param file         the file to write, which is replaced if it exists
+     * @param knownQueries the query texts keyed by their ids, which must all have a different {@link Object#toString()}
+     * @throws IOException if the file can not be written
+     */
+    public static void write(Path file, Map<?, String> knownQueries) throws IOException {
+        // ids are looked up by their string form, so ids that share it would make all but one of the queries unreachable
+        Set<String> ids = new HashSet<>();
+        for (Object knownQueryId : knownQueries.keySet()) {
+            String id = knownQueryId.toString();
+            assertTrue(ids.add(id), () -> String.format("The query id '%s' is used more than once", id));
+        }
+        int entryCount = knownQueries.size();
+        int slotCount = Integer.highestOneBit(Math.max(1, entryCount) * 2 - 1) << 1;
+        long[] slotOffsets = new long[slotCount];
+        int[] slotHashes = new int[slotCount];
+        int slotMask = slotCount - 1;
+
+        long position = HEADER_SIZE;
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+            out.write(new byte[HEADER_SIZE]);
+            for (Map.Entry<?, String> knownQuery : knownQueries.entrySet()) {
+                byte[] id = knownQuery.getKey().toString().getBytes(UTF_8);
+                byte[] query = assertNotNull(knownQuery.getValue()).getBytes(UTF_8);
+                int hash = hash(id);
+                int slot = hash & slotMask;
+                while (slotOffsets[slot] != 0) {
+                    slot = (slot + 1) & slotMask;
+                }
+                slotOffsets[slot] = position;
+                slotHashes[slot] = hash;
+
+                out.writeInt(id.length);
+                out.write(id);
+                out.writeInt(query.length);
+                out.write(query);
+                position += 8 + id.length + query.length;
+            }
+            for (int slot = 0; slot < slotCount; slot++) {
+                out.writeLong(slotOffsets[slot]);
+                out.writeInt(slotHashes[slot]);
+            }
+        }
+        try (RandomAccessFile header = new RandomAccessFile(file.toFile(), "rw")) {
+            header.writeInt(MAGIC);
+            header.writeInt(VERSION);
+            header.writeInt(entryCount);
+            header.writeInt(slotCount);
+            header.writeLong(position);
+        }
+    }
+
+    public static Builder newMappedPersistedQueryCache(Path file) {
+        return new Builder(file);
+    }
+
+    public static class Builder {
+        private final Path file;
+        private int maxCachedDocuments = 1000;
+
+        private Builder(Path file) {
+            this.file = assertNotNull(file);
+        }
+
+        /**
+         * @param maxCachedDocuments the maximum number of parsed and validated documents to keep on the heap
+         * @return this builder
+         */
+        public Builder maxCachedDocuments(int maxCachedDocuments) {
+            assertTrue(maxCachedDocuments > 0, () -> "maxCachedDocuments must be greater than zero");
+            this.maxCachedDocuments = maxCachedDocuments;
+            return this;
+        }
+
+        /**
+         * Maps the file, which must have been written by {@link MappedPersistedQueryCache#write(Path, Map)}
+         *
+         * @return the cache
+         * @throws UncheckedIOException if the file can not be read
+         */
+        public MappedPersistedQueryCache build() {
+            return new MappedPersistedQueryCache(this);
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package graphql.introspection;
+
+import graphql.ExecutionInput;
+import graphql.ExecutionResult;
+import graphql.Internal;
+import graphql.schema.GraphQLSchema;
+import graphql.schema.visibility.BlockedFields;
+import graphql.schema.visibility.DefaultGraphqlFieldVisibility;
+import graphql.schema.visibility.GraphqlFieldVisibility;
+import graphql.schema.visibility.NoIntrospectionGraphqlFieldVisibility;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Holds the {@link PrecomputedIntrospectionResult} of the schema that a {@link graphql.GraphQL} instance executes
+ * against, so that the standard introspection query is only executed once per schema.
+ * <p>
+ * Results are only cached for schemas whose field visibility is one of the built in ones, since those show the same
+ * fields to every request.  A custom {@link GraphqlFieldVisibility} may show different fields to different requests and
+ * so its schemas are always introspected afresh.
+ */
+@Internal
+public class IntrospectionResultCache {
+
+    private static final String OPERATION_NAME = "IntrospectionQuery";
+
+    private final AtomicReference<PrecomputedIntrospectionResult> result = new AtomicReference<>();
+
+    /**
+     * @param executionInput the execution input of a request
+     * @return true if the request is the standard {@link IntrospectionQuery#INTROSPECTION_QUERY}, give or take its
+     * whitespace and commas
+     */
+    public static boolean isStandardIntrospectionQuery(ExecutionInput executionInput) {
+        String operationName = executionInput.getOperationName();
+        if (operationName != null && !operationName.isEmpty() && !operationName.equals(OPERATION_NAME)) {
+            return false;
+        }
+        String query = executionInput.getQuery();
+        return query != null && (query.equals(IntrospectionQuery.INTROSPECTION_QUERY) || equalsIgnoringIgnored(query, IntrospectionQuery.INTROSPECTION_QUERY));
+    }
+
+    /**
+     * @param schema the schema a request executes against
+     * @return the result of the standard introspection query against the schema or null if it has not been computed yet
+     */
+    public PrecomputedIntrospectionResult get(GraphQLSchema schema) {
+        PrecomputedIntrospectionResult precomputedResult = result.get();
+        // the schema can be changed per request by instrumentation, in which case the result is not for it
+        return precomputedResult != null && precomputedResult.getSchema() == schema ? precomputedResult : null;
+    }
+
+    /**
+     * Called with the result of executing the standard introspection query, which is kept if it can be served to other
+     * requests
+     *
+     * @param schema          the schema that the query was executed against
+     * @param executionResult the result of the query
+     */
+    public void put(GraphQLSchema schema, ExecutionResult executionResult) {
+        if (!executionResult.getErrors().isEmpty() || !executionResult.isDataPresent() || !hasStaticFieldVisibility(schema)) {
+            return;
+        }
+        result.set(new PrecomputedIntrospectionResult(schema, executionResult.getData()));
+    }
+
+    private static boolean hasStaticFieldVisibility(GraphQLSchema schema) {
+        Class<?> fieldVisibilityClass = schema.getCodeRegistry().getFieldVisibility().getClass();
+        return fieldVisibilityClass == DefaultGraphqlFieldVisibility.class
+                || fieldVisibilityClass == NoIntrospectionGraphqlFieldVisibility.class
+                || fieldVisibilityClass == BlockedFields.class;
+    }
+
+    /*
+     * Compares two documents where any run of the characters that graphql ignores, whitespace and commas, is the same as
+     * any other such run, and leading and trailing runs are left out
+     */
+    private static boolean equalsIgnoringIgnored(String a, String b) {
+        int i = skipIgnored(a, 0);
+        int j = skipIgnored(b, 0);
+        while (i < a.length() && j < b.length()) {
+            char ca = a.charAt(i);
+            char cb = b.charAt(j);
+            if (isIgnored(ca) && isIgnored(cb)) {
+                i = skipIgnored(a, i);
+                j = skipIgnored(b, j);
+                continue;
+            }
+            if (ca != cb) {
+                return false;
+            }
+            i++;
+            j++;
+        }
+        return skipIgnored(a, i) == a.length() && skipIgnored(b, j) == b.length();
+    }
+
+    private static int skipIgnored(String s, int index) {
+        while (index < s.length() && isIgnored(s.charAt(index))) {
+            index++;
+        }
+        return index;
+    }
+
+    private static boolean isIgnored(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\r' || c == ',';
+    }
+}
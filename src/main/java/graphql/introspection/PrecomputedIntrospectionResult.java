@@ -0,0 +1,95 @@
+package graphql.introspection;
+
+import graphql.ExecutionResult;
+import graphql.ExecutionResultImpl;
+import graphql.ExecutionResultJsonWriter;
+import graphql.GraphQLError;
+import graphql.PublicApi;
+import graphql.collect.ImmutableKit;
+import graphql.schema.GraphQLSchema;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Map;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * The result of the standard {@link IntrospectionQuery#INTROSPECTION_QUERY} against a schema, which is computed once and
+ * then served to every request that sends the standard query.
+ * <p>
+ * Besides the result data it holds the result already serialized as JSON, so that it can be written out as is rather
+ * than walking the large introspection result for every request.  The result data can not be changed, since it is
+ * shared by every request.
+ *
+ * @see graphql.GraphQL.Builder#cacheIntrospection(boolean)
+ */
+@PublicApi
+public class PrecomputedIntrospectionResult implements ExecutionResult {
+
+    private final GraphQLSchema schema;
+    private final ExecutionResult executionResult;
+    private final String json;
+    private final ByteBuffer jsonBytes;
+
+    PrecomputedIntrospectionResult(GraphQLSchema schema, Object data) {
+        this.schema = schema;
+        this.executionResult = new ExecutionResultImpl(ImmutableKit.immutableDeepCopyOf(data), ImmutableKit.emptyList());
+        this.json = new ExecutionResultJsonWriter().writeAsString(executionResult);
+        this.jsonBytes = ByteBuffer.wrap(json.getBytes(UTF_8)).asReadOnlyBuffer();
+    }
+
+    /**
+     * @return the schema that this result was computed against
+     */
+    public GraphQLSchema getSchema() {
+        return schema;
+    }
+
+    /**
+     * @return the result as JSON, as written by an {@link ExecutionResultJsonWriter}
+     */
+    public String getJson() {
+        return json;
+    }
+
+    /**
+     * @return the result as UTF-8 encoded JSON, in a read only buffer that is positioned at the start of the JSON
+     */
+    public ByteBuffer getJsonBytes() {
+        return jsonBytes.duplicate();
+    }
+
+    @Override
+    public List<GraphQLError> getErrors() {
+        return executionResult.getErrors();
+    }
+
+    @Override
+    public <T> T getData() {
+        return executionResult.getData();
+    }
+
+    @Override
+    public boolean isDataPresent() {
+        return executionResult.isDataPresent();
+    }
+
+    @Override
+    public Map<Object, Object> getExtensions() {
+        return executionResult.getExtensions();
+    }
+
+    @Override
+    public Map<String, Object> toSpecification() {
+        return executionResult.toSpecification();
+    }
+
+    @Override
+    public String toString() {
+        return "PrecomputedIntrospectionResult{" +
+                "schema=" + schema +
+                ", jsonLength=" + json.length() +
+                '}';
+    }
+}
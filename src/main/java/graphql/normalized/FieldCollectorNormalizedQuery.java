@@ -40,6 +40,15 @@ import static graphql.introspection.Introspection.TypeNameMetaFieldDef;
 /**
  * Creates a the direct NormalizedFields children, this means it goes only one level deep!
  * This also means the NormalizedFields returned dont have any children.
+ * <p>
+ * Fragments are collected the same way the {@link graphql.execution.FieldCollector} collects them, so that the sub
+ * selections of a tree can be executed:
+ * <ul>
+ * <li>a fragment spread is only skipped for the object types it has already been spread for, so the same fragment
+ * spread under different type conditions applies to each of them rather than only to the first</li>
+ * <li>once a type condition has excluded all the possible object types nothing nested in it applies, rather than the
+ * nested fragments starting over from all the object types of their own type condition</li>
+ * </ul>
  */
 @Internal
 public class FieldCollectorNormalizedQuery {
@@ -76,7 +85,7 @@ public class FieldCollectorNormalizedQuery {
         // result key -> ObjectType -> NormalizedField
         Map<String, Map<GraphQLObjectType, NormalizedField>> subFields = new LinkedHashMap<>();
         Map<NormalizedField, MergedField> mergedFieldByNormalizedField = new LinkedHashMap<>();
-        List<String> visitedFragments = new ArrayList<>();
+        Map<String, Set<GraphQLObjectType>> visitedFragments = new LinkedHashMap<>();
         Set<GraphQLObjectType> possibleObjects
                 = new LinkedHashSet<>(resolvePossibleObjects((GraphQLCompositeType) fieldType, parameters.getGraphQLSchema()));
         for (Field field : mergedField.getFields()) {
@@ -101,7 +110,7 @@ public class FieldCollectorNormalizedQuery {
                                                    GraphQLObjectType rootType) {
         Map<String, Map<GraphQLObjectType, NormalizedField>> subFields = new LinkedHashMap<>();
         Map<NormalizedField, MergedField> mergedFieldByNormalizedField = new LinkedHashMap<>();
-        List<String> visitedFragments = new ArrayList<>();
+        Map<String, Set<GraphQLObjectType>> visitedFragments = new LinkedHashMap<>();
         Set<GraphQLObjectType> possibleObjects = new LinkedHashSet<>();
         possibleObjects.add(rootType);
         this.collectFields(parameters, operationDefinition.getSelectionSet(), visitedFragments, subFields, mergedFieldByNormalizedField, possibleObjects, 1, null);
@@ -120,7 +129,7 @@ public class FieldCollectorNormalizedQuery {
 
     private void collectFields(FieldCollectorNormalizedQueryParams parameters,
                                SelectionSet selectionSet,
-                               List<String> visitedFragments,
+                               Map<String, Set<GraphQLObjectType>> visitedFragments,
                                Map<String, Map<GraphQLObjectType, NormalizedField>> result,
                                Map<NormalizedField, MergedField> mergedFieldByNormalizedField,
                                Set<GraphQLObjectType> possibleObjects,
@@ -139,32 +148,37 @@ public class FieldCollectorNormalizedQuery {
     }
 
     private void collectFragmentSpread(FieldCollectorNormalizedQueryParams parameters,
-                                       List<String> visitedFragments,
+                                       Map<String, Set<GraphQLObjectType>> visitedFragments,
                                        Map<String, Map<GraphQLObjectType, NormalizedField>> result,
                                        Map<NormalizedField, MergedField> mergedFieldByNormalizedField,
                                        FragmentSpread fragmentSpread,
                                        Set<GraphQLObjectType> possibleObjects,
                                        int level,
                                        NormalizedField parent) {
-        if (visitedFragments.contains(fragmentSpread.getName())) {
+        if (!conditionalNodes.shouldInclude(parameters.getVariables(), fragmentSpread.getDirectives())) {
             return;
         }
-        if (!conditionalNodes.shouldInclude(parameters.getVariables(), fragmentSpread.getDirectives())) {
+        // like the FieldCollector a fragment is only spread once per object type, and only for the object types that
+        // get to this spread rather than a spread of the same fragment under another type condition
+        Set<GraphQLObjectType> visitedObjects = visitedFragments.computeIfAbsent(fragmentSpread.getName(), ignored -> new LinkedHashSet<>());
+        Set<GraphQLObjectType> unvisitedObjects = new LinkedHashSet<>(possibleObjects);
+        unvisitedObjects.removeAll(visitedObjects);
+        if (unvisitedObjects.isEmpty()) {
             return;
         }
-        visitedFragments.add(fragmentSpread.getName());
+        visitedObjects.addAll(unvisitedObjects);
         FragmentDefinition fragmentDefinition = assertNotNull(parameters.getFragmentsByName().get(fragmentSpread.getName()));
 
         if (!conditionalNodes.shouldInclude(parameters.getVariables(), fragmentDefinition.getDirectives())) {
             return;
         }
         GraphQLCompositeType newCondition = (GraphQLCompositeType) parameters.getGraphQLSchema().getType(fragmentDefinition.getTypeCondition().getName());
-        Set<GraphQLObjectType> newConditions = narrowDownPossibleObjects(possibleObjects, newCondition, parameters.getGraphQLSchema());
+        Set<GraphQLObjectType> newConditions = narrowDownPossibleObjects(unvisitedObjects, newCondition, parameters.getGraphQLSchema());
         collectFields(parameters, fragmentDefinition.getSelectionSet(), visitedFragments, result, mergedFieldByNormalizedField, newConditions, level, parent);
     }
 
     private void collectInlineFragment(FieldCollectorNormalizedQueryParams parameters,
-                                       List<String> visitedFragments,
+                                       Map<String, Set<GraphQLObjectType>> visitedFragments,
                                        Map<String, Map<GraphQLObjectType, NormalizedField>> result,
                                        Map<NormalizedField, MergedField> mergedFieldByNormalizedField,
                                        InlineFragment inlineFragment,
@@ -222,6 +236,7 @@ public class FieldCollectorNormalizedQuery {
                 NormalizedField newFieldWTC = NormalizedField.newQueryExecutionField()
                         .alias(field.getAlias())
                         .arguments(argumentValues)
+                        .astArguments(field.getArguments())
                         .objectType(objectType)
                         .fieldDefinition(fieldDefinition)
                         .level(level)
@@ -247,10 +262,7 @@ public class FieldCollectorNormalizedQuery {
                                                              GraphQLSchema graphQLSchema) {
 
         List<GraphQLObjectType> resolvedTypeCondition = resolvePossibleObjects(typeCondition, graphQLSchema);
-        if (currentOnes.size() == 0) {
-            return new LinkedHashSet<>(resolvedTypeCondition);
-        }
-
+        // no object types are left once a type condition has excluded them all, so nested fragments do not apply either
         Set<GraphQLObjectType> result = new LinkedHashSet<>(currentOnes);
         result.retainAll(resolvedTypeCondition);
         return result;
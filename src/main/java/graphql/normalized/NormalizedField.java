@@ -2,6 +2,13 @@ package graphql.normalized;
 
 import graphql.Assert;
 import graphql.Internal;
+import graphql.execution.ValuesResolver;
+import graphql.language.Argument;
+import graphql.language.ArrayValue;
+import graphql.language.ObjectField;
+import graphql.language.ObjectValue;
+import graphql.language.Value;
+import graphql.language.VariableReference;
 import graphql.schema.GraphQLFieldDefinition;
 import graphql.schema.GraphQLObjectType;
 import graphql.schema.GraphQLTypeUtil;
@@ -20,8 +27,12 @@ import static graphql.schema.GraphQLTypeUtil.simplePrint;
 
 @Internal
 public class NormalizedField {
+    private static final ValuesResolver VALUES_RESOLVER = new ValuesResolver();
+
     private final String alias;
     private final Map<String, Object> arguments;
+    private final List<Argument> astArguments;
+    private final boolean argumentsUseVariables;
     private final GraphQLObjectType objectType;
     private final GraphQLFieldDefinition fieldDefinition;
     private final List<NormalizedField> children;
@@ -33,6 +44,8 @@ public class NormalizedField {
     private NormalizedField(Builder builder) {
         this.alias = builder.alias;
         this.arguments = builder.arguments;
+        this.astArguments = builder.astArguments;
+        this.argumentsUseVariables = usesVariables(builder.astArguments);
         this.objectType = builder.objectType;
         this.fieldDefinition = assertNotNull(builder.fieldDefinition);
         this.children = builder.children;
@@ -79,10 +92,59 @@ public class NormalizedField {
         return isConditional;
     }
 
+    /**
+     * @return the argument values of the field as resolved with the variables the tree was built with
+     */
     public Map<String, Object> getArguments() {
         return arguments;
     }
 
+    /**
+     * A tree that is shared by executions, such as the trees kept in a {@link graphql.execution.ExecutionPlan}, is
+     * built without the variables of the field arguments, since those can be different for every execution.  This
+     * resolves the arguments of the field for the variables of a given execution.
+     *
+     * @param variables the coerced variables of the execution
+     *
+     * @return the argument values of the field for those variables
+     */
+    public Map<String, Object> getArguments(Map<String, Object> variables) {
+        if (!argumentsUseVariables) {
+            return arguments;
+        }
+        return VALUES_RESOLVER.getArgumentValues(fieldDefinition.getArguments(), astArguments, variables);
+    }
+
+    private static boolean usesVariables(List<Argument> astArguments) {
+        for (Argument argument : astArguments) {
+            if (usesVariables(argument.getValue())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean usesVariables(Value<?> value) {
+        if (value instanceof VariableReference) {
+            return true;
+        }
+        if (value instanceof ArrayValue) {
+            for (Value<?> element : ((ArrayValue) value).getValues()) {
+                if (usesVariables(element)) {
+                    return true;
+                }
+            }
+        }
+        if (value instanceof ObjectValue) {
+            for (ObjectField objectField : ((ObjectValue) value).getObjectFields()) {
+                if (usesVariables(objectField.getValue())) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
 
     public static Builder newQueryExecutionField() {
         return new Builder();
@@ -214,6 +276,7 @@ public class NormalizedField {
         private NormalizedField parent;
         private String alias;
         private Map<String, Object> arguments = Collections.emptyMap();
+        private List<Argument> astArguments = Collections.emptyList();
 
         private Builder() {
 
@@ -222,6 +285,7 @@ public class NormalizedField {
         private Builder(NormalizedField existing) {
             this.alias = existing.alias;
             this.arguments = existing.arguments;
+            this.astArguments = existing.astArguments;
             this.objectType = existing.getObjectType();
             this.fieldDefinition = existing.getFieldDefinition();
             this.children = existing.getChildren();
@@ -245,6 +309,11 @@ public class NormalizedField {
             return this;
         }
 
+        public Builder astArguments(List<Argument> astArguments) {
+            this.astArguments = astArguments == null ? Collections.emptyList() : astArguments;
+            return this;
+        }
+
 
         public Builder fieldDefinition(GraphQLFieldDefinition fieldDefinition) {
             this.fieldDefinition = fieldDefinition;
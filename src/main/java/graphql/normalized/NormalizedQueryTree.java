@@ -1,32 +1,69 @@
 package graphql.normalized;
 
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import graphql.Assert;
 import graphql.Internal;
 import graphql.execution.MergedField;
+import graphql.execution.MergedSelectionSet;
 import graphql.execution.ResultPath;
 import graphql.language.Field;
 import graphql.schema.FieldCoordinates;
 import graphql.schema.GraphQLFieldsContainer;
+import graphql.schema.GraphQLObjectType;
 
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 
 @Internal
 public class NormalizedQueryTree {
 
+    private static final MergedSelectionSet EMPTY_SELECTION_SET = MergedSelectionSet.newMergedSelectionSet().build();
+
     private final List<NormalizedField> topLevelFields;
     private final Map<Field, List<NormalizedField>> fieldToNormalizedField;
     private final Map<NormalizedField, MergedField> normalizedFieldToMergedField;
     private final Map<FieldCoordinates, List<NormalizedField>> coordinatesToNormalizedFields;
+    private final MergedSelectionSet topLevelSelectionSet;
+    private final Map<NormalizedField, Map<GraphQLObjectType, MergedSelectionSet>> subSelections;
+    private final Map<MergedField, NormalizedField> mergedFieldToNormalizedField;
 
     public NormalizedQueryTree(List<NormalizedField> topLevelFields,
                                Map<Field, List<NormalizedField>> fieldToNormalizedField,
                                Map<NormalizedField, MergedField> normalizedFieldToMergedField,
                                Map<FieldCoordinates, List<NormalizedField>> coordinatesToNormalizedFields) {
-        this.topLevelFields = topLevelFields;
-        this.fieldToNormalizedField = fieldToNormalizedField;
-        this.normalizedFieldToMergedField = normalizedFieldToMergedField;
-        this.coordinatesToNormalizedFields = coordinatesToNormalizedFields;
+        this(topLevelFields, fieldToNormalizedField, normalizedFieldToMergedField, coordinatesToNormalizedFields, null, Collections.emptyMap());
+    }
+
+    public NormalizedQueryTree(List<NormalizedField> topLevelFields,
+                               Map<Field, List<NormalizedField>> fieldToNormalizedField,
+                               Map<NormalizedField, MergedField> normalizedFieldToMergedField,
+                               Map<FieldCoordinates, List<NormalizedField>> coordinatesToNormalizedFields,
+                               MergedSelectionSet topLevelSelectionSet,
+                               Map<NormalizedField, Map<GraphQLObjectType, MergedSelectionSet>> subSelections) {
+        // trees are shared between executions and so can not be changed once built
+        this.topLevelFields = ImmutableList.copyOf(topLevelFields);
+        this.fieldToNormalizedField = immutableMultimap(fieldToNormalizedField);
+        this.normalizedFieldToMergedField = ImmutableMap.copyOf(normalizedFieldToMergedField);
+        this.coordinatesToNormalizedFields = immutableMultimap(coordinatesToNormalizedFields);
+        this.topLevelSelectionSet = topLevelSelectionSet;
+        ImmutableMap.Builder<NormalizedField, Map<GraphQLObjectType, MergedSelectionSet>> subSelectionsBuilder = ImmutableMap.builder();
+        subSelections.forEach((normalizedField, byType) -> subSelectionsBuilder.put(normalizedField, ImmutableMap.copyOf(byType)));
+        this.subSelections = subSelectionsBuilder.build();
+        // the merged fields of the sub selections are the ones of this tree, so they can be looked up by identity
+        Map<MergedField, NormalizedField> mergedFieldToNormalizedField = new IdentityHashMap<>();
+        normalizedFieldToMergedField.forEach((normalizedField, mergedField) -> mergedFieldToNormalizedField.put(mergedField, normalizedField));
+        this.mergedFieldToNormalizedField = Collections.unmodifiableMap(mergedFieldToNormalizedField);
+    }
+
+    private static <K> Map<K, List<NormalizedField>> immutableMultimap(Map<K, List<NormalizedField>> map) {
+        ImmutableMap.Builder<K, List<NormalizedField>> builder = ImmutableMap.builder();
+        for (Map.Entry<K, List<NormalizedField>> entry : map.entrySet()) {
+            builder.put(entry.getKey(), ImmutableList.copyOf(entry.getValue()));
+        }
+        return builder.build();
     }
 
     public Map<FieldCoordinates, List<NormalizedField>> getCoordinatesToNormalizedFields() {
@@ -53,6 +90,37 @@ public class NormalizedQueryTree {
         return normalizedFieldToMergedField.get(normalizedField);
     }
 
+    /**
+     * @return the top level fields of the operation as they are executed, or null if the tree was not built with its
+     * selection sets
+     */
+    public MergedSelectionSet getTopLevelSelectionSet() {
+        return topLevelSelectionSet;
+    }
+
+    /**
+     * @param mergedField a merged field of this tree, as found in {@link #getTopLevelSelectionSet()} and
+     *                    {@link #getSubSelection(NormalizedField, GraphQLObjectType)}
+     *
+     * @return the normalized field of the merged field or null if the merged field is not one of this tree
+     */
+    public NormalizedField getNormalizedField(MergedField mergedField) {
+        return mergedFieldToNormalizedField.get(mergedField);
+    }
+
+    /**
+     * @param normalizedField a normalized field of this tree
+     * @param objectType      the object type that the value of the field resolved to
+     *
+     * @return the sub fields of the field for the object type, in the order the {@link graphql.execution.FieldCollector}
+     * would collect them
+     */
+    public MergedSelectionSet getSubSelection(NormalizedField normalizedField, GraphQLObjectType objectType) {
+        Map<GraphQLObjectType, MergedSelectionSet> byType = subSelections.get(normalizedField);
+        MergedSelectionSet subSelection = byType == null ? null : byType.get(objectType);
+        return subSelection != null ? subSelection : EMPTY_SELECTION_SET;
+    }
+
     public NormalizedField getNormalizedField(MergedField mergedField, GraphQLFieldsContainer fieldsContainer, ResultPath resultPath) {
         List<NormalizedField> normalizedFields = fieldToNormalizedField.get(mergedField.getSingleField());
         List<String> keysOnlyPath = resultPath.getKeysOnly();
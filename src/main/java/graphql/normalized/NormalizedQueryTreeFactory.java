@@ -2,6 +2,7 @@ package graphql.normalized;
 
 import graphql.Internal;
 import graphql.execution.MergedField;
+import graphql.execution.MergedSelectionSet;
 import graphql.language.Document;
 import graphql.language.Field;
 import graphql.language.FragmentDefinition;
@@ -9,9 +10,11 @@ import graphql.language.NodeUtil;
 import graphql.language.OperationDefinition;
 import graphql.normalized.FieldCollectorNormalizedQuery.CollectFieldResult;
 import graphql.schema.FieldCoordinates;
+import graphql.schema.GraphQLObjectType;
 import graphql.schema.GraphQLSchema;
 
 import java.util.ArrayList;
+import java.util.IdentityHashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -57,13 +60,15 @@ public class NormalizedQueryTreeFactory {
         Map<Field, List<NormalizedField>> fieldToNormalizedField = new LinkedHashMap<>();
         Map<NormalizedField, MergedField> normalizedFieldToMergedField = new LinkedHashMap<>();
         Map<FieldCoordinates, List<NormalizedField>> coordinatesToNormalizedFields = new LinkedHashMap<>();
+        Map<NormalizedField, Map<GraphQLObjectType, MergedSelectionSet>> subSelections = new LinkedHashMap<>();
 
         List<NormalizedField> realRoots = new ArrayList<>();
+        Map<NormalizedField, NormalizedField> realRootsByField = new IdentityHashMap<>();
 
         for (NormalizedField topLevel : topLevelFields.getChildren()) {
 
             MergedField mergedField = topLevelFields.getMergedFieldByNormalized().get(topLevel);
-            NormalizedField realTopLevel = buildFieldWithChildren(topLevel, mergedField, fieldCollector, parameters, fieldToNormalizedField, normalizedFieldToMergedField, coordinatesToNormalizedFields, 1);
+            NormalizedField realTopLevel = buildFieldWithChildren(topLevel, mergedField, fieldCollector, parameters, fieldToNormalizedField, normalizedFieldToMergedField, coordinatesToNormalizedFields, subSelections, 1);
             fixUpParentReference(realTopLevel);
 
             normalizedFieldToMergedField.put(realTopLevel, mergedField);
@@ -71,8 +76,25 @@ public class NormalizedQueryTreeFactory {
             coordinatesToNormalizedFields.computeIfAbsent(coordinates, k -> new ArrayList<>()).add(realTopLevel);
             updateByAstFieldMap(realTopLevel, mergedField, fieldToNormalizedField);
             realRoots.add(realTopLevel);
+            realRootsByField.put(topLevel, realTopLevel);
         }
-        return new NormalizedQueryTree(realRoots, fieldToNormalizedField, normalizedFieldToMergedField, coordinatesToNormalizedFields);
+        MergedSelectionSet topLevelSelectionSet = mkSubSelections(topLevelFields, realRootsByField).get(graphQLSchema.getQueryType());
+        return new NormalizedQueryTree(realRoots, fieldToNormalizedField, normalizedFieldToMergedField, coordinatesToNormalizedFields, topLevelSelectionSet, subSelections);
+    }
+
+    /*
+     * The sub selection of a field for an object type is in the order that the FieldCollector would collect it, which is
+     * the order that the normalized fields were created in rather than the order of their result keys across all types
+     */
+    private Map<GraphQLObjectType, MergedSelectionSet> mkSubSelections(CollectFieldResult collectFieldResult, Map<NormalizedField, NormalizedField> realFieldsByField) {
+        Map<GraphQLObjectType, Map<String, MergedField>> subFieldsByType = new LinkedHashMap<>();
+        collectFieldResult.getMergedFieldByNormalized().forEach((field, mergedField) -> {
+            NormalizedField realField = realFieldsByField.get(field);
+            subFieldsByType.computeIfAbsent(realField.getObjectType(), ignored -> new LinkedHashMap<>()).put(realField.getResultKey(), mergedField);
+        });
+        Map<GraphQLObjectType, MergedSelectionSet> subSelections = new LinkedHashMap<>();
+        subFieldsByType.forEach((objectType, subFields) -> subSelections.put(objectType, MergedSelectionSet.newMergedSelectionSet().subFields(subFields).build()));
+        return subSelections;
     }
 
     private void fixUpParentReference(NormalizedField rootNormalizedField) {
@@ -89,12 +111,14 @@ public class NormalizedQueryTreeFactory {
                                                    Map<Field, List<NormalizedField>> fieldToMergedField,
                                                    Map<NormalizedField, MergedField> normalizedFieldToMergedField,
                                                    Map<FieldCoordinates, List<NormalizedField>> coordinatesToNormalizedFields,
+                                                   Map<NormalizedField, Map<GraphQLObjectType, MergedSelectionSet>> subSelections,
                                                    int curLevel) {
         CollectFieldResult fieldsWithoutChildren = fieldCollector.collectFields(fieldCollectorNormalizedQueryParams, field, mergedField, curLevel + 1);
         List<NormalizedField> realChildren = new ArrayList<>();
+        Map<NormalizedField, NormalizedField> realChildrenByField = new IdentityHashMap<>();
         for (NormalizedField fieldWithoutChildren : fieldsWithoutChildren.getChildren()) {
             MergedField mergedFieldForChild = fieldsWithoutChildren.getMergedFieldByNormalized().get(fieldWithoutChildren);
-            NormalizedField realChild = buildFieldWithChildren(fieldWithoutChildren, mergedFieldForChild, fieldCollector, fieldCollectorNormalizedQueryParams, fieldToMergedField, normalizedFieldToMergedField, coordinatesToNormalizedFields, curLevel + 1);
+            NormalizedField realChild = buildFieldWithChildren(fieldWithoutChildren, mergedFieldForChild, fieldCollector, fieldCollectorNormalizedQueryParams, fieldToMergedField, normalizedFieldToMergedField, coordinatesToNormalizedFields, subSelections, curLevel + 1);
             fixUpParentReference(realChild);
 
             normalizedFieldToMergedField.put(realChild, mergedFieldForChild);
@@ -102,10 +126,15 @@ public class NormalizedQueryTreeFactory {
             coordinatesToNormalizedFields.computeIfAbsent(coordinates, k -> new ArrayList<>()).add(realChild);
 
             realChildren.add(realChild);
+            realChildrenByField.put(fieldWithoutChildren, realChild);
 
             updateByAstFieldMap(realChild, mergedFieldForChild, fieldToMergedField);
         }
-        return field.transform(builder -> builder.children(realChildren));
+        NormalizedField realField = field.transform(builder -> builder.children(realChildren));
+        if (!realChildren.isEmpty()) {
+            subSelections.put(realField, mkSubSelections(fieldsWithoutChildren, realChildrenByField));
+        }
+        return realField;
     }
 
     private void updateByAstFieldMap(NormalizedField normalizedField, MergedField mergedField, Map<Field, List<NormalizedField>> fieldToNormalizedField) {
@@ -85,11 +85,21 @@ public class GraphqlAntlrToLanguage {
     private static final int CHANNEL_IGNORED_CHARS = 3;
     private final CommonTokenStream tokens;
     private final MultiSourceReader multiSourceReader;
+    private final ParserOptions parserOptions;
 
 
     public GraphqlAntlrToLanguage(CommonTokenStream tokens, MultiSourceReader multiSourceReader) {
+        this(tokens, multiSourceReader, ParserOptions.getDefaultParserOptions());
+    }
+
+    public GraphqlAntlrToLanguage(CommonTokenStream tokens, MultiSourceReader multiSourceReader, ParserOptions parserOptions) {
         this.tokens = tokens;
         this.multiSourceReader = multiSourceReader;
+        this.parserOptions = parserOptions;
+    }
+
+    public ParserOptions getParserOptions() {
+        return parserOptions;
     }
 
     //MARKER START: Here GraphqlOperation.g4 specific methods begin
@@ -761,12 +771,18 @@ public class GraphqlAntlrToLanguage {
     }
 
     protected void addCommonData(NodeBuilder nodeBuilder, ParserRuleContext parserRuleContext) {
-        List<Comment> comments = getComments(parserRuleContext);
-        if (!comments.isEmpty()) {
-            nodeBuilder.comments(comments);
+        if (parserOptions.isCaptureLineComments()) {
+            List<Comment> comments = getComments(parserRuleContext);
+            if (!comments.isEmpty()) {
+                nodeBuilder.comments(comments);
+            }
+        }
+        if (parserOptions.isCaptureSourceLocation()) {
+            nodeBuilder.sourceLocation(getSourceLocation(parserRuleContext));
+        }
+        if (parserOptions.isCaptureIgnoredChars()) {
+            addIgnoredChars(parserRuleContext, nodeBuilder);
         }
-        nodeBuilder.sourceLocation(getSourceLocation(parserRuleContext));
-        addIgnoredChars(parserRuleContext, nodeBuilder);
     }
 
     private void addIgnoredChars(ParserRuleContext ctx, NodeBuilder nodeBuilder) {
@@ -831,7 +847,7 @@ public class GraphqlAntlrToLanguage {
         } else {
             content = parseSingleQuotedString(content);
         }
-        SourceLocation sourceLocation = getSourceLocation(descriptionCtx);
+        SourceLocation sourceLocation = parserOptions.isCaptureSourceLocation() ? getSourceLocation(descriptionCtx) : null;
         return new Description(content, sourceLocation, multiLine);
     }
 
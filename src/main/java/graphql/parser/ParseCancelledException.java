@@ -0,0 +1,34 @@
+package graphql.parser;
+
+import graphql.Internal;
+import graphql.language.SourceLocation;
+
+import static java.lang.String.format;
+
+/**
+ * Thrown when a document exceeds one of the limits of the {@link ParserOptions}, in which case parsing is stopped
+ * straight away rather than at the end of the document
+ */
+@Internal
+public class ParseCancelledException extends InvalidSyntaxException {
+
+    private ParseCancelledException(String msg, SourceLocation location, String sourcePreview, String offendingToken) {
+        super(location, msg + " To prevent Denial Of Service attacks, parsing has been cancelled.", sourcePreview, offendingToken, null);
+    }
+
+    static ParseCancelledException tooManyCharacters(int maxCharacters) {
+        return new ParseCancelledException(format("More than %d characters have been presented.", maxCharacters), null, null, null);
+    }
+
+    static ParseCancelledException tooManyTokens(int maxTokens, SourceLocation location, String sourcePreview, String offendingToken) {
+        return new ParseCancelledException(format("More than %d 'grammar' tokens have been presented.", maxTokens), location, sourcePreview, offendingToken);
+    }
+
+    static ParseCancelledException tooManyWhitespaceTokens(int maxWhitespaceTokens, SourceLocation location, String sourcePreview) {
+        return new ParseCancelledException(format("More than %d whitespace tokens have been presented.", maxWhitespaceTokens), location, sourcePreview, null);
+    }
+
+    static ParseCancelledException tooDeep(int maxDepth, SourceLocation location, String sourcePreview, String offendingToken) {
+        return new ParseCancelledException(format("The document is nested more than %d levels deep.", maxDepth), location, sourcePreview, offendingToken);
+    }
+}
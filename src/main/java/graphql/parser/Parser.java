@@ -9,10 +9,14 @@ import org.antlr.v4.runtime.BaseErrorListener;
 import org.antlr.v4.runtime.CharStreams;
 import org.antlr.v4.runtime.CodePointCharStream;
 import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.ParserRuleContext;
 import org.antlr.v4.runtime.RecognitionException;
 import org.antlr.v4.runtime.Recognizer;
 import org.antlr.v4.runtime.Token;
 import org.antlr.v4.runtime.atn.PredictionMode;
+import org.antlr.v4.runtime.tree.ErrorNode;
+import org.antlr.v4.runtime.tree.ParseTreeListener;
+import org.antlr.v4.runtime.tree.TerminalNode;
 
 import java.io.IOException;
 import java.io.Reader;
@@ -22,6 +26,30 @@ import java.util.List;
 @PublicApi
 public class Parser {
 
+    private final ParserOptions parserOptions;
+
+    /**
+     * Creates a parser that uses the {@link ParserOptions#getDefaultParserOptions()} at the time a document is parsed
+     */
+    public Parser() {
+        this(null);
+    }
+
+    /**
+     * Creates a parser with its own options
+     *
+     * @param parserOptions the options to parse documents with
+     */
+    public Parser(ParserOptions parserOptions) {
+        this.parserOptions = parserOptions;
+    }
+
+    /**
+     * @return the options that documents are parsed with
+     */
+    public ParserOptions getParserOptions() {
+        return parserOptions != null ? parserOptions : ParserOptions.getDefaultParserOptions();
+    }
 
     public static Document parse(String input) {
         return new Parser().parseDocument(input);
@@ -47,13 +75,19 @@ public class Parser {
             multiSourceReader = MultiSourceReader.newMultiSourceReader()
                     .reader(reader, null).build();
         }
-        CodePointCharStream charStream;
-        try {
-            charStream = CharStreams.fromReader(multiSourceReader);
-        } catch (IOException e) {
-            throw new UncheckedIOException(e);
+        ParserOptions parserOptions = getParserOptions();
+        String input = readFully(multiSourceReader, parserOptions.getMaxCharacters());
+        // subclasses may override getAntlrToLanguage and hence always parse with ANTLR
+        if (parserOptions.isUseQueryDocumentParser() && !isSubclassed()) {
+            Document document = new QueryDocumentParser(multiSourceReader, input, parserOptions).parseDocument();
+            if (document != null) {
+                return document;
+            }
         }
+        return parseDocument(multiSourceReader, CharStreams.fromString(input), parserOptions);
+    }
 
+    private Document parseDocument(MultiSourceReader multiSourceReader, CodePointCharStream charStream, ParserOptions parserOptions) {
         GraphqlLexer lexer = new GraphqlLexer(charStream);
         lexer.removeErrorListeners();
         lexer.addErrorListener(new BaseErrorListener() {
@@ -65,11 +99,13 @@ public class Parser {
             }
         });
 
-        CommonTokenStream tokens = new CommonTokenStream(lexer);
+        // the tokens are counted as the parser pulls them, so a document with too many tokens is never fully lexed
+        CommonTokenStream tokens = new CommonTokenStream(new SafeTokenSource(lexer, multiSourceReader, parserOptions));
 
         GraphqlParser parser = new GraphqlParser(tokens);
         parser.removeErrorListeners();
         parser.getInterpreter().setPredictionMode(PredictionMode.SLL);
+        parser.addParseListener(new DepthListener(multiSourceReader, parserOptions.getMaxDepth()));
 
         ExtendedBailStrategy bailStrategy = new ExtendedBailStrategy(multiSourceReader);
         parser.setErrorHandler(bailStrategy);
@@ -96,6 +132,82 @@ public class Parser {
         return doc;
     }
 
+    private boolean isSubclassed() {
+        return getClass() != Parser.class;
+    }
+
+    private static String readFully(Reader reader, int maxCharacters) {
+        StringBuilder sb = new StringBuilder();
+        char[] buffer = new char[4096];
+        try {
+            int read;
+            while ((read = reader.read(buffer, 0, buffer.length)) != -1) {
+                sb.append(buffer, 0, read);
+                if (sb.length() > maxCharacters) {
+                    throw ParseCancelledException.tooManyCharacters(maxCharacters);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Counts how deeply the selection sets, list and object values and list types are nested as the ANTLR parser enters
+     * and exits their rules, which is the same depth as the hand written parser tracks.
+     */
+    private static class DepthListener implements ParseTreeListener {
+        private final MultiSourceReader multiSourceReader;
+        private final int maxDepth;
+        private int depth;
+
+        DepthListener(MultiSourceReader multiSourceReader, int maxDepth) {
+            this.multiSourceReader = multiSourceReader;
+            this.maxDepth = maxDepth;
+        }
+
+        @Override
+        public void enterEveryRule(ParserRuleContext ctx) {
+            if (isNesting(ctx) && ++depth > maxDepth) {
+                Token start = ctx.getStart();
+                throw ParseCancelledException.tooDeep(maxDepth,
+                        AntlrHelper.createSourceLocation(multiSourceReader, start),
+                        AntlrHelper.createPreview(multiSourceReader, start.getLine()),
+                        start.getText());
+            }
+        }
+
+        @Override
+        public void exitEveryRule(ParserRuleContext ctx) {
+            if (isNesting(ctx)) {
+                depth--;
+            }
+        }
+
+        @Override
+        public void visitTerminal(TerminalNode node) {
+        }
+
+        @Override
+        public void visitErrorNode(ErrorNode node) {
+        }
+
+        private static boolean isNesting(ParserRuleContext ctx) {
+            switch (ctx.getRuleIndex()) {
+                case GraphqlParser.RULE_selectionSet:
+                case GraphqlParser.RULE_arrayValue:
+                case GraphqlParser.RULE_arrayValueWithVariable:
+                case GraphqlParser.RULE_objectValue:
+                case GraphqlParser.RULE_objectValueWithVariable:
+                case GraphqlParser.RULE_listType:
+                    return true;
+                default:
+                    return false;
+            }
+        }
+    }
+
     /**
      * Allows you to override the ANTLR to AST code.
      *
@@ -104,6 +216,6 @@ public class Parser {
      * @return a new GraphqlAntlrToLanguage instance
      */
     protected GraphqlAntlrToLanguage getAntlrToLanguage(CommonTokenStream tokens, MultiSourceReader multiSourceReader) {
-        return new GraphqlAntlrToLanguage(tokens, multiSourceReader);
+        return new GraphqlAntlrToLanguage(tokens, multiSourceReader, getParserOptions());
     }
 }
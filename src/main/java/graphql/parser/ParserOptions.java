@@ -0,0 +1,280 @@
+package graphql.parser;
+
+import graphql.PublicApi;
+
+import java.util.function.Consumer;
+
+import static graphql.Assert.assertNotNull;
+import static graphql.Assert.assertTrue;
+
+/**
+ * Options that control what the {@link Parser} captures in the AST of a document.
+ * <p>
+ * By default the parser captures the comments, the ignored chars and the source location of every node.  The comments
+ * and ignored chars are rarely needed for queries that are executed, and leaving them out reduces the time taken to
+ * parse a document as well as the memory held by documents that are kept around, for example by a
+ * {@link graphql.execution.preparsed.PreparsedDocumentProvider}.
+ * <p>
+ * The options can also limit the size of the documents that are parsed, so that abusive documents are rejected as
+ * soon as a limit is exceeded rather than after they have been parsed into a complete AST.  A document that exceeds a
+ * limit fails to parse with a {@link ParseCancelledException}, which like other syntax errors ends up as a
+ * {@link graphql.InvalidSyntaxError} of the execution result.
+ * <p>
+ * The default options are used by every {@link Parser} that is not given options of its own and do not limit the size
+ * of documents.  The operations that are sent to {@link graphql.GraphQL} to be executed are parsed with the default
+ * operation options instead, which do, since that is where untrusted documents come from.  They can be changed via
+ * {@link #setDefaultOperationParserOptions(ParserOptions)}.
+ */
+@PublicApi
+public class ParserOptions {
+
+    /**
+     * The default max number of characters of an operation document, which is 1MB
+     */
+    public static final int MAX_QUERY_CHARACTERS = 1024 * 1024;
+
+    /**
+     * The default max number of grammar tokens of an operation document
+     */
+    public static final int MAX_QUERY_TOKENS = 15_000;
+
+    /**
+     * The default max number of whitespace tokens of an operation document
+     */
+    public static final int MAX_WHITESPACE_TOKENS = 200_000;
+
+    /**
+     * The default max nesting depth of an operation document
+     */
+    public static final int MAX_DEPTH = 500;
+
+    private static volatile ParserOptions defaultParserOptions = newParserOptions().build();
+
+    private static volatile ParserOptions defaultOperationParserOptions = newParserOptions()
+            .maxCharacters(MAX_QUERY_CHARACTERS)
+            .maxTokens(MAX_QUERY_TOKENS)
+            .maxWhitespaceTokens(MAX_WHITESPACE_TOKENS)
+            .maxDepth(MAX_DEPTH)
+            .build();
+
+    private final boolean captureIgnoredChars;
+    private final boolean captureSourceLocation;
+    private final boolean captureLineComments;
+    private final int maxCharacters;
+    private final int maxTokens;
+    private final int maxWhitespaceTokens;
+    private final int maxDepth;
+    private final boolean useQueryDocumentParser;
+
+    private ParserOptions(Builder builder) {
+        this.captureIgnoredChars = builder.captureIgnoredChars;
+        this.captureSourceLocation = builder.captureSourceLocation;
+        this.captureLineComments = builder.captureLineComments;
+        this.maxCharacters = builder.maxCharacters;
+        this.maxTokens = builder.maxTokens;
+        this.maxWhitespaceTokens = builder.maxWhitespaceTokens;
+        this.maxDepth = builder.maxDepth;
+        this.useQueryDocumentParser = builder.useQueryDocumentParser;
+    }
+
+    /**
+     * @return the options that are used by parsers that have not been given options of their own
+     */
+    public static ParserOptions getDefaultParserOptions() {
+        return defaultParserOptions;
+    }
+
+    /**
+     * Sets the options that are used by parsers that have not been given options of their own.  The parsing of
+     * operations by {@link graphql.GraphQL} uses {@link #getDefaultOperationParserOptions()} instead.
+     * <p>
+     * The {@link graphql.schema.idl.SchemaParser} always captures comments since they can be used as the descriptions
+     * of schema elements, and it does not limit the number of characters and tokens since schemas can be a lot larger
+     * than queries.
+     *
+     * @param options the new default options
+     */
+    public static void setDefaultParserOptions(ParserOptions options) {
+        defaultParserOptions = assertNotNull(options);
+    }
+
+    /**
+     * @return the options that the operations executed by {@link graphql.GraphQL} are parsed with, which limit the
+     * size of documents to {@link #MAX_QUERY_CHARACTERS}, {@link #MAX_QUERY_TOKENS}, {@link #MAX_WHITESPACE_TOKENS} and
+     * {@link #MAX_DEPTH} unless they have been changed
+     */
+    public static ParserOptions getDefaultOperationParserOptions() {
+        return defaultOperationParserOptions;
+    }
+
+    /**
+     * Sets the options that the operations executed by {@link graphql.GraphQL} are parsed with
+     *
+     * @param options the new default operation options
+     */
+    public static void setDefaultOperationParserOptions(ParserOptions options) {
+        defaultOperationParserOptions = assertNotNull(options);
+    }
+
+    /**
+     * Ignored chars are the whitespace and commas around the tokens of a document, which are captured as an
+     * {@link graphql.language.IgnoredChar} per character.  They are only needed to print a document exactly as it was
+     * written.
+     *
+     * @return true if the ignored chars of the nodes are captured
+     */
+    public boolean isCaptureIgnoredChars() {
+        return captureIgnoredChars;
+    }
+
+    /**
+     * Source locations are used to point at the place in the document that an error relates to, for example in
+     * validation errors, so they should only be left out when that is not needed.
+     *
+     * @return true if the source locations of the nodes are captured
+     */
+    public boolean isCaptureSourceLocation() {
+        return captureSourceLocation;
+    }
+
+    /**
+     * @return true if the # line comments in front of the nodes are captured
+     */
+    public boolean isCaptureLineComments() {
+        return captureLineComments;
+    }
+
+    /**
+     * @return the max number of characters of a document
+     */
+    public int getMaxCharacters() {
+        return maxCharacters;
+    }
+
+    /**
+     * Grammar tokens are the names, values and punctuators of a document, that is everything apart from the whitespace,
+     * commas and comments.
+     *
+     * @return the max number of grammar tokens of a document
+     */
+    public int getMaxTokens() {
+        return maxTokens;
+    }
+
+    /**
+     * Whitespace tokens are the whitespace characters and commas of a document, which are parsed as a token each.
+     *
+     * @return the max number of whitespace tokens of a document
+     */
+    public int getMaxWhitespaceTokens() {
+        return maxWhitespaceTokens;
+    }
+
+    /**
+     * The depth of a document is how deeply its selection sets, list and object values and list types are nested
+     * within each other.
+     *
+     * @return the max depth of a document
+     */
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    /**
+     * By default documents are parsed with an ANTLR generated parser.  The query document parser is a hand written
+     * parser for documents made of operations and fragments, which builds the AST in a single pass without an
+     * intermediate ANTLR parse tree.  It produces the same AST and the same {@link InvalidSyntaxException}s as the ANTLR
+     * based parser.
+     * <p>
+     * Documents that contain type system definitions are still parsed with the ANTLR based parser, as are all documents
+     * parsed by subclasses of {@link Parser}, since they may override how the ANTLR parse tree is turned into an AST.
+     *
+     * @return true if query documents are parsed with the hand written parser
+     */
+    public boolean isUseQueryDocumentParser() {
+        return useQueryDocumentParser;
+    }
+
+    public ParserOptions transform(Consumer<Builder> builderConsumer) {
+        Builder builder = new Builder(this);
+        builderConsumer.accept(builder);
+        return builder.build();
+    }
+
+    public static Builder newParserOptions() {
+        return new Builder();
+    }
+
+    public static class Builder {
+        private boolean captureIgnoredChars = true;
+        private boolean captureSourceLocation = true;
+        private boolean captureLineComments = true;
+        private int maxCharacters = Integer.MAX_VALUE;
+        private int maxTokens = Integer.MAX_VALUE;
+        private int maxWhitespaceTokens = Integer.MAX_VALUE;
+        private int maxDepth = Integer.MAX_VALUE;
+        private boolean useQueryDocumentParser = false;
+
+        Builder() {
+        }
+
+        Builder(ParserOptions parserOptions) {
+            this.captureIgnoredChars = parserOptions.captureIgnoredChars;
+            this.captureSourceLocation = parserOptions.captureSourceLocation;
+            this.captureLineComments = parserOptions.captureLineComments;
+            this.maxCharacters = parserOptions.maxCharacters;
+            this.maxTokens = parserOptions.maxTokens;
+            this.maxWhitespaceTokens = parserOptions.maxWhitespaceTokens;
+            this.maxDepth = parserOptions.maxDepth;
+            this.useQueryDocumentParser = parserOptions.useQueryDocumentParser;
+        }
+
+        public Builder captureIgnoredChars(boolean captureIgnoredChars) {
+            this.captureIgnoredChars = captureIgnoredChars;
+            return this;
+        }
+
+        public Builder captureSourceLocation(boolean captureSourceLocation) {
+            this.captureSourceLocation = captureSourceLocation;
+            return this;
+        }
+
+        public Builder captureLineComments(boolean captureLineComments) {
+            this.captureLineComments = captureLineComments;
+            return this;
+        }
+
+        public Builder maxCharacters(int maxCharacters) {
+            assertTrue(maxCharacters > 0, () -> "maxCharacters must be greater than zero");
+            this.maxCharacters = maxCharacters;
+            return this;
+        }
+
+        public Builder maxTokens(int maxTokens) {
+            assertTrue(maxTokens > 0, () -> "maxTokens must be greater than zero");
+            this.maxTokens = maxTokens;
+            return this;
+        }
+
+        public Builder maxWhitespaceTokens(int maxWhitespaceTokens) {
+            assertTrue(maxWhitespaceTokens > 0, () -> "maxWhitespaceTokens must be greater than zero");
+            this.maxWhitespaceTokens = maxWhitespaceTokens;
+            return this;
+        }
+
+        public Builder maxDepth(int maxDepth) {
+            assertTrue(maxDepth > 0, () -> "maxDepth must be greater than zero");
+            this.maxDepth = maxDepth;
+            return this;
+        }
+
+        public Builder useQueryDocumentParser(boolean useQueryDocumentParser) {
+            this.useQueryDocumentParser = useQueryDocumentParser;
+            return this;
+        }
+
+        public ParserOptions build() {
+            return new ParserOptions(this);
+        }
+    }
+}
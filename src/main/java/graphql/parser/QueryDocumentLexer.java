@@ -0,0 +1,568 @@
+package graphql.parser;
+
+import com.google.common.collect.ImmutableList;
+import graphql.Internal;
+import graphql.language.Comment;
+import graphql.language.IgnoredChar;
+import graphql.language.SourceLocation;
+
+import java.util.List;
+
+import static graphql.collect.ImmutableKit.emptyList;
+
+/**
+ * A hand written lexer for graphql documents that produces the same tokens as the ANTLR grammar in Graphql.g4.
+ * <p>
+ * Only the significant tokens are returned from {@link #next()}.  The whitespace, commas and comments in front of a token
+ * are not turned into tokens but are remembered as the gap of the token, which can later be turned into the
+ * {@link IgnoredChar}s and {@link Comment}s of the AST nodes that start or end next to it.
+ * <p>
+ * Lines and columns follow the ANTLR conventions, that is lines are 1 based and only advanced by a line feed and
+ * columns are 0 based code point positions, so that the source locations end up the same as those of the ANTLR
+ * based parser.
+ * <p>
+ * Like the {@link SafeTokenSource} of the ANTLR based parser the lexer counts the tokens and whitespace it comes
+ * across and cancels parsing once there are more than the {@link ParserOptions} allow.
+ */
+@Internal
+public class QueryDocumentLexer {
+
+    enum TokenKind {
+        EOF,
+        NAME,
+        INT,
+        FLOAT,
+        STRING,
+        BANG,
+        DOLLAR,
+        AMP,
+        PAREN_L,
+        PAREN_R,
+        SPREAD,
+        COLON,
+        EQUALS,
+        AT,
+        BRACKET_L,
+        BRACKET_R,
+        BRACE_L,
+        PIPE,
+        BRACE_R
+    }
+
+    static final class Token {
+        final TokenKind kind;
+        final int start;
+        final int end;
+        final int line;
+        final int column;
+        final int gapStart;
+        final int gapLine;
+        final int gapColumn;
+        private String text;
+        private SourceLocation sourceLocation;
+        private List<IgnoredChar> ignoredChars;
+        private List<Comment> comments;
+
+        Token(TokenKind kind, int start, int end, int line, int column, int gapStart, int gapLine, int gapColumn) {
+            this.kind = kind;
+            this.start = start;
+            this.end = end;
+            this.line = line;
+            this.column = column;
+            this.gapStart = gapStart;
+            this.gapLine = gapLine;
+            this.gapColumn = gapColumn;
+        }
+
+        boolean hasGap() {
+            return gapStart < start;
+        }
+    }
+
+    private final MultiSourceReader multiSourceReader;
+    private final String input;
+    private final int length;
+    private final int maxTokens;
+    private final int maxWhitespaceTokens;
+
+    private int tokenCount;
+    private int whitespaceTokenCount;
+    private int position;
+    private int line = 1;
+    private int column;
+
+    private int sourceAndLineFor = -1;
+    private MultiSourceReader.SourceAndLine sourceAndLine;
+
+    public QueryDocumentLexer(MultiSourceReader multiSourceReader, String input, ParserOptions parserOptions) {
+        this.multiSourceReader = multiSourceReader;
+        this.input = input;
+        this.length = input.length();
+        this.maxTokens = parserOptions.getMaxTokens();
+        this.maxWhitespaceTokens = parserOptions.getMaxWhitespaceTokens();
+    }
+
+    /**
+     * @return the next significant token, which is an EOF token once the input is exhausted
+     *
+     * @throws InvalidSyntaxException if the input contains characters that do not form a token or has too many tokens
+     */
+    Token next() throws InvalidSyntaxException {
+        Token token = nextToken();
+        if (token.kind != TokenKind.EOF && ++tokenCount > maxTokens) {
+            throw ParseCancelledException.tooManyTokens(maxTokens, sourceLocation(token),
+                    AntlrHelper.createPreview(multiSourceReader, token.line), text(token));
+        }
+        return token;
+    }
+
+    private Token nextToken() {
+        int gapStart = position;
+        int gapLine = line;
+        int gapColumn = column;
+        skipIgnored();
+
+        if (position >= length) {
+            return new Token(TokenKind.EOF, position, position, line, column, gapStart, gapLine, gapColumn);
+        }
+        char c = input.charAt(position);
+        switch (c) {
+            case '!':
+                return punctuator(TokenKind.BANG, gapStart, gapLine, gapColumn);
+            case '$':
+                return punctuator(TokenKind.DOLLAR, gapStart, gapLine, gapColumn);
+            case '&':
+                return punctuator(TokenKind.AMP, gapStart, gapLine, gapColumn);
+            case '(':
+                return punctuator(TokenKind.PAREN_L, gapStart, gapLine, gapColumn);
+            case ')':
+                return punctuator(TokenKind.PAREN_R, gapStart, gapLine, gapColumn);
+            case ':':
+                return punctuator(TokenKind.COLON, gapStart, gapLine, gapColumn);
+            case '=':
+                return punctuator(TokenKind.EQUALS, gapStart, gapLine, gapColumn);
+            case '@':
+                return punctuator(TokenKind.AT, gapStart, gapLine, gapColumn);
+            case '[':
+                return punctuator(TokenKind.BRACKET_L, gapStart, gapLine, gapColumn);
+            case ']':
+                return punctuator(TokenKind.BRACKET_R, gapStart, gapLine, gapColumn);
+            case '{':
+                return punctuator(TokenKind.BRACE_L, gapStart, gapLine, gapColumn);
+            case '|':
+                return punctuator(TokenKind.PIPE, gapStart, gapLine, gapColumn);
+            case '}':
+                return punctuator(TokenKind.BRACE_R, gapStart, gapLine, gapColumn);
+            case '.':
+                if (charAt(position + 1) != '.') {
+                    throw recognitionError(position + 1);
+                }
+                if (charAt(position + 2) != '.') {
+                    throw recognitionError(position + 2);
+                }
+                return token(TokenKind.SPREAD, position + 3, gapStart, gapLine, gapColumn);
+            case '"':
+                return string(gapStart, gapLine, gapColumn);
+            default:
+                if (c == '-' || isDigit(c)) {
+                    return number(gapStart, gapLine, gapColumn);
+                }
+                if (isNameStart(c)) {
+                    int end = position + 1;
+                    while (end < length && isNameContinue(input.charAt(end))) {
+                        end++;
+                    }
+                    return token(TokenKind.NAME, end, gapStart, gapLine, gapColumn);
+                }
+                throw recognitionError(position);
+        }
+    }
+
+    private void skipIgnored() {
+        while (position < length) {
+            char c = input.charAt(position);
+            if (c == '\n') {
+                countWhitespaceToken();
+                position++;
+                line++;
+                column = 0;
+            } else if (c == ' ' || c == ',' || c == '\t' || c == '\r' || c == '\u2028' || c == '\u2029' || c == '\ufeff') {
+                countWhitespaceToken();
+                position++;
+                column++;
+            } else if (c == '#') {
+                int end = commentEnd(position);
+                column += codePointCount(position, end);
+                position = end;
+            } else {
+                return;
+            }
+        }
+    }
+
+    private void countWhitespaceToken() {
+        // the ANTLR grammar has a hidden token per whitespace character
+        if (++whitespaceTokenCount > maxWhitespaceTokens) {
+            throw ParseCancelledException.tooManyWhitespaceTokens(maxWhitespaceTokens, sourceLocation(line, column),
+                    AntlrHelper.createPreview(multiSourceReader, line));
+        }
+    }
+
+    private int commentEnd(int start) {
+        int end = start + 1;
+        while (end < length) {
+            char c = input.charAt(end);
+            if (c != '\t' && c < ' ') {
+                break;
+            }
+            end++;
+        }
+        return end;
+    }
+
+    private Token punctuator(TokenKind kind, int gapStart, int gapLine, int gapColumn) {
+        return token(kind, position + 1, gapStart, gapLine, gapColumn);
+    }
+
+    private Token token(TokenKind kind, int end, int gapStart, int gapLine, int gapColumn) {
+        Token token = new Token(kind, position, end, line, column, gapStart, gapLine, gapColumn);
+        column += end - position;
+        position = end;
+        return token;
+    }
+
+    private Token number(int gapStart, int gapLine, int gapColumn) {
+        int end = position;
+        if (input.charAt(end) == '-') {
+            end++;
+        }
+        if (charAt(end) == '0') {
+            end++;
+        } else if (isDigit(charAt(end))) {
+            end = digitsEnd(end);
+        } else {
+            throw recognitionError(end);
+        }
+        boolean isFloat = false;
+        if (charAt(end) == '.') {
+            if (!isDigit(charAt(end + 1))) {
+                throw recognitionError(end + 1);
+            }
+            end = digitsEnd(end + 1);
+            isFloat = true;
+        }
+        char c = charAt(end);
+        if (c == 'e' || c == 'E') {
+            end++;
+            c = charAt(end);
+            if (c == '+' || c == '-') {
+                end++;
+            }
+            if (!isDigit(charAt(end))) {
+                throw recognitionError(end);
+            }
+            end = digitsEnd(end);
+            isFloat = true;
+        }
+        c = charAt(end);
+        if (isDigit(c) || c == '.' || isNameStart(c)) {
+            throw recognitionError(end);
+        }
+        return token(isFloat ? TokenKind.FLOAT : TokenKind.INT, end, gapStart, gapLine, gapColumn);
+    }
+
+    private int digitsEnd(int start) {
+        int end = start;
+        while (isDigit(charAt(end))) {
+            end++;
+        }
+        return end;
+    }
+
+    private Token string(int gapStart, int gapLine, int gapColumn) {
+        int start = position;
+        if (charAt(start + 1) == '"' && charAt(start + 2) == '"') {
+            return blockString(gapStart, gapLine, gapColumn);
+        }
+        int end = start + 1;
+        if (charAt(end) == '"') {
+            return token(TokenKind.STRING, end + 1, gapStart, gapLine, gapColumn);
+        }
+        while (true) {
+            if (end >= length) {
+                throw recognitionError(end);
+            }
+            char c = input.charAt(end);
+            if (c == '"') {
+                break;
+            }
+            if (c == '\\') {
+                char escaped = charAt(end + 1);
+                if (escaped == 'u') {
+                    for (int i = end + 2; i < end + 6; i++) {
+                        if (!isHex(charAt(i))) {
+                            throw recognitionError(i);
+                        }
+                    }
+                    end += 6;
+                } else if (escaped == '"' || escaped == '\\' || escaped == '/' || escaped == 'b' || escaped == 'f' || escaped == 'n' || escaped == 'r' || escaped == 't') {
+                    end += 2;
+                } else {
+                    throw recognitionError(end + 1);
+                }
+            } else if (c != '\t' && c < ' ') {
+                throw recognitionError(end);
+            } else {
+                end++;
+            }
+        }
+        end++;
+        Token token = new Token(TokenKind.STRING, start, end, line, column, gapStart, gapLine, gapColumn);
+        column += codePointCount(start, end);
+        position = end;
+        return token;
+    }
+
+    private Token blockString(int gapStart, int gapLine, int gapColumn) {
+        int start = position;
+        int end = start + 3;
+        while (true) {
+            if (end >= length) {
+                throw recognitionError(end);
+            }
+            char c = input.charAt(end);
+            if (c == '\\' && input.startsWith("\"\"\"", end + 1)) {
+                end += 4;
+            } else if (c == '"' && input.startsWith("\"\"\"", end)) {
+                end += 3;
+                break;
+            } else if (c != '\t' && c != '\n' && c != '\r' && c < ' ') {
+                throw recognitionError(end);
+            } else {
+                end++;
+            }
+        }
+        Token token = new Token(TokenKind.STRING, start, end, line, column, gapStart, gapLine, gapColumn);
+        for (int i = start; i < end; i++) {
+            char c = input.charAt(i);
+            if (c == '\n') {
+                line++;
+                column = 0;
+            } else if (!isSecondHalfOfSurrogatePair(i)) {
+                column++;
+            }
+        }
+        position = end;
+        return token;
+    }
+
+    String text(Token token) {
+        if (token.text == null) {
+            token.text = token.kind == TokenKind.EOF ? "<EOF>" : input.substring(token.start, token.end);
+        }
+        return token.text;
+    }
+
+    boolean textEquals(Token token, String text) {
+        return token.end - token.start == text.length() && input.startsWith(text, token.start);
+    }
+
+    SourceLocation sourceLocation(Token token) {
+        if (token.sourceLocation == null) {
+            token.sourceLocation = sourceLocation(token.line, token.column);
+        }
+        return token.sourceLocation;
+    }
+
+    private SourceLocation sourceLocation(int line, int column) {
+        // the same as AntlrHelper.createSourceLocation but the source and line lookup is remembered since the tokens
+        // come in order
+        MultiSourceReader.SourceAndLine sourceAndLine = sourceAndLine(line - 1);
+        return new SourceLocation(sourceAndLine.getLine() + 1, column + 1, sourceAndLine.getSourceName());
+    }
+
+    private MultiSourceReader.SourceAndLine sourceAndLine(int overallLine) {
+        if (sourceAndLineFor != overallLine) {
+            sourceAndLine = multiSourceReader.getSourceAndLineFromOverallLine(overallLine);
+            sourceAndLineFor = overallLine;
+        }
+        return sourceAndLine;
+    }
+
+    /**
+     * @param token the token
+     *
+     * @return the whitespace and commas in front of the token, in the same way as the hidden ANTLR ignored char tokens
+     */
+    List<IgnoredChar> ignoredChars(Token token) {
+        if (token.ignoredChars == null) {
+            token.ignoredChars = token.hasGap() ? scanIgnoredChars(token) : emptyList();
+        }
+        return token.ignoredChars;
+    }
+
+    /**
+     * @param token the token
+     *
+     * @return the comments in front of the token, in the same way as the hidden ANTLR comment tokens
+     */
+    List<Comment> comments(Token token) {
+        if (token.comments == null) {
+            token.comments = token.hasGap() ? scanComments(token) : emptyList();
+        }
+        return token.comments;
+    }
+
+    private List<IgnoredChar> scanIgnoredChars(Token token) {
+        ImmutableList.Builder<IgnoredChar> ignoredChars = ImmutableList.builder();
+        int line = token.gapLine;
+        int column = token.gapColumn;
+        int i = token.gapStart;
+        while (i < token.start) {
+            char c = input.charAt(i);
+            if (c == '#') {
+                int end = commentEnd(i);
+                column += codePointCount(i, end);
+                i = end;
+                continue;
+            }
+            ignoredChars.add(new IgnoredChar(String.valueOf(c), ignoredCharKind(c), sourceLocation(line, column)));
+            if (c == '\n') {
+                line++;
+                column = 0;
+            } else {
+                column++;
+            }
+            i++;
+        }
+        return ignoredChars.build();
+    }
+
+    private static IgnoredChar.IgnoredCharKind ignoredCharKind(char c) {
+        switch (c) {
+            case '\r':
+                return IgnoredChar.IgnoredCharKind.CR;
+            case '\n':
+                return IgnoredChar.IgnoredCharKind.LF;
+            case '\t':
+                return IgnoredChar.IgnoredCharKind.TAB;
+            case ',':
+                return IgnoredChar.IgnoredCharKind.COMMA;
+            case ' ':
+                return IgnoredChar.IgnoredCharKind.SPACE;
+            default:
+                return IgnoredChar.IgnoredCharKind.OTHER;
+        }
+    }
+
+    private List<Comment> scanComments(Token token) {
+        ImmutableList.Builder<Comment> comments = null;
+        int line = token.gapLine;
+        int column = token.gapColumn;
+        int i = token.gapStart;
+        while (i < token.start) {
+            char c = input.charAt(i);
+            if (c == '#') {
+                int end = commentEnd(i);
+                if (comments == null) {
+                    comments = ImmutableList.builder();
+                }
+                // this mirrors GraphqlAntlrToLanguage.getCommentOnChannel, including its use of the 1 based ANTLR line
+                // as the overall line and of the 0 based column
+                MultiSourceReader.SourceAndLine sourceAndLine = multiSourceReader.getSourceAndLineFromOverallLine(line);
+                SourceLocation sourceLocation = new SourceLocation(sourceAndLine.getLine() + 1, column, sourceAndLine.getSourceName());
+                comments.add(new Comment(input.substring(i + 1, end), sourceLocation));
+                column += codePointCount(i, end);
+                i = end;
+            } else {
+                if (c == '\n') {
+                    line++;
+                    column = 0;
+                } else {
+                    column++;
+                }
+                i++;
+            }
+        }
+        return comments == null ? emptyList() : comments.build();
+    }
+
+    InvalidSyntaxException unexpectedToken(Token token) {
+        SourceLocation sourceLocation = sourceLocation(token);
+        String sourcePreview = AntlrHelper.createPreview(multiSourceReader, token.line);
+        return new InvalidSyntaxException(sourceLocation, null, sourcePreview, text(token), null);
+    }
+
+    InvalidSyntaxException tooDeep(Token token, int maxDepth) {
+        return ParseCancelledException.tooDeep(maxDepth, sourceLocation(token),
+                AntlrHelper.createPreview(multiSourceReader, token.line), text(token));
+    }
+
+    InvalidSyntaxException moreTokensException(Token token) {
+        SourceLocation sourceLocation = sourceLocation(token);
+        String sourcePreview = AntlrHelper.createPreview(multiSourceReader, token.line);
+        return new InvalidSyntaxException(sourceLocation,
+                "There are more tokens in the query that have not been consumed",
+                sourcePreview, text(token), null);
+    }
+
+    private InvalidSyntaxException recognitionError(int errorPosition) {
+        // like the ANTLR lexer the error is reported at the start of the token and shows the text up to and including
+        // the character that could not be matched
+        String text = input.substring(position, Math.min(errorPosition + 1, length));
+        SourceLocation sourceLocation = sourceLocation(line, column);
+        String sourcePreview = AntlrHelper.createPreview(multiSourceReader, line);
+        return new InvalidSyntaxException(sourceLocation, "Invalid syntax: token recognition error at: '" + errorDisplay(text) + "'", sourcePreview, null, null);
+    }
+
+    private static String errorDisplay(String text) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '\n') {
+                sb.append("\\n");
+            } else if (c == '\t') {
+                sb.append("\\t");
+            } else if (c == '\r') {
+                sb.append("\\r");
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+
+    private int codePointCount(int start, int end) {
+        int count = 0;
+        for (int i = start; i < end; i++) {
+            if (!isSecondHalfOfSurrogatePair(i)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private boolean isSecondHalfOfSurrogatePair(int index) {
+        return index > 0 && Character.isLowSurrogate(input.charAt(index)) && Character.isHighSurrogate(input.charAt(index - 1));
+    }
+
+    private char charAt(int index) {
+        return index < length ? input.charAt(index) : '\0';
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isHex(char c) {
+        return isDigit(c) || (c >= 'a' && c <= 'f') || (c >= 'A' && c <= 'F');
+    }
+
+    private static boolean isNameStart(char c) {
+        return c == '_' || (c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z');
+    }
+
+    private static boolean isNameContinue(char c) {
+        return isNameStart(c) || isDigit(c);
+    }
+}
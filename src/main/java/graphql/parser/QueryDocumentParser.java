@@ -0,0 +1,504 @@
+package graphql.parser;
+
+import com.google.common.collect.ImmutableList;
+import graphql.Internal;
+import graphql.language.Argument;
+import graphql.language.ArrayValue;
+import graphql.language.BooleanValue;
+import graphql.language.Comment;
+import graphql.language.Definition;
+import graphql.language.Directive;
+import graphql.language.Document;
+import graphql.language.EnumValue;
+import graphql.language.Field;
+import graphql.language.FloatValue;
+import graphql.language.FragmentDefinition;
+import graphql.language.FragmentSpread;
+import graphql.language.IgnoredChar;
+import graphql.language.IgnoredChars;
+import graphql.language.InlineFragment;
+import graphql.language.IntValue;
+import graphql.language.ListType;
+import graphql.language.NodeBuilder;
+import graphql.language.NonNullType;
+import graphql.language.NullValue;
+import graphql.language.ObjectField;
+import graphql.language.ObjectValue;
+import graphql.language.OperationDefinition;
+import graphql.language.Selection;
+import graphql.language.SelectionSet;
+import graphql.language.StringValue;
+import graphql.language.Type;
+import graphql.language.TypeName;
+import graphql.language.Value;
+import graphql.language.VariableDefinition;
+import graphql.language.VariableReference;
+import graphql.parser.QueryDocumentLexer.Token;
+import graphql.parser.QueryDocumentLexer.TokenKind;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.List;
+
+import static graphql.parser.StringValueParsing.parseSingleQuotedString;
+import static graphql.parser.StringValueParsing.parseTripleQuotedString;
+
+/**
+ * A hand written recursive descent parser for executable graphql documents, that is documents made of operations and
+ * fragments.  It builds the {@link graphql.language} nodes straight from the tokens of a {@link QueryDocumentLexer} in
+ * a single pass, without an intermediate parse tree, and produces the same AST as {@link GraphqlAntlrToLanguage},
+ * including source locations, comments and ignored chars.  Syntax errors are reported as {@link InvalidSyntaxException}s
+ * in the same way as the ANTLR based parser.
+ * <p>
+ * The depth of the document is tracked as selection sets, list and object values and list types are entered, since
+ * the recursion of the parser follows them, and parsing is cancelled once it exceeds {@link ParserOptions#getMaxDepth()}.
+ * <p>
+ * Type system definitions are not handled, {@link #parseDocument()} returns null when it comes across one so the
+ * document can be parsed by the ANTLR based parser instead.
+ */
+@Internal
+public class QueryDocumentParser {
+
+    private final QueryDocumentLexer lexer;
+    private final ParserOptions parserOptions;
+    private final int maxDepth;
+    private Token token;
+    private int depth;
+
+    public QueryDocumentParser(MultiSourceReader multiSourceReader, String input, ParserOptions parserOptions) {
+        this.lexer = new QueryDocumentLexer(multiSourceReader, input, parserOptions);
+        this.parserOptions = parserOptions;
+        this.maxDepth = parserOptions.getMaxDepth();
+    }
+
+    /**
+     * @return the parsed document or null if the document contains type system definitions
+     *
+     * @throws InvalidSyntaxException if the document is not valid graphql
+     */
+    public Document parseDocument() throws InvalidSyntaxException {
+        advance();
+        Token start = token;
+        ImmutableList.Builder<Definition> definitions = ImmutableList.builder();
+        boolean first = true;
+        do {
+            if (token.kind == TokenKind.BRACE_L || isOperationType(token)) {
+                definitions.add(parseOperationDefinition());
+            } else if (isKeyword(token, "fragment")) {
+                definitions.add(parseFragmentDefinition());
+            } else if (isTypeSystemDefinition(token)) {
+                return null;
+            } else if (first) {
+                throw lexer.unexpectedToken(token);
+            } else {
+                throw lexer.moreTokensException(token);
+            }
+            first = false;
+        } while (token.kind != TokenKind.EOF);
+
+        Document.Builder document = Document.newDocument();
+        document.definitions(definitions.build());
+        addCommonData(document, start);
+        return document.build();
+    }
+
+    private OperationDefinition parseOperationDefinition() {
+        Token start = token;
+        OperationDefinition.Builder operationDefinition = OperationDefinition.newOperationDefinition();
+        if (token.kind == TokenKind.BRACE_L) {
+            operationDefinition.operation(OperationDefinition.Operation.QUERY);
+        } else {
+            operationDefinition.operation(parseOperation(token));
+            advance();
+            if (token.kind == TokenKind.NAME) {
+                operationDefinition.name(parseName());
+            }
+            if (token.kind == TokenKind.PAREN_L) {
+                operationDefinition.variableDefinitions(parseVariableDefinitions());
+            }
+            if (token.kind == TokenKind.AT) {
+                operationDefinition.directives(parseDirectives());
+            }
+        }
+        operationDefinition.selectionSet(parseSelectionSet());
+        addCommonData(operationDefinition, start);
+        return operationDefinition.build();
+    }
+
+    private OperationDefinition.Operation parseOperation(Token operationType) {
+        if (isKeyword(operationType, "mutation")) {
+            return OperationDefinition.Operation.MUTATION;
+        }
+        if (isKeyword(operationType, "subscription")) {
+            return OperationDefinition.Operation.SUBSCRIPTION;
+        }
+        return OperationDefinition.Operation.QUERY;
+    }
+
+    private List<VariableDefinition> parseVariableDefinitions() {
+        expect(TokenKind.PAREN_L);
+        ImmutableList.Builder<VariableDefinition> variableDefinitions = ImmutableList.builder();
+        do {
+            variableDefinitions.add(parseVariableDefinition());
+        } while (token.kind != TokenKind.PAREN_R);
+        advance();
+        return variableDefinitions.build();
+    }
+
+    private VariableDefinition parseVariableDefinition() {
+        Token start = token;
+        VariableDefinition.Builder variableDefinition = VariableDefinition.newVariableDefinition();
+        expect(TokenKind.DOLLAR);
+        variableDefinition.name(parseName());
+        expect(TokenKind.COLON);
+        variableDefinition.type(parseVariableType());
+        if (token.kind == TokenKind.EQUALS) {
+            advance();
+            variableDefinition.defaultValue(parseValue(true));
+        }
+        if (token.kind == TokenKind.AT) {
+            variableDefinition.directives(parseDirectives());
+        }
+        addCommonData(variableDefinition, start);
+        return variableDefinition.build();
+    }
+
+    private FragmentDefinition parseFragmentDefinition() {
+        Token start = token;
+        FragmentDefinition.Builder fragmentDefinition = FragmentDefinition.newFragmentDefinition();
+        advance();
+        fragmentDefinition.name(parseFragmentName());
+        expectKeyword("on");
+        // the ANTLR based parser does not add the common data to the type condition of fragment definitions
+        fragmentDefinition.typeCondition(TypeName.newTypeName().name(parseName()).build());
+        if (token.kind == TokenKind.AT) {
+            fragmentDefinition.directives(parseDirectives());
+        }
+        fragmentDefinition.selectionSet(parseSelectionSet());
+        addCommonData(fragmentDefinition, start);
+        return fragmentDefinition.build();
+    }
+
+    private SelectionSet parseSelectionSet() {
+        Token start = token;
+        enterNesting(start);
+        expect(TokenKind.BRACE_L);
+        ImmutableList.Builder<Selection> selections = ImmutableList.builder();
+        do {
+            selections.add(parseSelection());
+        } while (token.kind != TokenKind.BRACE_R);
+        advance();
+        depth--;
+        SelectionSet.Builder selectionSet = SelectionSet.newSelectionSet();
+        selectionSet.selections(selections.build());
+        addCommonData(selectionSet, start);
+        return selectionSet.build();
+    }
+
+    private Selection parseSelection() {
+        if (token.kind == TokenKind.NAME) {
+            return parseField();
+        }
+        if (token.kind == TokenKind.SPREAD) {
+            return parseFragment();
+        }
+        throw lexer.unexpectedToken(token);
+    }
+
+    private Field parseField() {
+        Token start = token;
+        Field.Builder field = Field.newField();
+        String nameOrAlias = parseName();
+        if (token.kind == TokenKind.COLON) {
+            advance();
+            field.alias(nameOrAlias);
+            field.name(parseName());
+        } else {
+            field.name(nameOrAlias);
+        }
+        if (token.kind == TokenKind.PAREN_L) {
+            field.arguments(parseArguments());
+        }
+        if (token.kind == TokenKind.AT) {
+            field.directives(parseDirectives());
+        }
+        if (token.kind == TokenKind.BRACE_L) {
+            field.selectionSet(parseSelectionSet());
+        }
+        addCommonData(field, start);
+        return field.build();
+    }
+
+    private Selection parseFragment() {
+        Token start = token;
+        advance();
+        if (token.kind == TokenKind.NAME && !isKeyword(token, "on")) {
+            FragmentSpread.Builder fragmentSpread = FragmentSpread.newFragmentSpread();
+            fragmentSpread.name(parseFragmentName());
+            if (token.kind == TokenKind.AT) {
+                fragmentSpread.directives(parseDirectives());
+            }
+            addCommonData(fragmentSpread, start);
+            return fragmentSpread.build();
+        }
+        if (token.kind != TokenKind.NAME && token.kind != TokenKind.AT && token.kind != TokenKind.BRACE_L) {
+            // ANTLR can not tell which kind of fragment this is and reports the spread
+            throw lexer.unexpectedToken(start);
+        }
+        InlineFragment.Builder inlineFragment = InlineFragment.newInlineFragment();
+        if (token.kind == TokenKind.NAME) {
+            advance();
+            inlineFragment.typeCondition(parseTypeName());
+        }
+        if (token.kind == TokenKind.AT) {
+            inlineFragment.directives(parseDirectives());
+        }
+        inlineFragment.selectionSet(parseSelectionSet());
+        addCommonData(inlineFragment, start);
+        return inlineFragment.build();
+    }
+
+    private List<Argument> parseArguments() {
+        expect(TokenKind.PAREN_L);
+        ImmutableList.Builder<Argument> arguments = ImmutableList.builder();
+        do {
+            Token start = token;
+            Argument.Builder argument = Argument.newArgument();
+            argument.name(parseName());
+            expect(TokenKind.COLON);
+            argument.value(parseValue(false));
+            addCommonData(argument, start);
+            arguments.add(argument.build());
+        } while (token.kind != TokenKind.PAREN_R);
+        advance();
+        return arguments.build();
+    }
+
+    private List<Directive> parseDirectives() {
+        ImmutableList.Builder<Directive> directives = ImmutableList.builder();
+        do {
+            Token start = token;
+            advance();
+            Directive.Builder directive = Directive.newDirective();
+            directive.name(parseName());
+            if (token.kind == TokenKind.PAREN_L) {
+                directive.arguments(parseArguments());
+            }
+            addCommonData(directive, start);
+            directives.add(directive.build());
+        } while (token.kind == TokenKind.AT);
+        return directives.build();
+    }
+
+    private Type parseVariableType() {
+        Token start = token;
+        try {
+            return parseType();
+        } catch (InvalidSyntaxException e) {
+            if (start.kind == TokenKind.BRACKET_L && e.getOffendingToken() != null && !(e instanceof ParseCancelledException)) {
+                // ANTLR has to look past a list type to tell whether it is non null and so reports syntax errors
+                // within it at the start of the type
+                throw lexer.unexpectedToken(start);
+            }
+            throw e;
+        }
+    }
+
+    private Type parseType() {
+        Token start = token;
+        Type type;
+        if (token.kind == TokenKind.BRACKET_L) {
+            enterNesting(start);
+            advance();
+            ListType.Builder listType = ListType.newListType();
+            listType.type(parseType());
+            expect(TokenKind.BRACKET_R);
+            depth--;
+            addCommonData(listType, start);
+            type = listType.build();
+        } else {
+            type = parseTypeName();
+        }
+        if (token.kind == TokenKind.BANG) {
+            advance();
+            NonNullType.Builder nonNullType = NonNullType.newNonNullType();
+            nonNullType.type(type);
+            addCommonData(nonNullType, start);
+            type = nonNullType.build();
+        }
+        return type;
+    }
+
+    private TypeName parseTypeName() {
+        Token start = token;
+        TypeName.Builder typeName = TypeName.newTypeName();
+        typeName.name(parseName());
+        addCommonData(typeName, start);
+        return typeName.build();
+    }
+
+    private Value parseValue(boolean constant) {
+        Token start = token;
+        switch (token.kind) {
+            case INT: {
+                IntValue.Builder intValue = IntValue.newIntValue().value(new BigInteger(lexer.text(token)));
+                advance();
+                addCommonData(intValue, start);
+                return intValue.build();
+            }
+            case FLOAT: {
+                FloatValue.Builder floatValue = FloatValue.newFloatValue().value(new BigDecimal(lexer.text(token)));
+                advance();
+                addCommonData(floatValue, start);
+                return floatValue.build();
+            }
+            case STRING: {
+                String text = lexer.text(token);
+                String value = text.startsWith("\"\"\"") ? parseTripleQuotedString(text) : parseSingleQuotedString(text);
+                StringValue.Builder stringValue = StringValue.newStringValue().value(value);
+                advance();
+                addCommonData(stringValue, start);
+                return stringValue.build();
+            }
+            case NAME:
+                return parseNameValue(start);
+            case BRACKET_L: {
+                enterNesting(start);
+                advance();
+                ImmutableList.Builder<Value> values = ImmutableList.builder();
+                while (token.kind != TokenKind.BRACKET_R) {
+                    values.add(parseValue(constant));
+                }
+                advance();
+                depth--;
+                ArrayValue.Builder arrayValue = ArrayValue.newArrayValue().values(values.build());
+                addCommonData(arrayValue, start);
+                return arrayValue.build();
+            }
+            case BRACE_L: {
+                enterNesting(start);
+                advance();
+                ImmutableList.Builder<ObjectField> objectFields = ImmutableList.builder();
+                while (token.kind != TokenKind.BRACE_R) {
+                    // the ANTLR based parser does not add the common data to object fields
+                    String name = parseName();
+                    expect(TokenKind.COLON);
+                    objectFields.add(ObjectField.newObjectField().name(name).value(parseValue(constant)).build());
+                }
+                advance();
+                depth--;
+                ObjectValue.Builder objectValue = ObjectValue.newObjectValue().objectFields(objectFields.build());
+                addCommonData(objectValue, start);
+                return objectValue.build();
+            }
+            case DOLLAR:
+                if (!constant) {
+                    advance();
+                    VariableReference.Builder variableReference = VariableReference.newVariableReference().name(parseName());
+                    addCommonData(variableReference, start);
+                    return variableReference.build();
+                }
+                throw lexer.unexpectedToken(token);
+            default:
+                throw lexer.unexpectedToken(token);
+        }
+    }
+
+    private Value parseNameValue(Token start) {
+        if (isKeyword(token, "true") || isKeyword(token, "false")) {
+            BooleanValue.Builder booleanValue = BooleanValue.newBooleanValue().value(isKeyword(token, "true"));
+            advance();
+            addCommonData(booleanValue, start);
+            return booleanValue.build();
+        }
+        if (isKeyword(token, "null")) {
+            NullValue.Builder nullValue = NullValue.newNullValue();
+            advance();
+            addCommonData(nullValue, start);
+            return nullValue.build();
+        }
+        EnumValue.Builder enumValue = EnumValue.newEnumValue().name(parseName());
+        addCommonData(enumValue, start);
+        return enumValue.build();
+    }
+
+    private String parseName() {
+        if (token.kind != TokenKind.NAME) {
+            throw lexer.unexpectedToken(token);
+        }
+        String name = lexer.text(token);
+        advance();
+        return name;
+    }
+
+    private String parseFragmentName() {
+        if (isKeyword(token, "on")) {
+            throw lexer.unexpectedToken(token);
+        }
+        return parseName();
+    }
+
+    private void expect(TokenKind kind) {
+        if (token.kind != kind) {
+            throw lexer.unexpectedToken(token);
+        }
+        advance();
+    }
+
+    private void expectKeyword(String keyword) {
+        if (!isKeyword(token, keyword)) {
+            throw lexer.unexpectedToken(token);
+        }
+        advance();
+    }
+
+    private void advance() {
+        token = lexer.next();
+    }
+
+    private void enterNesting(Token start) {
+        if (++depth > maxDepth) {
+            throw lexer.tooDeep(start, maxDepth);
+        }
+    }
+
+    /**
+     * This adds the same data as {@link GraphqlAntlrToLanguage#addCommonData}, which is called once all the tokens of
+     * a node have been consumed, so the current token is the one following the node.  The comments and ignored chars
+     * are only scanned from the gaps in front of the tokens when they are captured.
+     */
+    private void addCommonData(NodeBuilder nodeBuilder, Token start) {
+        if (parserOptions.isCaptureLineComments()) {
+            List<Comment> comments = lexer.comments(start);
+            if (!comments.isEmpty()) {
+                nodeBuilder.comments(comments);
+            }
+        }
+        if (parserOptions.isCaptureSourceLocation()) {
+            nodeBuilder.sourceLocation(lexer.sourceLocation(start));
+        }
+        if (parserOptions.isCaptureIgnoredChars()) {
+            List<IgnoredChar> left = lexer.ignoredChars(start);
+            List<IgnoredChar> right = lexer.ignoredChars(token);
+            nodeBuilder.ignoredChars(left.isEmpty() && right.isEmpty() ? IgnoredChars.EMPTY : new IgnoredChars(left, right));
+        }
+    }
+
+    private boolean isOperationType(Token token) {
+        return isKeyword(token, "query") || isKeyword(token, "mutation") || isKeyword(token, "subscription");
+    }
+
+    private boolean isTypeSystemDefinition(Token token) {
+        if (token.kind == TokenKind.STRING) {
+            // a description
+            return true;
+        }
+        return isKeyword(token, "schema") || isKeyword(token, "scalar") || isKeyword(token, "type")
+                || isKeyword(token, "interface") || isKeyword(token, "union") || isKeyword(token, "enum")
+                || isKeyword(token, "input") || isKeyword(token, "directive") || isKeyword(token, "extend");
+    }
+
+    private boolean isKeyword(Token token, String keyword) {
+        return token.kind == TokenKind.NAME && lexer.textEquals(token, keyword);
+    }
+}
@@ -0,0 +1,166 @@
+package graphql.parser;
+
+import graphql.Internal;
+import graphql.parser.QueryDocumentLexer.Token;
+import graphql.parser.QueryDocumentLexer.TokenKind;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+
+import static graphql.parser.StringValueParsing.parseSingleQuotedString;
+import static graphql.parser.StringValueParsing.parseTripleQuotedString;
+
+/**
+ * The int, float and string literals of a query, as found by a {@link QueryDocumentLexer} without parsing the query.
+ * <p>
+ * The key of the literals is the query with every literal blanked out, keeping only the kind of the literal, its
+ * length in code points and its line breaks.  Queries with the same key hence only differ in the values of their
+ * literals, and all their tokens are at the same lines and columns, which makes the key usable to share a parsed
+ * document between them.
+ */
+@Internal
+public class QueryLiterals {
+
+    // control characters can not be part of a valid document, so a key can not be mistaken for the text of a query
+    private static final char INT_MARKER = '\u0001';
+    private static final char FLOAT_MARKER = '\u0002';
+    private static final char STRING_MARKER = '\u0003';
+    private static final char BLANK = '\u0000';
+
+    private final String key;
+    private final List<String> texts;
+    private final char[] kinds;
+    private final int[] lines;
+    private final int[] columns;
+
+    private QueryLiterals(String key, List<String> texts, char[] kinds, int[] lines, int[] columns) {
+        this.key = key;
+        this.texts = texts;
+        this.kinds = kinds;
+        this.lines = lines;
+        this.columns = columns;
+    }
+
+    /**
+     * @param query         the query to find the literals of
+     * @param parserOptions the options that limit the size of the query
+     *
+     * @return the literals of the query or null if the query does not lex or exceeds the limits, in which case parsing
+     * it reports the error
+     */
+    public static QueryLiterals lex(String query, ParserOptions parserOptions) {
+        if (query.length() > parserOptions.getMaxCharacters()) {
+            return null;
+        }
+        MultiSourceReader multiSourceReader = MultiSourceReader.newMultiSourceReader()
+                .string(query, null)
+                .trackData(false)
+                .build();
+        QueryDocumentLexer lexer = new QueryDocumentLexer(multiSourceReader, query, parserOptions);
+        List<Token> tokens = new ArrayList<>();
+        try {
+            for (Token token = lexer.next(); token.kind != TokenKind.EOF; token = lexer.next()) {
+                if (token.kind == TokenKind.INT || token.kind == TokenKind.FLOAT || token.kind == TokenKind.STRING) {
+                    tokens.add(token);
+                }
+            }
+        } catch (InvalidSyntaxException e) {
+            return null;
+        }
+
+        StringBuilder key = new StringBuilder(query.length());
+        List<String> texts = new ArrayList<>(tokens.size());
+        char[] kinds = new char[tokens.size()];
+        int[] lines = new int[tokens.size()];
+        int[] columns = new int[tokens.size()];
+        int position = 0;
+        for (int i = 0; i < tokens.size(); i++) {
+            Token token = tokens.get(i);
+            kinds[i] = token.kind == TokenKind.INT ? INT_MARKER : token.kind == TokenKind.FLOAT ? FLOAT_MARKER : STRING_MARKER;
+            // the same lines and 1 based columns as the source locations of the parsed values
+            lines[i] = token.line;
+            columns[i] = token.column + 1;
+            texts.add(lexer.text(token));
+
+            key.append(query, position, token.start);
+            key.append(kinds[i]);
+            for (int j = token.start + 1; j < token.end; j++) {
+                char c = query.charAt(j);
+                if (c == '\n') {
+                    key.append(c);
+                } else if (!Character.isLowSurrogate(c) || !Character.isHighSurrogate(query.charAt(j - 1))) {
+                    // one blank per code point, since columns count code points
+                    key.append(BLANK);
+                }
+            }
+            position = token.end;
+        }
+        key.append(query, position, query.length());
+        return new QueryLiterals(key.toString(), texts, kinds, lines, columns);
+    }
+
+    /**
+     * @return the query with its literals blanked out
+     */
+    public String getKey() {
+        return key;
+    }
+
+    public int size() {
+        return texts.size();
+    }
+
+    /**
+     * @param index the index of the literal in the query
+     *
+     * @return the text of the literal as it is in the query
+     */
+    public String getText(int index) {
+        return texts.get(index);
+    }
+
+    /**
+     * @param index the index of the literal in the query
+     *
+     * @return the value of the literal the same as the parser makes it, that is a {@link BigInteger} for ints, a
+     * {@link BigDecimal} for floats and a {@link String} for strings
+     */
+    public Object getValue(int index) {
+        String text = texts.get(index);
+        switch (kinds[index]) {
+            case INT_MARKER:
+                return new BigInteger(text);
+            case FLOAT_MARKER:
+                return new BigDecimal(text);
+            default:
+                return text.startsWith("\"\"\"") ? parseTripleQuotedString(text) : parseSingleQuotedString(text);
+        }
+    }
+
+    /**
+     * @param line   the line of a source location
+     * @param column the column of a source location
+     *
+     * @return the index of the literal that starts at the location or -1 if there is none
+     */
+    public int indexOf(int line, int column) {
+        // binary search since the literals are in the order of the query
+        int low = 0;
+        int high = texts.size() - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int compare = lines[mid] != line ? Integer.compare(lines[mid], line) : Integer.compare(columns[mid], column);
+            if (compare == 0) {
+                return mid;
+            }
+            if (compare < 0) {
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,85 @@
+package graphql.parser;
+
+import graphql.Internal;
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.Token;
+import org.antlr.v4.runtime.TokenFactory;
+import org.antlr.v4.runtime.TokenSource;
+
+/**
+ * Wraps the ANTLR lexer to count the tokens that are handed to the parser, so that parsing is cancelled as soon as a
+ * document has more tokens than the {@link ParserOptions} allow, instead of after the whole document has been lexed.
+ */
+@Internal
+public class SafeTokenSource implements TokenSource {
+
+    // the channels of the GraphqlCommon.g4 lexer rules
+    private static final int WHITESPACE_CHANNEL = 3;
+
+    private final TokenSource lexer;
+    private final MultiSourceReader multiSourceReader;
+    private final int maxTokens;
+    private final int maxWhitespaceTokens;
+
+    private int tokenCount;
+    private int whitespaceTokenCount;
+
+    public SafeTokenSource(TokenSource lexer, MultiSourceReader multiSourceReader, ParserOptions parserOptions) {
+        this.lexer = lexer;
+        this.multiSourceReader = multiSourceReader;
+        this.maxTokens = parserOptions.getMaxTokens();
+        this.maxWhitespaceTokens = parserOptions.getMaxWhitespaceTokens();
+    }
+
+    @Override
+    public Token nextToken() {
+        Token token = lexer.nextToken();
+        if (token.getType() != Token.EOF) {
+            if (token.getChannel() == Token.DEFAULT_CHANNEL) {
+                if (++tokenCount > maxTokens) {
+                    throw ParseCancelledException.tooManyTokens(maxTokens,
+                            AntlrHelper.createSourceLocation(multiSourceReader, token),
+                            AntlrHelper.createPreview(multiSourceReader, token.getLine()),
+                            token.getText());
+                }
+            } else if (token.getChannel() == WHITESPACE_CHANNEL) {
+                if (++whitespaceTokenCount > maxWhitespaceTokens) {
+                    throw ParseCancelledException.tooManyWhitespaceTokens(maxWhitespaceTokens,
+                            AntlrHelper.createSourceLocation(multiSourceReader, token),
+                            AntlrHelper.createPreview(multiSourceReader, token.getLine()));
+                }
+            }
+        }
+        return token;
+    }
+
+    @Override
+    public int getLine() {
+        return lexer.getLine();
+    }
+
+    @Override
+    public int getCharPositionInLine() {
+        return lexer.getCharPositionInLine();
+    }
+
+    @Override
+    public CharStream getInputStream() {
+        return lexer.getInputStream();
+    }
+
+    @Override
+    public String getSourceName() {
+        return lexer.getSourceName();
+    }
+
+    @Override
+    public void setTokenFactory(TokenFactory<?> factory) {
+        lexer.setTokenFactory(factory);
+    }
+
+    @Override
+    public TokenFactory<?> getTokenFactory() {
+        return lexer.getTokenFactory();
+    }
+}
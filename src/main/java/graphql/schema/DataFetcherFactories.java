@@ -20,7 +20,7 @@ public class DataFetcherFactories {
      * @return a data fetcher factory that always returns the provided data fetcher
      */
     public static <T> DataFetcherFactory<T> useDataFetcher(DataFetcher<T> dataFetcher) {
-        return fieldDefinition -> dataFetcher;
+        return (ReusableDataFetcherFactory<T>) fieldDefinition -> dataFetcher;
     }
 
     /**
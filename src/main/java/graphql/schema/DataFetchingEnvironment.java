@@ -2,6 +2,7 @@ package graphql.schema;
 
 import graphql.PublicApi;
 import graphql.cachecontrol.CacheControl;
+import graphql.execution.CancellationToken;
 import graphql.execution.ExecutionId;
 import graphql.execution.ExecutionStepInfo;
 import graphql.execution.MergedField;
@@ -221,6 +222,13 @@ public interface DataFetchingEnvironment extends IntrospectionDataFetchingEnviro
      */
     Locale getLocale();
 
+    /**
+     * @return the {@link CancellationToken} of this request or null if the request cannot be cancelled
+     */
+    default CancellationToken getCancellationToken() {
+        return null;
+    }
+
     /**
      * @return the current operation that is being executed
      */
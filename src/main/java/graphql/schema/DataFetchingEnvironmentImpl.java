@@ -7,6 +7,7 @@ import graphql.cachecontrol.CacheControl;
 import graphql.collect.ImmutableKit;
 import graphql.collect.ImmutableMapWithNullValues;
 import graphql.execution.ExecutionContext;
+import graphql.execution.CancellationToken;
 import graphql.execution.ExecutionId;
 import graphql.execution.ExecutionStepInfo;
 import graphql.execution.MergedField;
@@ -44,6 +45,7 @@ public class DataFetchingEnvironmentImpl implements DataFetchingEnvironment {
     private final DataLoaderRegistry dataLoaderRegistry;
     private final CacheControl cacheControl;
     private final Locale locale;
+    private final CancellationToken cancellationToken;
     private final OperationDefinition operationDefinition;
     private final Document document;
     private final ImmutableMapWithNullValues<String, Object> variables;
@@ -67,6 +69,7 @@ public class DataFetchingEnvironmentImpl implements DataFetchingEnvironment {
         this.dataLoaderRegistry = builder.dataLoaderRegistry;
         this.cacheControl = builder.cacheControl;
         this.locale = builder.locale;
+        this.cancellationToken = builder.cancellationToken;
         this.operationDefinition = builder.operationDefinition;
         this.document = builder.document;
         this.variables = builder.variables == null ? ImmutableMapWithNullValues.emptyMap() : builder.variables;
@@ -93,6 +96,7 @@ public class DataFetchingEnvironmentImpl implements DataFetchingEnvironment {
                 .dataLoaderRegistry(executionContext.getDataLoaderRegistry())
                 .cacheControl(executionContext.getCacheControl())
                 .locale(executionContext.getLocale())
+                .cancellationToken(executionContext.getCancellationToken())
                 .document(executionContext.getDocument())
                 .operationDefinition(executionContext.getOperationDefinition())
                 .variables(executionContext.getVariables())
@@ -219,6 +223,11 @@ public class DataFetchingEnvironmentImpl implements DataFetchingEnvironment {
         return locale;
     }
 
+    @Override
+    public CancellationToken getCancellationToken() {
+        return cancellationToken;
+    }
+
     @Override
     public OperationDefinition getOperationDefinition() {
         return operationDefinition;
@@ -258,6 +267,7 @@ public class DataFetchingEnvironmentImpl implements DataFetchingEnvironment {
         private DataLoaderRegistry dataLoaderRegistry;
         private CacheControl cacheControl;
         private Locale locale;
+        private CancellationToken cancellationToken;
         private OperationDefinition operationDefinition;
         private Document document;
         private Supplier<Map<String, Object>> arguments;
@@ -283,6 +293,7 @@ public class DataFetchingEnvironmentImpl implements DataFetchingEnvironment {
             this.dataLoaderRegistry = env.dataLoaderRegistry;
             this.cacheControl = env.cacheControl;
             this.locale = env.locale;
+            this.cancellationToken = env.cancellationToken;
             this.operationDefinition = env.operationDefinition;
             this.document = env.document;
             this.variables = env.variables;
@@ -385,6 +396,11 @@ public class DataFetchingEnvironmentImpl implements DataFetchingEnvironment {
             return this;
         }
 
+        public Builder cancellationToken(CancellationToken cancellationToken) {
+            this.cancellationToken = cancellationToken;
+            return this;
+        }
+
         public Builder operationDefinition(OperationDefinition operationDefinition) {
             this.operationDefinition = operationDefinition;
             return this;
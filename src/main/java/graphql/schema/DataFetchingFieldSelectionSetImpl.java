@@ -73,9 +73,9 @@ public class DataFetchingFieldSelectionSetImpl implements DataFetchingFieldSelec
         }
     };
 
-    public static DataFetchingFieldSelectionSet newCollector(GraphQLOutputType fieldType, Supplier<NormalizedField> normalizedFieldSupplier) {
+    public static DataFetchingFieldSelectionSet newCollector(GraphQLOutputType fieldType, Supplier<NormalizedField> normalizedFieldSupplier, Map<String, Object> variables) {
         if (!GraphQLTypeUtil.isLeaf(fieldType)) {
-            return new DataFetchingFieldSelectionSetImpl(normalizedFieldSupplier);
+            return new DataFetchingFieldSelectionSetImpl(normalizedFieldSupplier, variables);
         } else {
             // we can only collect fields on object types and interfaces and unions.
             return NOOP;
@@ -83,14 +83,16 @@ public class DataFetchingFieldSelectionSetImpl implements DataFetchingFieldSelec
     }
 
     private final Supplier<NormalizedField> normalizedFieldSupplier;
+    private final Map<String, Object> variables;
 
     private boolean computedValues;
     private List<SelectedField> immediateFields;
     private Map<String, List<SelectedField>> normalisedSelectionSetFields;
     private Set<String> flattenedFieldsForGlobSearching;
 
-    private DataFetchingFieldSelectionSetImpl(Supplier<NormalizedField> normalizedFieldSupplier) {
+    private DataFetchingFieldSelectionSetImpl(Supplier<NormalizedField> normalizedFieldSupplier, Map<String, Object> variables) {
         this.normalizedFieldSupplier = normalizedFieldSupplier;
+        this.variables = variables;
         this.computedValues = false;
     }
 
@@ -213,7 +215,7 @@ public class DataFetchingFieldSelectionSetImpl implements DataFetchingFieldSelec
             // put in entries for the simple names - eg `Invoice.payments/Payment.amount` becomes `payments/amount`
             flattenedFieldsForGlobSearching.add(globSimpleName);
 
-            SelectedFieldImpl selectedField = new SelectedFieldImpl(globSimpleName, globQualifiedName, normalizedSubSelectedField);
+            SelectedFieldImpl selectedField = new SelectedFieldImpl(globSimpleName, globQualifiedName, normalizedSubSelectedField, variables);
             if (firstLevel) {
                 immediateFields.add(selectedField);
             }
@@ -269,19 +271,21 @@ public class DataFetchingFieldSelectionSetImpl implements DataFetchingFieldSelec
         private final String fullyQualifiedName;
         private final DataFetchingFieldSelectionSet selectionSet;
         private final NormalizedField normalizedField;
+        private final Map<String, Object> variables;
 
-        private SelectedFieldImpl(String simpleQualifiedName, String fullyQualifiedName, NormalizedField normalizedField) {
+        private SelectedFieldImpl(String simpleQualifiedName, String fullyQualifiedName, NormalizedField normalizedField, Map<String, Object> variables) {
             this.qualifiedName = simpleQualifiedName;
             this.fullyQualifiedName = fullyQualifiedName;
             this.normalizedField = normalizedField;
-            this.selectionSet = new DataFetchingFieldSelectionSetImpl(() -> normalizedField);
+            this.variables = variables;
+            this.selectionSet = new DataFetchingFieldSelectionSetImpl(() -> normalizedField, variables);
         }
 
         private SelectedField mkParent(NormalizedField normalizedField) {
             String parentSimpleQualifiedName = beforeLastSlash(qualifiedName);
             String parentFullyQualifiedName = beforeLastSlash(fullyQualifiedName);
             return normalizedField.getParent() == null ? null :
-                    new SelectedFieldImpl(parentSimpleQualifiedName, parentFullyQualifiedName, normalizedField.getParent());
+                    new SelectedFieldImpl(parentSimpleQualifiedName, parentFullyQualifiedName, normalizedField.getParent(), variables);
         }
 
         private String beforeLastSlash(String name) {
@@ -319,7 +323,8 @@ public class DataFetchingFieldSelectionSetImpl implements DataFetchingFieldSelec
 
         @Override
         public Map<String, Object> getArguments() {
-            return normalizedField.getArguments();
+            // the normalized field may be shared by executions with other variables
+            return normalizedField.getArguments(variables);
         }
 
         @Override
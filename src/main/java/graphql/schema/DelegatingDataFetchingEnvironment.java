@@ -2,6 +2,7 @@ package graphql.schema;
 
 import graphql.PublicApi;
 import graphql.cachecontrol.CacheControl;
+import graphql.execution.CancellationToken;
 import graphql.execution.ExecutionId;
 import graphql.execution.ExecutionStepInfo;
 import graphql.execution.MergedField;
@@ -133,6 +134,11 @@ public class DelegatingDataFetchingEnvironment implements DataFetchingEnvironmen
         return delegateEnvironment.getLocale();
     }
 
+    @Override
+    public CancellationToken getCancellationToken() {
+        return delegateEnvironment.getCancellationToken();
+    }
+
     public CacheControl getCacheControl() {
         return delegateEnvironment.getCacheControl();
     }
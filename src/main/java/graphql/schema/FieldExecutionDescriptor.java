@@ -0,0 +1,108 @@
+package graphql.schema;
+
+import graphql.Internal;
+
+import static graphql.schema.DataFetcherFactoryEnvironment.newDataFetchingFactoryEnvironment;
+import static graphql.schema.GraphQLTypeUtil.unwrapAll;
+import static graphql.schema.GraphQLTypeUtil.unwrapNonNull;
+
+/**
+ * What the execution of a field needs to know about the field, which is worked out once per field of a schema when
+ * its {@link GraphQLCodeRegistry} is built rather than on every fetch.
+ * <p>
+ * The data fetcher is held on to if the data fetcher factory of the field gives out the same data fetcher every time,
+ * which is the case for data fetchers that are registered directly and for the default {@link PropertyDataFetcher}s.
+ * Otherwise the factory is asked on every call of {@link #getDataFetcher()}.
+ * <p>
+ * The type facts describe the value of the field itself.  The items of a list field have their own types, which are
+ * still worked out as they are completed.
+ *
+ * @see GraphQLCodeRegistry#getFieldExecutionDescriptor(GraphQLFieldsContainer, GraphQLFieldDefinition)
+ */
+@Internal
+public class FieldExecutionDescriptor {
+
+    private final GraphQLFieldDefinition fieldDefinition;
+    private final GraphQLOutputType fieldType;
+    private final GraphQLType unwrappedNonNullType;
+    private final GraphQLNamedOutputType unwrappedType;
+    private final boolean nonNull;
+    private final boolean list;
+    private final Coercing<?, ?> coercing;
+    private final DataFetcherFactory<?> dataFetcherFactory;
+    private final DataFetcher<?> dataFetcher;
+
+    FieldExecutionDescriptor(GraphQLFieldDefinition fieldDefinition, DataFetcherFactory<?> dataFetcherFactory) {
+        this.fieldDefinition = fieldDefinition;
+        this.fieldType = fieldDefinition.getType();
+        this.unwrappedNonNullType = unwrapNonNull(fieldType);
+        this.unwrappedType = (GraphQLNamedOutputType) unwrapAll(fieldType);
+        this.nonNull = GraphQLTypeUtil.isNonNull(fieldType);
+        this.list = GraphQLTypeUtil.isList(unwrappedNonNullType);
+        this.coercing = unwrappedNonNullType instanceof GraphQLScalarType ? ((GraphQLScalarType) unwrappedNonNullType).getCoercing() : null;
+        this.dataFetcherFactory = dataFetcherFactory;
+        this.dataFetcher = dataFetcherFactory instanceof ReusableDataFetcherFactory ? newDataFetcher() : null;
+    }
+
+    /**
+     * @return the field definition
+     */
+    public GraphQLFieldDefinition getFieldDefinition() {
+        return fieldDefinition;
+    }
+
+    /**
+     * @return the output type of the field, as declared
+     */
+    public GraphQLOutputType getFieldType() {
+        return fieldType;
+    }
+
+    /**
+     * @return the output type of the field without its outer non null wrapping
+     */
+    public GraphQLType getUnwrappedNonNullType() {
+        return unwrappedNonNullType;
+    }
+
+    /**
+     * @return the named type of the field without any list or non null wrapping
+     */
+    public GraphQLNamedOutputType getUnwrappedType() {
+        return unwrappedType;
+    }
+
+    /**
+     * @return true if the field is declared non null
+     */
+    public boolean isNonNull() {
+        return nonNull;
+    }
+
+    /**
+     * @return true if the field is a list, whether or not it is non null
+     */
+    public boolean isList() {
+        return list;
+    }
+
+    /**
+     * @return the coercing of the field type if it is a scalar, otherwise null
+     */
+    public Coercing<?, ?> getCoercing() {
+        return coercing;
+    }
+
+    /**
+     * @return the data fetcher of the field
+     */
+    public DataFetcher<?> getDataFetcher() {
+        return dataFetcher != null ? dataFetcher : newDataFetcher();
+    }
+
+    private DataFetcher<?> newDataFetcher() {
+        return dataFetcherFactory.get(newDataFetchingFactoryEnvironment()
+                .fieldDefinition(fieldDefinition)
+                .build());
+    }
+}
@@ -1,7 +1,9 @@
 package graphql.schema;
 
 import graphql.Assert;
+import graphql.Internal;
 import graphql.PublicApi;
+import graphql.introspection.Introspection;
 import graphql.schema.visibility.GraphqlFieldVisibility;
 
 import java.util.HashMap;
@@ -32,6 +34,9 @@ public class GraphQLCodeRegistry {
     private final Map<String, TypeResolver> typeResolverMap;
     private final GraphqlFieldVisibility fieldVisibility;
     private final DataFetcherFactory<?> defaultDataFetcherFactory;
+    // keyed on the field definition and then on the name of the parent type, since a field definition can be shared by
+    // several types and field definitions do not override equals and hashCode
+    private final Map<GraphQLFieldDefinition, Map<String, FieldExecutionDescriptor>> fieldExecutionDescriptors;
 
     private GraphQLCodeRegistry(Builder builder) {
         this.dataFetcherMap = builder.dataFetcherMap;
@@ -39,6 +44,38 @@ public class GraphQLCodeRegistry {
         this.typeResolverMap = builder.typeResolverMap;
         this.fieldVisibility = builder.fieldVisibility;
         this.defaultDataFetcherFactory = builder.defaultDataFetcherFactory;
+        this.fieldExecutionDescriptors = buildFieldExecutionDescriptors(builder.schema);
+    }
+
+    private Map<GraphQLFieldDefinition, Map<String, FieldExecutionDescriptor>> buildFieldExecutionDescriptors(GraphQLSchema schema) {
+        Map<GraphQLFieldDefinition, Map<String, FieldExecutionDescriptor>> descriptors = new HashMap<>();
+        if (schema == null) {
+            return descriptors;
+        }
+        for (GraphQLNamedType type : schema.getAllTypesAsList()) {
+            if (type instanceof GraphQLFieldsContainer) {
+                GraphQLFieldsContainer fieldsContainer = (GraphQLFieldsContainer) type;
+                for (GraphQLFieldDefinition fieldDefinition : fieldsContainer.getFieldDefinitions()) {
+                    putFieldExecutionDescriptor(descriptors, fieldsContainer, fieldDefinition);
+                }
+            }
+            if (type instanceof GraphQLObjectType) {
+                putFieldExecutionDescriptor(descriptors, (GraphQLObjectType) type, Introspection.TypeNameMetaFieldDef);
+            }
+        }
+        putFieldExecutionDescriptor(descriptors, schema.getQueryType(), Introspection.SchemaMetaFieldDef);
+        putFieldExecutionDescriptor(descriptors, schema.getQueryType(), Introspection.TypeMetaFieldDef);
+        return descriptors;
+    }
+
+    private void putFieldExecutionDescriptor(Map<GraphQLFieldDefinition, Map<String, FieldExecutionDescriptor>> descriptors, GraphQLFieldsContainer parentType, GraphQLFieldDefinition fieldDefinition) {
+        descriptors.computeIfAbsent(fieldDefinition, key -> new HashMap<>())
+                .put(parentType.getName(), newFieldExecutionDescriptor(parentType, fieldDefinition));
+    }
+
+    private FieldExecutionDescriptor newFieldExecutionDescriptor(GraphQLFieldsContainer parentType, GraphQLFieldDefinition fieldDefinition) {
+        DataFetcherFactory<?> dataFetcherFactory = getDataFetcherFactory(FieldCoordinates.coordinates(parentType, fieldDefinition), fieldDefinition, dataFetcherMap, systemDataFetcherMap, defaultDataFetcherFactory);
+        return new FieldExecutionDescriptor(fieldDefinition, dataFetcherFactory);
     }
 
     /**
@@ -70,7 +107,34 @@ public class GraphQLCodeRegistry {
         return getDataFetcherImpl(coordinates, fieldDefinition, dataFetcherMap, systemDataFetcherMap, defaultDataFetcherFactory);
     }
 
+    /**
+     * Returns what the execution of a field needs to know about it.  The descriptors of the fields of the schema that
+     * this registry was built for are worked out up front, the descriptors of any other fields are worked out on every
+     * call.
+     *
+     * @param parentType      the container type
+     * @param fieldDefinition the field definition
+     * @return the execution descriptor of the field
+     */
+    @Internal
+    public FieldExecutionDescriptor getFieldExecutionDescriptor(GraphQLFieldsContainer parentType, GraphQLFieldDefinition fieldDefinition) {
+        Map<String, FieldExecutionDescriptor> descriptorsByType = fieldExecutionDescriptors.get(fieldDefinition);
+        FieldExecutionDescriptor descriptor = descriptorsByType == null ? null : descriptorsByType.get(parentType.getName());
+        if (descriptor != null) {
+            return descriptor;
+        }
+        // not kept, so that registries shared by schemas that were transformed do not fill up with their old fields
+        return newFieldExecutionDescriptor(parentType, fieldDefinition);
+    }
+
     private static DataFetcher<?> getDataFetcherImpl(FieldCoordinates coordinates, GraphQLFieldDefinition fieldDefinition, Map<FieldCoordinates, DataFetcherFactory<?>> dataFetcherMap, Map<String, DataFetcherFactory<?>> systemDataFetcherMap, DataFetcherFactory<?> defaultDataFetcherFactory) {
+        DataFetcherFactory<?> dataFetcherFactory = getDataFetcherFactory(coordinates, fieldDefinition, dataFetcherMap, systemDataFetcherMap, defaultDataFetcherFactory);
+        return dataFetcherFactory.get(newDataFetchingFactoryEnvironment()
+                .fieldDefinition(fieldDefinition)
+                .build());
+    }
+
+    private static DataFetcherFactory<?> getDataFetcherFactory(FieldCoordinates coordinates, GraphQLFieldDefinition fieldDefinition, Map<FieldCoordinates, DataFetcherFactory<?>> dataFetcherMap, Map<String, DataFetcherFactory<?>> systemDataFetcherMap, DataFetcherFactory<?> defaultDataFetcherFactory) {
         assertNotNull(coordinates);
         assertNotNull(fieldDefinition);
 
@@ -81,9 +145,7 @@ public class GraphQLCodeRegistry {
                 dataFetcherFactory = defaultDataFetcherFactory;
             }
         }
-        return dataFetcherFactory.get(newDataFetchingFactoryEnvironment()
-                .fieldDefinition(fieldDefinition)
-                .build());
+        return dataFetcherFactory;
     }
 
     private static boolean hasDataFetcherImpl(FieldCoordinates coords, Map<FieldCoordinates, DataFetcherFactory<?>> dataFetcherMap, Map<String, DataFetcherFactory<?>> systemDataFetcherMap) {
@@ -171,7 +233,8 @@ public class GraphQLCodeRegistry {
         private final Map<String, DataFetcherFactory<?>> systemDataFetcherMap = new LinkedHashMap<>();
         private final Map<String, TypeResolver> typeResolverMap = new HashMap<>();
         private GraphqlFieldVisibility fieldVisibility = DEFAULT_FIELD_VISIBILITY;
-        private DataFetcherFactory<?> defaultDataFetcherFactory = env -> PropertyDataFetcher.fetching(env.getFieldDefinition().getName());
+        private DataFetcherFactory<?> defaultDataFetcherFactory = (ReusableDataFetcherFactory<?>) env -> PropertyDataFetcher.fetching(env.getFieldDefinition().getName());
+        private GraphQLSchema schema;
 
 
         private Builder() {
@@ -377,6 +440,18 @@ public class GraphQLCodeRegistry {
             return this;
         }
 
+        /**
+         * Works out the field execution descriptors of all the fields of the schema when the registry is built.  The
+         * types of the schema must have had their type references replaced.
+         *
+         * @param schema the schema that the registry is built for
+         * @return this builder
+         */
+        Builder fieldExecutionDescriptors(GraphQLSchema schema) {
+            this.schema = assertNotNull(schema);
+            return this;
+        }
+
         public Builder clearDataFetchers() {
             dataFetcherMap.clear();
             return this;
@@ -42,6 +42,9 @@ public class GraphQLInputObjectField implements GraphQLNamedSchemaElement, Graph
     public static final String CHILD_TYPE = "type";
     public static final String CHILD_DIRECTIVES = "directives";
 
+    private static final Object DEFAULT_VALUE_SENTINEL = new Object() {
+    };
+
     /**
      * @param name the name
      * @param type the field type
@@ -51,7 +54,7 @@ public class GraphQLInputObjectField implements GraphQLNamedSchemaElement, Graph
     @Internal
     @Deprecated
     public GraphQLInputObjectField(String name, GraphQLInputType type) {
-        this(name, null, type, null, emptyList(), null);
+        this(name, null, type, DEFAULT_VALUE_SENTINEL, emptyList(), null);
     }
 
     /**
@@ -107,7 +110,14 @@ public class GraphQLInputObjectField implements GraphQLNamedSchemaElement, Graph
     }
 
     public Object getDefaultValue() {
-        return defaultValue;
+        return defaultValue == DEFAULT_VALUE_SENTINEL ? null : defaultValue;
+    }
+
+    /**
+     * @return true if the field has a default value, which can be null as in {@code field : String = null}
+     */
+    public boolean hasSetDefaultValue() {
+        return defaultValue != DEFAULT_VALUE_SENTINEL;
     }
 
     public String getDescription() {
@@ -213,7 +223,7 @@ public class GraphQLInputObjectField implements GraphQLNamedSchemaElement, Graph
 
     @PublicApi
     public static class Builder extends GraphqlTypeBuilder {
-        private Object defaultValue;
+        private Object defaultValue = DEFAULT_VALUE_SENTINEL;
         private GraphQLInputType type;
         private InputValueDefinition definition;
         private final Map<String, GraphQLDirective> directives = new LinkedHashMap<>();
@@ -224,7 +234,7 @@ public class GraphQLInputObjectField implements GraphQLNamedSchemaElement, Graph
         public Builder(GraphQLInputObjectField existing) {
             this.name = existing.getName();
             this.description = existing.getDescription();
-            this.defaultValue = existing.getDefaultValue();
+            this.defaultValue = existing.defaultValue;
             this.type = existing.originalType;
             this.definition = existing.getDefinition();
             this.directives.putAll(getByName(existing.getDirectives(), GraphQLDirective::getName));
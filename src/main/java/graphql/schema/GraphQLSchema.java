@@ -567,10 +567,14 @@ public class GraphQLSchema {
 
             // grab the legacy code things from types
             final GraphQLSchema tempSchema = new GraphQLSchema(this, afterTransform);
-            codeRegistry = codeRegistry.transform(codeRegistryBuilder -> schemaUtil.extractCodeFromTypes(codeRegistryBuilder, tempSchema));
+            // the types are shared with the final schema, and the field execution descriptors need them resolved
+            schemaUtil.replaceTypeReferences(tempSchema);
+            codeRegistry = codeRegistry.transform(codeRegistryBuilder -> {
+                schemaUtil.extractCodeFromTypes(codeRegistryBuilder, tempSchema);
+                codeRegistryBuilder.fieldExecutionDescriptors(tempSchema);
+            });
 
             GraphQLSchema graphQLSchema = new GraphQLSchema(tempSchema, codeRegistry);
-            schemaUtil.replaceTypeReferences(graphQLSchema);
             Collection<SchemaValidationError> errors = new SchemaValidator().validateSchema(graphQLSchema);
             if (errors.size() > 0) {
                 throw new InvalidSchemaException(errors);
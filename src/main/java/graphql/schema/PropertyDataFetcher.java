@@ -153,4 +153,17 @@ public class PropertyDataFetcher<T> implements DataFetcher<T>, TrivialDataFetche
     public static boolean setUseNegativeCache(boolean flag) {
         return PropertyDataFetcherHelper.setUseNegativeCache(flag);
     }
+
+    /**
+     * This can be used to control whether PropertyDataFetcher will generate accessors for the getter methods and fields it finds via
+     * {@link java.lang.invoke.LambdaMetafactory} and {@link java.lang.invoke.MethodHandle}s rather than calling them via reflection.
+     * By default it PropertyDataFetcher WILL generate accessors.  The flag applies to properties that have not been looked up yet, so you
+     * may want to call {@link #clearReflectionCache()} after changing it.
+     *
+     * @param flag whether to generate accessors
+     * @return the previous value of the flag
+     */
+    public static boolean setUseGeneratedAccessors(boolean flag) {
+        return PropertyDataFetcherHelper.setUseGeneratedAccessors(flag);
+    }
 }
@@ -30,4 +30,8 @@ public class PropertyDataFetcherHelper {
     public static boolean setUseNegativeCache(boolean flag) {
         return impl.setUseNegativeCache(flag);
     }
+
+    public static boolean setUseGeneratedAccessors(boolean flag) {
+        return impl.setUseGeneratedAccessors(flag);
+    }
 }
@@ -3,6 +3,12 @@ package graphql.schema;
 import graphql.GraphQLException;
 import graphql.Internal;
 
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaConversionException;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
@@ -14,6 +20,9 @@ import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+import java.util.function.Function;
 import java.util.function.Predicate;
 
 import static graphql.Assert.assertShouldNeverHappen;
@@ -23,30 +32,39 @@ import static graphql.schema.GraphQLTypeUtil.unwrapOne;
 
 /**
  * A re-usable class that can fetch from POJOs
+ * <p>
+ * The first fetch of a property of a class finds the getter method or field via reflection and caches an accessor
+ * for it per class and property name.  By default the accessors are generated via {@link LambdaMetafactory} or are
+ * {@link MethodHandle}s, which the JIT can inline unlike {@link Method#invoke(Object, Object...)}.
+ * <p>
+ * The accessors refer to the classes they were found on and so keep those classes from being unloaded until
+ * {@link #clearReflectionCache()} is called, just as the cached {@link Method}s and {@link Field}s did before.
  */
 @Internal
 public class PropertyFetchingImpl {
 
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+    // the accessor of properties that have been looked up but can not be found
+    private static final PropertyAccessor NEGATIVE_ACCESSOR = (object, singleArgumentValue) -> null;
+    // the number of properties that can be negatively cached before they are all forgotten
+    private static final int MAX_NEGATIVE_CACHE_SIZE = 10_000;
+
     private final AtomicBoolean USE_SET_ACCESSIBLE = new AtomicBoolean(true);
     private final AtomicBoolean USE_NEGATIVE_CACHE = new AtomicBoolean(true);
-    private final ConcurrentMap<String, CachedMethod> METHOD_CACHE = new ConcurrentHashMap<>();
-    private final ConcurrentMap<String, Field> FIELD_CACHE = new ConcurrentHashMap<>();
-    private final ConcurrentMap<String, String> NEGATIVE_CACHE = new ConcurrentHashMap<>();
+    private final AtomicBoolean USE_GENERATED_ACCESSORS = new AtomicBoolean(true);
+    // the accessors are kept here rather than in a ClassValue, which would store them on the classes themselves and so
+    // keep the class loader of this class alive for as long as any class that was fetched from is loaded
+    private final ConcurrentMap<Class<?>, ConcurrentMap<String, PropertyAccessor>> ACCESSOR_CACHE = new ConcurrentHashMap<>();
+    private final AtomicInteger NEGATIVE_CACHE_SIZE = new AtomicInteger();
     private final Class<?> singleArgumentType;
 
     public PropertyFetchingImpl(Class<?> singleArgumentType) {
         this.singleArgumentType = singleArgumentType;
     }
 
-    private class CachedMethod {
-        Method method;
-        boolean takesSingleArgumentTypeAsOnlyArgument;
-
-        CachedMethod(Method method) {
-            this.method = method;
-            this.takesSingleArgumentTypeAsOnlyArgument = takesSingleArgumentTypeAsOnlyArgument(method);
-        }
-
+    private interface PropertyAccessor {
+        Object get(Object object, Object singleArgumentValue) throws FastNoSuchMethodException;
     }
 
     public Object getPropertyValue(String propertyName, Object object, GraphQLType graphQLType) {
@@ -58,32 +76,29 @@ public class PropertyFetchingImpl {
             return ((Map<?, ?>) object).get(propertyName);
         }
 
-        String cacheKey = mkKey(object, propertyName);
+        Class<?> objectClass = object.getClass();
+        ConcurrentMap<String, PropertyAccessor> accessors = ACCESSOR_CACHE.get(objectClass);
+        if (accessors == null) {
+            accessors = ACCESSOR_CACHE.computeIfAbsent(objectClass, aClass -> new ConcurrentHashMap<>());
+        }
         // lets try positive cache mechanisms first.  If we have seen the method or field before
         // then we invoke it directly without burning any cycles doing reflection.
-        CachedMethod cachedMethod = METHOD_CACHE.get(cacheKey);
-        if (cachedMethod != null) {
+        PropertyAccessor accessor = accessors.get(propertyName);
+        if (accessor != null && accessor != NEGATIVE_ACCESSOR) {
             try {
-                return invokeMethod(object, singleArgumentValue, cachedMethod.method, cachedMethod.takesSingleArgumentTypeAsOnlyArgument);
+                return accessor.get(object, singleArgumentValue);
             } catch (NoSuchMethodException ignored) {
-                assertShouldNeverHappen("A method cached as '%s' is no longer available??", cacheKey);
+                assertShouldNeverHappen("A method cached as '%s.%s' is no longer available??", objectClass.getName(), propertyName);
             }
         }
-        Field cachedField = FIELD_CACHE.get(cacheKey);
-        if (cachedField != null) {
-            return invokeField(object, cachedField);
-        }
 
         //
         // if we have tried all strategies before and they have all failed then we negatively cache
-        // the cacheKey and assume that its never going to turn up.  This shortcuts the property lookup
+        // the property and assume that its never going to turn up.  This shortcuts the property lookup
         // in systems where there was a `foo` graphql property but they never provided an POJO
         // version of `foo`.
         //
-        // we do this second because we believe in the positive cached version will mostly prevail
-        // but if we then look it up and negatively cache it then lest do that look up next
-        //
-        if (isNegativelyCached(cacheKey)) {
+        if (accessor == NEGATIVE_ACCESSOR && USE_NEGATIVE_CACHE.get()) {
             return null;
         }
         //
@@ -92,34 +107,33 @@ public class PropertyFetchingImpl {
         //
         boolean dfeInUse = singleArgumentValue != null;
         try {
-            MethodFinder methodFinder = (root, methodName) -> findPubliclyAccessibleMethod(cacheKey, root, methodName, dfeInUse);
+            ConcurrentMap<String, PropertyAccessor> classAccessors = accessors;
+            MethodFinder methodFinder = (root, methodName) -> findPubliclyAccessibleMethod(classAccessors, propertyName, root, methodName, dfeInUse);
             return getPropertyViaGetterMethod(object, propertyName, graphQLType, methodFinder, singleArgumentValue);
         } catch (NoSuchMethodException ignored) {
             try {
-                MethodFinder methodFinder = (aClass, methodName) -> findViaSetAccessible(cacheKey, aClass, methodName, dfeInUse);
+                ConcurrentMap<String, PropertyAccessor> classAccessors = accessors;
+                MethodFinder methodFinder = (aClass, methodName) -> findViaSetAccessible(classAccessors, propertyName, aClass, methodName, dfeInUse);
                 return getPropertyViaGetterMethod(object, propertyName, graphQLType, methodFinder, singleArgumentValue);
             } catch (NoSuchMethodException ignored2) {
                 try {
-                    return getPropertyViaFieldAccess(cacheKey, object, propertyName);
+                    return getPropertyViaFieldAccess(accessors, object, propertyName);
                 } catch (FastNoSuchMethodException e) {
                     // we have nothing to ask for and we have exhausted our lookup strategies
-                    putInNegativeCache(cacheKey);
+                    if (USE_NEGATIVE_CACHE.get()) {
+                        cacheMissingProperty(accessors, propertyName);
+                    }
                     return null;
                 }
             }
         }
     }
 
-    private boolean isNegativelyCached(String key) {
-        if (USE_NEGATIVE_CACHE.get()) {
-            return NEGATIVE_CACHE.containsKey(key);
-        }
-        return false;
-    }
-
-    private void putInNegativeCache(String key) {
-        if (USE_NEGATIVE_CACHE.get()) {
-            NEGATIVE_CACHE.put(key, key);
+    private void cacheMissingProperty(ConcurrentMap<String, PropertyAccessor> accessors, String propertyName) {
+        if (accessors.putIfAbsent(propertyName, NEGATIVE_ACCESSOR) == null && NEGATIVE_CACHE_SIZE.incrementAndGet() > MAX_NEGATIVE_CACHE_SIZE) {
+            // a miss is cached for every class a property is asked of, so rather than growing forever they are forgotten
+            NEGATIVE_CACHE_SIZE.set(0);
+            ACCESSOR_CACHE.values().forEach(classAccessors -> classAccessors.values().removeIf(accessor -> accessor == NEGATIVE_ACCESSOR));
         }
     }
 
@@ -153,7 +167,7 @@ public class PropertyFetchingImpl {
      * which have abstract public interfaces implemented by package-protected
      * (generated) subclasses.
      */
-    private Method findPubliclyAccessibleMethod(String cacheKey, Class<?> rootClass, String methodName, boolean dfeInUse) throws NoSuchMethodException {
+    private Method findPubliclyAccessibleMethod(ConcurrentMap<String, PropertyAccessor> accessors, String propertyName, Class<?> rootClass, String methodName, boolean dfeInUse) throws NoSuchMethodException {
         Class<?> currentClass = rootClass;
         while (currentClass != null) {
             if (Modifier.isPublic(currentClass.getModifiers())) {
@@ -163,7 +177,7 @@ public class PropertyFetchingImpl {
                     try {
                         Method method = currentClass.getMethod(methodName, singleArgumentType);
                         if (Modifier.isPublic(method.getModifiers())) {
-                            METHOD_CACHE.putIfAbsent(cacheKey, new CachedMethod(method));
+                            cacheAccessor(accessors, propertyName, method);
                             return method;
                         }
                     } catch (NoSuchMethodException e) {
@@ -172,7 +186,7 @@ public class PropertyFetchingImpl {
                 }
                 Method method = currentClass.getMethod(methodName);
                 if (Modifier.isPublic(method.getModifiers())) {
-                    METHOD_CACHE.putIfAbsent(cacheKey, new CachedMethod(method));
+                    cacheAccessor(accessors, propertyName, method);
                     return method;
                 }
             }
@@ -182,7 +196,7 @@ public class PropertyFetchingImpl {
         return rootClass.getMethod(methodName);
     }
 
-    private Method findViaSetAccessible(String cacheKey, Class<?> aClass, String methodName, boolean dfeInUse) throws NoSuchMethodException {
+    private Method findViaSetAccessible(ConcurrentMap<String, PropertyAccessor> accessors, String propertyName, Class<?> aClass, String methodName, boolean dfeInUse) throws NoSuchMethodException {
         if (!USE_SET_ACCESSIBLE.get()) {
             throw new FastNoSuchMethodException(methodName);
         }
@@ -204,7 +218,7 @@ public class PropertyFetchingImpl {
                     // few JVMs actually enforce this but it might happen
                     Method method = m.get();
                     method.setAccessible(true);
-                    METHOD_CACHE.putIfAbsent(cacheKey, new CachedMethod(method));
+                    cacheAccessor(accessors, propertyName, method);
                     return method;
                 } catch (SecurityException ignored) {
                 }
@@ -214,24 +228,24 @@ public class PropertyFetchingImpl {
         throw new FastNoSuchMethodException(methodName);
     }
 
-    private Object getPropertyViaFieldAccess(String cacheKey, Object object, String propertyName) throws FastNoSuchMethodException {
+    private Object getPropertyViaFieldAccess(ConcurrentMap<String, PropertyAccessor> accessors, Object object, String propertyName) throws FastNoSuchMethodException {
         Class<?> aClass = object.getClass();
         try {
             Field field = aClass.getField(propertyName);
-            FIELD_CACHE.putIfAbsent(cacheKey, field);
+            cacheAccessor(accessors, propertyName, field);
             return field.get(object);
         } catch (NoSuchFieldException e) {
             if (!USE_SET_ACCESSIBLE.get()) {
-                throw new FastNoSuchMethodException(cacheKey);
+                throw new FastNoSuchMethodException(propertyName);
             }
             // if not public fields then try via setAccessible
             try {
                 Field field = aClass.getDeclaredField(propertyName);
                 field.setAccessible(true);
-                FIELD_CACHE.putIfAbsent(cacheKey, field);
+                cacheAccessor(accessors, propertyName, field);
                 return field.get(object);
             } catch (SecurityException | NoSuchFieldException ignored2) {
-                throw new FastNoSuchMethodException(cacheKey);
+                throw new FastNoSuchMethodException(propertyName);
             } catch (IllegalAccessException e1) {
                 throw new GraphQLException(e);
             }
@@ -255,6 +269,137 @@ public class PropertyFetchingImpl {
         }
     }
 
+    private void cacheAccessor(ConcurrentMap<String, PropertyAccessor> accessors, String propertyName, Method method) {
+        boolean takesSingleArgument = takesSingleArgumentTypeAsOnlyArgument(method);
+        PropertyAccessor accessor = USE_GENERATED_ACCESSORS.get() ? generateAccessor(method, takesSingleArgument) : null;
+        if (accessor == null) {
+            accessor = (object, singleArgumentValue) -> invokeMethod(object, singleArgumentValue, method, takesSingleArgument);
+        }
+        accessors.putIfAbsent(propertyName, accessor);
+    }
+
+    private void cacheAccessor(ConcurrentMap<String, PropertyAccessor> accessors, String propertyName, Field field) {
+        PropertyAccessor accessor = USE_GENERATED_ACCESSORS.get() ? generateAccessor(field) : null;
+        if (accessor == null) {
+            accessor = (object, singleArgumentValue) -> invokeField(object, field);
+        }
+        accessors.putIfAbsent(propertyName, accessor);
+    }
+
+    /*
+     * Public instance methods of classes that can be seen from this class loader get a LambdaMetafactory generated
+     * accessor, which is as fast as a direct call once inlined.  The generated class lives in this class loader
+     * and hence must be able to resolve the declaring class by name.  All other methods go via a method handle.
+     */
+    private PropertyAccessor generateAccessor(Method method, boolean takesSingleArgument) {
+        if (Modifier.isStatic(method.getModifiers())) {
+            return null;
+        }
+        try {
+            MethodHandle methodHandle = LOOKUP.unreflect(method);
+            if (isPubliclyVisible(method) && method.getReturnType() != void.class) {
+                return takesSingleArgument ? lambdaAccessor(methodHandle, BiFunction.class, 2) : lambdaAccessor(methodHandle, Function.class, 1);
+            }
+            if (takesSingleArgument) {
+                MethodHandle handle = methodHandle.asType(MethodType.methodType(Object.class, Object.class, Object.class));
+                return (object, singleArgumentValue) -> {
+                    if (singleArgumentValue == null) {
+                        throw new FastNoSuchMethodException(method.getName());
+                    }
+                    return invokeHandle(handle, object, singleArgumentValue);
+                };
+            }
+            MethodHandle handle = methodHandle.asType(MethodType.methodType(Object.class, Object.class));
+            return (object, singleArgumentValue) -> invokeHandle(handle, object);
+        } catch (Exception e) {
+            // the accessor can not be generated, for example because of a security manager, so use plain reflection
+            return null;
+        }
+    }
+
+    private PropertyAccessor generateAccessor(Field field) {
+        if (Modifier.isStatic(field.getModifiers())) {
+            return null;
+        }
+        try {
+            MethodHandle handle = LOOKUP.unreflectGetter(field).asType(MethodType.methodType(Object.class, Object.class));
+            return (object, singleArgumentValue) -> {
+                try {
+                    return (Object) handle.invokeExact(object);
+                } catch (Throwable e) {
+                    throw new GraphQLException(e);
+                }
+            };
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private PropertyAccessor lambdaAccessor(MethodHandle methodHandle, Class<?> functionalInterface, int arity) throws LambdaConversionException {
+        MethodType erasedType = MethodType.genericMethodType(arity);
+        CallSite callSite = LambdaMetafactory.metafactory(LOOKUP, "apply", MethodType.methodType(functionalInterface),
+                erasedType, methodHandle, methodHandle.type().wrap());
+        Object function;
+        try {
+            function = callSite.getTarget().invoke();
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            // the factory of a lambda takes no arguments and so has no checked exceptions to throw
+            throw new LambdaConversionException(e);
+        }
+        if (arity == 1) {
+            Function<Object, Object> getter = (Function<Object, Object>) function;
+            return (object, singleArgumentValue) -> {
+                try {
+                    return getter.apply(object);
+                } catch (Throwable e) {
+                    throw new GraphQLException(new InvocationTargetException(e));
+                }
+            };
+        }
+        BiFunction<Object, Object, Object> getter = (BiFunction<Object, Object, Object>) function;
+        return (object, singleArgumentValue) -> {
+            if (singleArgumentValue == null) {
+                throw new FastNoSuchMethodException(methodHandle.toString());
+            }
+            try {
+                return getter.apply(object, singleArgumentValue);
+            } catch (Throwable e) {
+                throw new GraphQLException(new InvocationTargetException(e));
+            }
+        };
+    }
+
+    private static Object invokeHandle(MethodHandle handle, Object object) {
+        try {
+            return (Object) handle.invokeExact(object);
+        } catch (Throwable e) {
+            throw new GraphQLException(new InvocationTargetException(e));
+        }
+    }
+
+    private static Object invokeHandle(MethodHandle handle, Object object, Object singleArgumentValue) {
+        try {
+            return (Object) handle.invokeExact(object, singleArgumentValue);
+        } catch (Throwable e) {
+            throw new GraphQLException(new InvocationTargetException(e));
+        }
+    }
+
+    private static boolean isPubliclyVisible(Method method) {
+        Class<?> declaringClass = method.getDeclaringClass();
+        if (!Modifier.isPublic(method.getModifiers()) || !Modifier.isPublic(declaringClass.getModifiers())) {
+            return false;
+        }
+        try {
+            return Class.forName(declaringClass.getName(), false, PropertyFetchingImpl.class.getClassLoader()) == declaringClass;
+        } catch (ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+
     private Object invokeField(Object object, Field field) {
         try {
             return field.get(object);
@@ -275,9 +420,8 @@ public class PropertyFetchingImpl {
     }
 
     public void clearReflectionCache() {
-        METHOD_CACHE.clear();
-        FIELD_CACHE.clear();
-        NEGATIVE_CACHE.clear();
+        ACCESSOR_CACHE.clear();
+        NEGATIVE_CACHE_SIZE.set(0);
     }
 
     public boolean setUseSetAccessible(boolean flag) {
@@ -288,14 +432,8 @@ public class PropertyFetchingImpl {
         return USE_NEGATIVE_CACHE.getAndSet(flag);
     }
 
-    private String mkKey(Object object, String propertyName) {
-        Class<?> clazz = object.getClass();
-        ClassLoader classLoader = clazz.getClassLoader();
-        if (classLoader != null) {
-            return classLoader.hashCode() + "__" + clazz.getName() + "__" + propertyName;
-        } else {
-            return clazz.getName() + "__" + propertyName;
-        }
+    public boolean setUseGeneratedAccessors(boolean flag) {
+        return USE_GENERATED_ACCESSORS.getAndSet(flag);
     }
 
     // by not filling out the stack trace, we gain speed when using the exception as flow control
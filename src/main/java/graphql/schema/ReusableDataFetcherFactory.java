@@ -0,0 +1,14 @@
+package graphql.schema;
+
+import graphql.Internal;
+
+/**
+ * A {@link DataFetcherFactory} whose data fetcher only depends on the field it is asked for, so it can be asked once per
+ * field and the data fetcher reused for every fetch of that field.  Other factories may give out a new data fetcher per
+ * request, for example one with request scoped dependencies injected in, and so are asked on every fetch.
+ *
+ * @param <T> the type of DataFetcher
+ */
+@Internal
+interface ReusableDataFetcherFactory<T> extends DataFetcherFactory<T> {
+}
@@ -8,6 +8,7 @@ import graphql.language.Document;
 import graphql.language.SDLDefinition;
 import graphql.parser.InvalidSyntaxException;
 import graphql.parser.Parser;
+import graphql.parser.ParserOptions;
 import graphql.schema.idl.errors.NonSDLDefinitionError;
 import graphql.schema.idl.errors.SchemaProblem;
 
@@ -93,7 +94,14 @@ public class SchemaParser {
 
     public TypeDefinitionRegistry parseImpl(Reader schemaInput) {
         try {
-            Parser parser = new Parser();
+            // comments can be the descriptions of schema elements so they are always captured, and schemas are trusted
+            // input that can be a lot larger than queries so at most their depth is limited
+            ParserOptions parserOptions = ParserOptions.getDefaultParserOptions().transform(builder -> builder
+                    .captureLineComments(true)
+                    .maxCharacters(Integer.MAX_VALUE)
+                    .maxTokens(Integer.MAX_VALUE)
+                    .maxWhitespaceTokens(Integer.MAX_VALUE));
+            Parser parser = new Parser(parserOptions);
             Document document = parser.parseDocument(schemaInput);
 
             return buildRegistry(document);
@@ -0,0 +1,919 @@
+package graphql.schema.idl;
+
+import graphql.Directives;
+import graphql.PublicApi;
+import graphql.introspection.Introspection;
+import graphql.introspection.Introspection.DirectiveLocation;
+import graphql.language.ArrayValue;
+import graphql.language.AstValueHelper;
+import graphql.language.BooleanValue;
+import graphql.language.EnumValue;
+import graphql.language.FloatValue;
+import graphql.language.IntValue;
+import graphql.language.NullValue;
+import graphql.language.ObjectField;
+import graphql.language.ObjectValue;
+import graphql.language.StringValue;
+import graphql.language.Value;
+import graphql.schema.DataFetcher;
+import graphql.schema.FieldCoordinates;
+import graphql.schema.GraphQLArgument;
+import graphql.schema.GraphQLCodeRegistry;
+import graphql.schema.GraphQLDirective;
+import graphql.schema.GraphQLEnumType;
+import graphql.schema.GraphQLEnumValueDefinition;
+import graphql.schema.GraphQLFieldDefinition;
+import graphql.schema.GraphQLFieldsContainer;
+import graphql.schema.GraphQLInputObjectField;
+import graphql.schema.GraphQLInputObjectType;
+import graphql.schema.GraphQLInputType;
+import graphql.schema.GraphQLInterfaceType;
+import graphql.schema.GraphQLList;
+import graphql.schema.GraphQLNamedOutputType;
+import graphql.schema.GraphQLNamedType;
+import graphql.schema.GraphQLNonNull;
+import graphql.schema.GraphQLObjectType;
+import graphql.schema.GraphQLOutputType;
+import graphql.schema.GraphQLScalarType;
+import graphql.schema.GraphQLSchema;
+import graphql.schema.GraphQLType;
+import graphql.schema.GraphQLTypeReference;
+import graphql.schema.GraphQLUnionType;
+import graphql.schema.TypeResolver;
+import graphql.schema.TypeResolverProxy;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static graphql.Assert.assertNotNull;
+import static graphql.Assert.assertShouldNeverHappen;
+import static graphql.Assert.assertTrue;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Writes a built {@link GraphQLSchema} to a compact binary snapshot and reads it back, so that a process can start
+ * from the snapshot instead of parsing, checking and generating the schema from its SDL every time.
+ * <p>
+ * The snapshot holds the types, fields, arguments, enum values, directive definitions and applied directives of the
+ * schema, along with their descriptions, deprecations and default values.  It does not hold any code, so the data
+ * fetchers, type resolvers, scalar coercings and field visibility are taken from the {@link RuntimeWiring} that is given
+ * when the snapshot is read, and are wired to fields by their {@link FieldCoordinates} just as the
+ * {@link SchemaGenerator} does.
+ * <p>
+ * A few things are not covered by a snapshot.  The types of the read schema have no AST definitions.  The
+ * {@link WiringFactory} of the wiring is not asked for data fetchers or type resolvers since it expects the AST
+ * definitions, and the {@link SchemaDirectiveWiring}s are not run again.  Data fetchers that were changed by a
+ * directive wiring can instead be put into the code registry of the wiring, which takes precedence.  Enum values whose
+ * value is not a plain string, number or boolean need an {@link EnumValuesProvider} in the wiring.
+ */
+@PublicApi
+public class SchemaSnapshot {
+
+    // "GQSS"
+    private static final int MAGIC = 0x47515353;
+    private static final int VERSION = 2;
+
+    // the value of an enum value that could not be written, which has to come from an EnumValuesProvider instead
+    private static final Object UNKNOWN_VALUE = new Object();
+
+    private static final List<GraphQLDirective> BUILT_IN_DIRECTIVES = Arrays.asList(
+            Directives.IncludeDirective,
+            Directives.SkipDirective,
+            Directives.DeprecatedDirective,
+            Directives.SpecifiedByDirective);
+
+    // the kinds of types, in the order they are written
+    private static final byte SCALAR = 0;
+    private static final byte ENUM = 1;
+    private static final byte INPUT_OBJECT = 2;
+    private static final byte INTERFACE = 3;
+    private static final byte UNION = 4;
+    private static final byte OBJECT = 5;
+
+    // the wrapping of type references
+    private static final byte NAMED_TYPE = 0;
+    private static final byte LIST_TYPE = 1;
+    private static final byte NON_NULL_TYPE = 2;
+
+    // the kinds of values
+    private static final byte NULL = 0;
+    private static final byte BOOLEAN = 1;
+    private static final byte INT = 2;
+    private static final byte LONG = 3;
+    private static final byte FLOAT = 4;
+    private static final byte DOUBLE = 5;
+    private static final byte BIG_INTEGER = 6;
+    private static final byte BIG_DECIMAL = 7;
+    private static final byte STRING = 8;
+    private static final byte LIST = 9;
+    private static final byte MAP = 10;
+    // the value of an enum value, by enum type and value name
+    private static final byte ENUM_VALUE = 11;
+    // a custom scalar value, as the literal that it serializes to
+    private static final byte SCALAR_LITERAL = 12;
+    // an enum value whose value can not be written
+    private static final byte UNKNOWN = 13;
+
+    // the kinds of literals
+    private static final byte NULL_LITERAL = 0;
+    private static final byte BOOLEAN_LITERAL = 1;
+    private static final byte INT_LITERAL = 2;
+    private static final byte FLOAT_LITERAL = 3;
+    private static final byte STRING_LITERAL = 4;
+    private static final byte ENUM_LITERAL = 5;
+    private static final byte LIST_LITERAL = 6;
+    private static final byte OBJECT_LITERAL = 7;
+
+    /**
+     * Writes a snapshot of a schema
+     *
+     * @param schema the schema to write
+     * @param out    the stream to write to, which is flushed but not closed
+     * @throws IOException if the stream can not be written
+     */
+    public static void write(GraphQLSchema schema, OutputStream out) throws IOException {
+        DataOutputStream dataOut = new DataOutputStream(new BufferedOutputStream(out));
+        new SnapshotWriter(dataOut).writeSchema(assertNotNull(schema));
+        dataOut.flush();
+    }
+
+    /**
+     * Reads a schema back from a snapshot that was written by {@link #write(GraphQLSchema, OutputStream)}
+     *
+     * @param in            the stream to read from, which is not closed
+     * @param runtimeWiring the wiring that provides the data fetchers, type resolvers, scalars and field visibility
+     * @return the schema
+     * @throws IOException if the stream can not be read
+     */
+    public static GraphQLSchema read(InputStream in, RuntimeWiring runtimeWiring) throws IOException {
+        DataInputStream dataIn = new DataInputStream(new BufferedInputStream(in));
+        return new SnapshotReader(dataIn, assertNotNull(runtimeWiring)).readSchema();
+    }
+
+    private static class SnapshotWriter {
+        private final DataOutputStream out;
+        private final Map<String, Integer> strings = new HashMap<>();
+
+        private SnapshotWriter(DataOutputStream out) {
+            this.out = out;
+        }
+
+        private void writeSchema(GraphQLSchema schema) throws IOException {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            writeString(schema.getDescription());
+            writeString(schema.getQueryType().getName());
+            writeString(schema.getMutationType() != null ? schema.getMutationType().getName() : null);
+            writeString(schema.getSubscriptionType() != null ? schema.getSubscriptionType().getName() : null);
+
+            List<GraphQLNamedType> types = schema.getAllTypesAsList().stream()
+                    .filter(type -> !Introspection.isIntrospectionTypes(type))
+                    .sorted(Comparator.comparingInt(SnapshotWriter::kindOf))
+                    .collect(Collectors.toList());
+            writeEnumValues(types);
+            writeVarInt(types.size());
+            for (GraphQLNamedType type : types) {
+                writeType(type);
+            }
+            writeDirectives(schema.getDirectives());
+            writeDirectives(schema.getSchemaDirectives());
+        }
+
+        /*
+         * The values of all enums come first, so that the values of an enum type can be read back anywhere, even in the
+         * applied directives of an enum that is written before that enum type
+         */
+        private void writeEnumValues(List<GraphQLNamedType> types) throws IOException {
+            List<GraphQLEnumType> enumTypes = types.stream()
+                    .filter(type -> type instanceof GraphQLEnumType)
+                    .map(type -> (GraphQLEnumType) type)
+                    .collect(Collectors.toList());
+            writeVarInt(enumTypes.size());
+            for (GraphQLEnumType enumType : enumTypes) {
+                writeString(enumType.getName());
+                writeVarInt(enumType.getValues().size());
+                for (GraphQLEnumValueDefinition valueDefinition : enumType.getValues()) {
+                    writeString(valueDefinition.getName());
+                    if (!writePlainValue(valueDefinition.getValue())) {
+                        out.writeByte(UNKNOWN);
+                    }
+                }
+            }
+        }
+
+        private static byte kindOf(GraphQLNamedType type) {
+            if (type instanceof GraphQLScalarType) {
+                return SCALAR;
+            } else if (type instanceof GraphQLEnumType) {
+                return ENUM;
+            } else if (type instanceof GraphQLInputObjectType) {
+                return INPUT_OBJECT;
+            } else if (type instanceof GraphQLInterfaceType) {
+                return INTERFACE;
+            } else if (type instanceof GraphQLUnionType) {
+                return UNION;
+            } else if (type instanceof GraphQLObjectType) {
+                return OBJECT;
+            }
+            return assertShouldNeverHappen("Unexpected type %s", type);
+        }
+
+        private void writeType(GraphQLNamedType type) throws IOException {
+            out.writeByte(kindOf(type));
+            writeString(type.getName());
+            writeString(type.getDescription());
+            if (type instanceof GraphQLScalarType) {
+                GraphQLScalarType scalarType = (GraphQLScalarType) type;
+                writeString(scalarType.getSpecifiedByUrl());
+                writeDirectives(scalarType.getDirectives());
+            } else if (type instanceof GraphQLEnumType) {
+                GraphQLEnumType enumType = (GraphQLEnumType) type;
+                writeDirectives(enumType.getDirectives());
+                writeVarInt(enumType.getValues().size());
+                for (GraphQLEnumValueDefinition valueDefinition : enumType.getValues()) {
+                    writeString(valueDefinition.getName());
+                    writeString(valueDefinition.getDescription());
+                    writeString(valueDefinition.getDeprecationReason());
+                    writeDirectives(valueDefinition.getDirectives());
+                }
+            } else if (type instanceof GraphQLInputObjectType) {
+                GraphQLInputObjectType inputObjectType = (GraphQLInputObjectType) type;
+                writeDirectives(inputObjectType.getDirectives());
+                writeVarInt(inputObjectType.getFieldDefinitions().size());
+                for (GraphQLInputObjectField field : inputObjectType.getFieldDefinitions()) {
+                    writeString(field.getName());
+                    writeString(field.getDescription());
+                    writeTypeReference(field.getType());
+                    out.writeBoolean(field.hasSetDefaultValue());
+                    if (field.hasSetDefaultValue()) {
+                        writeValue(field.getDefaultValue(), field.getType());
+                    }
+                    writeDirectives(field.getDirectives());
+                }
+            } else if (type instanceof GraphQLInterfaceType) {
+                GraphQLInterfaceType interfaceType = (GraphQLInterfaceType) type;
+                writeDirectives(interfaceType.getDirectives());
+                writeNames(interfaceType.getInterfaces());
+                writeFields(interfaceType.getFieldDefinitions());
+            } else if (type instanceof GraphQLUnionType) {
+                GraphQLUnionType unionType = (GraphQLUnionType) type;
+                writeDirectives(unionType.getDirectives());
+                writeNames(unionType.getTypes());
+            } else {
+                GraphQLObjectType objectType = (GraphQLObjectType) type;
+                writeDirectives(objectType.getDirectives());
+                writeNames(objectType.getInterfaces());
+                writeFields(objectType.getFieldDefinitions());
+            }
+        }
+
+        private void writeNames(List<? extends GraphQLNamedOutputType> types) throws IOException {
+            writeVarInt(types.size());
+            for (GraphQLNamedOutputType type : types) {
+                writeString(type.getName());
+            }
+        }
+
+        private void writeFields(List<GraphQLFieldDefinition> fields) throws IOException {
+            writeVarInt(fields.size());
+            for (GraphQLFieldDefinition field : fields) {
+                writeString(field.getName());
+                writeString(field.getDescription());
+                writeString(field.getDeprecationReason());
+                writeTypeReference(field.getType());
+                writeArguments(field.getArguments());
+                writeDirectives(field.getDirectives());
+            }
+        }
+
+        private void writeArguments(List<GraphQLArgument> arguments) throws IOException {
+            writeVarInt(arguments.size());
+            for (GraphQLArgument argument : arguments) {
+                writeString(argument.getName());
+                writeString(argument.getDescription());
+                writeTypeReference(argument.getType());
+                out.writeBoolean(argument.hasSetDefaultValue());
+                if (argument.hasSetDefaultValue()) {
+                    writeValue(argument.getDefaultValue(), argument.getType());
+                }
+                writeValue(argument.getValue(), argument.getType());
+                writeDirectives(argument.getDirectives());
+            }
+        }
+
+        private void writeDirectives(List<GraphQLDirective> directives) throws IOException {
+            writeVarInt(directives.size());
+            for (GraphQLDirective directive : directives) {
+                writeString(directive.getName());
+                writeString(directive.getDescription());
+                writeVarInt(directive.validLocations().size());
+                for (DirectiveLocation location : directive.validLocations()) {
+                    writeString(location.name());
+                }
+                writeArguments(directive.getArguments());
+            }
+        }
+
+        private void writeTypeReference(GraphQLType type) throws IOException {
+            if (type instanceof GraphQLNonNull) {
+                out.writeByte(NON_NULL_TYPE);
+                writeTypeReference(((GraphQLNonNull) type).getWrappedType());
+            } else if (type instanceof GraphQLList) {
+                out.writeByte(LIST_TYPE);
+                writeTypeReference(((GraphQLList) type).getWrappedType());
+            } else {
+                out.writeByte(NAMED_TYPE);
+                writeString(((GraphQLNamedType) type).getName());
+            }
+        }
+
+        private void writeValue(Object value, GraphQLType type) throws IOException {
+            if (value == null) {
+                out.writeByte(NULL);
+                return;
+            }
+            if (type instanceof GraphQLNonNull) {
+                writeValue(value, ((GraphQLNonNull) type).getWrappedType());
+            } else if (type instanceof GraphQLList) {
+                GraphQLType wrappedType = ((GraphQLList) type).getWrappedType();
+                if (value instanceof Collection) {
+                    Collection<?> values = (Collection<?>) value;
+                    out.writeByte(LIST);
+                    writeVarInt(values.size());
+                    for (Object item : values) {
+                        writeValue(item, wrappedType);
+                    }
+                } else {
+                    writeValue(value, wrappedType);
+                }
+            } else if (type instanceof GraphQLEnumType) {
+                GraphQLEnumType enumType = (GraphQLEnumType) type;
+                GraphQLEnumValueDefinition valueDefinition = enumType.getValues().stream()
+                        .filter(definition -> value.equals(definition.getValue()))
+                        .findFirst()
+                        .orElse(enumType.getValue(value.toString()));
+                assertNotNull(valueDefinition, () -> String.format("The value '%s' is not a value of the enum %s", value, enumType.getName()));
+                out.writeByte(ENUM_VALUE);
+                writeString(enumType.getName());
+                writeString(valueDefinition.getName());
+            } else if (type instanceof GraphQLInputObjectType && value instanceof Map) {
+                GraphQLInputObjectType inputObjectType = (GraphQLInputObjectType) type;
+                Map<?, ?> map = (Map<?, ?>) value;
+                out.writeByte(MAP);
+                writeVarInt(map.size());
+                for (Map.Entry<?, ?> entry : map.entrySet()) {
+                    String key = String.valueOf(entry.getKey());
+                    GraphQLInputObjectField field = inputObjectType.getField(key);
+                    writeString(key);
+                    writeValue(entry.getValue(), field != null ? field.getType() : null);
+                }
+            } else if (type instanceof GraphQLScalarType && !ScalarInfo.isGraphqlSpecifiedScalar((GraphQLScalarType) type)) {
+                // custom scalars are written as the literal they serialize to and read back by the coercing of the wiring
+                out.writeByte(SCALAR_LITERAL);
+                writeString(((GraphQLScalarType) type).getName());
+                writeLiteral(AstValueHelper.astFromValue(value, type));
+            } else {
+                assertTrue(writePlainValue(value), () -> String.format("The value '%s' of type %s can not be written to a snapshot", value, value.getClass().getName()));
+            }
+        }
+
+        private boolean writePlainValue(Object value) throws IOException {
+            if (value == null) {
+                out.writeByte(NULL);
+            } else if (value instanceof Boolean) {
+                out.writeByte(BOOLEAN);
+                out.writeBoolean((Boolean) value);
+            } else if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+                out.writeByte(INT);
+                out.writeInt(((Number) value).intValue());
+            } else if (value instanceof Long) {
+                out.writeByte(LONG);
+                out.writeLong((Long) value);
+            } else if (value instanceof Float) {
+                out.writeByte(FLOAT);
+                out.writeFloat((Float) value);
+            } else if (value instanceof Double) {
+                out.writeByte(DOUBLE);
+                out.writeDouble((Double) value);
+            } else if (value instanceof BigInteger) {
+                out.writeByte(BIG_INTEGER);
+                writeString(value.toString());
+            } else if (value instanceof BigDecimal) {
+                out.writeByte(BIG_DECIMAL);
+                writeString(value.toString());
+            } else if (value instanceof String) {
+                out.writeByte(STRING);
+                writeString((String) value);
+            } else if (value instanceof Collection) {
+                Collection<?> values = (Collection<?>) value;
+                out.writeByte(LIST);
+                writeVarInt(values.size());
+                for (Object item : values) {
+                    writeValue(item, null);
+                }
+            } else if (value instanceof Map) {
+                Map<?, ?> map = (Map<?, ?>) value;
+                out.writeByte(MAP);
+                writeVarInt(map.size());
+                for (Map.Entry<?, ?> entry : map.entrySet()) {
+                    writeString(String.valueOf(entry.getKey()));
+                    writeValue(entry.getValue(), null);
+                }
+            } else {
+                return false;
+            }
+            return true;
+        }
+
+        private void writeLiteral(Value<?> literal) throws IOException {
+            if (literal instanceof NullValue) {
+                out.writeByte(NULL_LITERAL);
+            } else if (literal instanceof BooleanValue) {
+                out.writeByte(BOOLEAN_LITERAL);
+                out.writeBoolean(((BooleanValue) literal).isValue());
+            } else if (literal instanceof IntValue) {
+                out.writeByte(INT_LITERAL);
+                writeString(((IntValue) literal).getValue().toString());
+            } else if (literal instanceof FloatValue) {
+                out.writeByte(FLOAT_LITERAL);
+                writeString(((FloatValue) literal).getValue().toString());
+            } else if (literal instanceof StringValue) {
+                out.writeByte(STRING_LITERAL);
+                writeString(((StringValue) literal).getValue());
+            } else if (literal instanceof EnumValue) {
+                out.writeByte(ENUM_LITERAL);
+                writeString(((EnumValue) literal).getName());
+            } else if (literal instanceof ArrayValue) {
+                List<Value> values = ((ArrayValue) literal).getValues();
+                out.writeByte(LIST_LITERAL);
+                writeVarInt(values.size());
+                for (Value<?> value : values) {
+                    writeLiteral(value);
+                }
+            } else if (literal instanceof ObjectValue) {
+                List<ObjectField> fields = ((ObjectValue) literal).getObjectFields();
+                out.writeByte(OBJECT_LITERAL);
+                writeVarInt(fields.size());
+                for (ObjectField field : fields) {
+                    writeString(field.getName());
+                    writeLiteral(field.getValue());
+                }
+            } else {
+                assertShouldNeverHappen("Unexpected literal %s", literal);
+            }
+        }
+
+        /*
+         * Strings are written once and referred to by their index from then on, since names are repeated a lot
+         */
+        private void writeString(String string) throws IOException {
+            if (string == null) {
+                writeVarInt(0);
+                return;
+            }
+            Integer index = strings.get(string);
+            if (index != null) {
+                writeVarInt(index + 2);
+                return;
+            }
+            strings.put(string, strings.size());
+            byte[] bytes = string.getBytes(UTF_8);
+            writeVarInt(1);
+            writeVarInt(bytes.length);
+            out.write(bytes);
+        }
+
+        private void writeVarInt(int value) throws IOException {
+            while ((value & ~0x7f) != 0) {
+                out.writeByte((value & 0x7f) | 0x80);
+                value >>>= 7;
+            }
+            out.writeByte(value);
+        }
+    }
+
+    private static class SnapshotReader {
+        private final DataInputStream in;
+        private final RuntimeWiring runtimeWiring;
+        private final List<String> strings = new ArrayList<>();
+        // the values of the enum values, by enum type and then value name
+        private final Map<String, Map<String, Object>> enumValues = new HashMap<>();
+        private final GraphQLCodeRegistry.Builder codeRegistry;
+
+        private SnapshotReader(DataInputStream in, RuntimeWiring runtimeWiring) {
+            this.in = in;
+            this.runtimeWiring = runtimeWiring;
+            this.codeRegistry = GraphQLCodeRegistry.newCodeRegistry(runtimeWiring.getCodeRegistry())
+                    .fieldVisibility(runtimeWiring.getFieldVisibility());
+        }
+
+        private GraphQLSchema readSchema() throws IOException {
+            assertTrue(in.readInt() == MAGIC, () -> "The stream is not a schema snapshot");
+            assertTrue(in.readInt() == VERSION, () -> "The schema snapshot has an unsupported version");
+            String description = readString();
+            String queryTypeName = readString();
+            String mutationTypeName = readString();
+            String subscriptionTypeName = readString();
+
+            readEnumValues();
+            int typeCount = readVarInt();
+            Map<String, GraphQLNamedType> types = new LinkedHashMap<>();
+            for (int i = 0; i < typeCount; i++) {
+                GraphQLNamedType type = readType();
+                types.put(type.getName(), type);
+            }
+            List<GraphQLDirective> directives = readDirectives();
+            List<GraphQLDirective> schemaDirectives = readDirectives();
+
+            GraphQLSchema.Builder schema = GraphQLSchema.newSchema()
+                    .description(description)
+                    .query((GraphQLObjectType) types.get(queryTypeName))
+                    .mutation(mutationTypeName != null ? (GraphQLObjectType) types.get(mutationTypeName) : null)
+                    .subscription(subscriptionTypeName != null ? (GraphQLObjectType) types.get(subscriptionTypeName) : null)
+                    .additionalTypes(new LinkedHashSet<>(types.values()))
+                    .clearDirectives()
+                    .additionalDirectives(new LinkedHashSet<>(directives))
+                    .codeRegistry(codeRegistry.build());
+            for (GraphQLDirective schemaDirective : schemaDirectives) {
+                schema.withSchemaDirective(schemaDirective);
+            }
+            return schema.build();
+        }
+
+        private GraphQLNamedType readType() throws IOException {
+            byte kind = in.readByte();
+            String name = readString();
+            String description = readString();
+            switch (kind) {
+                case SCALAR:
+                    return readScalarType(name, description);
+                case ENUM:
+                    return readEnumType(name, description);
+                case INPUT_OBJECT:
+                    return readInputObjectType(name, description);
+                case INTERFACE:
+                    return readInterfaceType(name, description);
+                case UNION:
+                    return readUnionType(name, description);
+                case OBJECT:
+                    return readObjectType(name, description);
+                default:
+                    return assertShouldNeverHappen("Unexpected type kind %d in the schema snapshot", kind);
+            }
+        }
+
+        private void readEnumValues() throws IOException {
+            int enumCount = readVarInt();
+            for (int i = 0; i < enumCount; i++) {
+                String name = readString();
+                EnumValuesProvider enumValuesProvider = runtimeWiring.getEnumValuesProviders().get(name);
+                int valueCount = readVarInt();
+                Map<String, Object> values = new LinkedHashMap<>();
+                for (int j = 0; j < valueCount; j++) {
+                    String valueName = readString();
+                    Object value = readValue();
+                    if (enumValuesProvider != null) {
+                        value = enumValuesProvider.getValue(valueName);
+                    }
+                    assertTrue(value != UNKNOWN_VALUE, () -> String.format("The enum %s needs an EnumValuesProvider in the runtime wiring to give the value of %s", name, valueName));
+                    values.put(valueName, value);
+                }
+                enumValues.put(name, values);
+            }
+        }
+
+        private GraphQLScalarType readScalarType(String name, String description) throws IOException {
+            String specifiedByUrl = readString();
+            List<GraphQLDirective> directives = readDirectives();
+            GraphQLScalarType scalarType = getScalarType(name);
+            if (ScalarInfo.isGraphqlSpecifiedScalar(scalarType)) {
+                return scalarType;
+            }
+            return scalarType.transform(builder -> builder
+                    .description(description)
+                    .specifiedByUrl(specifiedByUrl)
+                    .replaceDirectives(directives));
+        }
+
+        private GraphQLScalarType getScalarType(String name) {
+            GraphQLScalarType scalarType = runtimeWiring.getScalars().get(name);
+            return assertNotNull(scalarType, () -> String.format("The scalar %s is not in the runtime wiring", name));
+        }
+
+        private GraphQLEnumType readEnumType(String name, String description) throws IOException {
+            GraphQLEnumType.Builder builder = GraphQLEnumType.newEnum()
+                    .name(name)
+                    .description(description)
+                    .replaceDirectives(readDirectives());
+            Map<String, Object> values = enumValues.get(name);
+            int valueCount = readVarInt();
+            for (int i = 0; i < valueCount; i++) {
+                String valueName = readString();
+                builder.value(GraphQLEnumValueDefinition.newEnumValueDefinition()
+                        .name(valueName)
+                        .description(readString())
+                        .deprecationReason(readString())
+                        .replaceDirectives(readDirectives())
+                        .value(values.get(valueName))
+                        .build());
+            }
+            return builder.build();
+        }
+
+        private GraphQLInputObjectType readInputObjectType(String name, String description) throws IOException {
+            GraphQLInputObjectType.Builder builder = GraphQLInputObjectType.newInputObject()
+                    .name(name)
+                    .description(description)
+                    .replaceDirectives(readDirectives());
+            int fieldCount = readVarInt();
+            for (int i = 0; i < fieldCount; i++) {
+                GraphQLInputObjectField.Builder field = GraphQLInputObjectField.newInputObjectField()
+                        .name(readString())
+                        .description(readString())
+                        .type((GraphQLInputType) readTypeReference());
+                if (in.readBoolean()) {
+                    field.defaultValue(readValue());
+                }
+                builder.field(field
+                        .replaceDirectives(readDirectives())
+                        .build());
+            }
+            return builder.build();
+        }
+
+        private GraphQLInterfaceType readInterfaceType(String name, String description) throws IOException {
+            GraphQLInterfaceType.Builder builder = GraphQLInterfaceType.newInterface()
+                    .name(name)
+                    .description(description)
+                    .replaceDirectives(readDirectives());
+            int interfaceCount = readVarInt();
+            for (int i = 0; i < interfaceCount; i++) {
+                builder.withInterface(GraphQLTypeReference.typeRef(readString()));
+            }
+            GraphQLInterfaceType interfaceType = builder.replaceFields(readFields()).build();
+            wireTypeResolver(name);
+            wireDataFetchers(interfaceType);
+            return interfaceType;
+        }
+
+        private GraphQLUnionType readUnionType(String name, String description) throws IOException {
+            GraphQLUnionType.Builder builder = GraphQLUnionType.newUnionType()
+                    .name(name)
+                    .description(description)
+                    .replaceDirectives(readDirectives());
+            int typeCount = readVarInt();
+            for (int i = 0; i < typeCount; i++) {
+                builder.possibleType(GraphQLTypeReference.typeRef(readString()));
+            }
+            wireTypeResolver(name);
+            return builder.build();
+        }
+
+        private GraphQLObjectType readObjectType(String name, String description) throws IOException {
+            GraphQLObjectType.Builder builder = GraphQLObjectType.newObject()
+                    .name(name)
+                    .description(description)
+                    .replaceDirectives(readDirectives());
+            int interfaceCount = readVarInt();
+            for (int i = 0; i < interfaceCount; i++) {
+                builder.withInterface(GraphQLTypeReference.typeRef(readString()));
+            }
+            GraphQLObjectType objectType = builder.replaceFields(readFields()).build();
+            wireDataFetchers(objectType);
+            return objectType;
+        }
+
+        private void wireTypeResolver(String typeName) {
+            TypeResolver typeResolver = runtimeWiring.getTypeResolvers().get(typeName);
+            if (typeResolver != null) {
+                codeRegistry.typeResolver(typeName, typeResolver);
+            } else if (!codeRegistry.hasTypeResolver(typeName)) {
+                codeRegistry.typeResolver(typeName, new TypeResolverProxy());
+            }
+        }
+
+        private void wireDataFetchers(GraphQLFieldsContainer fieldsContainer) {
+            String typeName = fieldsContainer.getName();
+            Map<String, DataFetcher> dataFetchers = runtimeWiring.getDataFetchers().get(typeName);
+            DataFetcher<?> defaultDataFetcher = runtimeWiring.getDefaultDataFetcherForType(typeName);
+            for (GraphQLFieldDefinition fieldDefinition : fieldsContainer.getFieldDefinitions()) {
+                FieldCoordinates coordinates = FieldCoordinates.coordinates(typeName, fieldDefinition.getName());
+                // data fetchers that are already in the code registry of the wiring are left alone
+                if (codeRegistry.hasDataFetcher(coordinates)) {
+                    continue;
+                }
+                DataFetcher<?> dataFetcher = dataFetchers != null ? dataFetchers.get(fieldDefinition.getName()) : null;
+                if (dataFetcher == null) {
+                    dataFetcher = defaultDataFetcher;
+                }
+                if (dataFetcher != null) {
+                    codeRegistry.dataFetcher(coordinates, dataFetcher);
+                }
+            }
+        }
+
+        private List<GraphQLFieldDefinition> readFields() throws IOException {
+            int fieldCount = readVarInt();
+            List<GraphQLFieldDefinition> fields = new ArrayList<>(fieldCount);
+            for (int i = 0; i < fieldCount; i++) {
+                fields.add(GraphQLFieldDefinition.newFieldDefinition()
+                        .name(readString())
+                        .description(readString())
+                        .deprecate(readString())
+                        .type((GraphQLOutputType) readTypeReference())
+                        .arguments(readArguments())
+                        .replaceDirectives(readDirectives())
+                        .build());
+            }
+            return fields;
+        }
+
+        private List<GraphQLArgument> readArguments() throws IOException {
+            int argumentCount = readVarInt();
+            List<GraphQLArgument> arguments = new ArrayList<>(argumentCount);
+            for (int i = 0; i < argumentCount; i++) {
+                GraphQLArgument.Builder builder = GraphQLArgument.newArgument()
+                        .name(readString())
+                        .description(readString())
+                        .type((GraphQLInputType) readTypeReference());
+                if (in.readBoolean()) {
+                    builder.defaultValue(readValue());
+                }
+                arguments.add(builder
+                        .value(readValue())
+                        .replaceDirectives(readDirectives())
+                        .build());
+            }
+            return arguments;
+        }
+
+        private List<GraphQLDirective> readDirectives() throws IOException {
+            int directiveCount = readVarInt();
+            List<GraphQLDirective> directives = new ArrayList<>(directiveCount);
+            for (int i = 0; i < directiveCount; i++) {
+                GraphQLDirective.Builder builder = GraphQLDirective.newDirective()
+                        .name(readString())
+                        .description(readString());
+                int locationCount = readVarInt();
+                for (int j = 0; j < locationCount; j++) {
+                    builder.validLocation(DirectiveLocation.valueOf(readString()));
+                }
+                GraphQLDirective directive = builder.replaceArguments(readArguments()).build();
+                directives.add(builtInDirective(directive));
+            }
+            return directives;
+        }
+
+        private GraphQLDirective builtInDirective(GraphQLDirective directive) {
+            // the built in directive definitions are shared rather than read back as copies
+            for (GraphQLDirective builtInDirective : BUILT_IN_DIRECTIVES) {
+                if (builtInDirective.getName().equals(directive.getName()) && directive.getArguments().stream().allMatch(argument -> argument.getValue() == null)) {
+                    return builtInDirective;
+                }
+            }
+            return directive;
+        }
+
+        private GraphQLType readTypeReference() throws IOException {
+            byte wrapping = in.readByte();
+            switch (wrapping) {
+                case NON_NULL_TYPE:
+                    return GraphQLNonNull.nonNull(readTypeReference());
+                case LIST_TYPE:
+                    return GraphQLList.list(readTypeReference());
+                case NAMED_TYPE:
+                    return GraphQLTypeReference.typeRef(readString());
+                default:
+                    return assertShouldNeverHappen("Unexpected type wrapping %d in the schema snapshot", wrapping);
+            }
+        }
+
+        private Object readValue() throws IOException {
+            byte kind = in.readByte();
+            switch (kind) {
+                case NULL:
+                    return null;
+                case BOOLEAN:
+                    return in.readBoolean();
+                case INT:
+                    return in.readInt();
+                case LONG:
+                    return in.readLong();
+                case FLOAT:
+                    return in.readFloat();
+                case DOUBLE:
+                    return in.readDouble();
+                case BIG_INTEGER:
+                    return new BigInteger(readString());
+                case BIG_DECIMAL:
+                    return new BigDecimal(readString());
+                case STRING:
+                    return readString();
+                case LIST:
+                    int size = readVarInt();
+                    List<Object> values = new ArrayList<>(size);
+                    for (int i = 0; i < size; i++) {
+                        values.add(readValue());
+                    }
+                    return values;
+                case MAP:
+                    int fieldCount = readVarInt();
+                    Map<String, Object> map = new LinkedHashMap<>();
+                    for (int i = 0; i < fieldCount; i++) {
+                        map.put(readString(), readValue());
+                    }
+                    return map;
+                case ENUM_VALUE:
+                    String enumName = readString();
+                    String valueName = readString();
+                    Map<String, Object> valuesByName = enumValues.get(enumName);
+                    assertTrue(valuesByName != null && valuesByName.containsKey(valueName), () -> String.format("The value %s of the enum %s is not in the schema snapshot", valueName, enumName));
+                    return valuesByName.get(valueName);
+                case SCALAR_LITERAL:
+                    GraphQLScalarType scalarType = getScalarType(readString());
+                    return scalarType.getCoercing().parseLiteral(readLiteral());
+                case UNKNOWN:
+                    return UNKNOWN_VALUE;
+                default:
+                    return assertShouldNeverHappen("Unexpected value kind %d in the schema snapshot", kind);
+            }
+        }
+
+        private Value<?> readLiteral() throws IOException {
+            byte kind = in.readByte();
+            switch (kind) {
+                case NULL_LITERAL:
+                    return NullValue.newNullValue().build();
+                case BOOLEAN_LITERAL:
+                    return BooleanValue.newBooleanValue(in.readBoolean()).build();
+                case INT_LITERAL:
+                    return IntValue.newIntValue(new BigInteger(readString())).build();
+                case FLOAT_LITERAL:
+                    return FloatValue.newFloatValue(new BigDecimal(readString())).build();
+                case STRING_LITERAL:
+                    return StringValue.newStringValue(readString()).build();
+                case ENUM_LITERAL:
+                    return EnumValue.newEnumValue(readString()).build();
+                case LIST_LITERAL:
+                    int size = readVarInt();
+                    ArrayValue.Builder arrayValue = ArrayValue.newArrayValue();
+                    for (int i = 0; i < size; i++) {
+                        arrayValue.value(readLiteral());
+                    }
+                    return arrayValue.build();
+                case OBJECT_LITERAL:
+                    int fieldCount = readVarInt();
+                    ObjectValue.Builder objectValue = ObjectValue.newObjectValue();
+                    for (int i = 0; i < fieldCount; i++) {
+                        objectValue.objectField(ObjectField.newObjectField().name(readString()).value(readLiteral()).build());
+                    }
+                    return objectValue.build();
+                default:
+                    return assertShouldNeverHappen("Unexpected literal kind %d in the schema snapshot", kind);
+            }
+        }
+
+        private String readString() throws IOException {
+            int index = readVarInt();
+            if (index == 0) {
+                return null;
+            }
+            if (index > 1) {
+                return strings.get(index - 2);
+            }
+            byte[] bytes = new byte[readVarInt()];
+            in.readFully(bytes);
+            String string = new String(bytes, UTF_8);
+            strings.add(string);
+            return string;
+        }
+
+        private int readVarInt() throws IOException {
+            int value = 0;
+            for (int shift = 0; ; shift += 7) {
+                byte b = in.readByte();
+                value |= (b & 0x7f) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+        }
+    }
+}
@@ -23,10 +23,12 @@ import graphql.validation.ValidationContext;
 import graphql.validation.ValidationErrorCollector;
 
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
-import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 
 import static graphql.schema.GraphQLTypeUtil.isEnum;
@@ -43,12 +45,20 @@ import static java.lang.String.format;
 
 /**
  * See http://facebook.github.io/graphql/June2018/#sec-Field-Selection-Merging
+ * <p>
+ * Every selection set of a document is checked, along with the selection sets of its fragments, so the same fields and
+ * fragments are met again and again in documents that spread many fragments.  The fields and fragment spreads of each
+ * selection set are therefore only collected from the AST once, fragment spreads are compared with the fields and
+ * fragments next to them rather than expanded into the selection set, each pair of fragments is only compared once per
+ * document and each pair of fields is only compared once per document.
  */
 @Internal
 public class OverlappingFieldsCanBeMerged extends AbstractRule {
 
 
-    private final List<FieldPair> alreadyChecked = new ArrayList<>();
+    private final Set<FieldPair> alreadyChecked = new HashSet<>();
+    private final Set<FragmentPair> comparedFragmentPairs = new HashSet<>();
+    private final Map<SelectionSetAndType, FieldsAndFragments> fieldsAndFragments = new HashMap<>();
 
     public OverlappingFieldsCanBeMerged(ValidationContext validationContext, ValidationErrorCollector validationErrorCollector) {
         super(validationContext, validationErrorCollector);
@@ -56,53 +66,146 @@ public class OverlappingFieldsCanBeMerged extends AbstractRule {
 
     @Override
     public void leaveSelectionSet(SelectionSet selectionSet) {
-        Map<String, List<FieldAndType>> fieldMap = new LinkedHashMap<>();
-        Set<String> visitedFragmentSpreads = new LinkedHashSet<>();
-        collectFields(fieldMap, selectionSet, getValidationContext().getOutputType(), visitedFragmentSpreads);
-        List<Conflict> conflicts = findConflicts(fieldMap);
+        List<Conflict> conflicts = findConflictsWithinSelectionSet(selectionSet, getValidationContext().getOutputType());
         for (Conflict conflict : conflicts) {
             addError(FieldsConflict, conflict.fields, conflict.reason);
         }
     }
 
-    private List<Conflict> findConflicts(Map<String, List<FieldAndType>> fieldMap) {
-        List<Conflict> result = new ArrayList<>();
-        for (String name : fieldMap.keySet()) {
-            List<FieldAndType> fieldAndTypes = fieldMap.get(name);
+    private List<Conflict> findConflictsWithinSelectionSet(SelectionSet selectionSet, GraphQLType parentType) {
+        List<Conflict> conflicts = new ArrayList<>();
+        FieldsAndFragments fieldsAndFragments = getFieldsAndFragments(selectionSet, parentType);
+        for (String responseName : fieldsAndFragments.fieldMap.keySet()) {
+            List<FieldAndType> fieldAndTypes = fieldsAndFragments.fieldMap.get(responseName);
             for (int i = 0; i < fieldAndTypes.size(); i++) {
                 for (int j = i + 1; j < fieldAndTypes.size(); j++) {
-                    Conflict conflict = findConflict(name, fieldAndTypes.get(i), fieldAndTypes.get(j));
-                    if (conflict != null) {
-                        result.add(conflict);
-                    }
+                    addConflict(conflicts, findConflict(responseName, fieldAndTypes.get(i), fieldAndTypes.get(j), false));
                 }
             }
         }
-        return result;
+        for (Map.Entry<String, Integer> fragmentSpread : fieldsAndFragments.fragmentSpreads.entrySet()) {
+            collectConflictsBetweenFieldsAndFragment(conflicts, false, fieldsAndFragments.fieldMap,
+                    fragmentSpread.getKey(), fragmentSpread.getValue(), new HashSet<>());
+        }
+        List<String> fragmentNames = new ArrayList<>(fieldsAndFragments.fragmentSpreads.keySet());
+        for (int i = 0; i < fragmentNames.size(); i++) {
+            for (int j = i + 1; j < fragmentNames.size(); j++) {
+                collectConflictsBetweenFragments(conflicts, false, fragmentNames.get(i), fragmentNames.get(j));
+            }
+        }
+        return conflicts;
     }
 
-    private boolean isAlreadyChecked(Field field1, Field field2) {
-        for (FieldPair fieldPair : alreadyChecked) {
-            if (fieldPair.field1 == field1 && fieldPair.field2 == field2) {
-                return true;
+    private List<Conflict> findConflictsBetweenSubSelectionSets(boolean mutuallyExclusive,
+                                                                GraphQLType parentTypeA, SelectionSet selectionSetA,
+                                                                GraphQLType parentTypeB, SelectionSet selectionSetB) {
+        List<Conflict> conflicts = new ArrayList<>();
+        FieldsAndFragments fieldsAndFragmentsA = getFieldsAndFragments(selectionSetA, parentTypeA);
+        FieldsAndFragments fieldsAndFragmentsB = getFieldsAndFragments(selectionSetB, parentTypeB);
+        collectConflictsBetween(conflicts, mutuallyExclusive, fieldsAndFragmentsA.fieldMap, fieldsAndFragmentsB.fieldMap, Integer.MAX_VALUE);
+        for (String fragmentName : fieldsAndFragmentsB.fragmentSpreads.keySet()) {
+            collectConflictsBetweenFieldsAndFragment(conflicts, mutuallyExclusive, fieldsAndFragmentsA.fieldMap,
+                    fragmentName, Integer.MAX_VALUE, new HashSet<>());
+        }
+        // the fragments of the first selection set come before the fields of the second
+        for (String fragmentName : fieldsAndFragmentsA.fragmentSpreads.keySet()) {
+            collectConflictsBetweenFieldsAndFragment(conflicts, mutuallyExclusive, fieldsAndFragmentsB.fieldMap,
+                    fragmentName, -1, new HashSet<>());
+        }
+        for (String fragmentNameA : fieldsAndFragmentsA.fragmentSpreads.keySet()) {
+            for (String fragmentNameB : fieldsAndFragmentsB.fragmentSpreads.keySet()) {
+                collectConflictsBetweenFragments(conflicts, mutuallyExclusive, fragmentNameA, fragmentNameB);
             }
-            if (fieldPair.field1 == field2 && fieldPair.field2 == field1) {
-                return true;
+        }
+        return conflicts;
+    }
+
+    /*
+     * Compares the fields with those of the fragment and of the fragments it spreads.  The fields that come before the
+     * fragment spread in the document are the first field of each compared pair, so that conflicts are reported in
+     * document order.
+     */
+    private void collectConflictsBetweenFieldsAndFragment(List<Conflict> conflicts, boolean mutuallyExclusive,
+                                                          Map<String, List<FieldAndType>> fieldMap, String fragmentName,
+                                                          int fragmentSpreadPosition, Set<String> visitedFragments) {
+        if (!visitedFragments.add(fragmentName)) {
+            return;
+        }
+        FieldsAndFragments fragment = getFragmentFieldsAndFragments(fragmentName);
+        if (fragment == null || fragment.fieldMap == fieldMap) {
+            return;
+        }
+        collectConflictsBetween(conflicts, mutuallyExclusive, fieldMap, fragment.fieldMap, fragmentSpreadPosition);
+        for (String referencedFragmentName : fragment.fragmentSpreads.keySet()) {
+            collectConflictsBetweenFieldsAndFragment(conflicts, mutuallyExclusive, fieldMap, referencedFragmentName,
+                    fragmentSpreadPosition, visitedFragments);
+        }
+    }
+
+    private void collectConflictsBetweenFragments(List<Conflict> conflicts, boolean mutuallyExclusive, String fragmentNameA, String fragmentNameB) {
+        if (fragmentNameA.equals(fragmentNameB)) {
+            return;
+        }
+        // a pair that has been compared without the parents being mutually exclusive has been checked for every conflict
+        if (comparedFragmentPairs.contains(new FragmentPair(fragmentNameA, fragmentNameB, false))
+                || !comparedFragmentPairs.add(new FragmentPair(fragmentNameA, fragmentNameB, mutuallyExclusive))) {
+            return;
+        }
+        FieldsAndFragments fragmentA = getFragmentFieldsAndFragments(fragmentNameA);
+        FieldsAndFragments fragmentB = getFragmentFieldsAndFragments(fragmentNameB);
+        if (fragmentA == null || fragmentB == null) {
+            return;
+        }
+        collectConflictsBetween(conflicts, mutuallyExclusive, fragmentA.fieldMap, fragmentB.fieldMap, Integer.MAX_VALUE);
+        for (String referencedFragmentName : fragmentB.fragmentSpreads.keySet()) {
+            collectConflictsBetweenFragments(conflicts, mutuallyExclusive, fragmentNameA, referencedFragmentName);
+        }
+        for (String referencedFragmentName : fragmentA.fragmentSpreads.keySet()) {
+            collectConflictsBetweenFragments(conflicts, mutuallyExclusive, referencedFragmentName, fragmentNameB);
+        }
+    }
+
+    /*
+     * Compares the fields of two field maps that have the same response name.  Fields of the first map that are
+     * positioned before the given position are the first field of the compared pair, the others are the second.
+     */
+    private void collectConflictsBetween(List<Conflict> conflicts, boolean mutuallyExclusive,
+                                         Map<String, List<FieldAndType>> fieldMapA, Map<String, List<FieldAndType>> fieldMapB,
+                                         int positionB) {
+        for (String responseName : fieldMapA.keySet()) {
+            List<FieldAndType> fieldAndTypesB = fieldMapB.get(responseName);
+            if (fieldAndTypesB == null) {
+                continue;
+            }
+            for (FieldAndType fieldAndTypeA : fieldMapA.get(responseName)) {
+                for (FieldAndType fieldAndTypeB : fieldAndTypesB) {
+                    if (fieldAndTypeA.position < positionB) {
+                        addConflict(conflicts, findConflict(responseName, fieldAndTypeA, fieldAndTypeB, mutuallyExclusive));
+                    } else {
+                        addConflict(conflicts, findConflict(responseName, fieldAndTypeB, fieldAndTypeA, mutuallyExclusive));
+                    }
+                }
             }
         }
-        return false;
+    }
+
+    private void addConflict(List<Conflict> conflicts, Conflict conflict) {
+        if (conflict != null) {
+            conflicts.add(conflict);
+        }
     }
 
     @SuppressWarnings("ConstantConditions")
-    private Conflict findConflict(String responseName, FieldAndType fieldAndTypeA, FieldAndType fieldAndTypeB) {
+    private Conflict findConflict(String responseName, FieldAndType fieldAndTypeA, FieldAndType fieldAndTypeB, boolean parentFieldsAreMutuallyExclusive) {
 
         Field fieldA = fieldAndTypeA.field;
         Field fieldB = fieldAndTypeB.field;
 
-        if (isAlreadyChecked(fieldA, fieldB)) {
+        // a pair that has been compared without the parents being mutually exclusive has been checked for every conflict
+        if (alreadyChecked.contains(new FieldPair(fieldA, fieldB, false))
+                || !alreadyChecked.add(new FieldPair(fieldA, fieldB, parentFieldsAreMutuallyExclusive))) {
             return null;
         }
-        alreadyChecked.add(new FieldPair(fieldA, fieldB));
 
         String fieldNameA = fieldA.getName();
         String fieldNameB = fieldB.getName();
@@ -129,34 +232,31 @@ public class OverlappingFieldsCanBeMerged extends AbstractRule {
         // different Object types. Interface or Union types might overlap - if not
         // in the current state of the schema, then perhaps in some future version,
         // thus may not safely diverge.
-        if (!sameType(fieldAndTypeA.parentType, fieldAndTypeB.parentType) &&
-                fieldAndTypeA.parentType instanceof GraphQLObjectType &&
-                fieldAndTypeB.parentType instanceof GraphQLObjectType) {
-            return null;
-        }
-
-        if (!fieldNameA.equals(fieldNameB)) {
-            String reason = format("%s: %s and %s are different fields", responseName, fieldNameA, fieldNameB);
-            return new Conflict(responseName, reason, fieldA, fieldB);
-        }
-
-        if (!sameType(typeA, typeB)) {
-            return mkNotSameTypeError(responseName, fieldA, fieldB, typeA, typeB);
-        }
+        // Their sub selections must still have the same shape though.
+        boolean mutuallyExclusive = parentFieldsAreMutuallyExclusive ||
+                (!sameType(fieldAndTypeA.parentType, fieldAndTypeB.parentType) &&
+                        fieldAndTypeA.parentType instanceof GraphQLObjectType &&
+                        fieldAndTypeB.parentType instanceof GraphQLObjectType);
+
+        if (!mutuallyExclusive) {
+            if (!fieldNameA.equals(fieldNameB)) {
+                String reason = format("%s: %s and %s are different fields", responseName, fieldNameA, fieldNameB);
+                return new Conflict(responseName, reason, fieldA, fieldB);
+            }
 
+            if (!sameType(typeA, typeB)) {
+                return mkNotSameTypeError(responseName, fieldA, fieldB, typeA, typeB);
+            }
 
-        if (!sameArguments(fieldA.getArguments(), fieldB.getArguments())) {
-            String reason = format("%s: they have differing arguments", responseName);
-            return new Conflict(responseName, reason, fieldA, fieldB);
+            if (!sameArguments(fieldA.getArguments(), fieldB.getArguments())) {
+                String reason = format("%s: they have differing arguments", responseName);
+                return new Conflict(responseName, reason, fieldA, fieldB);
+            }
         }
         SelectionSet selectionSet1 = fieldA.getSelectionSet();
         SelectionSet selectionSet2 = fieldB.getSelectionSet();
         if (selectionSet1 != null && selectionSet2 != null) {
-            Set<String> visitedFragmentSpreads = new LinkedHashSet<>();
-            Map<String, List<FieldAndType>> subFieldMap = new LinkedHashMap<>();
-            collectFields(subFieldMap, selectionSet1, typeA, visitedFragmentSpreads);
-            collectFields(subFieldMap, selectionSet2, typeB, visitedFragmentSpreads);
-            List<Conflict> subConflicts = findConflicts(subFieldMap);
+            List<Conflict> subConflicts = findConflictsBetweenSubSelectionSets(mutuallyExclusive, typeA, selectionSet1, typeB, selectionSet2);
             if (subConflicts.size() > 0) {
                 String reason = format("%s: %s", responseName, joinReasons(subConflicts));
                 List<Field> fields = new ArrayList<>();
@@ -284,47 +384,52 @@ public class OverlappingFieldsCanBeMerged extends AbstractRule {
         return null;
     }
 
-    private void collectFields(Map<String, List<FieldAndType>> fieldMap, SelectionSet selectionSet, GraphQLType parentType, Set<String> visitedFragmentSpreads) {
+    private FieldsAndFragments getFragmentFieldsAndFragments(String fragmentName) {
+        FragmentDefinition fragment = getValidationContext().getFragment(fragmentName);
+        if (fragment == null) {
+            return null;
+        }
+        GraphQLType graphQLType = TypeFromAST.getTypeFromAST(getValidationContext().getSchema(),
+                fragment.getTypeCondition());
+        return getFieldsAndFragments(fragment.getSelectionSet(), graphQLType);
+    }
+
+    /*
+     * The fields of a selection set, including those of its inline fragments, and the names of the fragments it
+     * spreads, along with where they are in the selection set.
+     */
+    private FieldsAndFragments getFieldsAndFragments(SelectionSet selectionSet, GraphQLType parentType) {
+        SelectionSetAndType key = new SelectionSetAndType(selectionSet, parentType);
+        FieldsAndFragments result = fieldsAndFragments.get(key);
+        if (result == null) {
+            result = new FieldsAndFragments();
+            collectSelections(result, selectionSet, parentType);
+            fieldsAndFragments.put(key, result);
+        }
+        return result;
+    }
 
+    private void collectSelections(FieldsAndFragments result, SelectionSet selectionSet, GraphQLType parentType) {
         for (Selection selection : selectionSet.getSelections()) {
             if (selection instanceof Field) {
-                collectFieldsForField(fieldMap, parentType, (Field) selection);
+                FieldAndType fieldAndType = collectFieldAndType(parentType, (Field) selection, result.selectionCount++);
+                result.fieldMap.computeIfAbsent(fieldAndType.responseName, k -> new ArrayList<>()).add(fieldAndType);
 
             } else if (selection instanceof InlineFragment) {
-                collectFieldsForInlineFragment(fieldMap, visitedFragmentSpreads, parentType, (InlineFragment) selection);
+                InlineFragment inlineFragment = (InlineFragment) selection;
+                GraphQLType graphQLType = inlineFragment.getTypeCondition() != null
+                        ? TypeFromAST.getTypeFromAST(getValidationContext().getSchema(), inlineFragment.getTypeCondition())
+                        : parentType;
+                collectSelections(result, inlineFragment.getSelectionSet(), graphQLType);
 
             } else if (selection instanceof FragmentSpread) {
-                collectFieldsForFragmentSpread(fieldMap, visitedFragmentSpreads, (FragmentSpread) selection);
+                result.fragmentSpreads.putIfAbsent(((FragmentSpread) selection).getName(), result.selectionCount++);
             }
         }
     }
 
-    private void collectFieldsForFragmentSpread(Map<String, List<FieldAndType>> fieldMap, Set<String> visitedFragmentSpreads, FragmentSpread fragmentSpread) {
-        FragmentDefinition fragment = getValidationContext().getFragment(fragmentSpread.getName());
-        if (fragment == null) {
-            return;
-        }
-        if (visitedFragmentSpreads.contains(fragment.getName())) {
-            return;
-        }
-        visitedFragmentSpreads.add(fragment.getName());
-        GraphQLType graphQLType = TypeFromAST.getTypeFromAST(getValidationContext().getSchema(),
-                fragment.getTypeCondition());
-        collectFields(fieldMap, fragment.getSelectionSet(), graphQLType, visitedFragmentSpreads);
-    }
-
-    private void collectFieldsForInlineFragment(Map<String, List<FieldAndType>> fieldMap, Set<String> visitedFragmentSpreads, GraphQLType parentType, InlineFragment inlineFragment) {
-        GraphQLType graphQLType = inlineFragment.getTypeCondition() != null
-                ? TypeFromAST.getTypeFromAST(getValidationContext().getSchema(), inlineFragment.getTypeCondition())
-                : parentType;
-        collectFields(fieldMap, inlineFragment.getSelectionSet(), graphQLType, visitedFragmentSpreads);
-    }
-
-    private void collectFieldsForField(Map<String, List<FieldAndType>> fieldMap, GraphQLType parentType, Field field) {
+    private FieldAndType collectFieldAndType(GraphQLType parentType, Field field, int position) {
         String responseName = field.getAlias() != null ? field.getAlias() : field.getName();
-        if (!fieldMap.containsKey(responseName)) {
-            fieldMap.put(responseName, new ArrayList<>());
-        }
         GraphQLOutputType fieldType = null;
         GraphQLUnmodifiedType unwrappedParent = unwrapAll(parentType);
         if (unwrappedParent instanceof GraphQLFieldsContainer) {
@@ -332,7 +437,7 @@ public class OverlappingFieldsCanBeMerged extends AbstractRule {
             GraphQLFieldDefinition fieldDefinition = getVisibleFieldDefinition(fieldsContainer, field);
             fieldType = fieldDefinition != null ? fieldDefinition.getType() : null;
         }
-        fieldMap.get(responseName).add(new FieldAndType(field, fieldType, parentType));
+        return new FieldAndType(responseName, field, fieldType, parentType, position);
     }
 
     private GraphQLFieldDefinition getVisibleFieldDefinition(GraphQLFieldsContainer fieldsContainer, Field field) {
@@ -342,13 +447,91 @@ public class OverlappingFieldsCanBeMerged extends AbstractRule {
     private static class FieldPair {
         final Field field1;
         final Field field2;
+        final boolean mutuallyExclusive;
 
-        public FieldPair(Field field1, Field field2) {
+        public FieldPair(Field field1, Field field2, boolean mutuallyExclusive) {
             this.field1 = field1;
             this.field2 = field2;
+            this.mutuallyExclusive = mutuallyExclusive;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof FieldPair)) {
+                return false;
+            }
+            // fields are compared by identity and the pair has no order
+            FieldPair that = (FieldPair) o;
+            return mutuallyExclusive == that.mutuallyExclusive &&
+                    ((field1 == that.field1 && field2 == that.field2) || (field1 == that.field2 && field2 == that.field1));
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(field1) + System.identityHashCode(field2) + (mutuallyExclusive ? 1 : 0);
+        }
+    }
+
+    private static class FragmentPair {
+        final String fragmentName1;
+        final String fragmentName2;
+        final boolean mutuallyExclusive;
+
+        public FragmentPair(String fragmentName1, String fragmentName2, boolean mutuallyExclusive) {
+            this.fragmentName1 = fragmentName1;
+            this.fragmentName2 = fragmentName2;
+            this.mutuallyExclusive = mutuallyExclusive;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof FragmentPair)) {
+                return false;
+            }
+            // the pair has no order
+            FragmentPair that = (FragmentPair) o;
+            return mutuallyExclusive == that.mutuallyExclusive &&
+                    ((fragmentName1.equals(that.fragmentName1) && fragmentName2.equals(that.fragmentName2)) ||
+                            (fragmentName1.equals(that.fragmentName2) && fragmentName2.equals(that.fragmentName1)));
+        }
+
+        @Override
+        public int hashCode() {
+            return fragmentName1.hashCode() + fragmentName2.hashCode() + (mutuallyExclusive ? 1 : 0);
         }
     }
 
+    private static class SelectionSetAndType {
+        final SelectionSet selectionSet;
+        final GraphQLType parentType;
+
+        public SelectionSetAndType(SelectionSet selectionSet, GraphQLType parentType) {
+            this.selectionSet = selectionSet;
+            this.parentType = parentType;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof SelectionSetAndType)) {
+                return false;
+            }
+            SelectionSetAndType that = (SelectionSetAndType) o;
+            return selectionSet == that.selectionSet && Objects.equals(parentType, that.parentType);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * System.identityHashCode(selectionSet) + Objects.hashCode(parentType);
+        }
+    }
+
+    private static class FieldsAndFragments {
+        final Map<String, List<FieldAndType>> fieldMap = new LinkedHashMap<>();
+        // the names of the spread fragments and their position amongst the selections
+        final Map<String, Integer> fragmentSpreads = new LinkedHashMap<>();
+        int selectionCount;
+    }
+
     private static class Conflict {
         final String responseName;
         final String reason;
@@ -371,14 +554,18 @@ public class OverlappingFieldsCanBeMerged extends AbstractRule {
 
 
     private static class FieldAndType {
+        final String responseName;
         final Field field;
         final GraphQLType graphQLType;
         final GraphQLType parentType;
+        final int position;
 
-        public FieldAndType(Field field, GraphQLType graphQLType, GraphQLType parentType) {
+        public FieldAndType(String responseName, Field field, GraphQLType graphQLType, GraphQLType parentType, int position) {
+            this.responseName = responseName;
             this.field = field;
             this.graphQLType = graphQLType;
             this.parentType = parentType;
+            this.position = position;
         }
     }
 }
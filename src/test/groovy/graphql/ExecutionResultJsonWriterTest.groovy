@@ -0,0 +1,129 @@
+package graphql
+
+import com.fasterxml.jackson.databind.ObjectMapper
+import graphql.language.SourceLocation
+import graphql.schema.DataFetcher
+import org.reactivestreams.Publisher
+import spock.lang.Specification
+
+class ExecutionResultJsonWriterTest extends Specification {
+
+    def writer = new ExecutionResultJsonWriter()
+    def objectMapper = new ObjectMapper()
+
+    def "writes data, errors and extensions in specification order"() {
+        def error = GraphqlErrorBuilder.newError()
+                .message("bad \"thing\"")
+                .location(new SourceLocation(1, 2))
+                .path(["a", 0])
+                .build()
+        def result = ExecutionResultImpl.newExecutionResult()
+                .data([hero: [name: "R2-D2", friends: [[name: "Luke"], null], height: 1.5d, ships: 3, droid: true]])
+                .addError(error)
+                .addExtension("cost", 12)
+                .build()
+
+        when:
+        def json = writer.writeAsString(result)
+
+        then:
+        json.startsWith('{"errors":[')
+        json.indexOf('"data"') < json.lastIndexOf('"extensions"')
+        objectMapper.readValue(json, Map) == result.toSpecification()
+    }
+
+    def "data is left out when it is not present"() {
+        def result = new ExecutionResultImpl(GraphqlErrorBuilder.newError().message("parse error").build())
+
+        when:
+        def json = writer.writeAsString(result)
+
+        then:
+        json == '{"errors":[{"message":"parse error","locations":[],"extensions":{"classification":"DataFetchingException"}}]}'
+    }
+
+    def "null data is written when data is present"() {
+        when:
+        def json = writer.writeAsString(new ExecutionResultImpl(null, []))
+
+        then:
+        json == '{"data":null}'
+    }
+
+    def "strings are escaped"() {
+        def value = "quote\" backslash\\ newline\n tab\t control\u0001 separator  unicode é"
+
+        when:
+        def json = writer.writeAsString(new ExecutionResultImpl([s: value], []))
+
+        then:
+        json == '{"data":{"s":"quote\\" backslash\\\\ newline\\n tab\\t control\\u0001 separator\\u2028 unicode é"}}'
+        objectMapper.readValue(json, Map) == [data: [s: value]]
+    }
+
+    def "non finite numbers, arrays and other objects are written"() {
+        def data = [nan: Double.NaN, inf: Float.POSITIVE_INFINITY, big: new BigDecimal("1.10"), array: [1, 2] as int[], other: new URI("http://x")]
+
+        when:
+        def json = writer.writeAsString(new ExecutionResultImpl(data, []))
+
+        then:
+        json == '{"data":{"nan":null,"inf":null,"big":1.10,"array":[1,2],"other":"http://x"}}'
+    }
+
+    def "publisher extensions are left out and publisher data is rejected"() {
+        def publisher = { subscriber -> } as Publisher
+        def result = ExecutionResultImpl.newExecutionResult()
+                .data([a: 1])
+                .addExtension("deferredResults", publisher)
+                .addExtension("cost", 2)
+                .build()
+
+        expect:
+        writer.writeAsString(result) == '{"data":{"a":1},"extensions":{"cost":2}}'
+
+        when:
+        writer.writeAsString(new ExecutionResultImpl(publisher, []))
+
+        then:
+        thrown(AssertException)
+    }
+
+    def "graphql can execute straight to json"() {
+        def schema = TestUtil.schema("type Query { hello : String }", [Query: [hello: { env -> "world" } as DataFetcher]])
+        def graphQL = GraphQL.newGraphQL(schema).build()
+        def out = new StringWriter()
+
+        when:
+        def result = graphQL.executeAsync(ExecutionInput.newExecutionInput("{ hello }").build(), out).join()
+
+        then:
+        result.data == [hello: "world"]
+        out.toString() == '{"data":{"hello":"world"}}'
+    }
+
+    def "io exceptions complete the execution exceptionally"() {
+        def schema = TestUtil.schema("type Query { hello : String }", [Query: [hello: { env -> "world" } as DataFetcher]])
+        def graphQL = GraphQL.newGraphQL(schema).build()
+        def out = new Writer() {
+            @Override
+            void write(char[] cbuf, int off, int len) throws IOException {
+                throw new IOException("closed")
+            }
+
+            @Override
+            void flush() throws IOException {
+            }
+
+            @Override
+            void close() throws IOException {
+            }
+        }
+
+        when:
+        def result = graphQL.executeAsync(ExecutionInput.newExecutionInput("{ hello }").build(), out)
+
+        then:
+        result.isCompletedExceptionally()
+    }
+}
@@ -0,0 +1,138 @@
+package graphql
+
+import graphql.execution.instrumentation.SimpleInstrumentation
+import graphql.execution.instrumentation.parameters.InstrumentationExecutionParameters
+import graphql.execution.preparsed.BoundedPreparsedDocumentProvider
+import graphql.execution.preparsed.persisted.ApolloPersistedQuerySupport
+import graphql.execution.preparsed.persisted.InMemoryPersistedQueryCache
+import graphql.schema.GraphQLSchema
+import graphql.validation.ValidationError
+import spock.lang.Specification
+
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+
+import static graphql.execution.preparsed.persisted.PersistedQuerySupport.PERSISTED_QUERY_MARKER
+
+class GraphQLWarmUpTest extends Specification {
+
+    def executor = Executors.newFixedThreadPool(4)
+
+    def cleanup() {
+        executor.shutdownNow()
+    }
+
+    def "warming up fills the preparsed document provider"() {
+        def provider = BoundedPreparsedDocumentProvider.newBoundedPreparsedDocumentProvider().build()
+        def graphQL = GraphQL.newGraphQL(StarWarsSchema.starWarsSchema)
+                .preparsedDocumentProvider(provider)
+                .build()
+        def queries = [
+                "{ hero { name } }",
+                "query HeroAndFriends { hero { name friends { name } } }",
+                "query Human(\$id : String!) { human(id : \$id) { name homePlanet } }"
+        ]
+
+        when:
+        def result = graphQL.warmUp(queries.collect { ExecutionInput.newExecutionInput(it).build() }, normalize, executor)
+                .get(10, TimeUnit.SECONDS)
+
+        then:
+        result.operationCount == 3
+        result.failureCount == 0
+        result.errors.isEmpty()
+        result.totalOperationTime >= result.maxOperationTime
+        result.maxOperationTime > 0
+        provider.size() == 3
+        provider.missCount == 3
+
+        when:
+        def executionResult = graphQL.execute("{ hero { name } }")
+
+        then:
+        executionResult.data == [hero: [name: "R2-D2"]]
+        provider.hitCount == 1
+        provider.missCount == 3
+
+        where:
+        normalize << [false, true]
+    }
+
+    def "warming up goes through the same instrumentation and normalized query tree cache as executions"() {
+        def provider = BoundedPreparsedDocumentProvider.newBoundedPreparsedDocumentProvider().build()
+        def instrumentedInputs = []
+        def instrumentedSchemas = []
+        def instrumentation = new SimpleInstrumentation() {
+            @Override
+            ExecutionInput instrumentExecutionInput(ExecutionInput executionInput, InstrumentationExecutionParameters parameters) {
+                instrumentedInputs << executionInput.query
+                executionInput.transform({ builder -> builder.variables([id: "1000"]) })
+            }
+
+            @Override
+            GraphQLSchema instrumentSchema(GraphQLSchema schema, InstrumentationExecutionParameters parameters) {
+                instrumentedSchemas << schema
+                schema
+            }
+        }
+        def graphQL = GraphQL.newGraphQL(StarWarsSchema.starWarsSchema)
+                .preparsedDocumentProvider(provider)
+                .instrumentation(instrumentation)
+                .build()
+        def query = 'query Human($id : String!) { human(id : $id) { name } }'
+
+        when:
+        def result = graphQL.warmUp([ExecutionInput.newExecutionInput(query).build()], true, executor).get(10, TimeUnit.SECONDS)
+        def entry = provider.getDocument(ExecutionInput.newExecutionInput(query).build(), { throw new IllegalStateException() })
+
+        then:
+        result.failureCount == 0
+        instrumentedInputs == [query]
+        instrumentedSchemas == [StarWarsSchema.starWarsSchema]
+        entry.executionPlan.normalizedQueryTrees.size() == 1
+    }
+
+    def "operations that fail to parse or validate are counted"() {
+        def graphQL = GraphQL.newGraphQL(StarWarsSchema.starWarsSchema).build()
+        def executionInputs = [
+                ExecutionInput.newExecutionInput("{ hero { name } }").build(),
+                ExecutionInput.newExecutionInput("{ hero { name ").build(),
+                ExecutionInput.newExecutionInput("{ hero { unknownField } }").build()
+        ]
+
+        when:
+        def result = graphQL.warmUp(executionInputs, true, executor).get(10, TimeUnit.SECONDS)
+
+        then:
+        result.operationCount == 3
+        result.failureCount == 2
+        result.errors.size() == 2
+        result.errors.any { it instanceof InvalidSyntaxError }
+        result.errors.any { it instanceof ValidationError }
+    }
+
+    def "persisted queries can be warmed up by their id"() {
+        def persistedQueryCache = InMemoryPersistedQueryCache.newInMemoryPersistedQueryCache()
+                .addQuery("hash123", "{ hero { name } }")
+                .build()
+        def graphQL = GraphQL.newGraphQL(StarWarsSchema.starWarsSchema)
+                .preparsedDocumentProvider(new ApolloPersistedQuerySupport(persistedQueryCache))
+                .build()
+        def executionInput = ExecutionInput.newExecutionInput(PERSISTED_QUERY_MARKER)
+                .extensions([persistedQuery: [sha256Hash: "hash123"]])
+                .build()
+
+        when:
+        def result = graphQL.warmUp([executionInput], true, executor).get(10, TimeUnit.SECONDS)
+
+        then:
+        result.operationCount == 1
+        result.failureCount == 0
+
+        when:
+        def executionResult = graphQL.execute(executionInput)
+
+        then:
+        executionResult.data == [hero: [name: "R2-D2"]]
+    }
+}
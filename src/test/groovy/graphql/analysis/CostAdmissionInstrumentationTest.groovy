@@ -0,0 +1,343 @@
+package graphql.analysis
+
+import graphql.Directives
+import graphql.ExecutionInput
+import graphql.ExecutionResult
+import graphql.GraphQL
+import graphql.TestUtil
+import graphql.execution.AsyncExecutionStrategy
+import graphql.execution.ExecutionContext
+import graphql.execution.ExecutionStrategyParameters
+import graphql.execution.NonNullableFieldWasNullException
+import graphql.execution.defer.DeferredExecutionResult
+import graphql.execution.preparsed.TestingPreparsedDocumentProvider
+import graphql.execution.pubsub.CapturingSubscriber
+import graphql.schema.DataFetcher
+import graphql.schema.GraphQLSchema
+import graphql.schema.idl.RuntimeWiring
+import org.awaitility.Awaitility
+import org.reactivestreams.Publisher
+import spock.lang.Specification
+
+import java.time.Duration
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+import java.util.function.LongSupplier
+
+import static graphql.schema.idl.TypeRuntimeWiring.newTypeWiring
+
+class CostAdmissionInstrumentationTest extends Specification {
+
+    def release = new CompletableFuture<String>()
+    def later = new CompletableFuture<String>()
+
+    GraphQLSchema schema = GraphQLSchema.newSchema(TestUtil.schema("""
+            type Query {
+                slow : String
+                foo : Foo
+            }
+            type Foo {
+                a : String
+                b : String
+                later : String
+            }
+        """, RuntimeWiring.newRuntimeWiring()
+            .type(newTypeWiring("Query")
+                    .dataFetcher("slow", { env -> release } as DataFetcher)
+                    .dataFetcher("foo", { env -> [a: "a", b: "b"] } as DataFetcher))
+            .type(newTypeWiring("Foo")
+                    .dataFetcher("later", { env -> later } as DataFetcher))))
+            .additionalDirective(Directives.DeferDirective)
+            .build()
+
+    GraphQL graphQL(CostAdmissionInstrumentation instrumentation) {
+        GraphQL.newGraphQL(schema)
+                .instrumentation(instrumentation)
+                .preparsedDocumentProvider(new TestingPreparsedDocumentProvider())
+                .build()
+    }
+
+    static ExecutionInput input(String query, String client) {
+        ExecutionInput.newExecutionInput(query).context(client).build()
+    }
+
+    def "the cost of an operation is taken from the budget while it executes"() {
+        def budget = new CostBudget(3)
+        def graphQL = graphQL(CostAdmissionInstrumentation.newCostAdmissionInstrumentation().costBudget(budget).build())
+
+        when:
+        def slow = graphQL.executeAsync(input("{ slow }", null))
+
+        then:
+        !slow.isDone()
+        budget.getInFlightCost() == 1
+
+        when:
+        def rejected = graphQL.execute(input("{ foo { a b } }", null))
+        def admitted = graphQL.execute(input("{ foo { a } }", null))
+
+        then:
+        rejected.errors.collect { it.message } == ["query cost budget exceeded, the query costs 3 of a budget of 3"]
+        rejected.data == null
+        admitted.errors.isEmpty()
+        admitted.data == [foo: [a: "a"]]
+        budget.getInFlightCost() == 1
+
+        when:
+        release.complete("done")
+
+        then:
+        slow.join().data == [slow: "done"]
+        budget.getInFlightCost() == 0
+        graphQL.execute(input("{ foo { a b } }", null)).errors.isEmpty()
+        budget.getInFlightCost() == 0
+    }
+
+    def "operations that do not fit wait for the budget up to the max queue time without blocking a thread"() {
+        def budget = new CostBudget(3)
+        def graphQL = graphQL(CostAdmissionInstrumentation.newCostAdmissionInstrumentation()
+                .costBudget(budget, Duration.ofSeconds(10))
+                .build())
+
+        when:
+        def slow = graphQL.executeAsync(input("{ slow }", null))
+        def waiting = graphQL.executeAsync(input("{ foo { a b } }", null))
+
+        then:
+        !waiting.isDone()
+        budget.getQueueLength() == 1
+
+        when:
+        release.complete("done")
+
+        then:
+        waiting.get(10, TimeUnit.SECONDS).data == [foo: [a: "a", b: "b"]]
+        slow.join().errors.isEmpty()
+        budget.getInFlightCost() == 0
+        budget.getQueueLength() == 0
+    }
+
+    def "waiting operations are rejected after the max queue time"() {
+        def budget = new CostBudget(3)
+        def graphQL = graphQL(CostAdmissionInstrumentation.newCostAdmissionInstrumentation()
+                .costBudget(budget, Duration.ofMillis(20))
+                .build())
+        budget.tryAcquire(2)
+
+        when:
+        def rejected = graphQL.executeAsync(input("{ foo { a b } }", null)).get(10, TimeUnit.SECONDS)
+
+        then:
+        rejected.errors.collect { it.message } == ["query cost budget exceeded, the query costs 3 of a budget of 3"]
+        rejected.data == null
+        budget.getInFlightCost() == 2
+        budget.getQueueLength() == 0
+    }
+
+    def "waits for the budget are promises that end after the max queue time"() {
+        def budget = new CostBudget(2)
+
+        expect:
+        budget.tryAcquire(2)
+        !budget.acquire(1, Duration.ofMillis(20)).get(10, TimeUnit.SECONDS)
+        budget.getQueueLength() == 0
+        !budget.acquire(3, Duration.ofSeconds(10)).join()
+
+        when:
+        def waiting = budget.acquire(1, Duration.ofSeconds(10))
+
+        then:
+        !waiting.isDone()
+
+        when:
+        budget.release(2)
+
+        then:
+        waiting.join()
+        budget.getInFlightCost() == 1
+    }
+
+    def "the cost is given back when the execution strategy throws"() {
+        def budget = new CostBudget(3)
+        def strategy = new AsyncExecutionStrategy() {
+            @Override
+            CompletableFuture<ExecutionResult> execute(ExecutionContext executionContext, ExecutionStrategyParameters parameters) throws NonNullableFieldWasNullException {
+                throw new IllegalStateException("strategy failed")
+            }
+        }
+        def graphQL = GraphQL.newGraphQL(schema)
+                .instrumentation(CostAdmissionInstrumentation.newCostAdmissionInstrumentation().costBudget(budget).build())
+                .queryExecutionStrategy(strategy)
+                .build()
+
+        when:
+        graphQL.execute(input("{ foo { a b } }", null))
+
+        then:
+        thrown(IllegalStateException)
+        budget.getInFlightCost() == 0
+    }
+
+    def "the cost of an operation with deferred fields is given back once those have been fetched"() {
+        def budget = new CostBudget(10)
+        def graphQL = graphQL(CostAdmissionInstrumentation.newCostAdmissionInstrumentation().costBudget(budget).build())
+
+        when:
+        def result = graphQL.execute(input("{ foo { a ... @defer { later } } }", null))
+
+        then:
+        result.errors.isEmpty()
+        result.data == [foo: [a: "a"]]
+        budget.getInFlightCost() == 3
+
+        when:
+        def subscriber = new CapturingSubscriber<DeferredExecutionResult>()
+        (result.extensions[GraphQL.DEFERRED_RESULTS] as Publisher<DeferredExecutionResult>).subscribe(subscriber)
+        later.complete("later")
+        Awaitility.await().untilTrue(subscriber.isDone())
+
+        then:
+        subscriber.events.collect { it.data } == [[later: "later"]]
+        budget.getInFlightCost() == 0
+    }
+
+    def "the budget holds under concurrent load"() {
+        def budget = new CostBudget(10)
+        def inFlight = new AtomicInteger()
+        def maxInFlight = new AtomicInteger()
+        def executor = Executors.newFixedThreadPool(8)
+        def start = new CountDownLatch(1)
+
+        when:
+        def futures = (1..200).collect { i ->
+            CompletableFuture.supplyAsync({
+                start.await()
+                int cost = 1 + i % 4
+                if (!budget.acquire(cost, Duration.ofSeconds(10)).join()) {
+                    return false
+                }
+                int current = inFlight.addAndGet(cost)
+                maxInFlight.accumulateAndGet(current, { a, b -> Math.max(a, b) })
+                Thread.yield()
+                inFlight.addAndGet(-cost)
+                budget.release(cost)
+                return true
+            }, executor)
+        }
+        start.countDown()
+        def admitted = futures.collect { it.get(30, TimeUnit.SECONDS) }
+
+        then:
+        admitted.every { it }
+        maxInFlight.get() <= 10
+        budget.getInFlightCost() == 0
+        budget.getQueueLength() == 0
+
+        cleanup:
+        executor.shutdownNow()
+    }
+
+    def "clients can only spend so much cost per second"() {
+        long now = 0
+        def rateLimiter = new CostRateLimiter(2, 4, { now } as LongSupplier)
+        def graphQL = graphQL(CostAdmissionInstrumentation.newCostAdmissionInstrumentation()
+                .clientRateLimit({ input -> input.getContext() }, rateLimiter)
+                .build())
+
+        expect:
+        graphQL.execute(input("{ foo { a b } }", "alice")).errors.isEmpty()
+        graphQL.execute(input("{ foo { a } }", "alice")).errors.collect { it.message } == ["query cost rate limit exceeded, the query costs 2"]
+        // the limit is per client and a request without a client key is not limited
+        graphQL.execute(input("{ foo { a b } }", "bob")).errors.isEmpty()
+        graphQL.execute(input("{ foo { a b } }", null)).errors.isEmpty()
+        graphQL.execute(input("{ foo { a b } }", null)).errors.isEmpty()
+
+        when:
+        now += TimeUnit.SECONDS.toNanos(1)
+
+        then:
+        graphQL.execute(input("{ foo { a } }", "alice")).errors.isEmpty()
+        !rateLimiter.tryAcquire("alice", 2)
+        rateLimiter.tryAcquire("alice", 1)
+        !rateLimiter.tryAcquire("carol", 5)
+        rateLimiter.tryAcquire("carol", 4)
+    }
+
+    def "operations rejected by the budget do not count against the rate of the client"() {
+        long now = 0
+        def rateLimiter = new CostRateLimiter(1, 4, { now } as LongSupplier)
+        def budget = new CostBudget(4)
+        def graphQL = graphQL(CostAdmissionInstrumentation.newCostAdmissionInstrumentation()
+                .costBudget(budget)
+                .clientRateLimit({ input -> input.getContext() }, rateLimiter)
+                .build())
+        budget.tryAcquire(3)
+
+        expect:
+        graphQL.execute(input("{ foo { a b } }", "alice")).errors.collect { it.message } == ["query cost budget exceeded, the query costs 3 of a budget of 4"]
+        graphQL.execute(input("{ foo { a b } }", "alice")).errors.collect { it.message } == ["query cost budget exceeded, the query costs 3 of a budget of 4"]
+
+        when:
+        budget.release(3)
+
+        then:
+        graphQL.execute(input("{ foo { a b } }", "alice")).errors.isEmpty()
+        rateLimiter.tryAcquire("alice", 1)
+        !rateLimiter.tryAcquire("alice", 1)
+    }
+
+    def "buckets that are full again are dropped once the number of clients has doubled"() {
+        long now = 0
+        def rateLimiter = new CostRateLimiter(1, 2, { now } as LongSupplier)
+
+        when:
+        (1..10_001).each { rateLimiter.tryAcquire("client" + it, 1) }
+
+        then:
+        rateLimiter.fullAtByClient.size() == 10_001
+
+        when:
+        now += TimeUnit.SECONDS.toNanos(1)
+        rateLimiter.tryAcquire("active", 2)
+        (1..10).each { rateLimiter.tryAcquire("more" + it, 1) }
+
+        then:
+        rateLimiter.fullAtByClient.size() == 11
+        rateLimiter.removeFullBucketsAbove == 10_000
+        !rateLimiter.tryAcquire("active", 1)
+
+        when:
+        // none of these buckets are full, so the number of clients doubles before every sweep
+        (1..30_000).each { rateLimiter.tryAcquire("busy" + it, 2) }
+
+        then:
+        rateLimiter.fullAtByClient.size() == 30_011
+        rateLimiter.removeFullBucketsAbove == 40_006
+    }
+
+    def "operations that hold on to a dropped bucket are charged to a new one"() {
+        long now = 0
+        def rateLimiter = new CostRateLimiter(1, 2, { now } as LongSupplier)
+        (1..10_001).each { rateLimiter.tryAcquire("client" + it, 1) }
+        def dropped = rateLimiter.fullAtByClient.get("client1")
+
+        when:
+        now += TimeUnit.SECONDS.toNanos(1)
+        rateLimiter.tryAcquire("new", 1)
+
+        then:
+        !rateLimiter.fullAtByClient.containsKey("client1")
+        dropped.get() == Long.MIN_VALUE
+
+        when: "an operation puts the dropped bucket back, say because it looked it up before it was dropped"
+        rateLimiter.fullAtByClient.put("client1", dropped)
+
+        then:
+        rateLimiter.tryAcquire("client1", 2)
+        !rateLimiter.tryAcquire("client1", 1)
+        rateLimiter.fullAtByClient.get("client1") != dropped
+    }
+}
@@ -0,0 +1,205 @@
+package graphql.analysis
+
+import graphql.ExecutionInput
+import graphql.GraphQL
+import graphql.GraphQLError
+import graphql.TestUtil
+import graphql.execution.instrumentation.ChainedInstrumentation
+import graphql.execution.instrumentation.fieldvalidation.FieldValidation
+import graphql.execution.instrumentation.fieldvalidation.FieldValidationEnvironment
+import graphql.execution.preparsed.TestingPreparsedDocumentProvider
+import graphql.schema.GraphQLSchema
+import spock.lang.Specification
+
+import java.util.function.Function
+
+class QueryAnalysisInstrumentationTest extends Specification {
+
+    GraphQLSchema schema = TestUtil.schema("""
+            type Query {
+                foo(limit : Int) : Foo
+                bar : String
+            }
+            type Foo {
+                scalar : String
+                foo(limit : Int) : Foo
+            }
+        """)
+
+    def query = '''
+            query q($limit : Int, $skip : Boolean!) {
+                foo(limit : $limit) {
+                    ...F
+                    foo { scalar @skip(if : $skip) foo { scalar } }
+                }
+                bar
+                __typename
+            }
+            fragment F on Foo { scalar f: foo(limit : 2) { scalar } }
+        '''
+
+    def calculatorCalls = 0
+    FieldComplexityCalculator calculator = { env, childComplexity ->
+        calculatorCalls++
+        (env.getArguments()["limit"] ?: 1) * (1 + childComplexity)
+    } as FieldComplexityCalculator
+
+    GraphQL graphQL(instrumentation) {
+        GraphQL.newGraphQL(schema)
+                .instrumentation(instrumentation)
+                .preparsedDocumentProvider(new TestingPreparsedDocumentProvider())
+                .build()
+    }
+
+    static ExecutionInput input(String query, Map<String, Object> variables) {
+        ExecutionInput.newExecutionInput(query).variables(variables).build()
+    }
+
+    def "depth and complexity are the same as with the separate instrumentations"() {
+        def depths = []
+        def complexities = []
+        def combined = QueryAnalysisInstrumentation.newQueryAnalysisInstrumentation()
+                .maxDepth(0, { info -> depths << info.depth; false } as Function)
+                .maxComplexity(0, calculator, { info -> complexities << info.complexity; false } as Function)
+                .build()
+        def separate = new ChainedInstrumentation([
+                new MaxQueryDepthInstrumentation(0, { info -> depths << info.depth; false } as Function),
+                new MaxQueryComplexityInstrumentation(0, calculator, { info -> complexities << info.complexity; false } as Function)
+        ])
+
+        when:
+        def combinedResult = graphQL(combined).execute(input(query, variables))
+        def separateResult = graphQL(separate).execute(input(query, variables))
+
+        then:
+        combinedResult.errors.isEmpty()
+        separateResult.errors.isEmpty()
+        depths.size() == 2
+        depths[0] == depths[1]
+        depths[0] == depth
+        complexities.size() == 2
+        complexities[0] == complexities[1]
+
+        where:
+        variables                   | depth
+        [limit: 3, skip: false]     | 4
+        [limit: 5, skip: true]      | 4
+    }
+
+    def "execution is aborted when the query is too deep or too complex"() {
+        when:
+        def result = graphQL(instrumentation).execute(input(query, [limit: 3, skip: false]))
+
+        then:
+        result.errors.size() == 1
+        result.errors[0].message == message
+        result.data == null
+
+        where:
+        instrumentation                                                                              | message
+        QueryAnalysisInstrumentation.newQueryAnalysisInstrumentation().maxDepth(3).build()           | "maximum query depth exceeded 4 > 3"
+        QueryAnalysisInstrumentation.newQueryAnalysisInstrumentation().maxComplexity(5).build()      | "maximum query complexity exceeded 9 > 5"
+    }
+
+    def "the analysis is reused for the same document and variable values"() {
+        def complexities = []
+        def instrumentation = QueryAnalysisInstrumentation.newQueryAnalysisInstrumentation()
+                .maxComplexity(100, calculator, { info -> complexities << info.complexity; true } as Function)
+                .build()
+        def graphQL = graphQL(instrumentation)
+
+        when:
+        def first = graphQL.execute(input(query, [limit: 3, skip: false]))
+        def calls = calculatorCalls
+        def second = graphQL.execute(input(query, [limit: 3, skip: false]))
+
+        then:
+        first.errors.isEmpty()
+        second.errors.isEmpty()
+        calls > 0
+        calculatorCalls == calls
+
+        when:
+        def third = graphQL.execute(input(query, [limit: 50, skip: false]))
+        def fourth = graphQL.execute(input(query, [limit: 50, skip: false]))
+
+        then:
+        calculatorCalls == 2 * calls
+        third.errors[0].message.startsWith("maximum query complexity exceeded")
+        fourth.errors[0].message == third.errors[0].message
+        complexities.size() == 2
+    }
+
+    def "field validation is called for every request with the fields that have arguments"() {
+        def validatedPaths = []
+        def instrumentation = QueryAnalysisInstrumentation.newQueryAnalysisInstrumentation()
+                .fieldValidation(new FieldValidation() {
+                    @Override
+                    List<GraphQLError> validateFields(FieldValidationEnvironment env) {
+                        validatedPaths << env.getFields().collect { it.getPath().toString() }
+                        def limit = env.getFields()[0].getArgumentValue("limit")
+                        limit > 10 ? [env.mkError("limit too large", env.getFields()[0])] : []
+                    }
+                })
+                .build()
+        def graphQL = graphQL(instrumentation)
+
+        when:
+        def first = graphQL.execute(input(query, [limit: 3, skip: false]))
+        def second = graphQL.execute(input(query, [limit: 3, skip: false]))
+        def third = graphQL.execute(input(query, [limit: 20, skip: false]))
+
+        then:
+        first.errors.isEmpty()
+        second.errors.isEmpty()
+        third.errors.collect { it.message } == ["limit too large"]
+        validatedPaths.size() == 3
+        validatedPaths[0] == ["/foo", "/foo/foo"]
+        validatedPaths[1] == validatedPaths[0]
+    }
+
+    def "added visitors are run in the same traversal for every request"() {
+        def entered = []
+        def left = []
+        def instrumentation = QueryAnalysisInstrumentation.newQueryAnalysisInstrumentation()
+                .maxComplexity(100, calculator)
+                .visitor(new QueryVisitorStub() {
+                    @Override
+                    void visitField(QueryVisitorFieldEnvironment env) {
+                        entered << env.getField().getName()
+                    }
+
+                    @Override
+                    void visitFragmentSpread(QueryVisitorFragmentSpreadEnvironment env) {
+                        entered << "..." + env.getFragmentSpread().getName()
+                    }
+                })
+                .postOrderVisitor(new QueryVisitorStub() {
+                    @Override
+                    void visitField(QueryVisitorFieldEnvironment env) {
+                        left << env.getField().getName()
+                    }
+                })
+                .build()
+        def graphQL = graphQL(instrumentation)
+
+        when:
+        def first = graphQL.execute(input(query, [limit: 3, skip: true]))
+        def calls = calculatorCalls
+
+        then:
+        first.errors.isEmpty()
+        entered == ["foo", "...F", "scalar", "foo", "scalar", "foo", "foo", "scalar", "bar", "__typename"]
+        left == ["scalar", "scalar", "foo", "scalar", "foo", "foo", "foo", "bar", "__typename"]
+        calls > 0
+
+        when:
+        def second = graphQL.execute(input(query, [limit: 3, skip: true]))
+
+        then:
+        second.errors.isEmpty()
+        entered.size() == 20
+        left.size() == 18
+        calculatorCalls == 2 * calls
+    }
+}
@@ -115,4 +115,64 @@ class CacheControlTest extends Specification {
                 ]
         ]
     }
+
+    def "works out the overall policy of a response"() {
+        def cc = CacheControl.newCacheControl()
+        cc.hint(ResultPath.parse("/hero"), 60)
+        cc.hint(ResultPath.parse("/villain"), 30)
+        cc.hint(ResultPath.parse("/hero/friends"), 90)
+
+        def er = ExecutionResultImpl.newExecutionResult().data([hero: [:], villain: [:]]).build()
+
+        when:
+        def policy = cc.getOverallPolicy(er)
+
+        then:
+        policy == new CachePolicy(30, CacheControl.Scope.PUBLIC)
+        policy.isCacheable()
+
+        when:
+        cc.hint(ResultPath.parse("/hero/secret"), CacheControl.Scope.PRIVATE)
+
+        then:
+        cc.getOverallPolicy(er) == new CachePolicy(30, CacheControl.Scope.PRIVATE)
+    }
+
+    def "responses with top level fields without max age hints are not cacheable"() {
+        def cc = CacheControl.newCacheControl()
+        cc.hint(ResultPath.parse("/hero"), 60)
+        cc.hint(ResultPath.parse("/villain"), CacheControl.Scope.PUBLIC)
+
+        expect:
+        cc.getOverallPolicy(ExecutionResultImpl.newExecutionResult().data([hero: [:], villain: [:]]).build()) == CachePolicy.NOT_CACHEABLE
+        cc.getOverallPolicy(ExecutionResultImpl.newExecutionResult().data([hero: [:]]).build()).getMaxAge() == 60
+        !cc.getOverallPolicy(ExecutionResultImpl.newExecutionResult().data(null).build()).isCacheable()
+    }
+
+    def "nested fields that hold objects need their own max age hints"() {
+        def cc = CacheControl.newCacheControl()
+        cc.hint(ResultPath.parse("/hero"), 60)
+        def data = [hero: [name: "luke", friends: [[name: "leia"], [name: "han"]]]]
+
+        expect:
+        cc.getOverallPolicy(ExecutionResultImpl.newExecutionResult().data(data).build()) == CachePolicy.NOT_CACHEABLE
+
+        when:
+        cc.hint(ResultPath.parse("/hero/friends"), 30)
+
+        then: "the scalar fields of the hinted objects take on their max age"
+        cc.getOverallPolicy(ExecutionResultImpl.newExecutionResult().data(data).build()) == new CachePolicy(30, CacheControl.Scope.PUBLIC)
+
+        when:
+        data.hero.friends[1].homeworld = [name: "corellia"]
+
+        then:
+        cc.getOverallPolicy(ExecutionResultImpl.newExecutionResult().data(data).build()) == CachePolicy.NOT_CACHEABLE
+
+        when:
+        cc.hint(ResultPath.parse("/hero/friends[1]/homeworld"), 10)
+
+        then:
+        cc.getOverallPolicy(ExecutionResultImpl.newExecutionResult().data(data).build()) == new CachePolicy(10, CacheControl.Scope.PUBLIC)
+    }
 }
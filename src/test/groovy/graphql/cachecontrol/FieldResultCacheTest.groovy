@@ -0,0 +1,257 @@
+package graphql.cachecontrol
+
+import graphql.AssertException
+import graphql.ExecutionInput
+import graphql.GraphQL
+import graphql.TestUtil
+import graphql.execution.ResultPath
+import graphql.schema.DataFetcher
+import graphql.schema.FieldCoordinates
+import spock.lang.Specification
+
+import java.time.Duration
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+
+import static graphql.schema.FieldCoordinates.coordinates
+
+class FieldResultCacheTest extends Specification {
+
+    def now = 0L
+    def fetches = new AtomicInteger()
+
+    def sdl = """
+            directive @cacheControl(maxAge : Int, scope : CacheControlScope) on FIELD_DEFINITION
+            enum CacheControlScope { PUBLIC PRIVATE }
+
+            type Query {
+                user(id : ID) : User
+                hinted : String
+                directed : String @cacheControl(maxAge : 30)
+                privateDirected : String @cacheControl(maxAge : 30, scope : PRIVATE)
+                privateHinted : String
+            }
+            type User {
+                id : ID
+                name : String
+            }
+        """
+
+    GraphQL newGraphQL(FieldResultCacheInstrumentation instrumentation) {
+        def schema = TestUtil.schema(sdl, [
+                Query: [
+                        user           : { env -> [id: env.getArgument("id")] } as DataFetcher,
+                        hinted         : { env -> fetches.incrementAndGet(); env.getCacheControl().hint(env, 10); "hinted" } as DataFetcher,
+                        directed       : { env -> fetches.incrementAndGet(); "directed" } as DataFetcher,
+                        privateDirected: { env -> fetches.incrementAndGet(); "private" } as DataFetcher,
+                        privateHinted  : { env -> fetches.incrementAndGet(); env.getCacheControl().hint(env, CacheControl.Scope.PRIVATE); "private" } as DataFetcher],
+                User : [name: { env -> fetches.incrementAndGet(); CompletableFuture.completedFuture("name " + env.getSource().id) } as DataFetcher]
+        ])
+        GraphQL.newGraphQL(schema).instrumentation(instrumentation).build()
+    }
+
+    def "field values are shared across requests per arguments and parent"() {
+        def cache = FieldResultCache.newCache().nanoTime({ now }).build()
+        def instrumentation = FieldResultCacheInstrumentation.newFieldResultCacheInstrumentation(cache)
+                .field(coordinates("User", "name"), Duration.ofSeconds(60))
+                .parentKey({ source -> source.id })
+                .build()
+        def graphQL = newGraphQL(instrumentation)
+
+        when:
+        def first = graphQL.execute('{ a : user(id : "1") { name } b : user(id : "2") { name } }')
+        def second = graphQL.execute('{ user(id : "1") { name } }')
+
+        then:
+        first.data == [a: [name: "name 1"], b: [name: "name 2"]]
+        second.data == [user: [name: "name 1"]]
+        fetches.get() == 2
+        cache.hitCount == 1
+
+        when:
+        cache.invalidate(coordinates("User", "name"), "1")
+        graphQL.execute('{ a : user(id : "1") { name } b : user(id : "2") { name } }')
+
+        then:
+        fetches.get() == 3
+
+        when:
+        now += TimeUnit.SECONDS.toNanos(60)
+        graphQL.execute('{ user(id : "2") { name } }')
+
+        then:
+        fetches.get() == 4
+    }
+
+    def "max ages come from cache control hints and the cacheControl directive"() {
+        def cache = FieldResultCache.newCache().nanoTime({ now }).build()
+        def instrumentation = FieldResultCacheInstrumentation.newFieldResultCacheInstrumentation(cache)
+                .field(coordinates("Query", "hinted"))
+                .field(coordinates("Query", "directed"))
+                .field(coordinates("Query", "privateDirected"))
+                .parentKey({ source -> source })
+                .build()
+        def graphQL = newGraphQL(instrumentation)
+        def query = '{ hinted directed privateDirected }'
+
+        when:
+        graphQL.execute(query)
+        def result = graphQL.execute(query)
+
+        then:
+        result.data == [hinted: "hinted", directed: "directed", privateDirected: "private"]
+        fetches.get() == 4
+        cache.size() == 2
+
+        when:
+        now += TimeUnit.SECONDS.toNanos(20)
+        graphQL.execute(ExecutionInput.newExecutionInput(query))
+
+        then:
+        fetches.get() == 6
+
+        when:
+        cache.invalidateAll()
+        graphQL.execute(query)
+
+        then:
+        fetches.get() == 9
+    }
+
+    def "private values are not cached even for fields registered with a max age"() {
+        def cache = FieldResultCache.newCache().nanoTime({ now }).build()
+        def instrumentation = FieldResultCacheInstrumentation.newFieldResultCacheInstrumentation(cache)
+                .field(coordinates("Query", "privateDirected"), Duration.ofSeconds(60))
+                .field(coordinates("Query", "privateHinted"), Duration.ofSeconds(60))
+                .parentKey({ source -> source })
+                .build()
+        def graphQL = newGraphQL(instrumentation)
+        def query = '{ privateDirected privateHinted }'
+
+        when:
+        graphQL.execute(query)
+        def result = graphQL.execute(query)
+
+        then:
+        result.data == [privateDirected: "private", privateHinted: "private"]
+        fetches.get() == 4
+        cache.size() == 0
+    }
+
+    def "a parent key function must be given"() {
+        when:
+        FieldResultCacheInstrumentation.newFieldResultCacheInstrumentation(FieldResultCache.newCache().build())
+                .field(coordinates("User", "name"))
+                .build()
+
+        then:
+        thrown(AssertException)
+    }
+
+    def "the least recently used value is evicted"() {
+        def cache = FieldResultCache.newCache().maxEntries(2).build()
+
+        when:
+        cache.put(key("a"), "a", 60)
+        cache.put(key("b"), "b", 60)
+        cache.get(key("a"))
+        cache.put(key("c"), "c", 60)
+
+        then:
+        cache.size() == 2
+        cache.get(key("a")).value == "a"
+        cache.get(key("b")) == null
+        cache.get(key("c")).value == "c"
+    }
+
+    def "the least frequently used value is evicted, but new values are not always the first to go"() {
+        def cache = FieldResultCache.newCache().maxEntries(3).evictionPolicy(FieldResultCache.EvictionPolicy.LFU).build()
+
+        when:
+        cache.put(key("a"), "a", 60)
+        cache.put(key("b"), "b", 60)
+        cache.put(key("c"), "c", 60)
+        cache.get(key("a"))
+        cache.get(key("a"))
+        cache.get(key("b"))
+        cache.put(key("d"), "d", 60)
+        cache.put(key("e"), "e", 60)
+
+        then: "c is used least, and then d starts out ahead of b since it aged in after c was evicted"
+        cache.size() == 3
+        cache.get(key("a")).value == "a"
+        cache.get(key("b")) == null
+        cache.get(key("c")) == null
+        cache.get(key("d")).value == "d"
+        cache.get(key("e")).value == "e"
+
+        when:
+        cache.invalidate(coordinates("Query", "field"))
+
+        then:
+        cache.size() == 0
+    }
+
+    def "large caches are split into segments that together hold the max entries"() {
+        def cache = FieldResultCache.newCache().maxEntries(1024).build()
+
+        when:
+        2000.times { cache.put(key("k" + it), it, 60) }
+
+        then:
+        cache.size() <= 1024
+        cache.size() > 512
+        cache.get(key("k1999")).value == 1999
+
+        when:
+        cache.invalidateAll()
+
+        then:
+        cache.size() == 0
+    }
+
+    def "cached values and arguments are copied so that requests can not change them"() {
+        def cache = FieldResultCache.newCache().build()
+        def arguments = [ids: ["1"]]
+        def value = [name: "a", tags: ["x"]]
+
+        when:
+        cache.put(new FieldResultCache.Key(coordinates("Query", "field"), arguments, null), value, 60)
+        arguments.ids.add("2")
+
+        then:
+        cache.get(new FieldResultCache.Key(coordinates("Query", "field"), arguments, null)) == null
+
+        when:
+        def entry = cache.get(new FieldResultCache.Key(coordinates("Query", "field"), [ids: ["1"]], null))
+        (entry.value.tags as List).add("y")
+
+        then:
+        thrown(UnsupportedOperationException)
+        entry.value == [name: "a", tags: ["x"]]
+    }
+
+    def "values served from the cache hint the time they have left"() {
+        def cache = FieldResultCache.newCache().nanoTime({ now }).build()
+        def instrumentation = FieldResultCacheInstrumentation.newFieldResultCacheInstrumentation(cache)
+                .field(coordinates("Query", "hinted"))
+                .parentKey({ source -> source })
+                .build()
+        def graphQL = newGraphQL(instrumentation)
+
+        when:
+        graphQL.execute('{ hinted }')
+        now += TimeUnit.SECONDS.toNanos(4)
+        def input = ExecutionInput.newExecutionInput('{ hinted }').build()
+        graphQL.execute(input)
+
+        then:
+        fetches.get() == 1
+        input.cacheControl.getPolicy(ResultPath.parse("/hinted")) == new CachePolicy(6, CacheControl.Scope.PUBLIC)
+    }
+
+    static FieldResultCache.Key key(String parentKey) {
+        new FieldResultCache.Key(FieldCoordinates.coordinates("Query", "field"), [:], parentKey)
+    }
+}
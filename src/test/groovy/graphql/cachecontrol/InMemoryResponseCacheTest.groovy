@@ -0,0 +1,179 @@
+package graphql.cachecontrol
+
+import graphql.ExecutionInput
+import graphql.ExecutionResultImpl
+import graphql.GraphQL
+import graphql.GraphQLContext
+import graphql.TestUtil
+import graphql.schema.DataFetcher
+import spock.lang.Specification
+
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+
+class InMemoryResponseCacheTest extends Specification {
+
+    def now = 0L
+    def fetches = new AtomicInteger()
+
+    def cacheBuilder = InMemoryResponseCache.newCache().nanoTime({ now })
+
+    GraphQL newGraphQL(ResponseCache responseCache, CacheControl.Scope scope = CacheControl.Scope.PUBLIC) {
+        def schema = TestUtil.schema("""
+            type Query {
+                hello(name : String) : String
+                uncached : String
+            }
+            type Mutation {
+                bye : String
+            }
+        """, [
+                Query   : [
+                        hello   : { env ->
+                            fetches.incrementAndGet()
+                            env.getCacheControl().hint(env, 60, scope)
+                            "hello " + env.getArgument("name")
+                        } as DataFetcher,
+                        uncached: { env -> fetches.incrementAndGet(); "uncached" } as DataFetcher],
+                Mutation: [bye: { env -> fetches.incrementAndGet(); env.getCacheControl().hint(env, 60); "bye" } as DataFetcher]
+        ])
+        GraphQL.newGraphQL(schema).responseCache(responseCache).build()
+    }
+
+    def "repeated queries are served from the cache until they expire"() {
+        def cache = cacheBuilder.build()
+        def graphQL = newGraphQL(cache)
+        def query = 'query q($name : String) { hello(name : $name) }'
+
+        when:
+        def first = graphQL.execute(ExecutionInput.newExecutionInput(query).variables([name: "world"]))
+        def second = graphQL.execute(ExecutionInput.newExecutionInput(query).variables([name: "world"]))
+        def other = graphQL.execute(ExecutionInput.newExecutionInput(query).variables([name: "there"]))
+
+        then:
+        first.data == [hello: "hello world"]
+        second.data == [hello: "hello world"]
+        other.data == [hello: "hello there"]
+        fetches.get() == 2
+        cache.hitCount == 1
+        cache.missCount == 2
+
+        when:
+        now += TimeUnit.SECONDS.toNanos(61)
+        def expired = graphQL.execute(ExecutionInput.newExecutionInput(query).variables([name: "world"]))
+
+        then:
+        expired.data == [hello: "hello world"]
+        fetches.get() == 3
+        cache.missCount == 3
+    }
+
+    def "responses without hints, with errors or from mutations are not cached"() {
+        def cache = cacheBuilder.build()
+        def graphQL = newGraphQL(cache)
+
+        when:
+        graphQL.execute("{ hello uncached }")
+        graphQL.execute("{ hello uncached }")
+        graphQL.execute("mutation { bye }")
+        graphQL.execute("mutation { bye }")
+        graphQL.execute("{ unknownField }")
+
+        then:
+        fetches.get() == 6
+        cache.hitCount == 0
+        cache.size() == 0
+    }
+
+    def "private responses are only cached per principal"() {
+        def cache = cacheBuilder.principal({ input -> (input.context as GraphQLContext).get("user") }).build()
+        def graphQL = newGraphQL(cache, CacheControl.Scope.PRIVATE)
+
+        def input = { user -> ExecutionInput.newExecutionInput('{ hello(name : "x") }').context(GraphQLContext.newContext().of("user", user)) }
+
+        when:
+        graphQL.execute(input("ann"))
+        graphQL.execute(input("ann"))
+        graphQL.execute(input("bob"))
+
+        then:
+        fetches.get() == 2
+        cache.hitCount == 1
+
+        when:
+        def noPrincipalCache = InMemoryResponseCache.newCache().build()
+        def noPrincipalGraphQL = newGraphQL(noPrincipalCache, CacheControl.Scope.PRIVATE)
+        noPrincipalGraphQL.execute(input("ann"))
+        noPrincipalGraphQL.execute(input("ann"))
+
+        then:
+        fetches.get() == 4
+        noPrincipalCache.size() == 0
+    }
+
+    def "the least recently used response is evicted once full"() {
+        def cache = cacheBuilder.maxEntries(2).build()
+        def schema = TestUtil.schema("type Query { a : Int b : Int c : Int }")
+        def policy = new CachePolicy(60, CacheControl.Scope.PUBLIC)
+        def a = ExecutionInput.newExecutionInput("{ a }").build()
+        def b = ExecutionInput.newExecutionInput("{ b }").build()
+        def c = ExecutionInput.newExecutionInput("{ c }").build()
+
+        when:
+        cache.put(a, schema, new ExecutionResultImpl([a: 1], []), policy)
+        cache.put(b, schema, new ExecutionResultImpl([b: 1], []), policy)
+        cache.get(a, schema)
+        cache.put(c, schema, new ExecutionResultImpl([c: 1], []), policy)
+
+        then:
+        cache.size() == 2
+        cache.get(a, schema).data == [a: 1]
+        cache.get(b, schema) == null
+        cache.get(c, schema).data == [c: 1]
+    }
+
+    def "responses are kept per schema and without their extensions"() {
+        def cache = cacheBuilder.build()
+        def schema = TestUtil.schema("type Query { a : Int }")
+        def otherSchema = TestUtil.schema("type Query { a : Int }")
+        def policy = new CachePolicy(60, CacheControl.Scope.PUBLIC)
+        def a = ExecutionInput.newExecutionInput("{ a }").build()
+        def result = ExecutionResultImpl.newExecutionResult().data([a: 1]).addExtension("tracing", [duration: 1]).build()
+
+        when:
+        cache.put(a, schema, result, policy)
+
+        then:
+        cache.get(a, schema).data == [a: 1]
+        cache.get(a, schema).extensions == null
+        cache.get(a, otherSchema) == null
+    }
+
+    def "cached responses can not be changed by the requests they are served to"() {
+        def cache = cacheBuilder.build()
+        def schema = TestUtil.schema("type Query { a : Int }")
+        def policy = new CachePolicy(60, CacheControl.Scope.PUBLIC)
+        def a = ExecutionInput.newExecutionInput("{ a }").build()
+        def data = [a: [b: [1, 2]]]
+
+        when:
+        cache.put(a, schema, ExecutionResultImpl.newExecutionResult().data(data).build(), policy)
+        data.a.b.add(3)
+
+        then:
+        cache.get(a, schema).data == [a: [b: [1, 2]]]
+
+        when:
+        (cache.get(a, schema).data as Map).put("x", 1)
+
+        then:
+        thrown(UnsupportedOperationException)
+
+        when:
+        (cache.get(a, schema).data.a.b as List).add(3)
+
+        then:
+        thrown(UnsupportedOperationException)
+        cache.get(a, schema).data == [a: [b: [1, 2]]]
+    }
+}
@@ -141,4 +141,53 @@ class AsyncTest extends Specification {
         result.isDone()
         result.get() == ['x', 'y', 'z']
     }
+
+    def "each of already completed futures reports the first failure"() {
+        given:
+        def failed1 = new CompletableFuture()
+        failed1.completeExceptionally(new RuntimeException("first"))
+        def failed2 = new CompletableFuture()
+        failed2.completeExceptionally(new RuntimeException("second"))
+
+        when:
+        def result = Async.each([completedFuture('x'), failed1, failed2])
+
+        then:
+        result.isCompletedExceptionally()
+        Throwable exception
+        result.exceptionally({ e ->
+            exception = e
+        })
+        exception instanceof CompletionException
+        exception.getCause().getMessage() == "first"
+    }
+
+    def "each waits for incomplete futures"() {
+        given:
+        def cf = new CompletableFuture()
+
+        when:
+        def result = Async.each([completedFuture('x'), cf])
+
+        then:
+        !result.isDone()
+
+        when:
+        cf.complete('y')
+
+        then:
+        result.isDone()
+        result.get() == ['x', 'y']
+    }
+
+    def "isCompletedNormally only for futures with a value"() {
+        given:
+        def failed = new CompletableFuture()
+        failed.completeExceptionally(new RuntimeException("boom"))
+
+        expect:
+        Async.isCompletedNormally(completedFuture('x'))
+        !Async.isCompletedNormally(new CompletableFuture())
+        !Async.isCompletedNormally(failed)
+    }
 }
@@ -0,0 +1,167 @@
+package graphql.execution
+
+import graphql.ErrorType
+import graphql.ExecutionInput
+import graphql.GraphQL
+import graphql.TestUtil
+import graphql.schema.DataFetcher
+import spock.lang.Specification
+
+import java.time.Duration
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.Executor
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+import java.util.function.Function
+import java.util.function.Supplier
+
+class CancellationTokenTest extends Specification {
+
+    def "callbacks run once when cancelled"() {
+        def token = CancellationToken.newCancellationToken()
+        def count = new AtomicInteger()
+
+        when:
+        token.onCancel({ count.incrementAndGet() })
+
+        then:
+        !token.isCancelled()
+        !token.getTimeRemaining().isPresent()
+        count.get() == 0
+
+        when:
+        token.cancel()
+        token.cancel()
+
+        then:
+        token.isCancelled()
+        !token.isDeadlineExceeded()
+        count.get() == 1
+
+        when:
+        token.onCancel({ count.incrementAndGet() })
+
+        then:
+        count.get() == 2
+    }
+
+    def "tokens with a timeout cancel themselves"() {
+        // long enough that the token is not cancelled before it is first checked, even on a slow machine
+        def token = CancellationToken.withTimeout(Duration.ofMillis(500))
+        def cancelled = new CompletableFuture()
+        token.onCancel({ cancelled.complete(true) })
+
+        expect:
+        !token.isCancelled()
+        token.getTimeRemaining().get() > Duration.ZERO
+        cancelled.get(5, TimeUnit.SECONDS)
+        token.isCancelled()
+        token.isDeadlineExceeded()
+        token.getTimeRemaining().get() == Duration.ZERO
+    }
+
+    def "the rest of the execution runs on the deadline executor rather than on the timer"() {
+        def executor = { Runnable runnable -> new Thread(runnable, "deadline-executor").start() } as Executor
+        def schema = TestUtil.schema("type Query { slow : String }", [Query: [
+                slow: { env -> new CompletableFuture() } as DataFetcher,
+        ]])
+        def graphQL = GraphQL.newGraphQL(schema).build()
+        // the execution has to reach the pending fetch before the deadline, or it notices the deadline itself
+        graphQL.execute("{ __typename }")
+        def input = ExecutionInput.newExecutionInput("{ slow }")
+                .cancellationToken(CancellationToken.withTimeout(Duration.ofMillis(500), executor))
+                .build()
+
+        when:
+        def completingThread = graphQL.executeAsync(input)
+                .thenApply({ result -> Thread.currentThread().name } as Function)
+                .get(5, TimeUnit.SECONDS)
+
+        then:
+        completingThread == "deadline-executor"
+    }
+
+    def "pending fetches resolve to null with one error when the deadline passes"() {
+        def schema = TestUtil.schema("type Query { fast : String slow : String slower : String }", [Query: [
+                fast  : { env -> "fast" } as DataFetcher,
+                slow  : { env -> new CompletableFuture() } as DataFetcher,
+                slower: { env -> new CompletableFuture() } as DataFetcher,
+        ]])
+        def graphQL = GraphQL.newGraphQL(schema).build()
+        def input = ExecutionInput.newExecutionInput("{ fast slow slower }")
+                .cancellationToken(CancellationToken.withTimeout(Duration.ofMillis(100)))
+                .build()
+
+        when:
+        def result = graphQL.executeAsync(input).get(5, TimeUnit.SECONDS)
+
+        then:
+        result.data == [fast: "fast", slow: null, slower: null]
+        result.errors.size() == 1
+        result.errors[0] instanceof ExecutionCancelledError
+        result.errors[0].message == "Execution deadline exceeded"
+        result.errors[0].errorType == ErrorType.ExecutionAborted
+        result.errors[0].locations == []
+    }
+
+    def "removed callbacks are not run"() {
+        def token = CancellationToken.newCancellationToken()
+        def count = new AtomicInteger()
+        Runnable callback = { count.incrementAndGet() }
+
+        when:
+        token.onCancel(callback)
+        token.removeOnCancel(callback)
+        token.cancel()
+
+        then:
+        count.get() == 0
+    }
+
+    def "completed fetches and executions let go of the token"() {
+        def schema = TestUtil.schema("type Query { fast : String async : String }", [Query: [
+                fast : { env -> "fast" } as DataFetcher,
+                async: { env -> CompletableFuture.supplyAsync({ -> "async" } as Supplier) } as DataFetcher,
+        ]])
+        def graphQL = GraphQL.newGraphQL(schema).build()
+        def token = CancellationToken.withTimeout(Duration.ofMinutes(10))
+        def input = ExecutionInput.newExecutionInput("{ fast async }")
+                .cancellationToken(token)
+                .build()
+
+        when:
+        def result = graphQL.executeAsync(input).get(5, TimeUnit.SECONDS)
+
+        then:
+        result.data == [fast: "fast", async: "async"]
+        token.onCancelCallbacks.isEmpty()
+        token.deadlineTimer.isCancelled()
+        !token.isCancelled()
+    }
+
+    def "no new fields are fetched once cancelled"() {
+        def fetches = new AtomicInteger()
+        def schema = TestUtil.schema("""
+                type Query { hero : Hero }
+                type Hero { name : String friends : [Hero] }
+            """, [
+                Query: [hero: { env -> env.getCancellationToken().cancel(); [name: "R2-D2"] } as DataFetcher],
+                Hero : [name   : { env -> fetches.incrementAndGet(); env.source.name } as DataFetcher,
+                        friends: { env -> fetches.incrementAndGet(); [] } as DataFetcher]
+        ])
+        def graphQL = GraphQL.newGraphQL(schema).build()
+        def input = ExecutionInput.newExecutionInput("{ hero { name friends { name } } }")
+                .cancellationToken(CancellationToken.newCancellationToken())
+                .build()
+
+        when:
+        def result = graphQL.execute(input)
+
+        then:
+        fetches.get() == 0
+        result.data == [hero: [name: null, friends: null]]
+        result.errors.size() == 1
+        result.errors[0].message == "Execution was cancelled"
+        result.errors[0].path == ["hero", "name"]
+    }
+}
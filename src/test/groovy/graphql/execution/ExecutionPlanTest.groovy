@@ -0,0 +1,323 @@
+package graphql.execution
+
+import graphql.ExecutionInput
+import graphql.GraphQL
+import graphql.TestUtil
+import graphql.execution.instrumentation.InstrumentationContext
+import graphql.execution.instrumentation.SimpleInstrumentation
+import graphql.execution.instrumentation.parameters.InstrumentationFieldFetchParameters
+import graphql.execution.preparsed.TestingPreparsedDocumentProvider
+import graphql.language.Field
+import graphql.language.OperationDefinition
+import graphql.parser.Parser
+import graphql.schema.GraphQLObjectType
+import graphql.schema.idl.RuntimeWiring
+import spock.lang.Specification
+
+import static graphql.TestUtil.mergedField
+import static graphql.schema.idl.TypeRuntimeWiring.newTypeWiring
+
+class ExecutionPlanTest extends Specification {
+
+    def "finds the variables used in skip and include directives"() {
+        def document = new Parser().parseDocument('''
+            query q($a : Boolean!, $b : Boolean!, $c : Int) {
+                foo(arg : $c) @include(if : $a) {
+                    ...Frag @skip(if : $b)
+                    bar @skip(if : true)
+                }
+            }
+            fragment Frag on Foo {
+                baz @include(if : $a)
+            }
+        ''')
+
+        when:
+        def plan = new ExecutionPlan(document)
+
+        then:
+        plan.getConditionalVariableNames() == ["a", "b"]
+    }
+
+    def "finds the variables used in the conditions of defer directives but not in their labels"() {
+        def document = new Parser().parseDocument('''
+            query q($a : Boolean!, $label : String, $c : Int) {
+                foo {
+                    ... @defer(if : $a, label : $label) {
+                        bar(arg : $c)
+                    }
+                }
+            }
+        ''')
+
+        when:
+        def plan = new ExecutionPlan(document)
+
+        then:
+        plan.getConditionalVariableNames() == ["a"]
+    }
+
+    def "selection sets are shared for the same conditions only"() {
+        def schema = TestUtil.schema("""
+            type Query {
+                foo : Foo
+            }
+            type Foo {
+                bar : String
+            }
+        """)
+        def document = new Parser().parseDocument('query q($a : Boolean!, $c : Int) { foo { bar @include(if : $a) } }')
+        def plan = new ExecutionPlan(document)
+        def field = mergedField((document.children[0] as OperationDefinition).selectionSet.selections[0] as Field)
+        def fooType = schema.getType("Foo") as GraphQLObjectType
+
+        when:
+        def selectionSetsTrue = plan.getSelectionSets(schema, [a: true, c: 1])
+        def subFields = MergedSelectionSet.newMergedSelectionSet().build()
+        def recorded = selectionSetsTrue.put(field, fooType, subFields)
+
+        then:
+        recorded.is(subFields)
+        plan.getSelectionSets(schema, [a: true, c: 2]).is(selectionSetsTrue)
+        plan.getSelectionSets(schema, [a: true, c: 2]).get(field, fooType).is(subFields)
+        !plan.getSelectionSets(schema, [a: false, c: 1]).is(selectionSetsTrue)
+        plan.getSelectionSets(schema, [a: false, c: 1]).get(field, fooType) == null
+
+        when:
+        def otherSubFields = MergedSelectionSet.newMergedSelectionSet().build()
+        recorded = selectionSetsTrue.put(field, fooType, otherSubFields)
+
+        then:
+        recorded.is(subFields)
+    }
+
+    def "only the selection sets of the most recently used conditions are kept"() {
+        def schema = TestUtil.schema("""
+            type Query {
+                foo : String
+            }
+        """)
+        def document = new Parser().parseDocument('query q($a : Boolean!, $b : Boolean!) { foo @include(if : $a) foo @skip(if : $b) }')
+        def plan = new ExecutionPlan(document)
+
+        when:
+        def first = plan.getSelectionSets(schema, [a: true, b: false])
+        (1..100).each { plan.getSelectionSets(TestUtil.schema("type Query { foo : String }"), [a: true, b: false]) }
+
+        then:
+        plan.selectionSetsByConditions.size() == 64
+        !plan.getSelectionSets(schema, [a: true, b: false]).is(first)
+    }
+
+    def "cached documents execute correctly with different skip and include conditions"() {
+        def schema = TestUtil.schema("""
+            type Query {
+                pets : [Pet]
+            }
+            interface Pet {
+                name : String
+            }
+            type Dog implements Pet {
+                name : String
+                barks : Boolean
+            }
+            type Cat implements Pet {
+                name : String
+                meows : Boolean
+            }
+        """, RuntimeWiring.newRuntimeWiring()
+                .type(newTypeWiring("Query").dataFetcher("pets", { env -> [[name: "spot", barks: true], [name: "tom", meows: true], [name: "rex", barks: false]] }))
+                .type(newTypeWiring("Pet").typeResolver({ env -> env.getSchema().getObjectType(env.getObject().containsKey("barks") ? "Dog" : "Cat") })))
+
+        def query = '''
+            query q($withDetails : Boolean!) {
+                pets {
+                    name
+                    ... on Dog @include(if : $withDetails) {
+                        barks
+                    }
+                    ...CatDetails
+                }
+            }
+            fragment CatDetails on Cat {
+                meows @include(if : $withDetails)
+            }
+        '''
+        def graphQL = GraphQL.newGraphQL(schema).preparsedDocumentProvider(new TestingPreparsedDocumentProvider()).build()
+
+        when:
+        def withDetails = graphQL.execute(ExecutionInput.newExecutionInput(query).variables([withDetails: true]))
+        def withoutDetails = graphQL.execute(ExecutionInput.newExecutionInput(query).variables([withDetails: false]))
+        def withDetailsAgain = graphQL.execute(ExecutionInput.newExecutionInput(query).variables([withDetails: true]))
+
+        then:
+        withDetails.errors.isEmpty()
+        withDetails.data == [pets: [[name: "spot", barks: true], [name: "tom", meows: true], [name: "rex", barks: false]]]
+        withoutDetails.errors.isEmpty()
+        withoutDetails.data == [pets: [[name: "spot"], [name: "tom"], [name: "rex"]]]
+        withDetailsAgain.data == withDetails.data
+    }
+
+    def "normalized query trees are shared for the same conditions and resolve their arguments per execution"() {
+        def schema = TestUtil.schema("""
+            type Query {
+                foo(arg : Int) : Foo
+            }
+            type Foo {
+                bar : String
+                baz : String
+            }
+        """)
+        def document = new Parser().parseDocument('query q($a : Boolean!, $c : Int, $unused : Int) { foo(arg : $c) { bar baz @include(if : $a) } }')
+        def operationDefinition = document.children[0] as OperationDefinition
+        def plan = new ExecutionPlan(document)
+
+        when:
+        def tree = plan.getNormalizedQueryTree(schema, operationDefinition, [:], [a: true, c: 1, unused: 1])
+
+        then:
+        tree.getTopLevelFields()[0].getChildren().collect { it.getName() } == ["bar", "baz"]
+        plan.getNormalizedQueryTree(schema, operationDefinition, [:], [a: true, c: 1, unused: 2]).is(tree)
+        plan.getNormalizedQueryTree(schema, operationDefinition, [:], [a: true, c: 2, unused: 1]).is(tree)
+        tree.getTopLevelFields()[0].getArguments() == [:]
+        tree.getTopLevelFields()[0].getArguments([a: true, c: 2]) == [arg: 2]
+        plan.getNormalizedQueryTree(schema, operationDefinition, [:], [a: false, c: 1, unused: 1]).getTopLevelFields()[0].getChildren().collect { it.getName() } == ["bar"]
+
+        when:
+        tree.getTopLevelFields().clear()
+
+        then:
+        thrown(UnsupportedOperationException)
+    }
+
+    def "only the most recently used normalized query trees are kept and argument values are not held on to"() {
+        def sdl = """
+            type Query {
+                foo(arg : Int) : String
+            }
+        """
+        def schema = TestUtil.schema(sdl)
+        def document = new Parser().parseDocument('query q($a : Boolean!, $c : Int) { foo(arg : $c) @include(if : $a) }')
+        def operationDefinition = document.children[0] as OperationDefinition
+        def plan = new ExecutionPlan(document)
+
+        when:
+        def first = plan.getNormalizedQueryTree(schema, operationDefinition, [:], [a: true, c: 42])
+        (1..100).each { plan.getNormalizedQueryTree(TestUtil.schema(sdl), operationDefinition, [:], [a: true, c: 42]) }
+
+        then:
+        plan.normalizedQueryTrees.size() == 64
+        !plan.getNormalizedQueryTree(schema, operationDefinition, [:], [a: true, c: 42]).is(first)
+        !plan.normalizedQueryTrees.keySet().flatten().contains(42)
+        first.getTopLevelFields()[0].getArguments() == [:]
+    }
+
+    def "executions with different argument values hit the same normalized query tree"() {
+        def schema = TestUtil.schema("""
+            type Query {
+                foo(arg : Int) : String
+            }
+        """)
+        def document = new Parser().parseDocument('query q($a : Boolean!, $c : Int) { foo(arg : $c) @include(if : $a) }')
+        def operationDefinition = document.children[0] as OperationDefinition
+        def plan = new ExecutionPlan(document)
+
+        when:
+        (1..1000).each { c -> plan.getNormalizedQueryTree(schema, operationDefinition, [:], [a: c % 10 != 0, c: c]) }
+
+        then: "one tree per value of the condition, however many argument values there are"
+        plan.normalizedQueryTrees.size() == 2
+        plan.normalizedQueryTreeMissCount == 2
+        plan.normalizedQueryTreeHitCount == 998
+    }
+
+    def "selected fields of a shared normalized query tree have the arguments of their own execution"() {
+        def schema = TestUtil.schema("""
+            type Query {
+                foo : Foo
+            }
+            type Foo {
+                bar(arg : Int) : String
+            }
+        """, RuntimeWiring.newRuntimeWiring()
+                .type(newTypeWiring("Query").dataFetcher("foo", { env -> [bar: env.getSelectionSet().getImmediateFields()[0].getArguments().arg + ""] })))
+        def graphQL = GraphQL.newGraphQL(schema).preparsedDocumentProvider(new TestingPreparsedDocumentProvider()).build()
+        def query = 'query q($c : Int) { foo { bar(arg : $c) } }'
+
+        when:
+        def first = graphQL.execute(ExecutionInput.newExecutionInput(query).variables([c: 1]))
+        def second = graphQL.execute(ExecutionInput.newExecutionInput(query).variables([c: 2]))
+
+        then:
+        first.data == [foo: [bar: "1"]]
+        second.data == [foo: [bar: "2"]]
+    }
+
+    def "only the most recently used analysis results are kept per analysis key"() {
+        def schema = TestUtil.schema("""
+            type Query {
+                foo(arg : Int) : String
+            }
+        """)
+        def document = new Parser().parseDocument('query q($c : Int) { foo(arg : $c) }')
+        def operationDefinition = document.children[0] as OperationDefinition
+        def plan = new ExecutionPlan(document)
+        def key = new ExecutionPlan.AnalysisKey<String>()
+        def otherKey = new ExecutionPlan.AnalysisKey<String>()
+
+        when:
+        def first = plan.getAnalysis(key, schema, operationDefinition, [c: 0], { "first" })
+        def other = plan.getAnalysis(otherKey, schema, operationDefinition, [c: 0], { "other" })
+        def again = plan.getAnalysis(key, schema, operationDefinition, [c: 0], { "again" })
+
+        then:
+        first == "first"
+        other == "other"
+        again == "first"
+
+        when:
+        (1..100).each { c -> plan.getAnalysis(key, schema, operationDefinition, [c: c], { "analysis " + c }) }
+
+        then:
+        plan.analyses.size() == 64
+        plan.getAnalysis(key, schema, operationDefinition, [c: 100], { "recomputed" }) == "analysis 100"
+        plan.getAnalysis(key, schema, operationDefinition, [c: 0], { "recomputed" }) == "recomputed"
+    }
+
+    def "the normalized query tree is built once per execution and shared by executions of a cached document"() {
+        def schema = TestUtil.schema("""
+            type Query {
+                foo : Foo
+            }
+            type Foo {
+                bar : String
+                baz : String
+            }
+        """, RuntimeWiring.newRuntimeWiring()
+                .type(newTypeWiring("Query").dataFetcher("foo", { env -> [bar: "bar", baz: "baz"] }))
+                .type(newTypeWiring("Foo").dataFetcher("bar", { env -> env.getSelectionSet().getFields().size() + "" })))
+        def trees = []
+        def instrumentation = new SimpleInstrumentation() {
+            @Override
+            InstrumentationContext<Object> beginFieldFetch(InstrumentationFieldFetchParameters parameters) {
+                trees.add(parameters.getExecutionContext().getNormalizedQueryTree().get())
+                return super.beginFieldFetch(parameters)
+            }
+        }
+        def graphQL = GraphQL.newGraphQL(schema)
+                .preparsedDocumentProvider(new TestingPreparsedDocumentProvider())
+                .instrumentation(instrumentation)
+                .build()
+
+        when:
+        def first = graphQL.execute('{ foo { bar baz } }')
+        def second = graphQL.execute('{ foo { bar baz } }')
+
+        then:
+        first.errors.isEmpty()
+        first.data == [foo: [bar: "0", baz: "baz"]]
+        second.data == first.data
+        trees.size() == 6
+        trees.every { it.is(trees[0]) }
+    }
+}
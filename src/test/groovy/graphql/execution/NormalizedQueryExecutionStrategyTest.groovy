@@ -0,0 +1,127 @@
+package graphql.execution
+
+import graphql.ExecutionInput
+import graphql.ExecutionResult
+import graphql.ExecutionResultJsonWriter
+import graphql.GraphQL
+import graphql.TestUtil
+import graphql.execution.preparsed.TestingPreparsedDocumentProvider
+import graphql.schema.DataFetcher
+import graphql.schema.GraphQLSchema
+import graphql.schema.idl.RuntimeWiring
+import spock.lang.Specification
+
+import static graphql.schema.idl.TypeRuntimeWiring.newTypeWiring
+
+class NormalizedQueryExecutionStrategyTest extends Specification {
+
+    def pets = [
+            [kind: "Dog", name: "spot", barks: true, friends: [[kind: "Cat", name: "tom", meows: true]]],
+            [kind: "Cat", name: "tom", meows: true, friends: []],
+            [kind: "Robot", model: "R2"]
+    ]
+
+    def selections = []
+
+    GraphQLSchema schema = TestUtil.schema("""
+            type Query {
+                pets : [Thing]
+                pet(name : String) : Pet
+            }
+            type Mutation {
+                adopt(name : String) : Pet
+            }
+            union Thing = Dog | Cat | Robot
+            interface Pet {
+                name : String
+                friends : [Pet]
+            }
+            type Dog implements Pet {
+                name : String
+                barks : Boolean
+                friends : [Pet]
+            }
+            type Cat implements Pet {
+                name : String
+                meows : Boolean
+                friends : [Pet]
+            }
+            type Robot {
+                model : String
+            }
+        """, RuntimeWiring.newRuntimeWiring()
+            .type(newTypeWiring("Query")
+                    .dataFetcher("pets", { env -> pets } as DataFetcher)
+                    .dataFetcher("pet", { env ->
+                        selections.add(env.getSelectionSet().getFields().collect { it.getQualifiedName() })
+                        pets.find { it.name == env.getArgument("name") }
+                    } as DataFetcher))
+            .type(newTypeWiring("Mutation").dataFetcher("adopt", { env -> pets.find { it.name == env.getArgument("name") } } as DataFetcher))
+            .type(newTypeWiring("Thing").typeResolver({ env -> env.getSchema().getObjectType(env.getObject().kind) }))
+            .type(newTypeWiring("Pet").typeResolver({ env -> env.getSchema().getObjectType(env.getObject().kind) })))
+
+    GraphQL graphQL(ExecutionStrategy queryStrategy) {
+        GraphQL.newGraphQL(schema)
+                .queryExecutionStrategy(queryStrategy)
+                .preparsedDocumentProvider(new TestingPreparsedDocumentProvider())
+                .build()
+    }
+
+    static String json(ExecutionResult executionResult) {
+        new ExecutionResultJsonWriter().writeAsString(executionResult)
+    }
+
+    def "normalized execution gives the same results in the same order as the field collector"() {
+        def normalized = graphQL(new NormalizedQueryExecutionStrategy())
+        def collected = graphQL(new AsyncExecutionStrategy())
+        def input = ExecutionInput.newExecutionInput(query).variables(variables).build()
+
+        when:
+        def expected = collected.execute(input)
+        def first = normalized.execute(input)
+        def second = normalized.execute(input)
+
+        then:
+        expected.errors.isEmpty()
+        json(first) == json(expected)
+        json(second) == json(expected)
+
+        where:
+        query                                                                                                                                   | variables
+        '{ pets { __typename ... on Pet { name } ... on Robot { model } } }'                                                                    | [:]
+        // the keys of a type are in the order they are first collected for that type
+        '{ pets { ... on Cat { name meows } ... on Dog { barks name } ... on Robot { model } } }'                                               | [:]
+        '{ pets { ... on Cat { ...Names } ... on Pet { ...Names barks: name } } } fragment Names on Pet { name friends { name } }'               | [:]
+        '{ pets { ... on Cat { ... on Pet { ... on Dog { barks } name } } ... on Robot { model } } }'                                           | [:]
+        '{ pets { ... on Pet { a: name friends { ...Friend } } } } fragment Friend on Pet { name ... on Cat { meows } ... on Dog { barks } }'    | [:]
+        'query q($a : Boolean!) { pets { ... on Dog @include(if : $a) { barks } ... on Pet { name @skip(if : $a) } } }'                         | [a: true]
+        'query q($a : Boolean!) { pets { ... on Dog @include(if : $a) { barks } ... on Pet { name @skip(if : $a) } } }'                         | [a: false]
+        'query q($n : String) { pet(name : $n) { name ... on Dog { friends { name } } } }'                                                     | [n: "spot"]
+        '{ __typename first: pet(name : "tom") { __typename name } pets { __typename } }'                                                      | [:]
+    }
+
+    def "data fetchers see the same selection set as with the field collector"() {
+        def query = '{ pet(name : "spot") { name ... on Dog { barks friends { name } } } }'
+
+        when:
+        def expected = graphQL(new AsyncExecutionStrategy()).execute(query)
+        def result = graphQL(new NormalizedQueryExecutionStrategy()).execute(query)
+
+        then:
+        result.errors.isEmpty()
+        result.data == expected.data
+        selections.size() == 2
+        selections[1] == selections[0]
+    }
+
+    def "mutations are executed with the field collector"() {
+        def normalized = GraphQL.newGraphQL(schema).queryExecutionStrategy(new NormalizedQueryExecutionStrategy()).build()
+
+        when:
+        def result = normalized.execute('mutation { adopt(name : "spot") { name ... on Dog { barks friends { name } } } }')
+
+        then:
+        result.errors.isEmpty()
+        json(result) == '{"data":{"adopt":{"name":"spot","barks":true,"friends":[{"name":"tom"}]}}}'
+    }
+}
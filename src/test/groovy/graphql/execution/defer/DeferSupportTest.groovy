@@ -0,0 +1,314 @@
+package graphql.execution.defer
+
+import graphql.Directives
+import graphql.ExecutionInput
+import graphql.GraphQL
+import graphql.TestUtil
+import graphql.execution.preparsed.TestingPreparsedDocumentProvider
+import graphql.execution.pubsub.CapturingSubscriber
+import graphql.schema.DataFetcher
+import graphql.schema.GraphQLSchema
+import org.awaitility.Awaitility
+import org.dataloader.BatchLoader
+import org.dataloader.DataLoader
+import org.dataloader.DataLoaderRegistry
+import org.reactivestreams.Publisher
+import spock.lang.Specification
+
+import java.util.concurrent.CompletableFuture
+import java.util.function.Supplier
+
+class DeferSupportTest extends Specification {
+
+    def spec = """
+            type Query {
+                hero : Hero
+            }
+            type Hero {
+                name : String
+                friends : [Hero]
+                bestFriend : Hero
+                secret : String!
+                slowName : String
+            }
+        """
+
+    def friends = [[name: "Luke"], [name: "Leia"], [name: "Han"]]
+    def hero = [name: "R2-D2", friends: friends, bestFriend: [name: "C-3PO"]]
+
+    GraphQL graphQL(Map<String, Map<String, DataFetcher>> dataFetchers) {
+        GraphQL.newGraphQL(schema(dataFetchers)).build()
+    }
+
+    GraphQLSchema schema(Map<String, Map<String, DataFetcher>> dataFetchers) {
+        GraphQLSchema schema = TestUtil.schema(spec, dataFetchers)
+        GraphQLSchema.newSchema(schema)
+                .additionalDirective(Directives.DeferDirective)
+                .additionalDirective(Directives.StreamDirective)
+                .build()
+    }
+
+    GraphQL graphQL() {
+        graphQL([Query: [hero: { env -> hero } as DataFetcher]])
+    }
+
+    List<DeferredExecutionResult> deferredResults(Map<Object, Object> extensions) {
+        Publisher<DeferredExecutionResult> publisher = extensions[GraphQL.DEFERRED_RESULTS] as Publisher<DeferredExecutionResult>
+        def subscriber = new CapturingSubscriber<DeferredExecutionResult>()
+        publisher.subscribe(subscriber)
+        Awaitility.await().untilTrue(subscriber.isDone())
+        assert subscriber.throwable == null
+        subscriber.events
+    }
+
+    def "deferred fragments are delivered after the initial result"() {
+        def query = '''
+            {
+                hero {
+                    name
+                    ... @defer(label : "details") {
+                        bestFriend { name }
+                    }
+                    ...Friends @defer
+                }
+            }
+            fragment Friends on Hero {
+                friends { name }
+            }
+        '''
+
+        when:
+        def result = graphQL().execute(query)
+
+        then:
+        result.errors.isEmpty()
+        result.data == [hero: [name: "R2-D2"]]
+
+        when:
+        def deferred = deferredResults(result.extensions).sort { it.label }
+
+        then:
+        deferred.size() == 2
+        deferred[0].label == null
+        deferred[0].path == ["hero"]
+        deferred[0].data == [friends: [[name: "Luke"], [name: "Leia"], [name: "Han"]]]
+        deferred[1].label == "details"
+        deferred[1].path == ["hero"]
+        deferred[1].data == [bestFriend: [name: "C-3PO"]]
+        deferred[1].toSpecification() == [data: [bestFriend: [name: "C-3PO"]], path: ["hero"], label: "details"]
+    }
+
+    def "labels given by variables are resolved per execution of a cached document"() {
+        def graphQL = GraphQL.newGraphQL(schema([Query: [hero: { env -> hero } as DataFetcher]]))
+                .preparsedDocumentProvider(new TestingPreparsedDocumentProvider())
+                .build()
+        def query = '''
+            query q($label : String) {
+                hero {
+                    name
+                    ... @defer(label : $label) {
+                        bestFriend { name }
+                    }
+                }
+            }
+        '''
+
+        when:
+        def first = graphQL.execute(ExecutionInput.newExecutionInput(query).variables([label: "first"]))
+        def second = graphQL.execute(ExecutionInput.newExecutionInput(query).variables([label: "second"]))
+
+        then:
+        deferredResults(first.extensions).collect { it.label } == ["first"]
+        deferredResults(second.extensions).collect { it.label } == ["second"]
+    }
+
+    def "streamed list items are delivered after the initial result"() {
+        def query = '''
+            {
+                hero {
+                    friends @stream(initialCount : 1, label : "friends") { name }
+                }
+            }
+        '''
+
+        when:
+        def result = graphQL().execute(query)
+
+        then:
+        result.errors.isEmpty()
+        result.data == [hero: [friends: [[name: "Luke"]]]]
+
+        when:
+        def deferred = deferredResults(result.extensions).sort { it.path[2] }
+
+        then:
+        deferred.collect { it.path } == [["hero", "friends", 1], ["hero", "friends", 2]]
+        deferred.collect { it.data } == [[name: "Leia"], [name: "Han"]]
+        deferred.every { it.label == "friends" }
+    }
+
+    def "fields are not deferred when the directive is disabled or they are also selected directly"() {
+        def query = '''
+            query q($defer : Boolean!) {
+                hero {
+                    name
+                    ... @defer(if : $defer) {
+                        bestFriend { name }
+                    }
+                    ... @defer {
+                        name
+                    }
+                }
+            }
+        '''
+
+        when:
+        def result = graphQL().execute(ExecutionInput.newExecutionInput(query).variables([defer: false]))
+
+        then:
+        result.errors.isEmpty()
+        result.data == [hero: [name: "R2-D2", bestFriend: [name: "C-3PO"]]]
+        result.extensions == null
+    }
+
+    def "nested deferred fragments are delivered after their enclosing fragment"() {
+        def query = '''
+            {
+                hero {
+                    ... @defer(label : "outer") {
+                        bestFriend {
+                            name
+                            ... @defer(label : "inner") {
+                                friends { name }
+                            }
+                        }
+                    }
+                }
+            }
+        '''
+
+        when:
+        def result = graphQL().execute(query)
+        def deferred = deferredResults(result.extensions)
+
+        then:
+        result.data == [hero: [:]]
+        deferred.collect { it.label } == ["outer", "inner"]
+        deferred[0].data == [bestFriend: [name: "C-3PO"]]
+        deferred[1].path == ["hero", "bestFriend"]
+        deferred[1].data == [friends: null]
+    }
+
+    def "nested deferred fragments wait for their enclosing fragment while other fragments complete"() {
+        def graphQL = graphQL([
+                Query: [hero: { env -> hero } as DataFetcher],
+                Hero : [slowName: { env ->
+                    CompletableFuture.supplyAsync({ ->
+                        Thread.sleep(200)
+                        "slow"
+                    } as Supplier)
+                } as DataFetcher]
+        ])
+        def query = '''
+            {
+                hero {
+                    ... @defer(label : "slow") {
+                        slowName
+                        bestFriend {
+                            ... @defer(label : "inner") {
+                                name
+                            }
+                        }
+                    }
+                    ... @defer(label : "fast") {
+                        name
+                    }
+                }
+            }
+        '''
+
+        when:
+        def result = graphQL.execute(query)
+        def labels = deferredResults(result.extensions).collect { it.label }
+
+        then:
+        labels.size() == 3
+        labels.indexOf("inner") > labels.indexOf("slow")
+    }
+
+    def "cached documents deliver the label of every execution"() {
+        def graphQL = GraphQL.newGraphQL(schema([Query: [hero: { env -> hero } as DataFetcher]]))
+                .preparsedDocumentProvider(new TestingPreparsedDocumentProvider())
+                .build()
+        def query = '''
+            query q($label : String) {
+                hero {
+                    ... @defer(label : $label) {
+                        name
+                    }
+                }
+            }
+        '''
+
+        when:
+        def first = graphQL.execute(ExecutionInput.newExecutionInput(query).variables([label: "first"]))
+        def second = graphQL.execute(ExecutionInput.newExecutionInput(query).variables([label: "second"]))
+
+        then:
+        deferredResults(first.extensions).collect { it.label } == ["first"]
+        deferredResults(second.extensions).collect { it.label } == ["second"]
+    }
+
+    def "non null errors in a deferred fragment only null out the deferred result"() {
+        def query = '''
+            {
+                hero {
+                    name
+                    ... @defer {
+                        secret
+                    }
+                }
+            }
+        '''
+
+        when:
+        def result = graphQL().execute(query)
+        def deferred = deferredResults(result.extensions)
+
+        then:
+        result.errors.isEmpty()
+        result.data == [hero: [name: "R2-D2"]]
+        deferred.size() == 1
+        deferred[0].data == null
+        deferred[0].errors.size() == 1
+        deferred[0].errors[0].path == ["hero", "secret"]
+    }
+
+    def "data loaders are dispatched for deferred fields"() {
+        BatchLoader<String, Object> batchLoader = { keys -> CompletableFuture.completedFuture(keys.collect { [name: it] }) }
+        def dataLoader = DataLoader.newDataLoader(batchLoader)
+        def registry = new DataLoaderRegistry().register("heroes", dataLoader)
+        def graphQL = graphQL([
+                Query: [hero: { env -> hero } as DataFetcher],
+                Hero : [bestFriend: { env -> env.getDataLoader("heroes").load("Chewie") } as DataFetcher]
+        ])
+        def query = '''
+            {
+                hero {
+                    name
+                    ... @defer {
+                        bestFriend { name }
+                    }
+                }
+            }
+        '''
+
+        when:
+        def result = graphQL.execute(ExecutionInput.newExecutionInput(query).dataLoaderRegistry(registry))
+        def deferred = deferredResults(result.extensions)
+
+        then:
+        result.data == [hero: [name: "R2-D2"]]
+        deferred[0].data == [bestFriend: [name: "Chewie"]]
+    }
+}
@@ -22,9 +22,13 @@ import org.dataloader.DataLoaderRegistry
 import spock.lang.Specification
 import spock.lang.Unroll
 
+import java.time.Duration
 import java.util.concurrent.CompletableFuture
 import java.util.concurrent.CompletionStage
+import java.util.concurrent.CopyOnWriteArrayList
+import java.util.concurrent.Executor
 import java.util.concurrent.ForkJoinPool
+import java.util.concurrent.atomic.AtomicInteger
 
 import static graphql.ExecutionInput.newExecutionInput
 import static graphql.StarWarsSchema.starWarsSchema
@@ -300,4 +304,124 @@ class DataLoaderDispatcherInstrumentationTest extends Specification {
         er.errors.isEmpty()
         er.data["field"] == "working as expected"
     }
+
+    def "windowed dispatch batches as well as level tracking"() {
+
+        given:
+        def starWarsWiring = new StarWarsDataLoaderWiring()
+        def dlRegistry = starWarsWiring.newDataLoaderRegistry()
+        def options = DataLoaderDispatcherInstrumentationOptions.newOptions().windowedDispatch(Duration.ofSeconds(10), 100)
+        def batchingInstrumentation = new DataLoaderDispatcherInstrumentation(options)
+
+        def graphql = GraphQL.newGraphQL(starWarsWiring.schema).instrumentation(batchingInstrumentation).build()
+
+        when:
+        def er = graphql.executeAsync(newExecutionInput().query(query).dataLoaderRegistry(dlRegistry)).join()
+
+        then:
+        er.errors.isEmpty()
+        er.data.hero.friends.size() == 3
+        starWarsWiring.rawCharacterLoadCount == 5
+        starWarsWiring.batchFunctionLoadCount == 3
+    }
+
+    def "windowed dispatch loads keys that are queued asynchronously"() {
+
+        def batchSizes = new CopyOnWriteArrayList()
+        BatchLoader batchLoader = { keys -> batchSizes.add(keys.size()); CompletableFuture.completedFuture(keys.collect { "name " + it }) }
+        def dataLoader = DataLoader.newDataLoader(batchLoader)
+
+        def runtimeWiring = newRuntimeWiring()
+                .type(newTypeWiring("Query").dataFetcher("items", { env -> CompletableFuture.supplyAsync({ [[id: 1], [id: 2], [id: 3], [id: 4], [id: 5]] }) } as DataFetcher))
+                .type(newTypeWiring("Item").dataFetcher("name", { env ->
+                    CompletableFuture.supplyAsync({ env.source.id }).thenCompose({ id -> dataLoader.load(id) })
+                } as DataFetcher))
+                .build()
+        def options = DataLoaderDispatcherInstrumentationOptions.newOptions().windowedDispatch(Duration.ofMillis(50), 100)
+        def graphql = TestUtil.graphQL("type Query { items : [Item] } type Item { name : String }", runtimeWiring)
+                .instrumentation(new DataLoaderDispatcherInstrumentation(options))
+                .build()
+
+        when:
+        def er = graphql.execute(newExecutionInput().query("{ items { name } }").dataLoaderRegistry(new DataLoaderRegistry().register("names", dataLoader)))
+
+        then:
+        er.errors.isEmpty()
+        er.data == [items: [[name: "name 1"], [name: "name 2"], [name: "name 3"], [name: "name 4"], [name: "name 5"]]]
+        batchSizes.sum() == 5
+    }
+
+    def "windowed dispatch dispatches a data loader once it reaches the max batch size"() {
+
+        def batchSizes = []
+        BatchLoader batchLoader = { keys -> batchSizes.add(keys.size()); CompletableFuture.completedFuture(keys.collect { "name " + it }) }
+        def dataLoader = DataLoader.newDataLoader(batchLoader)
+
+        def runtimeWiring = newRuntimeWiring()
+                .type(newTypeWiring("Query").dataFetcher("items", { env -> [[id: 1], [id: 2], [id: 3], [id: 4], [id: 5]] } as DataFetcher))
+                .type(newTypeWiring("Item").dataFetcher("name", { env -> dataLoader.load(env.source.id) } as DataFetcher))
+                .build()
+        def options = DataLoaderDispatcherInstrumentationOptions.newOptions().windowedDispatch(Duration.ofSeconds(10), 2)
+        def graphql = TestUtil.graphQL("type Query { items : [Item] } type Item { name : String }", runtimeWiring)
+                .instrumentation(new DataLoaderDispatcherInstrumentation(options))
+                .build()
+
+        when:
+        def er = graphql.execute(newExecutionInput().query("{ items { name } }").dataLoaderRegistry(new DataLoaderRegistry().register("names", dataLoader)))
+
+        then:
+        er.errors.isEmpty()
+        er.data == [items: [[name: "name 1"], [name: "name 2"], [name: "name 3"], [name: "name 4"], [name: "name 5"]]]
+        batchSizes == [2, 2, 1]
+    }
+
+    def "windowed dispatch loads the keys of passed windows on the dispatch executor"() {
+
+        def batchThreads = new CopyOnWriteArrayList()
+        BatchLoader batchLoader = { keys -> batchThreads.add(Thread.currentThread().name); CompletableFuture.completedFuture(keys.collect { "name " + it }) }
+        def dataLoader = DataLoader.newDataLoader(batchLoader)
+        def dispatchExecutor = { Runnable runnable -> new Thread(runnable, "window-dispatch").start() } as Executor
+
+        def runtimeWiring = newRuntimeWiring()
+                .type(newTypeWiring("Query").dataFetcher("items", { env -> [[id: 1], [id: 2]] } as DataFetcher))
+                .type(newTypeWiring("Item").dataFetcher("name", { env ->
+                    CompletableFuture.supplyAsync({ Thread.sleep(20); env.source.id }).thenCompose({ id -> dataLoader.load(id) })
+                } as DataFetcher))
+                .build()
+        def options = DataLoaderDispatcherInstrumentationOptions.newOptions().windowedDispatch(Duration.ofMillis(50), 100, dispatchExecutor)
+        def graphql = TestUtil.graphQL("type Query { items : [Item] } type Item { name : String }", runtimeWiring)
+                .instrumentation(new DataLoaderDispatcherInstrumentation(options))
+                .build()
+
+        when:
+        def er = graphql.execute(newExecutionInput().query("{ items { name } }").dataLoaderRegistry(new DataLoaderRegistry().register("names", dataLoader)))
+
+        then:
+        er.errors.isEmpty()
+        er.data == [items: [[name: "name 1"], [name: "name 2"]]]
+        !batchThreads.isEmpty()
+        batchThreads.every { it == "window-dispatch" }
+    }
+
+    def "windowed dispatch backs off while fetches without data loaders are outstanding"() {
+
+        def windows = new AtomicInteger()
+        def dispatchExecutor = { Runnable runnable -> windows.incrementAndGet(); runnable.run() } as Executor
+
+        def runtimeWiring = newRuntimeWiring()
+                .type(newTypeWiring("Query").dataFetcher("slow", { env -> CompletableFuture.supplyAsync({ Thread.sleep(500); "slow" }) } as DataFetcher))
+                .build()
+        def options = DataLoaderDispatcherInstrumentationOptions.newOptions().windowedDispatch(Duration.ofMillis(10), 100, dispatchExecutor)
+        def graphql = TestUtil.graphQL("type Query { slow : String }", runtimeWiring)
+                .instrumentation(new DataLoaderDispatcherInstrumentation(options))
+                .build()
+
+        when:
+        def er = graphql.execute(newExecutionInput().query("{ slow }").dataLoaderRegistry(new DataLoaderRegistry()))
+
+        then: "a timer that kept the batch window would have passed about 50 windows"
+        er.data == [slow: "slow"]
+        windows.get() > 0
+        windows.get() < 15
+    }
 }
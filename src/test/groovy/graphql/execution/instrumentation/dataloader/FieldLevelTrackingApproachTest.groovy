@@ -0,0 +1,74 @@
+package graphql.execution.instrumentation.dataloader
+
+import graphql.ExecutionInput
+import graphql.GraphQL
+import graphql.TestUtil
+import graphql.schema.DataFetcher
+import org.dataloader.BatchLoader
+import org.dataloader.DataLoader
+import org.dataloader.DataLoaderRegistry
+import org.slf4j.LoggerFactory
+import spock.lang.Specification
+
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+import java.util.concurrent.atomic.AtomicInteger
+import java.util.function.Supplier
+
+class FieldLevelTrackingApproachTest extends Specification {
+
+    ExecutorService executor = Executors.newFixedThreadPool(8)
+
+    def cleanup() {
+        executor.shutdownNow()
+    }
+
+    def "levels are dispatched once when fields complete on many threads"() {
+        def batchCalls = new AtomicInteger()
+        def batchedKeys = new AtomicInteger()
+        BatchLoader<String, Object> batchLoader = { keys ->
+            batchCalls.incrementAndGet()
+            batchedKeys.addAndGet(keys.size())
+            CompletableFuture.completedFuture(keys.collect { [name: "detail " + it] })
+        }
+        def schema = TestUtil.schema("""
+            type Query { items : [Item] }
+            type Item { id : ID detail : Detail }
+            type Detail { name : String }
+        """, [
+                Query : [items: { env -> CompletableFuture.supplyAsync({ -> (1..50).collect { [id: "" + it] } } as Supplier, executor) } as DataFetcher],
+                Item  : [
+                        id    : { env -> CompletableFuture.supplyAsync({ -> env.source.id } as Supplier, executor) } as DataFetcher,
+                        detail: { env -> env.getDataLoader("details").load(env.source.id) } as DataFetcher],
+                Detail: [name: { env -> CompletableFuture.supplyAsync({ -> env.source.name } as Supplier, executor) } as DataFetcher]
+        ])
+        def graphQL = GraphQL.newGraphQL(schema).build()
+
+        when:
+        def results = (1..20).collect {
+            def registry = new DataLoaderRegistry().register("details", DataLoader.newDataLoader(batchLoader))
+            graphQL.execute(ExecutionInput.newExecutionInput("{ items { id detail { name } } }").dataLoaderRegistry(registry))
+        }
+
+        then:
+        results.every { it.errors.isEmpty() }
+        results.every { it.data.items.size() == 50 && it.data.items[49] == [id: "50", detail: [name: "detail 50"]] }
+        batchCalls.get() == 20
+        batchedKeys.get() == 20 * 50
+    }
+
+    def "each level is dispatched only once, however many updates see it as ready"() {
+        def approach = new FieldLevelTrackingApproach(LoggerFactory.getLogger(FieldLevelTrackingApproachTest), { new DataLoaderRegistry() })
+        def callStack = approach.createState()
+
+        when:
+        def claims = (1..100).collect { level -> (1..8).collect { CompletableFuture.supplyAsync({ -> callStack.dispatchIfNotDispatchedBefore(level) } as Supplier, executor) } }
+                .collect { futures -> futures.count { it.join() } }
+
+        then:
+        claims.every { it == 1 }
+        !callStack.dispatchIfNotDispatchedBefore(1)
+        callStack.toString().contains("dispatchedLevels={1=1, 2=1")
+    }
+}
@@ -0,0 +1,277 @@
+package graphql.execution.preparsed
+
+import graphql.ExecutionInput
+import graphql.GraphQL
+import graphql.StarWarsSchema
+import graphql.parser.Parser
+import spock.lang.Specification
+
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+import java.util.function.Function
+
+class BoundedPreparsedDocumentProviderTest extends Specification {
+
+    def parseCount = new AtomicInteger()
+
+    def parse = { ExecutionInput executionInput ->
+        parseCount.incrementAndGet()
+        new PreparsedDocumentEntry(Parser.parse(executionInput.query))
+    } as Function<ExecutionInput, PreparsedDocumentEntry>
+
+    PreparsedDocumentEntry get(BoundedPreparsedDocumentProvider provider, String query) {
+        provider.getDocument(ExecutionInput.newExecutionInput(query).build(), parse)
+    }
+
+    def "documents are parsed once and then served from the provider"() {
+        def provider = BoundedPreparsedDocumentProvider.newBoundedPreparsedDocumentProvider().build()
+
+        when:
+        def first = get(provider, "{ hero { name } }")
+        def second = get(provider, "{ hero { name } }")
+
+        then:
+        first.is(second)
+        parseCount.get() == 1
+        provider.hitCount == 1
+        provider.missCount == 1
+        provider.evictionCount == 0
+        provider.size() == 1
+        // document, operation, 2 selection sets and 2 fields
+        provider.weightedSize == 6
+    }
+
+    def "the load time of missing documents is recorded"() {
+        def now = 0L
+        def provider = BoundedPreparsedDocumentProvider.newBoundedPreparsedDocumentProvider()
+                .nanoTime({ now += 100; now })
+                .build()
+
+        when:
+        get(provider, "{ hero { name } }")
+        get(provider, "{ hero { name } }")
+
+        then:
+        provider.totalLoadTime == 100
+    }
+
+    def "the weight of the documents is bounded by evicting the least recently used one"() {
+        def provider = BoundedPreparsedDocumentProvider.newBoundedPreparsedDocumentProvider()
+                .maximumWeight(2)
+                .weigher({ 1 })
+                .build()
+
+        when:
+        get(provider, "{ a }")
+        get(provider, "{ b }")
+        get(provider, "{ a }")
+        // c has to be asked for more often than b, the least recently used document, to be kept
+        get(provider, "{ c }")
+        get(provider, "{ c }")
+
+        then:
+        provider.size() == 2
+        provider.weightedSize == 2
+        provider.evictionCount == 2
+
+        when:
+        parseCount.set(0)
+        get(provider, "{ a }")
+        get(provider, "{ c }")
+
+        then:
+        parseCount.get() == 0
+    }
+
+    def "documents that are not admitted do not evict anything"() {
+        def provider = BoundedPreparsedDocumentProvider.newBoundedPreparsedDocumentProvider()
+                .maximumWeight(2)
+                .weigher({ entry -> entry.document.definitions[0].selectionSet.selections[0].name == "big" ? 2 : 1 })
+                .build()
+
+        when:
+        get(provider, "{ a }")
+        3.times { get(provider, "{ b }") }
+        // big would push out both a and b, but it is not asked for more often than b
+        2.times { get(provider, "{ big }") }
+
+        then:
+        provider.size() == 2
+        provider.weightedSize == 2
+        provider.evictionCount == 2
+
+        when:
+        parseCount.set(0)
+        get(provider, "{ a }")
+        get(provider, "{ b }")
+
+        then:
+        parseCount.get() == 0
+    }
+
+    def "a flood of unique queries does not push out frequently used documents"() {
+        def provider = BoundedPreparsedDocumentProvider.newBoundedPreparsedDocumentProvider()
+                .maximumWeight(10)
+                .weigher({ 1 })
+                .build()
+        def popular = (1..10).collect { "{ popular$it }".toString() }
+
+        when:
+        3.times { popular.each { get(provider, it) } }
+        (1..1000).each { get(provider, "{ unique$it }".toString()) }
+        parseCount.set(0)
+        popular.each { get(provider, it) }
+
+        then:
+        parseCount.get() == 0
+        provider.size() == 10
+    }
+
+    def "queries with the same String hash code are counted apart"() {
+        def provider = BoundedPreparsedDocumentProvider.newBoundedPreparsedDocumentProvider()
+                .maximumWeight(1)
+                .weigher({ 1 })
+                .build()
+        // "Aa" and "BB" have the same String hash code, so all of these queries do too
+        def colliding = (0..<16).collect { i -> "{ " + (0..<4).collect { b -> (i >> b & 1) == 1 ? "Aa" : "BB" }.join() + " }" }
+
+        when:
+        5.times { get(provider, "{ popular }") }
+        colliding.each { get(provider, it) }
+        parseCount.set(0)
+        get(provider, "{ popular }")
+
+        then:
+        parseCount.get() == 0
+        provider.size() == 1
+    }
+
+    def "reads that are buffered still decide which document is least recently used"() {
+        def provider = BoundedPreparsedDocumentProvider.newBoundedPreparsedDocumentProvider()
+                .maximumWeight(2)
+                .weigher({ 1 })
+                .build()
+
+        when:
+        get(provider, "{ a }")
+        get(provider, "{ b }")
+        // more reads than are buffered before they are applied to the recency order
+        100.times { get(provider, "{ a }") }
+        // c is only kept if it pushes out b, which is asked for less often than c, rather than a
+        2.times { get(provider, "{ c }") }
+        parseCount.set(0)
+        get(provider, "{ a }")
+        get(provider, "{ c }")
+
+        then:
+        parseCount.get() == 0
+        provider.size() == 2
+    }
+
+    def "cached documents can be read while other documents are loaded and evicted"() {
+        def provider = BoundedPreparsedDocumentProvider.newBoundedPreparsedDocumentProvider()
+                .maximumWeight(50)
+                .weigher({ 1 })
+                .build()
+        def executor = Executors.newFixedThreadPool(4)
+
+        when:
+        def futures = (1..4).collect { thread ->
+            executor.submit({
+                (1..2000).each { i -> get(provider, "{ field${(i * thread) % 100} }".toString()) }
+            })
+        }
+        futures.each { it.get(30, TimeUnit.SECONDS) }
+
+        then:
+        provider.size() <= 50
+        provider.weightedSize == provider.size()
+        provider.hitCount + provider.missCount == 8000
+
+        cleanup:
+        executor.shutdownNow()
+    }
+
+    def "documents heavier than the maximum weight are not kept"() {
+        def provider = BoundedPreparsedDocumentProvider.newBoundedPreparsedDocumentProvider()
+                .maximumWeight(5)
+                .build()
+
+        when:
+        get(provider, "{ hero { name } }")
+
+        then:
+        provider.size() == 0
+        provider.weightedSize == 0
+        provider.evictionCount == 1
+    }
+
+    def "concurrent requests for the same missing document parse it once"() {
+        def provider = BoundedPreparsedDocumentProvider.newBoundedPreparsedDocumentProvider().build()
+        def parsing = new CountDownLatch(1)
+        def finishParsing = new CountDownLatch(1)
+        def slowParse = { ExecutionInput executionInput ->
+            parseCount.incrementAndGet()
+            parsing.countDown()
+            finishParsing.await()
+            new PreparsedDocumentEntry(Parser.parse(executionInput.query))
+        } as Function<ExecutionInput, PreparsedDocumentEntry>
+        def executor = Executors.newFixedThreadPool(4)
+
+        when:
+        def futures = (1..4).collect {
+            executor.submit({ provider.getDocument(ExecutionInput.newExecutionInput("{ hero { name } }").build(), slowParse) })
+        }
+        parsing.await()
+        Thread.sleep(100)
+        finishParsing.countDown()
+        def documents = futures.collect { it.get(5, TimeUnit.SECONDS) }
+
+        then:
+        parseCount.get() == 1
+        documents.every { it.is(documents[0]) }
+        provider.missCount == 1
+        provider.hitCount == 3
+
+        cleanup:
+        executor.shutdownNow()
+    }
+
+    def "failed loads are not cached"() {
+        def provider = BoundedPreparsedDocumentProvider.newBoundedPreparsedDocumentProvider().build()
+        def failing = { throw new IllegalStateException("failed") } as Function<ExecutionInput, PreparsedDocumentEntry>
+
+        when:
+        provider.getDocument(ExecutionInput.newExecutionInput("{ hero { name } }").build(), failing)
+
+        then:
+        thrown(IllegalStateException)
+        provider.size() == 0
+
+        when:
+        get(provider, "{ hero { name } }")
+
+        then:
+        parseCount.get() == 1
+        provider.size() == 1
+    }
+
+    def "can be used as the preparsed document provider of graphql"() {
+        def provider = BoundedPreparsedDocumentProvider.newBoundedPreparsedDocumentProvider().build()
+        def graphQL = GraphQL.newGraphQL(StarWarsSchema.starWarsSchema)
+                .preparsedDocumentProvider(provider)
+                .build()
+
+        when:
+        def first = graphQL.execute("{ hero { name } }")
+        def second = graphQL.execute("{ hero { name } }")
+
+        then:
+        first.data == [hero: [name: "R2-D2"]]
+        second.data == first.data
+        provider.hitCount == 1
+        provider.missCount == 1
+    }
+}
@@ -0,0 +1,261 @@
+package graphql.execution.preparsed
+
+import graphql.ExecutionInput
+import graphql.ExecutionResult
+import graphql.GraphQL
+import graphql.InvalidSyntaxError
+import graphql.TestUtil
+import graphql.execution.instrumentation.InstrumentationContext
+import graphql.execution.instrumentation.SimpleInstrumentation
+import graphql.execution.instrumentation.parameters.InstrumentationExecuteOperationParameters
+import graphql.execution.preparsed.persisted.ApolloPersistedQuerySupport
+import graphql.execution.preparsed.persisted.PersistedQueryCache
+import graphql.execution.preparsed.persisted.PersistedQueryCacheMiss
+import graphql.execution.preparsed.persisted.PersistedQueryNotFound
+import graphql.language.SourceLocation
+import graphql.schema.DataFetcher
+import graphql.schema.idl.RuntimeWiring
+import spock.lang.Specification
+
+import static graphql.execution.preparsed.persisted.PersistedQuerySupport.PERSISTED_QUERY_MARKER
+
+class LiteralParameterizerTest extends Specification {
+
+    def sdl = '''
+        scalar Custom
+
+        enum Color { RED GREEN }
+
+        input Filter { name : String, colors : [Color] }
+
+        type Query {
+            echo(id : ID, n : Int, f : Float, s : String, b : Boolean, color : Color, list : [Int], filter : Filter, custom : Custom) : String
+            other(n : Int) : String
+        }
+    '''
+
+    DataFetcher echo = { env -> env.arguments.findAll { it.value != null }.collect { k, v -> "$k=$v" }.sort().join(",") } as DataFetcher
+
+    def schema = TestUtil.schema(sdl, RuntimeWiring.newRuntimeWiring()
+            .scalar(TestUtil.mockScalar("Custom"))
+            .type("Query", { it.dataFetcher("echo", echo).dataFetcher("other", echo) }))
+
+    def "queries that only differ in their literals share a preparsed document"() {
+        def provider = BoundedPreparsedDocumentProvider.newBoundedPreparsedDocumentProvider().build()
+        def graphQL = GraphQL.newGraphQL(schema)
+                .preparsedDocumentProvider(provider)
+                .parameterizeLiterals(true)
+                .build()
+
+        when:
+        def first = graphQL.execute('{ echo(n : 1) }')
+        def second = graphQL.execute('{ echo(n : 2) }')
+
+        then:
+        first.errors.isEmpty()
+        first.data == [echo: "n=1"]
+        second.data == [echo: "n=2"]
+        provider.size() == 1
+        provider.missCount == 1
+        provider.hitCount == 1
+    }
+
+    // registers the query that is sent along with an unknown id, as automatic persisted queries do
+    class AutomaticPersistedQueryCache implements PersistedQueryCache {
+        def map = [:]
+
+        @Override
+        PreparsedDocumentEntry getPersistedQueryDocument(Object persistedQueryId, ExecutionInput executionInput, PersistedQueryCacheMiss onCacheMiss) throws PersistedQueryNotFound {
+            PreparsedDocumentEntry entry = map.get(persistedQueryId) as PreparsedDocumentEntry
+            if (entry != null) {
+                return entry
+            }
+            if (executionInput.query == PERSISTED_QUERY_MARKER) {
+                throw new PersistedQueryNotFound(persistedQueryId)
+            }
+            entry = onCacheMiss.apply(executionInput.query)
+            map.put(persistedQueryId, entry)
+            return entry
+        }
+    }
+
+    def "persisted queries keep their literals so that requests sending only the id still work"() {
+        def graphQL = GraphQL.newGraphQL(schema)
+                .preparsedDocumentProvider(new ApolloPersistedQuerySupport(new AutomaticPersistedQueryCache()))
+                .parameterizeLiterals(true)
+                .build()
+        def extensions = [persistedQuery: [version: 1, sha256Hash: "hash123"]]
+
+        when:
+        def first = graphQL.execute(ExecutionInput.newExecutionInput('{ echo(n : 1) }').extensions(extensions).build())
+        def second = graphQL.execute(ExecutionInput.newExecutionInput(PERSISTED_QUERY_MARKER).extensions(extensions).build())
+
+        then:
+        first.errors.isEmpty()
+        first.data == [echo: "n=1"]
+        second.errors.isEmpty()
+        second.data == [echo: "n=1"]
+    }
+
+    def graphQL(PreparsedDocumentProvider provider) {
+        GraphQL.newGraphQL(schema)
+                .preparsedDocumentProvider(provider)
+                .parameterizeLiterals(true)
+                .build()
+    }
+
+    def "literals of built in scalars in lists and input objects become variables"() {
+        def provider = BoundedPreparsedDocumentProvider.newBoundedPreparsedDocumentProvider().build()
+        def graphQL = graphQL(provider)
+
+        when:
+        def first = graphQL.execute('{ echo(id : "x", n : 1, f : 1.5, s : "str", b : true, color : RED, list : [1, 2], filter : {name : "a", colors : [GREEN]}) }')
+        def second = graphQL.execute('{ echo(id : "y", n : 3, f : 2.5, s : "rts", b : true, color : RED, list : [4, 5], filter : {name : "b", colors : [GREEN]}) }')
+
+        then:
+        first.errors.isEmpty()
+        first.data == [echo: "b=true,color=RED,f=1.5,filter=[name:a, colors:[GREEN]],id=x,list=[1, 2],n=1,s=str"]
+        second.errors.isEmpty()
+        second.data == [echo: "b=true,color=RED,f=2.5,filter=[name:b, colors:[GREEN]],id=y,list=[4, 5],n=3,s=rts"]
+        provider.size() == 1
+        provider.hitCount == 1
+    }
+
+    def "the query is not rewritten"() {
+        def queries = []
+        def instrumentation = new SimpleInstrumentation() {
+            @Override
+            InstrumentationContext<ExecutionResult> beginExecuteOperation(InstrumentationExecuteOperationParameters parameters) {
+                queries.add(parameters.executionContext.executionInput.query)
+                return super.beginExecuteOperation(parameters)
+            }
+        }
+        def graphQL = graphQL(BoundedPreparsedDocumentProvider.newBoundedPreparsedDocumentProvider().build())
+                .transform({ it.instrumentation(instrumentation) })
+
+        when:
+        graphQL.execute('{ echo(n : 1) }')
+        graphQL.execute('{ echo(n : 2) }')
+
+        then:
+        queries == ['{ echo(n : 1) }', '{ echo(n : 2) }']
+    }
+
+    def "literals of other lengths do not share a document"() {
+        def provider = BoundedPreparsedDocumentProvider.newBoundedPreparsedDocumentProvider().build()
+        def graphQL = graphQL(provider)
+
+        when:
+        def first = graphQL.execute('{ echo(s : "a") }')
+        def second = graphQL.execute('{ echo(s : "abc") }')
+
+        then:
+        first.data == [echo: "s=a"]
+        second.data == [echo: "s=abc"]
+        provider.size() == 2
+    }
+
+    def "errors are located in the query that was sent"() {
+        DataFetcher fail = { env -> throw new RuntimeException("bang") } as DataFetcher
+        def failingSchema = TestUtil.schema(sdl.replace("other(n : Int) : String", "other(n : Int) : String fail(n : Int) : String"), RuntimeWiring.newRuntimeWiring()
+                .scalar(TestUtil.mockScalar("Custom"))
+                .type("Query", { it.dataFetcher("echo", echo).dataFetcher("fail", fail) }))
+        def graphQL = GraphQL.newGraphQL(failingSchema)
+                .preparsedDocumentProvider(BoundedPreparsedDocumentProvider.newBoundedPreparsedDocumentProvider().build())
+                .parameterizeLiterals(true)
+                .build()
+
+        when:
+        def first = graphQL.execute('{ echo(s : "a")\n  fail(n : 1) }')
+        def second = graphQL.execute('{ echo(s : "b")\n  fail(n : 2) }')
+        def invalid = graphQL.execute('{ echo(s : "c") unknown }')
+
+        then:
+        first.errors.collect { it.locations } == [[new SourceLocation(2, 3)]]
+        second.errors.collect { it.locations } == [[new SourceLocation(2, 3)]]
+        invalid.errors.collect { it.locations } == [[new SourceLocation(1, 17)]]
+    }
+
+    def "queries that can not share the cached document are validated on their own"() {
+        def graphQL = graphQL(BoundedPreparsedDocumentProvider.newBoundedPreparsedDocumentProvider().build())
+
+        when:
+        def valid = graphQL.execute('{ echo(n : 1000000000) }')
+        def tooBig = graphQL.execute('{ echo(n : 9999999999) }')
+
+        then:
+        valid.data == [echo: "n=1000000000"]
+        tooBig.errors.size() == 1
+        tooBig.errors[0].message.contains("9999999999")
+        !tooBig.errors[0].message.contains("_p0")
+    }
+
+    def "equal literals share a variable so that fields can still be merged"() {
+        def graphQL = graphQL(BoundedPreparsedDocumentProvider.newBoundedPreparsedDocumentProvider().build())
+
+        when:
+        def first = graphQL.execute('{ echo(n : 1) echo(n : 1) other(n : 1) alias : echo(n : 2) }')
+        def second = graphQL.execute('{ echo(n : 3) echo(n : 3) other(n : 3) alias : echo(n : 4) }')
+        def conflicting = graphQL.execute('{ echo(n : 3) echo(n : 5) other(n : 3) alias : echo(n : 4) }')
+
+        then:
+        first.errors.isEmpty()
+        first.data == [echo: "n=1", other: "n=1", alias: "n=2"]
+        second.errors.isEmpty()
+        second.data == [echo: "n=3", other: "n=3", alias: "n=4"]
+        !conflicting.errors.isEmpty()
+        conflicting.errors.every { it.message.contains("FieldsConflict") }
+    }
+
+    def "existing variables are kept and their names are not reused"() {
+        def graphQL = graphQL(BoundedPreparsedDocumentProvider.newBoundedPreparsedDocumentProvider().build())
+
+        when:
+        def result = graphQL.execute(ExecutionInput.newExecutionInput('query Q($_p0 : Int) { echo(n : $_p0, s : "a") }').variables([_p0: 7]).build())
+
+        then:
+        result.errors.isEmpty()
+        result.data == [echo: "n=7,s=a"]
+    }
+
+    def "literals that are kept in the document are only shared by queries with the same literals"() {
+        def provider = BoundedPreparsedDocumentProvider.newBoundedPreparsedDocumentProvider().build()
+        def graphQL = graphQL(provider)
+        def query = { n -> ExecutionInput.newExecutionInput("query A { echo(n : $n) } query B { echo(n : 0) }").operationName("A").build() }
+
+        when:
+        def first = graphQL.execute(query(1))
+        def same = graphQL.execute(query(1))
+        def other = graphQL.execute(query(2))
+
+        then:
+        first.data == [echo: "n=1"]
+        same.data == [echo: "n=1"]
+        other.data == [echo: "n=2"]
+        provider.size() == 1
+        provider.hitCount == 2
+    }
+
+    def "fragments are rewritten using their type condition"() {
+        def graphQL = graphQL(BoundedPreparsedDocumentProvider.newBoundedPreparsedDocumentProvider().build())
+
+        when:
+        def first = graphQL.execute('{ ...F } fragment F on Query { echo(s : "frag") }')
+        def second = graphQL.execute('{ ...F } fragment F on Query { echo(s : "gerf") }')
+
+        then:
+        first.data == [echo: "s=frag"]
+        second.data == [echo: "s=gerf"]
+    }
+
+    def "queries that do not lex are parsed as usual to report their errors"() {
+        def graphQL = graphQL(BoundedPreparsedDocumentProvider.newBoundedPreparsedDocumentProvider().build())
+
+        when:
+        def result = graphQL.execute('{ echo(n : 1 ')
+
+        then:
+        result.errors.size() == 1
+        result.errors[0] instanceof InvalidSyntaxError
+    }
+}
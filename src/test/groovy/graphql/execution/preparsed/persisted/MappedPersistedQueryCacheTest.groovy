@@ -0,0 +1,196 @@
+package graphql.execution.preparsed.persisted
+
+import graphql.AssertException
+import graphql.ExecutionInput
+import graphql.execution.preparsed.PreparsedDocumentEntry
+import graphql.parser.Parser
+import spock.lang.Specification
+
+import java.nio.ByteBuffer
+import java.nio.file.Files
+import java.util.function.Function
+
+import static graphql.execution.preparsed.persisted.PersistedQuerySupport.PERSISTED_QUERY_MARKER
+import static graphql.language.AstPrinter.printAstCompact
+
+class MappedPersistedQueryCacheTest extends Specification {
+
+    def knownQueries = [
+            "hash123": "query { oneTwoThree }",
+            "hash456": "query { fourFiveSix }",
+            "hash789": "query { unicode(arg : \"\u00e9\u4e2d\") }"
+    ]
+
+    def file = Files.createTempFile("persisted-queries", ".bin")
+
+    def cleanup() {
+        Files.deleteIfExists(file)
+    }
+
+    def parseCount = 0
+
+    PersistedQueryCacheMiss onCacheMiss = { String queryText ->
+        parseCount++
+        new PreparsedDocumentEntry(Parser.parse(queryText))
+    } as PersistedQueryCacheMiss
+
+    def "known queries are looked up in the file"() {
+        MappedPersistedQueryCache.write(file, knownQueries)
+
+        when:
+        def cache = MappedPersistedQueryCache.newMappedPersistedQueryCache(file).build()
+
+        then:
+        cache.queryCount == 3
+        knownQueries.every { id, query -> cache.getQuery(id) == query }
+        cache.getQuery("unknown") == null
+    }
+
+    def "many queries can be looked up"() {
+        def queries = (1..10000).collectEntries { ["id$it".toString(), "query { field$it }".toString()] }
+        MappedPersistedQueryCache.write(file, queries)
+
+        when:
+        def cache = MappedPersistedQueryCache.newMappedPersistedQueryCache(file).build()
+
+        then:
+        cache.queryCount == 10000
+        queries.every { id, query -> cache.getQuery(id) == query }
+        cache.getQuery("id10001") == null
+    }
+
+    def "an empty registry knows no queries"() {
+        MappedPersistedQueryCache.write(file, [:])
+
+        when:
+        def cache = MappedPersistedQueryCache.newMappedPersistedQueryCache(file).build()
+
+        then:
+        cache.queryCount == 0
+        cache.getQuery("hash123") == null
+    }
+
+    def "parsed documents are kept for recently used queries"() {
+        MappedPersistedQueryCache.write(file, knownQueries)
+        def cache = MappedPersistedQueryCache.newMappedPersistedQueryCache(file)
+                .maxCachedDocuments(1)
+                .build()
+        def executionInput = ExecutionInput.newExecutionInput(PERSISTED_QUERY_MARKER).build()
+
+        when:
+        def first = cache.getPersistedQueryDocument("hash123", executionInput, onCacheMiss)
+        def second = cache.getPersistedQueryDocument("hash123", executionInput, onCacheMiss)
+
+        then:
+        printAstCompact(first.document) == "query {oneTwoThree}"
+        first.is(second)
+        parseCount == 1
+        cache.hitCount == 1
+        cache.missCount == 1
+
+        when:
+        cache.getPersistedQueryDocument("hash456", executionInput, onCacheMiss)
+        cache.getPersistedQueryDocument("hash123", executionInput, onCacheMiss)
+
+        then:
+        parseCount == 3
+    }
+
+    def "unknown queries are not found"() {
+        MappedPersistedQueryCache.write(file, knownQueries)
+        def cache = MappedPersistedQueryCache.newMappedPersistedQueryCache(file).build()
+
+        when:
+        cache.getPersistedQueryDocument("unknown", ExecutionInput.newExecutionInput(PERSISTED_QUERY_MARKER).build(), onCacheMiss)
+
+        then:
+        def e = thrown(PersistedQueryNotFound)
+        e.persistedQueryId == "unknown"
+        parseCount == 0
+    }
+
+    def "can be used for apollo persisted queries"() {
+        MappedPersistedQueryCache.write(file, knownQueries)
+        def apolloSupport = new ApolloPersistedQuerySupport(MappedPersistedQueryCache.newMappedPersistedQueryCache(file).build())
+        def engineParser = { ExecutionInput ei -> new PreparsedDocumentEntry(Parser.parse(ei.query)) } as Function<ExecutionInput, PreparsedDocumentEntry>
+
+        when:
+        def ei = ExecutionInput.newExecutionInput(PERSISTED_QUERY_MARKER).extensions([persistedQuery: [sha256Hash: "hash456"]]).build()
+        def documentEntry = apolloSupport.getDocument(ei, engineParser)
+
+        then:
+        printAstCompact(documentEntry.document) == "query {fourFiveSix}"
+    }
+
+    def "files that were not written as a persisted query file are rejected"() {
+        Files.write(file, "not a persisted query file".bytes)
+
+        when:
+        MappedPersistedQueryCache.newMappedPersistedQueryCache(file).build()
+
+        then:
+        thrown(AssertException)
+    }
+
+    def "files with a truncated index are rejected"() {
+        MappedPersistedQueryCache.write(file, knownQueries)
+        def bytes = Files.readAllBytes(file)
+        Files.write(file, Arrays.copyOf(bytes, bytes.length - 1))
+
+        when:
+        MappedPersistedQueryCache.newMappedPersistedQueryCache(file).build()
+
+        then:
+        def e = thrown(AssertException)
+        e.message.contains("truncated")
+    }
+
+    def "files with a slot count that is not a power of two are rejected"() {
+        MappedPersistedQueryCache.write(file, knownQueries)
+        def bytes = Files.readAllBytes(file)
+        // the slot count follows the magic, the version and the entry count
+        ByteBuffer.wrap(bytes).putInt(12, 6)
+        Files.write(file, bytes)
+
+        when:
+        MappedPersistedQueryCache.newMappedPersistedQueryCache(file).build()
+
+        then:
+        def e = thrown(AssertException)
+        e.message.contains("invalid index size")
+    }
+
+    def "files that are shorter than the header are rejected"() {
+        Files.write(file, [0x47, 0x51, 0x50, 0x51] as byte[])
+
+        when:
+        MappedPersistedQueryCache.newMappedPersistedQueryCache(file).build()
+
+        then:
+        thrown(AssertException)
+    }
+
+    def "ids with the same string form can not be written"() {
+        when:
+        MappedPersistedQueryCache.write(file, [1: "query { one }", "1": "query { other }"])
+
+        then:
+        def e = thrown(AssertException)
+        e.message.contains("'1'")
+    }
+
+    def "a closed cache can no longer be used"() {
+        MappedPersistedQueryCache.write(file, knownQueries)
+        def cache = MappedPersistedQueryCache.newMappedPersistedQueryCache(file).build()
+        def executionInput = ExecutionInput.newExecutionInput(PERSISTED_QUERY_MARKER).build()
+        cache.getPersistedQueryDocument("hash123", executionInput, onCacheMiss)
+
+        when:
+        cache.close()
+        cache.getPersistedQueryDocument("hash123", executionInput, onCacheMiss)
+
+        then:
+        thrown(AssertException)
+        parseCount == 1
+    }
+}
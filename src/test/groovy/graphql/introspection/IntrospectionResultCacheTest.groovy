@@ -0,0 +1,216 @@
+package graphql.introspection
+
+import graphql.ExecutionInput
+import graphql.ExecutionResult
+import graphql.ExecutionResultJsonWriter
+import graphql.GraphQL
+import graphql.TestUtil
+import graphql.execution.AbortExecutionException
+import graphql.execution.instrumentation.InstrumentationContext
+import graphql.execution.instrumentation.SimpleInstrumentation
+import graphql.execution.instrumentation.dataloader.DataLoaderDispatcherInstrumentation
+import graphql.execution.instrumentation.parameters.InstrumentationExecuteOperationParameters
+import graphql.schema.GraphQLFieldDefinition
+import graphql.schema.GraphQLFieldsContainer
+import graphql.schema.GraphQLSchema
+import graphql.schema.visibility.GraphqlFieldVisibility
+import spock.lang.Specification
+
+import java.nio.charset.StandardCharsets
+
+import static graphql.schema.visibility.BlockedFields.newBlock
+
+class IntrospectionResultCacheTest extends Specification {
+
+    def schema = TestUtil.schema('''
+        type Query {
+            hello : String
+            secret : String
+        }
+    ''')
+
+    def "the standard introspection query is served from a precomputed result"() {
+        def graphQL = GraphQL.newGraphQL(schema).cacheIntrospection(true).build()
+
+        when:
+        def first = graphQL.execute(IntrospectionQuery.INTROSPECTION_QUERY)
+        def second = graphQL.execute(IntrospectionQuery.INTROSPECTION_QUERY)
+        def third = graphQL.execute(IntrospectionQuery.INTROSPECTION_QUERY)
+
+        then:
+        !(first instanceof PrecomputedIntrospectionResult)
+        second instanceof PrecomputedIntrospectionResult
+        third.is(second)
+        second.errors.isEmpty()
+        second.data == first.data
+        second.toSpecification() == first.toSpecification()
+
+        def precomputed = second as PrecomputedIntrospectionResult
+        precomputed.getSchema().is(schema)
+        precomputed.getJson() == new ExecutionResultJsonWriter().writeAsString(first)
+        def bytes = precomputed.getJsonBytes()
+        def copy = new byte[bytes.remaining()]
+        bytes.get(copy)
+        new String(copy, StandardCharsets.UTF_8) == precomputed.getJson()
+        precomputed.getJsonBytes().remaining() == copy.length
+    }
+
+    def "the precomputed result can not be changed by the requests that share it"() {
+        def graphQL = GraphQL.newGraphQL(schema).cacheIntrospection(true).build()
+        graphQL.execute(IntrospectionQuery.INTROSPECTION_QUERY)
+        def result = graphQL.execute(IntrospectionQuery.INTROSPECTION_QUERY)
+        Map<String, Object> data = result.data
+        Map<String, Object> schemaData = data["__schema"] as Map
+        List<Object> types = schemaData["types"] as List
+
+        when:
+        data.clear()
+        then:
+        thrown(UnsupportedOperationException)
+
+        when:
+        types.clear()
+        then:
+        thrown(UnsupportedOperationException)
+
+        when:
+        (types[0] as Map).put("name", "Changed")
+        then:
+        thrown(UnsupportedOperationException)
+
+        when:
+        (result.toSpecification()["data"] as Map).remove("__schema")
+        then:
+        thrown(UnsupportedOperationException)
+        graphQL.execute(IntrospectionQuery.INTROSPECTION_QUERY).data == data
+        (types[0] as Map).containsKey("description")
+    }
+
+    def "the standard introspection query is recognized with different whitespace and its operation name"() {
+        expect:
+        IntrospectionResultCache.isStandardIntrospectionQuery(ExecutionInput.newExecutionInput(query).operationName(operationName).build()) == standard
+
+        where:
+        query                                                                      | operationName        || standard
+        IntrospectionQuery.INTROSPECTION_QUERY                                     | null                 || true
+        IntrospectionQuery.INTROSPECTION_QUERY                                     | "IntrospectionQuery" || true
+        IntrospectionQuery.INTROSPECTION_QUERY.replaceAll("\\s+", " ").trim()      | null                 || true
+        IntrospectionQuery.INTROSPECTION_QUERY.replace("\n", "\r\n") + "\n\n"      | null                 || true
+        IntrospectionQuery.INTROSPECTION_QUERY                                     | "Other"              || false
+        IntrospectionQuery.INTROSPECTION_QUERY.replace("description", "")          | null                 || false
+        IntrospectionQuery.INTROSPECTION_QUERY.replace("queryType", "query Type")  | null                 || false
+        "{ __schema { types { name } } }"                                          | null                 || false
+    }
+
+    def "the precomputed result respects the built in field visibility of the schema"() {
+        def blockedSchema = schema.transform({ builder ->
+            builder.codeRegistry(schema.getCodeRegistry().transform({ it.fieldVisibility(newBlock().addPattern("Query.secret").build()) }))
+        })
+        def graphQL = GraphQL.newGraphQL(blockedSchema).cacheIntrospection(true).build()
+
+        when:
+        graphQL.execute(IntrospectionQuery.INTROSPECTION_QUERY)
+        def result = graphQL.execute(IntrospectionQuery.INTROSPECTION_QUERY)
+
+        then:
+        result instanceof PrecomputedIntrospectionResult
+        fieldNames(result.data, "Query") == ["hello"]
+    }
+
+    def "results are not cached for schemas with a custom field visibility"() {
+        def visible = ["hello", "secret"]
+        GraphqlFieldVisibility customVisibility = new GraphqlFieldVisibility() {
+            @Override
+            List<GraphQLFieldDefinition> getFieldDefinitions(GraphQLFieldsContainer fieldsContainer) {
+                fieldsContainer.getFieldDefinitions().findAll { !fieldsContainer.getName().equals("Query") || visible.contains(it.getName()) }
+            }
+
+            @Override
+            GraphQLFieldDefinition getFieldDefinition(GraphQLFieldsContainer fieldsContainer, String fieldName) {
+                fieldsContainer.getName().equals("Query") && !visible.contains(fieldName) ? null : fieldsContainer.getFieldDefinition(fieldName)
+            }
+        }
+        def customSchema = schema.transform({ builder ->
+            builder.codeRegistry(schema.getCodeRegistry().transform({ it.fieldVisibility(customVisibility) }))
+        })
+        def graphQL = GraphQL.newGraphQL(customSchema).cacheIntrospection(true).build()
+
+        when:
+        graphQL.execute(IntrospectionQuery.INTROSPECTION_QUERY)
+        visible.remove("secret")
+        def result = graphQL.execute(IntrospectionQuery.INTROSPECTION_QUERY)
+
+        then:
+        !(result instanceof PrecomputedIntrospectionResult)
+        fieldNames(result.data, "Query") == ["hello"]
+    }
+
+    def "the standard introspection query is executed every time unless caching is turned on"() {
+        def graphQL = GraphQL.newGraphQL(schema).build()
+
+        when:
+        graphQL.execute(IntrospectionQuery.INTROSPECTION_QUERY)
+        def result = graphQL.execute(IntrospectionQuery.INTROSPECTION_QUERY)
+
+        then:
+        !(result instanceof PrecomputedIntrospectionResult)
+        !(graphQL.transform({ it.cacheIntrospection(true) }).execute(IntrospectionQuery.INTROSPECTION_QUERY) instanceof PrecomputedIntrospectionResult)
+    }
+
+    def "the cache is not used when an instrumentation may reject the query"() {
+        def allowed = true
+        def denying = new SimpleInstrumentation() {
+            @Override
+            InstrumentationContext<ExecutionResult> beginExecuteOperation(InstrumentationExecuteOperationParameters parameters) {
+                if (!allowed) {
+                    throw new AbortExecutionException("introspection is not allowed")
+                }
+                return super.beginExecuteOperation(parameters)
+            }
+        }
+        def graphQL = GraphQL.newGraphQL(schema).instrumentation(denying).cacheIntrospection(true).build()
+
+        when:
+        def first = graphQL.execute(IntrospectionQuery.INTROSPECTION_QUERY)
+        allowed = false
+        def denied = graphQL.execute(IntrospectionQuery.INTROSPECTION_QUERY)
+
+        then:
+        first.errors.isEmpty()
+        !(denied instanceof PrecomputedIntrospectionResult)
+        denied.data == null
+        denied.errors.collect { it.message } == ["introspection is not allowed"]
+    }
+
+    def "the cache is used with the default instrumentation"() {
+        def graphQL = GraphQL.newGraphQL(schema).instrumentation(new DataLoaderDispatcherInstrumentation()).cacheIntrospection(true).build()
+
+        when:
+        graphQL.execute(IntrospectionQuery.INTROSPECTION_QUERY)
+        def result = graphQL.execute(IntrospectionQuery.INTROSPECTION_QUERY)
+
+        then:
+        result instanceof PrecomputedIntrospectionResult
+    }
+
+    def "the precomputed JSON is written as is"() {
+        def graphQL = GraphQL.newGraphQL(schema).cacheIntrospection(true).build()
+        def input = ExecutionInput.newExecutionInput(IntrospectionQuery.INTROSPECTION_QUERY).build()
+        def first = new StringBuilder()
+        def second = new StringBuilder()
+
+        when:
+        graphQL.executeAsync(input, first).join()
+        def result = graphQL.executeAsync(input, second).join()
+
+        then:
+        result instanceof PrecomputedIntrospectionResult
+        second.toString() == first.toString()
+        second.toString() == (result as PrecomputedIntrospectionResult).getJson()
+    }
+
+    static List<String> fieldNames(Map<String, Object> data, String typeName) {
+        def type = (data["__schema"]["types"] as List<Map>).find { it["name"] == typeName }
+        (type["fields"] as List<Map>).collect { it["name"] as String }
+    }
+}
@@ -319,6 +319,98 @@ type Dog implements Animal{
 
     }
 
+    def "fields nested in an impossible type condition do not apply to any object type"() {
+        String schema = """
+        type Query{ 
+            pets: [Pet]
+        }
+        interface Pet {
+            name: String
+        }
+        type Cat implements Pet {
+            name: String
+        }
+        type Dog implements Pet{
+            name: String
+        }
+        """
+        GraphQLSchema graphQLSchema = TestUtil.schema(schema)
+
+        String query = """
+        {
+            pets {
+                ... on Dog {
+                    ... on Pet {
+                        ... on Cat {
+                            name
+                        }
+                    }
+                }
+            }
+        }
+        """
+        // each spread is valid on its own, only together they exclude every object type
+        assertValidQuery(graphQLSchema, query)
+
+        Document document = TestUtil.parseQuery(query)
+
+        def tree = NormalizedQueryTreeFactory.createNormalizedQuery(graphQLSchema, document, null, [:])
+
+        expect:
+        printTree(tree) == ['Query.pets: [Pet] (conditional: false)']
+    }
+
+    def "a fragment spread under different type conditions applies to each of them"() {
+        String schema = """
+        type Query{ 
+            pets: [Pet]
+        }
+        interface Pet {
+            name: String
+        }
+        type Cat implements Pet {
+            name: String
+            meows: Boolean
+        }
+        type Dog implements Pet{
+            name: String
+            barks: Boolean
+        }
+        """
+        GraphQLSchema graphQLSchema = TestUtil.schema(schema)
+
+        String query = """
+        {
+            pets {
+                ... on Dog {
+                    ...Named
+                    barks
+                }
+                ... on Cat {
+                    ...Named
+                    meows
+                }
+                ...Named
+            }
+        }
+        fragment Named on Pet {
+            name
+        }
+        """
+        assertValidQuery(graphQLSchema, query)
+
+        Document document = TestUtil.parseQuery(query)
+
+        def tree = NormalizedQueryTreeFactory.createNormalizedQuery(graphQLSchema, document, null, [:])
+
+        expect:
+        printTree(tree) == ['Query.pets: [Pet] (conditional: false)',
+                            'Dog.name: String (conditional: true)',
+                            'Cat.name: String (conditional: true)',
+                            'Dog.barks: Boolean (conditional: true)',
+                            'Cat.meows: Boolean (conditional: true)']
+    }
+
     def "query with unions and __typename"() {
 
         String schema = """
@@ -0,0 +1,213 @@
+package graphql.parser
+
+import graphql.GraphQL
+import graphql.InvalidSyntaxError
+import graphql.StarWarsSchema
+import graphql.language.Field
+import graphql.language.IgnoredChars
+import graphql.language.OperationDefinition
+import graphql.schema.idl.SchemaParser
+import spock.lang.Specification
+import spock.lang.Unroll
+
+class ParserOptionsTest extends Specification {
+
+    def query = '''
+        # the operation
+        query Q {
+            # the field
+            field(arg : 1)
+        }
+        '''
+
+    Field parseField(ParserOptions parserOptions, boolean useQueryDocumentParser) {
+        def document = new Parser(parserOptions.transform({ it.useQueryDocumentParser(useQueryDocumentParser) })).parseDocument(query)
+        return (document.definitions[0] as OperationDefinition).selectionSet.selections[0] as Field
+    }
+
+    @Unroll
+    def "comments, ignored chars and source locations are captured by default (query document parser: #useQueryDocumentParser)"() {
+        when:
+        def field = parseField(ParserOptions.newParserOptions().build(), useQueryDocumentParser)
+
+        then:
+        field.comments.collect { it.content } == [" the field"]
+        !field.ignoredChars.left.isEmpty()
+        field.sourceLocation.line == 5
+        field.arguments[0].value.sourceLocation.column == 25
+
+        where:
+        useQueryDocumentParser << [false, true]
+    }
+
+    @Unroll
+    def "comments, ignored chars and source locations can be left out (query document parser: #useQueryDocumentParser)"() {
+        def parserOptions = ParserOptions.newParserOptions()
+                .captureLineComments(false)
+                .captureIgnoredChars(false)
+                .captureSourceLocation(false)
+                .build()
+
+        when:
+        def field = parseField(parserOptions, useQueryDocumentParser)
+
+        then:
+        field.name == "field"
+        field.comments.isEmpty()
+        field.ignoredChars == IgnoredChars.EMPTY
+        field.sourceLocation == null
+        field.arguments[0].value.sourceLocation == null
+
+        where:
+        useQueryDocumentParser << [false, true]
+    }
+
+    def "parsers use the default options unless they are given their own"() {
+        def previous = ParserOptions.getDefaultParserOptions()
+        ParserOptions.setDefaultParserOptions(previous.transform({ builder -> builder.captureLineComments(false) }))
+
+        when:
+        def document = new Parser().parseDocument(query)
+        def ownOptions = new Parser(ParserOptions.newParserOptions().build()).parseDocument(query)
+
+        then:
+        document.definitions[0].comments.isEmpty()
+        ownOptions.definitions[0].comments.collect { it.content } == [" the operation"]
+
+        when:
+        def registry = new SchemaParser().parse('''
+            # a commented type
+            type Query { field : String }
+        ''')
+
+        then:
+        registry.getType("Query").get().comments.collect { it.content } == [" a commented type"]
+
+        cleanup:
+        ParserOptions.setDefaultParserOptions(previous)
+    }
+
+    def "the query document parser is chosen per parser"() {
+        def options = ParserOptions.newParserOptions().build()
+
+        expect:
+        !options.isUseQueryDocumentParser()
+        options.transform({ builder -> builder.useQueryDocumentParser(true) }).isUseQueryDocumentParser()
+        options.transform({ builder -> builder.useQueryDocumentParser(true) }).transform({ builder -> builder.maxDepth(10) }).isUseQueryDocumentParser()
+        new Parser(options.transform({ builder -> builder.useQueryDocumentParser(true) })).parseDocument(query).isEqualTo(new Parser(options).parseDocument(query))
+    }
+
+    InvalidSyntaxException parseWithLimits(ParserOptions parserOptions, boolean useQueryDocumentParser, String input) {
+        try {
+            new Parser(parserOptions.transform({ it.useQueryDocumentParser(useQueryDocumentParser) })).parseDocument(input)
+            return null
+        } catch (InvalidSyntaxException e) {
+            return e
+        }
+    }
+
+    @Unroll
+    def "parsing is cancelled once a limit is exceeded #input (query document parser: #useQueryDocumentParser)"() {
+        when:
+        def e = parseWithLimits(ParserOptions.newParserOptions().build().transform(limits), useQueryDocumentParser, input)
+
+        then:
+        e instanceof ParseCancelledException
+        e.message.startsWith("Invalid Syntax : " + message + " To prevent Denial Of Service attacks, parsing has been cancelled.")
+        e.offendingToken == offendingToken
+        e.location?.line == line
+        e.location?.column == column
+
+        where:
+        input                        | limits                        | message                                              | offendingToken | line | column | useQueryDocumentParser
+        "{ a b c d }"                | { it.maxTokens(4) }           | "More than 4 'grammar' tokens have been presented."  | "d"            | 1    | 9      | false
+        "{ a b c d }"                | { it.maxTokens(4) }           | "More than 4 'grammar' tokens have been presented."  | "d"            | 1    | 9      | true
+        "{ a,\n  b }"                | { it.maxWhitespaceTokens(3) } | "More than 3 whitespace tokens have been presented." | null           | 2    | 1      | false
+        "{ a,\n  b }"                | { it.maxWhitespaceTokens(3) } | "More than 3 whitespace tokens have been presented." | null           | 2    | 1      | true
+        "{ a { b { c } } }"          | { it.maxDepth(2) }            | "The document is nested more than 2 levels deep."    | "{"            | 1    | 9      | false
+        "{ a { b { c } } }"          | { it.maxDepth(2) }            | "The document is nested more than 2 levels deep."    | "{"            | 1    | 9      | true
+        "{ a(arg : [[{ f : 1 }]]) }" | { it.maxDepth(3) }            | "The document is nested more than 3 levels deep."    | "{"            | 1    | 13     | false
+        "{ a(arg : [[{ f : 1 }]]) }" | { it.maxDepth(3) }            | "The document is nested more than 3 levels deep."    | "{"            | 1    | 13     | true
+        'query ($v : [[Int]]) { a }' | { it.maxDepth(1) }            | "The document is nested more than 1 levels deep."    | "["            | 1    | 14     | false
+        'query ($v : [[Int]]) { a }' | { it.maxDepth(1) }            | "The document is nested more than 1 levels deep."    | "["            | 1    | 14     | true
+        "{ a b c d }"                | { it.maxCharacters(10) }      | "More than 10 characters have been presented."       | null           | null | null   | false
+        "{ a b c d }"                | { it.maxCharacters(10) }      | "More than 10 characters have been presented."       | null           | null | null   | true
+    }
+
+    @Unroll
+    def "documents within the limits are parsed (query document parser: #useQueryDocumentParser)"() {
+        def parserOptions = ParserOptions.newParserOptions()
+                .maxTokens(6)
+                .maxWhitespaceTokens(5)
+                .maxDepth(2)
+                .maxCharacters(11)
+                .build()
+
+        expect:
+        parseWithLimits(parserOptions, useQueryDocumentParser, "{ a { b } }") == null
+
+        where:
+        useQueryDocumentParser << [false, true]
+    }
+
+    def "documents that exceed the default limits fail to execute with an invalid syntax error"() {
+        def graphQL = GraphQL.newGraphQL(StarWarsSchema.starWarsSchema).build()
+        def query = "{ hero " + ("{ friends " * ParserOptions.MAX_DEPTH) + "{ name }" + (" }" * ParserOptions.MAX_DEPTH) + " }"
+
+        when:
+        def result = graphQL.execute(query)
+
+        then:
+        result.errors.size() == 1
+        result.errors[0] instanceof InvalidSyntaxError
+        result.errors[0].message.contains("The document is nested more than 500 levels deep.")
+        result.data == null
+    }
+
+    def "only operations are limited by default"() {
+        expect:
+        ParserOptions.getDefaultParserOptions().maxCharacters == Integer.MAX_VALUE
+        ParserOptions.getDefaultParserOptions().maxTokens == Integer.MAX_VALUE
+        ParserOptions.getDefaultParserOptions().maxWhitespaceTokens == Integer.MAX_VALUE
+        ParserOptions.getDefaultParserOptions().maxDepth == Integer.MAX_VALUE
+        ParserOptions.getDefaultOperationParserOptions().maxCharacters == ParserOptions.MAX_QUERY_CHARACTERS
+        ParserOptions.getDefaultOperationParserOptions().maxTokens == ParserOptions.MAX_QUERY_TOKENS
+        ParserOptions.getDefaultOperationParserOptions().maxWhitespaceTokens == ParserOptions.MAX_WHITESPACE_TOKENS
+        ParserOptions.getDefaultOperationParserOptions().maxDepth == ParserOptions.MAX_DEPTH
+    }
+
+    def "operations are parsed with the default operation options"() {
+        def graphQL = GraphQL.newGraphQL(StarWarsSchema.starWarsSchema).build()
+        def previous = ParserOptions.getDefaultOperationParserOptions()
+        ParserOptions.setDefaultOperationParserOptions(previous.transform({ builder -> builder.maxTokens(3) }))
+
+        when:
+        def result = graphQL.execute("{ hero { name } }")
+        def document = new Parser().parseDocument("{ hero { name } }")
+
+        then:
+        result.errors.size() == 1
+        result.errors[0] instanceof InvalidSyntaxError
+        result.errors[0].message.contains("More than 3 'grammar' tokens have been presented.")
+        document.definitions.size() == 1
+
+        cleanup:
+        ParserOptions.setDefaultOperationParserOptions(previous)
+    }
+
+    def "schemas are not limited by the number of tokens"() {
+        def previous = ParserOptions.getDefaultParserOptions()
+        ParserOptions.setDefaultParserOptions(previous.transform({ builder -> builder.maxTokens(10).maxWhitespaceTokens(10) }))
+
+        when:
+        def registry = new SchemaParser().parse('''
+            type Query { a : String b : String c : String }
+        ''')
+
+        then:
+        registry.getType("Query").isPresent()
+
+        cleanup:
+        ParserOptions.setDefaultParserOptions(previous)
+    }
+}
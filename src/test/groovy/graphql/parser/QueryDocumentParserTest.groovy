@@ -0,0 +1,194 @@
+package graphql.parser
+
+import graphql.language.Document
+import graphql.language.Node
+import graphql.language.ObjectTypeDefinition
+import graphql.language.OperationDefinition
+import spock.lang.Specification
+import spock.lang.Unroll
+
+class QueryDocumentParserTest extends Specification {
+
+    def query = '''
+        # the operation
+        query Hero($episode : Episode = JEDI, $ids : [ID!]! = ["1", "2"], $filter : Filter = {name : "x", tags : [a, b]}) @live {
+            hero(episode : $episode, first : -10, ratio : 1.5e-3, ok : true, nothing : null) {
+                id,
+                heroName : name # trailing comment
+                ... on Droid @include(if : true) { primaryFunction }
+                ...HumanFields @skip(if : false)
+                ... @defer { friends { name } }
+                quote(text : "a \\"quoted\\" \\u00e9 string", block : """
+                    block "string" \\""" with escapes
+                """)
+            }
+        }
+
+        fragment HumanFields on Human {
+            homePlanet
+        }
+
+        mutation { like(id : 1, input : {ids : [$ids], nested : {on : on}}) }
+        subscription OnLike { liked { fragment query on } }
+        {	tab, comma ,
+            a }
+        '''
+
+    static Parser parser(boolean useQueryDocumentParser) {
+        new Parser(ParserOptions.getDefaultParserOptions().transform({ it.useQueryDocumentParser(useQueryDocumentParser) }))
+    }
+
+    Document parse(String input, boolean useQueryDocumentParser) {
+        parser(useQueryDocumentParser).parseDocument(input)
+    }
+
+    Document parse(MultiSourceReader reader, boolean useQueryDocumentParser) {
+        parser(useQueryDocumentParser).parseDocument(reader)
+    }
+
+    InvalidSyntaxException syntaxError(String input, boolean useQueryDocumentParser) {
+        try {
+            parse(input, useQueryDocumentParser)
+        } catch (InvalidSyntaxException e) {
+            return e
+        }
+        return null
+    }
+
+    static void assertSameAst(Node expected, Node actual) {
+        assert expected.class == actual.class
+        assert expected.isEqualTo(actual)
+        assert expected.sourceLocation == actual.sourceLocation
+        assert expected.comments.collect { [it.content, it.sourceLocation] } == actual.comments.collect { [it.content, it.sourceLocation] }
+        assert expected.ignoredChars.left == actual.ignoredChars.left
+        assert expected.ignoredChars.right == actual.ignoredChars.right
+        assert expected.children.size() == actual.children.size()
+        for (int i = 0; i < expected.children.size(); i++) {
+            assertSameAst(expected.children[i], actual.children[i])
+        }
+    }
+
+    def "builds the same AST as the ANTLR based parser"() {
+        when:
+        def expected = parse(query, false)
+        def actual = parse(query, true)
+
+        then:
+        actual.definitions.size() == 5
+        assertSameAst(expected, actual)
+    }
+
+    @Unroll
+    def "builds the same AST as the ANTLR based parser for '#input'"() {
+        when:
+        def expected = parse(input, false)
+        def actual = parse(input, true)
+
+        then:
+        assertSameAst(expected, actual)
+
+        where:
+        input                                                          | _
+        '{a}'                                                          | _
+        '\uFEFF{ a }\r\n'                                              | _
+        '# only \uD83D\uDE15 comments\n#\n{ a(b : "\uD83D\uDE15") c }' | _
+        '{ a\u2028b }'                                                 | _
+        'query { a(b : [[1, -0], {}, []]) }'                           | _
+        '{ a(b : """\n  multi\n  line\n""") c }'                       | _
+        'query on($true : Boolean = false) { on : null }'              | _
+        'fragment f on T { a } { ...f }'                               | _
+    }
+
+    def "keeps the source names and lines of multi source input"() {
+        def part1 = 'query X {\n  field1\n'
+        def part2 = '  # comment\n  field2\n}\n'
+
+        when:
+        def expected = parse(MultiSourceReader.newMultiSourceReader().string(part1, "part1").string(part2, "part2").build(), false)
+        def actual = parse(MultiSourceReader.newMultiSourceReader().string(part1, "part1").string(part2, "part2").build(), true)
+
+        then:
+        assertSameAst(expected, actual)
+        (actual.definitions[0] as OperationDefinition).selectionSet.selections[1].sourceLocation.sourceName == "part2"
+    }
+
+    def "documents with type system definitions are parsed by the ANTLR based parser"() {
+        def sdl = '''
+            query { a }
+            "a description"
+            type Query { a : String }
+        '''
+
+        when:
+        def expected = parse(sdl, false)
+        def actual = parse(sdl, true)
+
+        then:
+        actual.definitions[1] instanceof ObjectTypeDefinition
+        assertSameAst(expected, actual)
+    }
+
+    @Unroll
+    def "reports the same syntax error as the ANTLR based parser for '#input'"() {
+        when:
+        def expected = syntaxError(input, false)
+        def actual = syntaxError(input, true)
+
+        then:
+        expected != null
+        actual != null
+        actual.message == expected.message
+        actual.location == expected.location
+        actual.offendingToken == expected.offendingToken
+        actual.sourcePreview == expected.sourcePreview
+
+        where:
+        input                                             | _
+        ''                                                | _
+        'foo { a }'                                       | _
+        '{ a } }'                                         | _
+        '{ }'                                             | _
+        '{ a'                                             | _
+        'query X { field1 field2(thisBreaksHere field3 }' | _
+        'query X {\n a\n b(c : )\n d\n}'                  | _
+        'query ($a : Int = $b) { a }'                     | _
+        'query ($a : [Int) { a }'                         | _
+        'query () { a }'                                  | _
+        '{ a(b : 4.) }'                                   | _
+        '{ a(b : [00]) }'                                 | _
+        '{ a(b : 1.2e3.4) }'                              | _
+        '{ a(b : 123e) }'                                 | _
+        '{ a / b }'                                       | _
+        '{ a(b : "unterminated) }'                        | _
+        '{ .. }'                                          | _
+        '{ ... 1 }'                                       | _
+        '{ ...on }'                                       | _
+        'fragment on on T { a }'                          | _
+        'fragment f T { a }'                              | _
+        'query ($a : Int = ) { a }'                       | _
+        'query ($a : [Int]] ) { a }'                      | _
+        'query ($a : [[Int!]) { a }'                      | _
+        'query ($a : [Int'                                | _
+        'query ($a : Int!!) { a }'                        | _
+        'query ($a : Int $b) { a }'                       | _
+        'query ($a) { a }'                                | _
+        '{ a(b : $) }'                                    | _
+        '{ a @ }'                                         | _
+        '{ a(b : {c : }) }'                               | _
+        '{ a(b : {c  1}) }'                               | _
+        '{ a(b : [1 }'                                    | _
+        '{ a : }'                                         | _
+        '{ a : b : c }'                                   | _
+        'query X @a(b : 1 { a }'                          | _
+        'query X Y { a }'                                 | _
+        'fragment f on T @ { a }'                         | _
+        '{ a } fragment'                                  | _
+        '{ a } query'                                     | _
+        '{ a } { b } c'                                   | _
+        '{ a(b : "\\x") }'                                | _
+        '{ a(b : "\\u12G4") }'                            | _
+        '{ a(b : -) }'                                    | _
+        '{ a(b : 1a) }'                                   | _
+        '{ a(b : \"\"\"x) }'                              | _
+    }
+}
@@ -0,0 +1,47 @@
+package graphql.parser
+
+import spock.lang.Specification
+
+class QueryLiteralsTest extends Specification {
+
+    def parserOptions = ParserOptions.getDefaultOperationParserOptions()
+
+    def "queries that only differ in the values of their literals have the same key"() {
+        when:
+        def first = QueryLiterals.lex('{ a(n : 12, f : 1.5, s : "ab") }', parserOptions)
+        def second = QueryLiterals.lex('{ a(n : 34, f : 2.5, s : "cd") }', parserOptions)
+
+        then:
+        first.key == second.key
+        first.size() == 3
+        (0..2).collect { first.getText(it) } == ["12", "1.5", '"ab"']
+        (0..2).collect { second.getValue(it) } == [34G, 2.5G, "cd"]
+    }
+
+    def "the key keeps the kind, length and line breaks of the literals"() {
+        def key = { String query -> QueryLiterals.lex(query, parserOptions).key }
+
+        expect:
+        key('{ a(n : 1) }') != key('{ a(n : 12) }')
+        key('{ a(n : 1) }') != key('{ a(n : "") }')
+        key('{ a(s : """x\ny""") }') != key('{ a(s : """xy_""") }')
+        key('{ a(s : "😀") }') == key('{ a(s : "x") }')
+        key('{ a(n : 1) }') != '{ a(n : 1) }'
+    }
+
+    def "literals are found by the location of the value"() {
+        def literals = QueryLiterals.lex('{ a(n : 1)\n  b(s : "x", t : """\n""") }', parserOptions)
+
+        expect:
+        literals.indexOf(1, 9) == 0
+        literals.indexOf(2, 9) == 1
+        literals.indexOf(2, 18) == 2
+        literals.indexOf(2, 3) == -1
+    }
+
+    def "queries that do not lex have no literals"() {
+        expect:
+        QueryLiterals.lex('{ a(s : "x) }', parserOptions) == null
+        QueryLiterals.lex('{ a(n : 1) }', parserOptions.transform({ it.maxTokens(3) })) == null
+    }
+}
@@ -6,6 +6,7 @@ import graphql.Scalars
 import graphql.StarWarsSchema
 import graphql.TestUtil
 import graphql.TypeResolutionEnvironment
+import graphql.introspection.Introspection
 import graphql.schema.visibility.GraphqlFieldVisibility
 import spock.lang.Specification
 
@@ -197,6 +198,118 @@ class GraphQLCodeRegistryTest extends Specification {
         dataFetcher.get(null) == "hi"
     }
 
+    def "field execution descriptors hold on to data fetchers that do not change"() {
+        def codeRegistry = GraphQLSchema.newSchema(StarWarsSchema.starWarsSchema)
+                .codeRegistry(GraphQLCodeRegistry.newCodeRegistry()
+                        .dataFetcher(FieldCoordinates.coordinates("Human", "id"), new NamedDF("id"))
+                        .build())
+                .build()
+                .codeRegistry
+        def idField = StarWarsSchema.humanType.getFieldDefinition("id")
+        def nameField = StarWarsSchema.humanType.getFieldDefinition("name")
+
+        when:
+        def idDescriptor = codeRegistry.getFieldExecutionDescriptor(StarWarsSchema.humanType, idField)
+        def nameDescriptor = codeRegistry.getFieldExecutionDescriptor(StarWarsSchema.humanType, nameField)
+
+        then:
+        codeRegistry.getFieldExecutionDescriptor(StarWarsSchema.humanType, idField).is(idDescriptor)
+        (idDescriptor.dataFetcher as NamedDF).name == "id"
+        nameDescriptor.dataFetcher instanceof PropertyDataFetcher
+        nameDescriptor.dataFetcher.is(nameDescriptor.dataFetcher)
+    }
+
+    def "field execution descriptors are kept per parent type when a field definition is shared"() {
+        def sharedField = newFieldDefinition().name("shared").type(GraphQLString).build()
+        def typeA = newObject().name("A").field(sharedField).build()
+        def typeB = newObject().name("B").field(sharedField).build()
+        def codeRegistry = GraphQLSchema.newSchema()
+                .query(newObject().name("Query")
+                        .field(newFieldDefinition().name("a").type(typeA))
+                        .field(newFieldDefinition().name("b").type(typeB)))
+                .codeRegistry(GraphQLCodeRegistry.newCodeRegistry()
+                        .dataFetcher(FieldCoordinates.coordinates("A", "shared"), new NamedDF("A"))
+                        .dataFetcher(FieldCoordinates.coordinates("B", "shared"), new NamedDF("B"))
+                        .build())
+                .build()
+                .codeRegistry
+
+        when:
+        def descriptorA = codeRegistry.getFieldExecutionDescriptor(typeA, sharedField)
+        def descriptorB = codeRegistry.getFieldExecutionDescriptor(typeB, sharedField)
+
+        then:
+        (descriptorA.dataFetcher as NamedDF).name == "A"
+        (descriptorB.dataFetcher as NamedDF).name == "B"
+        codeRegistry.getFieldExecutionDescriptor(typeA, sharedField).is(descriptorA)
+        codeRegistry.getFieldExecutionDescriptor(typeB, sharedField).is(descriptorB)
+    }
+
+    def "field execution descriptors are worked out when the schema is built and know the type of the field"() {
+        def schema = TestUtil.schema("""
+            type Query {
+                names : [String!]!
+                episode : Episode
+                friend : Query
+            }
+            enum Episode { NEWHOPE }
+        """)
+        def codeRegistry = schema.codeRegistry
+        def queryType = schema.queryType
+
+        expect:
+        codeRegistry.fieldExecutionDescriptors[queryType.getFieldDefinition("names")]["Query"] != null
+        codeRegistry.fieldExecutionDescriptors[Introspection.TypeNameMetaFieldDef]["Query"] != null
+        codeRegistry.fieldExecutionDescriptors[Introspection.SchemaMetaFieldDef]["Query"] != null
+
+        def names = codeRegistry.getFieldExecutionDescriptor(queryType, queryType.getFieldDefinition("names"))
+        names.isNonNull()
+        names.isList()
+        names.unwrappedType == GraphQLString
+        names.coercing == null
+
+        def episode = codeRegistry.getFieldExecutionDescriptor(queryType, queryType.getFieldDefinition("episode"))
+        !episode.isNonNull()
+        !episode.isList()
+        episode.unwrappedNonNullType == schema.getType("Episode")
+        episode.coercing == null
+
+        def typeName = codeRegistry.getFieldExecutionDescriptor(queryType, Introspection.TypeNameMetaFieldDef)
+        typeName.isNonNull()
+        typeName.coercing.is(GraphQLString.coercing)
+    }
+
+    def "field execution descriptors of fields outside the schema are not kept"() {
+        def schema = TestUtil.schema("type Query { foo : String }")
+        def transformed = schema.transform({ builder -> builder.additionalType(newObject().name("Bar").field(newFieldDefinition().name("bar").type(GraphQLString)).build()) })
+        def barType = transformed.getType("Bar") as GraphQLObjectType
+        def descriptorCount = schema.codeRegistry.fieldExecutionDescriptors.size()
+
+        when:
+        def descriptor = schema.codeRegistry.getFieldExecutionDescriptor(barType, barType.getFieldDefinition("bar"))
+
+        then:
+        descriptor.dataFetcher instanceof PropertyDataFetcher
+        !schema.codeRegistry.getFieldExecutionDescriptor(barType, barType.getFieldDefinition("bar")).is(descriptor)
+        schema.codeRegistry.fieldExecutionDescriptors.size() == descriptorCount
+        transformed.codeRegistry.getFieldExecutionDescriptor(barType, barType.getFieldDefinition("bar")).is(transformed.codeRegistry.getFieldExecutionDescriptor(barType, barType.getFieldDefinition("bar")))
+    }
+
+    def "field execution descriptors ask other data fetcher factories on every fetch"() {
+        def calls = 0
+        DataFetcherFactory perRequestFactory = { env -> calls++; new NamedDF("call" + calls) }
+        def codeRegistry = GraphQLCodeRegistry.newCodeRegistry()
+                .dataFetcher(FieldCoordinates.coordinates("Human", "id"), perRequestFactory)
+                .build()
+
+        when:
+        def descriptor = codeRegistry.getFieldExecutionDescriptor(StarWarsSchema.humanType, StarWarsSchema.humanType.getFieldDefinition("id"))
+
+        then:
+        (descriptor.dataFetcher as NamedDF).name == "call1"
+        (descriptor.dataFetcher as NamedDF).name == "call2"
+    }
+
     def "integration test that code registry gets asked for data fetchers"() {
 
         def queryType = newObject().name("Query")
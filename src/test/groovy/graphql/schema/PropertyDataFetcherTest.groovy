@@ -1,6 +1,8 @@
 package graphql.schema
 
 import graphql.ExecutionInput
+import graphql.GraphQLException
+import graphql.Scalars
 import graphql.TestUtil
 import graphql.schema.somepackage.ClassWithDFEMethods
 import graphql.schema.somepackage.ClassWithInterfaces
@@ -9,6 +11,7 @@ import graphql.schema.somepackage.TestClass
 import graphql.schema.somepackage.TwoClassesDown
 import spock.lang.Specification
 
+import java.lang.reflect.InvocationTargetException
 import java.util.function.Function
 
 import static graphql.schema.DataFetchingEnvironmentImpl.newDataFetchingEnvironment
@@ -466,4 +469,73 @@ class PropertyDataFetcherTest extends Specification {
         then:
         result == "bar"
     }
+
+    static class ThrowingGetter {
+        String getBoom() {
+            throw new IllegalStateException("boom")
+        }
+    }
+
+    def "generated and reflective accessors fetch the same values"() {
+        def previous = PropertyDataFetcher.setUseGeneratedAccessors(generated)
+        PropertyDataFetcher.clearReflectionCache()
+
+        when:
+        def values = []
+        2.times {
+            values << new PropertyDataFetcher("publicProperty").get(env(new TestClass()))
+            values << new PropertyDataFetcher("privateProperty").get(env(new TestClass()))
+            values << new PropertyDataFetcher("publicField").get(env(new TestClass()))
+            values << new PropertyDataFetcher("privateField").get(env(new TestClass()))
+            values << new PropertyDataFetcher("packageProtectedProperty").get(env(TestClass.createPackageProtectedImpl("aValue")))
+            values << new PropertyDataFetcher("methodWithDFE").get(env(new ClassWithDFEMethods()))
+        }
+
+        then:
+        values == ["publicValue", "privateValue", "publicFieldValue", "privateFieldValue", "aValue", "methodWithDFE"] * 2
+
+        when:
+        def errors = (1..2).collect {
+            try {
+                new PropertyDataFetcher("boom").get(env(new ThrowingGetter()))
+                return null
+            } catch (GraphQLException e) {
+                return e
+            }
+        }
+
+        then:
+        errors.every { it.cause instanceof InvocationTargetException && it.cause.cause.message == "boom" }
+
+        cleanup:
+        PropertyDataFetcher.setUseGeneratedAccessors(previous)
+        PropertyDataFetcher.clearReflectionCache()
+
+        where:
+        generated << [true, false]
+    }
+
+    def "missing properties are not negatively cached forever and clearing the cache lets go of all accessors"() {
+        def fetching = new PropertyFetchingImpl(DataFetchingEnvironment.class)
+
+        when:
+        fetching.getPropertyValue("publicProperty", new TestClass(), Scalars.GraphQLString)
+        (1..10_000).each { fetching.getPropertyValue("missing" + it, new TestClass(), Scalars.GraphQLString) }
+
+        then:
+        fetching.ACCESSOR_CACHE[TestClass].size() == 10_001
+
+        when:
+        fetching.getPropertyValue("oneMoreMissing", new TestClass(), Scalars.GraphQLString)
+
+        then: "the misses are forgotten but the accessors of found properties are kept"
+        fetching.ACCESSOR_CACHE[TestClass].keySet() == ["publicProperty"] as Set
+        fetching.getPropertyValue("missing1", new TestClass(), Scalars.GraphQLString) == null
+
+        when:
+        fetching.clearReflectionCache()
+
+        then:
+        fetching.ACCESSOR_CACHE.isEmpty()
+    }
 }
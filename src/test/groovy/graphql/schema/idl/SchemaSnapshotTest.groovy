@@ -0,0 +1,244 @@
+package graphql.schema.idl
+
+import graphql.AssertException
+import graphql.GraphQL
+import graphql.TypeResolutionEnvironment
+import graphql.language.StringValue
+import graphql.schema.Coercing
+import graphql.schema.DataFetcher
+import graphql.schema.GraphQLEnumType
+import graphql.schema.GraphQLInputObjectType
+import graphql.schema.GraphQLObjectType
+import graphql.schema.GraphQLScalarType
+import graphql.schema.GraphQLSchema
+import graphql.schema.TypeResolver
+import spock.lang.Specification
+
+class SchemaSnapshotTest extends Specification {
+
+    static class Colour {
+        final String hex
+
+        Colour(String hex) {
+            this.hex = hex
+        }
+    }
+
+    static GraphQLScalarType colourScalar = GraphQLScalarType.newScalar()
+            .name("Colour")
+            .coercing(new Coercing<Colour, String>() {
+                @Override
+                String serialize(Object dataFetcherResult) {
+                    return ((Colour) dataFetcherResult).hex
+                }
+
+                @Override
+                Colour parseValue(Object input) {
+                    return new Colour(input as String)
+                }
+
+                @Override
+                Colour parseLiteral(Object input) {
+                    return new Colour(((StringValue) input).getValue())
+                }
+            })
+            .build()
+
+    def sdl = '''
+        "The schema"
+        schema {
+            query : Query
+            mutation : Mutation
+        }
+
+        directive @cached(seconds : Int = 60, scope : Scope = PUBLIC) on FIELD_DEFINITION | OBJECT
+
+        directive @visibility(scope : Scope) on ENUM
+
+        scalar Colour @specifiedBy(url : "https://example.com/colour")
+
+        enum Scope {
+            PUBLIC
+            "Only for the viewer"
+            PRIVATE @deprecated(reason : "use PUBLIC")
+        }
+
+        enum Access @visibility(scope : PRIVATE) {
+            READ
+            WRITE
+        }
+
+        interface Node {
+            id : ID!
+        }
+
+        interface Named implements Node {
+            id : ID!
+            name : String
+        }
+
+        type Person implements Named & Node @cached(seconds : 10) {
+            id : ID!
+            name : String
+            favourite : Colour
+            friends(first : Int = 10, scope : Scope = PRIVATE) : [Person!] @cached
+            nickname : String @deprecated(reason : "use name")
+        }
+
+        type Robot implements Node {
+            id : ID!
+            model : String
+        }
+
+        union Thing = Person | Robot
+
+        input Filter {
+            scope : Scope = PUBLIC
+            colour : Colour = "#ffffff"
+            names : [String!] = ["a", "b"]
+            nested : Nested = { limit : 5, ratio : 0.5 }
+            note : String = null
+        }
+
+        input Nested {
+            limit : Int
+            ratio : Float
+        }
+
+        type Query {
+            "Finds things"
+            things(filter : Filter) : [Thing]
+            node(id : ID!) : Node
+        }
+
+        type Mutation {
+            rename(id : ID!, name : String!) : Person
+        }
+    '''
+
+    def things = [
+            [__typename: "Person", id: "1", name: "Ada", favourite: new Colour("#ff0000"), friends: [], nickname: "A"],
+            [__typename: "Robot", id: "2", model: "R2"]
+    ]
+
+    TypeResolver typeResolver = { TypeResolutionEnvironment env ->
+        env.getSchema().getObjectType(env.getObject()["__typename"] as String)
+    } as TypeResolver
+
+    RuntimeWiring wiring() {
+        wiringBuilder().build()
+    }
+
+    RuntimeWiring.Builder wiringBuilder() {
+        RuntimeWiring.newRuntimeWiring()
+                .scalar(colourScalar)
+                .type("Query", { builder -> builder.dataFetcher("things", { env -> things } as DataFetcher) })
+                .type("Mutation", { builder -> builder.dataFetcher("rename", { env -> [id: env.getArgument("id"), name: env.getArgument("name")] } as DataFetcher) })
+                .type("Node", { builder -> builder.typeResolver(typeResolver) })
+                .type("Named", { builder -> builder.typeResolver(typeResolver) })
+                .type("Thing", { builder -> builder.typeResolver(typeResolver) })
+    }
+
+    GraphQLSchema roundTrip(GraphQLSchema schema, RuntimeWiring wiring) {
+        def out = new ByteArrayOutputStream()
+        SchemaSnapshot.write(schema, out)
+        SchemaSnapshot.read(new ByteArrayInputStream(out.toByteArray()), wiring)
+    }
+
+    def "a schema read back from a snapshot prints the same as the schema it was written from"() {
+        def schema = new SchemaGenerator().makeExecutableSchema(new SchemaParser().parse(sdl), wiring())
+        def printer = new SchemaPrinter(SchemaPrinter.Options.defaultOptions().includeDirectives(true).includeSchemaDefinition(true))
+
+        when:
+        def readSchema = roundTrip(schema, wiring())
+
+        then:
+        printer.print(readSchema) == printer.print(schema)
+        readSchema.getDescription() == "The schema"
+        readSchema.getMutationType().getName() == "Mutation"
+        (readSchema.getType("Colour") as GraphQLScalarType).getSpecifiedByUrl() == "https://example.com/colour"
+        (readSchema.getType("Filter") as GraphQLInputObjectType).getField("colour").getDefaultValue().hex == "#ffffff"
+        (readSchema.getType("Filter") as GraphQLInputObjectType).getField("nested").getDefaultValue() == [limit: 5, ratio: 0.5d]
+        (readSchema.getType("Filter") as GraphQLInputObjectType).getField("note").hasSetDefaultValue()
+        (readSchema.getType("Filter") as GraphQLInputObjectType).getField("note").getDefaultValue() == null
+        !(readSchema.getType("Nested") as GraphQLInputObjectType).getField("limit").hasSetDefaultValue()
+    }
+
+    def "enum values are taken from the enum values providers of the runtime wiring"() {
+        def scopeWiring = wiringBuilder()
+                .type("Scope", { builder -> builder.enumValues({ name -> name.toLowerCase() } as EnumValuesProvider) })
+                .build()
+        def schema = new SchemaGenerator().makeExecutableSchema(new SchemaParser().parse(sdl), scopeWiring)
+
+        when:
+        def readSchema = roundTrip(schema, scopeWiring)
+
+        then:
+        (readSchema.getType("Scope") as GraphQLEnumType).getValue("PRIVATE").getValue() == "private"
+        (readSchema.getType("Filter") as GraphQLInputObjectType).getField("scope").getDefaultValue() == "public"
+        (readSchema.getType("Person") as GraphQLObjectType).getFieldDefinition("friends").getArgument("scope").getDefaultValue() == "private"
+        // Access is written before Scope, whose values its directive uses
+        (readSchema.getType("Access") as GraphQLEnumType).getDirective("visibility").getArgument("scope").getValue() == "private"
+    }
+
+    def "a schema read back from a snapshot executes with the runtime wiring"() {
+        def schema = new SchemaGenerator().makeExecutableSchema(new SchemaParser().parse(sdl), wiring())
+        def graphQL = GraphQL.newGraphQL(roundTrip(schema, wiring())).build()
+
+        when:
+        def result = graphQL.execute('''
+            {
+                things {
+                    ... on Person { id name favourite }
+                    ... on Robot { id model }
+                }
+            }
+        ''')
+
+        then:
+        result.errors.isEmpty()
+        result.data == [things: [[id: "1", name: "Ada", favourite: "#ff0000"], [id: "2", model: "R2"]]]
+
+        when:
+        result = graphQL.execute('mutation { rename(id : "3", name : "Bob") { id name } }')
+
+        then:
+        result.errors.isEmpty()
+        result.data == [rename: [id: "3", name: "Bob"]]
+    }
+
+    def "the code registry of the runtime wiring takes precedence over its type wiring"() {
+        def schema = new SchemaGenerator().makeExecutableSchema(new SchemaParser().parse(sdl), wiring())
+        def codeRegistryWiring = wiringBuilder()
+                .codeRegistry(graphql.schema.GraphQLCodeRegistry.newCodeRegistry()
+                        .dataFetcher(graphql.schema.FieldCoordinates.coordinates("Query", "things"), { env -> [things[1]] } as DataFetcher))
+                .build()
+
+        when:
+        def result = GraphQL.newGraphQL(roundTrip(schema, codeRegistryWiring)).build().execute('{ things { ... on Robot { model } } }')
+
+        then:
+        result.errors.isEmpty()
+        result.data == [things: [[model: "R2"]]]
+    }
+
+    def "a snapshot can not be read without the custom scalars it uses"() {
+        def schema = new SchemaGenerator().makeExecutableSchema(new SchemaParser().parse(sdl), wiring())
+
+        when:
+        roundTrip(schema, RuntimeWiring.newRuntimeWiring().build())
+
+        then:
+        def e = thrown(AssertException)
+        e.message == "The scalar Colour is not in the runtime wiring"
+    }
+
+    def "a stream that is not a snapshot is rejected"() {
+        when:
+        SchemaSnapshot.read(new ByteArrayInputStream("type Query { a : String }".getBytes("UTF-8")), wiring())
+
+        then:
+        def e = thrown(AssertException)
+        e.message == "The stream is not a schema snapshot"
+    }
+}
@@ -626,5 +626,148 @@ class OverlappingFieldsCanBeMergedTest extends Specification {
 
     }
 
+    def "conflicts are found in documents that spread the same fragments many times"() {
+        given:
+        def fragments = (0..<50).collect { "fragment F$it on Query { viewer { friends { ...Shared } } }" }.join("\n")
+        def query = """
+        { viewer { friends { x : name } } ${(0..<50).collect { "...F$it" }.join(" ")} }
+        fragment Shared on User { x : id }
+        $fragments
+"""
+        def schema = TestUtil.schema("""
+    type Query {
+      viewer: User
+    }
+
+    type User {
+      id: ID
+      name: String
+      friends: [User]
+    }
+""")
+        when:
+        traverse(query, schema)
+
+        then:
+        errorCollector.getErrors().size() == 1
+        errorCollector.getErrors()[0].description == "viewer: (friends: (x: they return differing types String and ID))"
+    }
+
+    def mutuallyExclusiveSchema = TestUtil.schema("""
+    type Query {
+      pet: Pet
+    }
+
+    union Pet = Dog | Cat
+
+    type Dog {
+      owner: Person
+    }
+
+    type Cat {
+      owner: Person
+    }
+
+    type Person {
+      id: String!
+      name: String
+      nickname: String
+      age: Int
+    }
+""")
+
+    def "fields of mutually exclusive parents must still have the same shape"() {
+        given:
+        def query = """
+        {
+            pet {
+                ... on Dog { owner { x : name y : name } }
+                ... on Cat { owner { x : age y : nickname } }
+            }
+        }
+"""
+        when:
+        traverse(query, mutuallyExclusiveSchema)
+
+        then:
+        errorCollector.getErrors().size() == 1
+        errorCollector.getErrors()[0].description == "owner: (x: they return differing types String and Int)"
+    }
+
+    def "fields of mutually exclusive parents must still have the same nullability"() {
+        given:
+        def query = """
+        {
+            pet {
+                ... on Dog { owner { x : name } }
+                ... on Cat { owner { x : id } }
+            }
+        }
+"""
+        when:
+        traverse(query, mutuallyExclusiveSchema)
+
+        then:
+        errorCollector.getErrors().size() == 1
+        errorCollector.getErrors()[0].description == "owner: (x: fields have different nullability shapes)"
+    }
+
+    def "fields of mutually exclusive parents spread from fragments must still have the same shape"() {
+        given:
+        def query = """
+        {
+            pet { ...DogOwner ...CatOwner }
+        }
+        fragment DogOwner on Dog { owner { x : name } }
+        fragment CatOwner on Cat { owner { x : age } }
+"""
+        when:
+        traverse(query, mutuallyExclusiveSchema)
+
+        then:
+        errorCollector.getErrors().size() == 1
+        errorCollector.getErrors()[0].description == "owner: (x: they return differing types String and Int)"
+    }
+
+    def "fields below mutually exclusive parents may still be different fields of the same shape"() {
+        given:
+        def query = """
+        {
+            pet {
+                ... on Dog { owner { x : name } }
+                ... on Cat { owner { x : nickname } }
+            }
+        }
+"""
+        when:
+        traverse(query, mutuallyExclusiveSchema)
+
+        then:
+        errorCollector.getErrors().isEmpty()
+    }
+
+    def "fragments that spread each other are compared once"() {
+        given:
+        def query = """
+        {
+            ...A
+        }
+        fragment A on Test {
+            name
+            ...B
+        }
+        fragment B on Test {
+            name: nickname
+            ...A
+        }
+        """
+        when:
+        traverse(query, null)
+
+        then:
+        errorCollector.getErrors().size() == 1
+        errorCollector.getErrors()[0].message == "Validation error of type FieldsConflict: name: name and nickname are different fields @ 'A'"
+        errorCollector.getErrors()[0].locations == [new SourceLocation(6, 13), new SourceLocation(10, 13)]
+    }
 
 }
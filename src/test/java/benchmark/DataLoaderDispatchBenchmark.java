@@ -0,0 +1,140 @@
+package benchmark;
+
+import graphql.ExecutionInput;
+import graphql.ExecutionResult;
+import graphql.GraphQL;
+import graphql.execution.instrumentation.dataloader.DataLoaderDispatcherInstrumentation;
+import graphql.schema.DataFetcher;
+import graphql.schema.GraphQLSchema;
+import graphql.schema.idl.RuntimeWiring;
+import graphql.schema.idl.SchemaGenerator;
+import graphql.schema.idl.SchemaParser;
+import org.dataloader.BatchLoader;
+import org.dataloader.DataLoader;
+import org.dataloader.DataLoaderRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static graphql.schema.idl.TypeRuntimeWiring.newTypeWiring;
+
+/**
+ * This benchmarks the {@link DataLoaderDispatcherInstrumentation} call stack tracking with a high fan out query whose
+ * leaf fields complete on many threads at once, which is where the tracking counters are contended.
+ * <p>
+ * Run it before and after changes to graphql.execution.instrumentation.dataloader.FieldLevelTrackingApproach to
+ * compare the throughput of the tracking.
+ * <p>
+ * See http://hg.openjdk.java.net/code-tools/jmh/file/tip/jmh-samples/src/main/java/org/openjdk/jmh/samples/ for more samples
+ * on what you can do with JMH
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(1)
+public class DataLoaderDispatchBenchmark {
+
+    static final int FAN_OUT = 20;
+
+    static final String SDL = "" +
+            "type Query { items : [Item] }\n" +
+            "type Item { id : Int name : String children : [Item] }";
+
+    static final String QUERY = "{ items { id name children { id name children { id name } } } }";
+
+    ExecutorService executor;
+    GraphQL graphQL;
+
+    @Setup
+    public void setup() {
+        executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+
+        DataFetcher<?> itemsFetcher = env -> items(0);
+        DataFetcher<?> nameFetcher = env -> {
+            Integer id = env.<Item>getSource().id;
+            return CompletableFuture.supplyAsync(() -> "item " + id, executor);
+        };
+        DataFetcher<?> childrenFetcher = env -> {
+            DataLoader<Integer, List<Item>> loader = env.getDataLoader("children");
+            return loader.load(env.<Item>getSource().id);
+        };
+        RuntimeWiring wiring = RuntimeWiring.newRuntimeWiring()
+                .type(newTypeWiring("Query").dataFetcher("items", itemsFetcher))
+                .type(newTypeWiring("Item").dataFetcher("name", nameFetcher).dataFetcher("children", childrenFetcher))
+                .build();
+        GraphQLSchema schema = new SchemaGenerator().makeExecutableSchema(new SchemaParser().parse(SDL), wiring);
+        graphQL = GraphQL.newGraphQL(schema)
+                .instrumentation(new DataLoaderDispatcherInstrumentation())
+                .build();
+    }
+
+    @TearDown
+    public void tearDown() {
+        executor.shutdown();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public void benchMarkFanOutThroughput(Blackhole blackhole) {
+        blackhole.consume(execute());
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    @Threads(4)
+    public void benchMarkFanOutThroughputConcurrentRequests(Blackhole blackhole) {
+        blackhole.consume(execute());
+    }
+
+    private ExecutionResult execute() {
+        BatchLoader<Integer, List<Item>> childrenLoader = ids -> CompletableFuture.supplyAsync(() -> {
+            List<List<Item>> children = new ArrayList<>(ids.size());
+            for (Integer id : ids) {
+                children.add(items(id));
+            }
+            return children;
+        }, executor);
+        DataLoaderRegistry registry = new DataLoaderRegistry().register("children", DataLoader.newDataLoader(childrenLoader));
+        ExecutionInput executionInput = ExecutionInput.newExecutionInput(QUERY).dataLoaderRegistry(registry).build();
+        return graphQL.execute(executionInput);
+    }
+
+    static List<Item> items(int parentId) {
+        List<Item> items = new ArrayList<>(FAN_OUT);
+        for (int i = 1; i <= FAN_OUT; i++) {
+            items.add(new Item(parentId * FAN_OUT + i));
+        }
+        return items;
+    }
+
+    static class Item {
+        final int id;
+
+        Item(int id) {
+            this.id = id;
+        }
+
+        public int getId() {
+            return id;
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package benchmark;
+
+import graphql.language.Document;
+import graphql.parser.Parser;
+import graphql.schema.GraphQLSchema;
+import graphql.schema.idl.RuntimeWiring;
+import graphql.schema.idl.SchemaGenerator;
+import graphql.schema.idl.SchemaParser;
+import graphql.validation.ValidationError;
+import graphql.validation.Validator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This benchmarks validating documents that are hard on the OverlappingFieldsCanBeMerged rule, as generated clients
+ * tend to send them: the same field repeated many times, and many fragments that select the same fields and spread
+ * each other.
+ * <p>
+ * See http://hg.openjdk.java.net/code-tools/jmh/file/tip/jmh-samples/src/main/java/org/openjdk/jmh/samples/ for more samples
+ * on what you can do with JMH
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(1)
+public class OverlappingFieldsCanBeMergedBenchmark {
+
+    static final String SDL = "" +
+            "type Query {\n" +
+            "    viewer : User\n" +
+            "}\n" +
+            "type User {\n" +
+            "    id : ID\n" +
+            "    name : String\n" +
+            "    friends(first : Int) : [User]\n" +
+            "}\n";
+
+    @Param({"100", "300"})
+    public int size;
+
+    GraphQLSchema schema;
+    Document repeatedFields;
+    Document fragmentFanOut;
+
+    @Setup
+    public void setup() {
+        schema = new SchemaGenerator().makeExecutableSchema(new SchemaParser().parse(SDL), RuntimeWiring.newRuntimeWiring().build());
+        repeatedFields = Parser.parse(repeatedFields(size));
+        fragmentFanOut = Parser.parse(fragmentFanOut(size));
+    }
+
+    /*
+     * { viewer { friends(first : 10) { id name } friends(first : 10) { id name } ... } }
+     */
+    static String repeatedFields(int size) {
+        StringBuilder query = new StringBuilder("{ viewer {");
+        for (int i = 0; i < size; i++) {
+            query.append(" friends(first : 10) { id name }");
+        }
+        return query.append(" } }").toString();
+    }
+
+    /*
+     * Every fragment selects the same fields, including a few of the shared fragments, and the query spreads all of them
+     */
+    static String fragmentFanOut(int size) {
+        StringBuilder query = new StringBuilder("{ viewer {");
+        for (int i = 0; i < size; i++) {
+            query.append(" ...F").append(i);
+        }
+        query.append(" } }\n");
+        for (int i = 0; i < size; i++) {
+            query.append("fragment F").append(i).append(" on User { id name friends(first : 10) {")
+                    .append(" ...Shared").append(i % 10)
+                    .append(" ...Shared").append((i + 1) % 10)
+                    .append(" } }\n");
+        }
+        for (int i = 0; i < 10; i++) {
+            query.append("fragment Shared").append(i).append(" on User { id name friends(first : 10) { id name } }\n");
+        }
+        return query.toString();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public List<ValidationError> benchMarkRepeatedFields() {
+        return new Validator().validateDocument(schema, repeatedFields);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public List<ValidationError> benchMarkFragmentFanOut() {
+        return new Validator().validateDocument(schema, fragmentFanOut);
+    }
+}
@@ -0,0 +1,95 @@
+package benchmark;
+
+import graphql.language.Document;
+import graphql.parser.Parser;
+import graphql.parser.ParserOptions;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This benchmarks parsing a query document with the ANTLR based parser and with the hand written query document parser,
+ * with and without capturing the comments and ignored chars.
+ * <p>
+ * See http://hg.openjdk.java.net/code-tools/jmh/file/tip/jmh-samples/src/main/java/org/openjdk/jmh/samples/ for more samples
+ * on what you can do with JMH
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(1)
+public class ParserBenchMark {
+
+    static final String QUERY = "" +
+            "query HeroAndFriends($episode : Episode = JEDI, $first : Int = 10, $withFriends : Boolean!) {\n" +
+            "    hero(episode : $episode) {\n" +
+            "        id\n" +
+            "        name\n" +
+            "        ...CharacterFields\n" +
+            "        friendsConnection(first : $first) @include(if : $withFriends) {\n" +
+            "            totalCount\n" +
+            "            edges {\n" +
+            "                cursor\n" +
+            "                node {\n" +
+            "                    ...CharacterFields\n" +
+            "                    ... on Droid { primaryFunction }\n" +
+            "                    ... on Human { height(unit : METER) mass }\n" +
+            "                }\n" +
+            "            }\n" +
+            "            pageInfo { startCursor endCursor hasNextPage }\n" +
+            "        }\n" +
+            "    }\n" +
+            "    search(text : \"an \\\"escaped\\\" string\", filter : {kinds : [HUMAN, DROID], minHeight : 1.5}) {\n" +
+            "        __typename\n" +
+            "        ... on Starship { name length }\n" +
+            "    }\n" +
+            "}\n" +
+            "\n" +
+            "# the fields shared by all characters\n" +
+            "fragment CharacterFields on Character {\n" +
+            "    id\n" +
+            "    name\n" +
+            "    appearsIn\n" +
+            "}\n";
+
+    @Param({"true", "false"})
+    public boolean useQueryDocumentParser;
+
+    @Param({"true", "false"})
+    public boolean captureCommentsAndIgnoredChars;
+
+    Parser parser;
+
+    @Setup
+    public void setup() {
+        parser = new Parser(ParserOptions.newParserOptions()
+                .useQueryDocumentParser(useQueryDocumentParser)
+                .captureLineComments(captureCommentsAndIgnoredChars)
+                .captureIgnoredChars(captureCommentsAndIgnoredChars)
+                .build());
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public Document benchMarkParseThroughput() {
+        return parser.parseDocument(QUERY);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public Document benchMarkParseAvgTime() {
+        return parser.parseDocument(QUERY);
+    }
+}
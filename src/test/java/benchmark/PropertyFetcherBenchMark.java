@@ -1,8 +1,10 @@
 package benchmark;
 
+import graphql.Scalars;
 import graphql.schema.DataFetchingEnvironment;
 import graphql.schema.DataFetchingEnvironmentImpl;
 import graphql.schema.PropertyDataFetcher;
+import graphql.schema.PropertyFetchingImpl;
 import org.openjdk.jmh.annotations.Benchmark;
 import org.openjdk.jmh.annotations.BenchmarkMode;
 import org.openjdk.jmh.annotations.Measurement;
@@ -14,7 +16,8 @@ import org.openjdk.jmh.infra.Blackhole;
 import java.util.concurrent.TimeUnit;
 
 /**
- * This benchmarks a simple property fetch to help improve the key class PropertyDataFetcher
+ * This benchmarks a simple property fetch to help improve the key class PropertyDataFetcher.  The accessor benchmarks
+ * compare the generated accessors with plain reflection and a direct call.
  * <p>
  * See http://hg.openjdk.java.net/code-tools/jmh/file/tip/jmh-samples/src/main/java/org/openjdk/jmh/samples/ for more samples
  * on what you can do with JMH
@@ -41,8 +44,39 @@ public class PropertyFetcherBenchMark {
         executeTest(blackhole, dfeBar);
     }
 
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public void benchMarkThroughputGeneratedAccessor(Blackhole blackhole) {
+        blackhole.consume(generatedAccessors.getPropertyValue("name", bar, Scalars.GraphQLString));
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public void benchMarkThroughputReflectiveAccessor(Blackhole blackhole) {
+        blackhole.consume(reflectiveAccessors.getPropertyValue("name", bar, Scalars.GraphQLString));
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public void benchMarkThroughputDirectCall(Blackhole blackhole) {
+        blackhole.consume(bar.getName());
+    }
+
     static PropertyDataFetcher<Object> nameFetcher = PropertyDataFetcher.fetching("name");
 
+    static Bar bar = new Bar("brad");
+    static PropertyFetchingImpl generatedAccessors = new PropertyFetchingImpl(DataFetchingEnvironment.class);
+    static PropertyFetchingImpl reflectiveAccessors = mkReflectiveAccessors();
+
+    private static PropertyFetchingImpl mkReflectiveAccessors() {
+        PropertyFetchingImpl impl = new PropertyFetchingImpl(DataFetchingEnvironment.class);
+        impl.setUseGeneratedAccessors(false);
+        return impl;
+    }
+
     static DataFetchingEnvironment dfeFoo = DataFetchingEnvironmentImpl.newDataFetchingEnvironment().source(new Foo("brad")).build();
     static DataFetchingEnvironment dfeBar = DataFetchingEnvironmentImpl.newDataFetchingEnvironment().source(new Bar("brad")).build();
 
@@ -57,7 +91,7 @@ public class PropertyFetcherBenchMark {
         }
     }
 
-    static class Bar {
+    public static class Bar {
         private final String name;
 
         Bar(String name) {